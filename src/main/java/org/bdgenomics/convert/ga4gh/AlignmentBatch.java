@@ -0,0 +1,857 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+/**
+ * Columnar batch of alignments.
+ *
+ * <p>
+ * Holds the alignment fields read by the GA4GH ReadAlignment conversion as one primitive
+ * array per field rather than one object graph per alignment.  Boolean fields are packed
+ * into a flags column, reference and read group names are dictionary coded, CIGARs are
+ * packed into an <code>int[]</code> as in BAM, and read names, sequences, and base qualities
+ * are stored as offsets into shared byte buffers, which may be allocated off-heap.
+ * </p>
+ *
+ * <p>
+ * Batches are filled from AlignmentRecords with {@link #add(AlignmentRecord)}, e.g. as read
+ * by <code>ParquetAvroReader</code>, or directly from Avro binary data without creating
+ * records with {@link AlignmentBatchDecoder}, and are converted to GA4GH ReadAlignments
+ * with the columnar converter bound in {@link Ga4ghModule}, or written directly as length-delimited
+ * ReadAlignment messages with {@link AlignmentBatchWriter}.
+ * Null fields read as false, zero, or empty.  A batch may be cleared and refilled;
+ * dictionaries and buffers are retained.
+ * </p>
+ */
+@NotThreadSafe
+public final class AlignmentBatch {
+    /** Flag for a paired read. */
+    public static final int READ_PAIRED = 1;
+
+    /** Flag for a read mapped in a proper pair. */
+    public static final int PROPER_PAIR = 1 << 1;
+
+    /** Flag for a mapped read. */
+    public static final int READ_MAPPED = 1 << 2;
+
+    /** Flag for a read mapped to the negative strand. */
+    public static final int READ_NEGATIVE_STRAND = 1 << 3;
+
+    /** Flag for a mate mapped to the negative strand. */
+    public static final int MATE_NEGATIVE_STRAND = 1 << 4;
+
+    /** Flag for a secondary alignment. */
+    public static final int SECONDARY_ALIGNMENT = 1 << 5;
+
+    /** Flag for a supplementary alignment. */
+    public static final int SUPPLEMENTARY_ALIGNMENT = 1 << 6;
+
+    /** Flag for a duplicate read. */
+    public static final int DUPLICATE_READ = 1 << 7;
+
+    /** Flag for a read that failed vendor quality checks. */
+    public static final int FAILED_VENDOR_QUALITY_CHECKS = 1 << 8;
+
+    /** Flag for a read with an inferred insert size. */
+    public static final int HAS_INFERRED_INSERT_SIZE = 1 << 9;
+
+    /** True if shared byte buffers are allocated off-heap. */
+    private final boolean direct;
+
+    /** Number of alignments. */
+    private int size;
+
+    /** Flags column. */
+    int[] flags;
+
+    /** Reference name index column, <code>-1</code> if none. */
+    int[] referenceIndexes;
+
+    /** Start column. */
+    long[] starts;
+
+    /** Mapping quality column. */
+    int[] mappingQualities;
+
+    /** Read in fragment column. */
+    int[] readInFragments;
+
+    /** Inferred insert size column. */
+    long[] inferredInsertSizes;
+
+    /** Mate reference name index column, <code>-1</code> if none. */
+    int[] mateReferenceIndexes;
+
+    /** Mate start column. */
+    long[] mateStarts;
+
+    /** Read group name index column, <code>-1</code> if none. */
+    int[] readGroupIndexes;
+
+    /** CIGAR error code column. */
+    int[] cigarErrors;
+
+    /** Offsets into packed CIGAR operations, one more than the number of alignments. */
+    int[] cigarOffsets;
+
+    /** Packed CIGAR operations. */
+    int[] cigars;
+
+    /** Offsets into read names, one more than the number of alignments. */
+    int[] readNameOffsets;
+
+    /** Offsets into sequences, one more than the number of alignments. */
+    int[] sequenceOffsets;
+
+    /** Offsets into base qualities, one more than the number of alignments. */
+    int[] qualityOffsets;
+
+    /** UTF-8 encoded read names. */
+    ByteBuffer readNames;
+
+    /** ASCII encoded sequences. */
+    ByteBuffer sequences;
+
+    /** Phred scaled base qualities. */
+    ByteBuffer qualities;
+
+    /** Malformed text CIGARs by index, for error messages. */
+    final Map<Integer, String> malformedCigars = new HashMap<Integer, String>();
+
+    /** Reference name dictionary. */
+    final Dictionary referenceNames = new Dictionary();
+
+    /** Read group name dictionary. */
+    final Dictionary readGroupNames = new Dictionary();
+
+    /** Default capacity. */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /** CIGAR operators by ordinal. */
+    private static final CigarOperator[] OPERATORS = CigarOperator.values();
+
+
+    /**
+     * Create a new alignment batch with the default capacity and shared byte buffers on-heap.
+     */
+    public AlignmentBatch() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Create a new alignment batch.
+     *
+     * @param capacity initial capacity in alignments, must be at least one; batches grow as needed
+     * @param direct true to allocate the shared byte buffers for read names, sequences,
+     *    and base qualities off-heap
+     */
+    public AlignmentBatch(final int capacity, final boolean direct) {
+        checkArgument(capacity > 0, "capacity must be at least one");
+        this.direct = direct;
+
+        flags = new int[capacity];
+        referenceIndexes = new int[capacity];
+        starts = new long[capacity];
+        mappingQualities = new int[capacity];
+        readInFragments = new int[capacity];
+        inferredInsertSizes = new long[capacity];
+        mateReferenceIndexes = new int[capacity];
+        mateStarts = new long[capacity];
+        readGroupIndexes = new int[capacity];
+        cigarErrors = new int[capacity];
+        cigarOffsets = new int[capacity + 1];
+        cigars = new int[capacity * 4];
+        readNameOffsets = new int[capacity + 1];
+        sequenceOffsets = new int[capacity + 1];
+        qualityOffsets = new int[capacity + 1];
+        readNames = allocate(capacity * 32);
+        sequences = allocate(capacity * 160);
+        qualities = allocate(capacity * 160);
+    }
+
+
+    /**
+     * Return the number of alignments in this batch.
+     *
+     * @return the number of alignments in this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return true if this batch has no alignments.
+     *
+     * @return true if this batch has no alignments
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return true if the shared byte buffers of this batch are allocated off-heap.
+     *
+     * @return true if the shared byte buffers of this batch are allocated off-heap
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Remove all alignments from this batch, retaining dictionaries and buffers.
+     */
+    public void clear() {
+        size = 0;
+        malformedCigars.clear();
+        // ByteBuffer overrides Buffer methods covariantly only since Java 9, call the Buffer methods to run on Java 8
+        ((Buffer) readNames).clear();
+        ((Buffer) sequences).clear();
+        ((Buffer) qualities).clear();
+    }
+
+    /**
+     * Add the specified alignment record to this batch.
+     *
+     * @param alignmentRecord alignment record to add, must not be null
+     */
+    public void add(final AlignmentRecord alignmentRecord) {
+        checkNotNull(alignmentRecord);
+        beginRow();
+        setFlag(READ_PAIRED, alignmentRecord.getReadPaired());
+        setFlag(PROPER_PAIR, alignmentRecord.getProperPair());
+        setFlag(READ_MAPPED, alignmentRecord.getReadMapped());
+        setFlag(READ_NEGATIVE_STRAND, alignmentRecord.getReadNegativeStrand());
+        setFlag(MATE_NEGATIVE_STRAND, alignmentRecord.getMateNegativeStrand());
+        setFlag(SECONDARY_ALIGNMENT, alignmentRecord.getSecondaryAlignment());
+        setFlag(SUPPLEMENTARY_ALIGNMENT, alignmentRecord.getSupplementaryAlignment());
+        setFlag(DUPLICATE_READ, alignmentRecord.getDuplicateRead());
+        setFlag(FAILED_VENDOR_QUALITY_CHECKS, alignmentRecord.getFailedVendorQualityChecks());
+
+        if (alignmentRecord.getContigName() != null) {
+            referenceIndexes[size] = referenceNames.index(alignmentRecord.getContigName());
+        }
+        if (alignmentRecord.getStart() != null) {
+            starts[size] = alignmentRecord.getStart();
+        }
+        if (alignmentRecord.getMapq() != null) {
+            mappingQualities[size] = alignmentRecord.getMapq();
+        }
+        if (alignmentRecord.getReadInFragment() != null) {
+            readInFragments[size] = alignmentRecord.getReadInFragment();
+        }
+        if (alignmentRecord.getInferredInsertSize() != null) {
+            setInferredInsertSize(alignmentRecord.getInferredInsertSize());
+        }
+        if (alignmentRecord.getMateContigName() != null) {
+            mateReferenceIndexes[size] = referenceNames.index(alignmentRecord.getMateContigName());
+        }
+        if (alignmentRecord.getMateAlignmentStart() != null) {
+            mateStarts[size] = alignmentRecord.getMateAlignmentStart();
+        }
+        if (alignmentRecord.getRecordGroupName() != null) {
+            readGroupIndexes[size] = readGroupNames.index(alignmentRecord.getRecordGroupName());
+        }
+        if (alignmentRecord.getReadName() != null) {
+            byte[] bytes = alignmentRecord.getReadName().getBytes(StandardCharsets.UTF_8);
+            setReadName(bytes, bytes.length);
+        }
+        if (alignmentRecord.getSequence() != null) {
+            byte[] bytes = alignmentRecord.getSequence().getBytes(StandardCharsets.US_ASCII);
+            setSequence(bytes, bytes.length);
+        }
+        if (alignmentRecord.getQual() != null) {
+            byte[] bytes = alignmentRecord.getQual().getBytes(StandardCharsets.US_ASCII);
+            setQuality(bytes, bytes.length);
+        }
+        if (alignmentRecord.getCigar() != null) {
+            byte[] bytes = alignmentRecord.getCigar().getBytes(StandardCharsets.UTF_8);
+            setCigar(bytes, bytes.length);
+        }
+        endRow();
+    }
+
+
+    /**
+     * Return the flags of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the flags of the alignment at the specified index
+     */
+    public int getFlags(final int index) {
+        checkElementIndex(index, size);
+        return flags[index];
+    }
+
+    /**
+     * Return true if the alignment at the specified index has the specified flag.
+     *
+     * @param index index
+     * @param flag flag
+     * @return true if the alignment at the specified index has the specified flag
+     */
+    public boolean hasFlag(final int index, final int flag) {
+        return (getFlags(index) & flag) != 0;
+    }
+
+    /**
+     * Return the reference name of the alignment at the specified index, if any.
+     *
+     * @param index index
+     * @return the reference name of the alignment at the specified index, or null if none
+     */
+    public String getReferenceName(final int index) {
+        checkElementIndex(index, size);
+        return referenceIndexes[index] < 0 ? null : referenceNames.get(referenceIndexes[index]);
+    }
+
+    /**
+     * Return the start of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the start of the alignment at the specified index
+     */
+    public long getStart(final int index) {
+        checkElementIndex(index, size);
+        return starts[index];
+    }
+
+    /**
+     * Return the mapping quality of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the mapping quality of the alignment at the specified index
+     */
+    public int getMappingQuality(final int index) {
+        checkElementIndex(index, size);
+        return mappingQualities[index];
+    }
+
+    /**
+     * Return the read in fragment of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the read in fragment of the alignment at the specified index
+     */
+    public int getReadInFragment(final int index) {
+        checkElementIndex(index, size);
+        return readInFragments[index];
+    }
+
+    /**
+     * Return the inferred insert size of the alignment at the specified index, if it has
+     * the <code>HAS_INFERRED_INSERT_SIZE</code> flag.
+     *
+     * @param index index
+     * @return the inferred insert size of the alignment at the specified index
+     */
+    public long getInferredInsertSize(final int index) {
+        checkElementIndex(index, size);
+        return inferredInsertSizes[index];
+    }
+
+    /**
+     * Return the mate reference name of the alignment at the specified index, if any.
+     *
+     * @param index index
+     * @return the mate reference name of the alignment at the specified index, or null if none
+     */
+    public String getMateReferenceName(final int index) {
+        checkElementIndex(index, size);
+        return mateReferenceIndexes[index] < 0 ? null : referenceNames.get(mateReferenceIndexes[index]);
+    }
+
+    /**
+     * Return the mate start of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the mate start of the alignment at the specified index
+     */
+    public long getMateStart(final int index) {
+        checkElementIndex(index, size);
+        return mateStarts[index];
+    }
+
+    /**
+     * Return the read group name of the alignment at the specified index, if any.
+     *
+     * @param index index
+     * @return the read group name of the alignment at the specified index, or null if none
+     */
+    public String getReadGroupName(final int index) {
+        checkElementIndex(index, size);
+        return readGroupIndexes[index] < 0 ? null : readGroupNames.get(readGroupIndexes[index]);
+    }
+
+    /**
+     * Return the read name of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the read name of the alignment at the specified index, empty if none
+     */
+    public String getReadName(final int index) {
+        checkElementIndex(index, size);
+        return new String(copy(readNames, readNameOffsets[index], readNameOffsets[index + 1]), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return the sequence of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the sequence of the alignment at the specified index, empty if none
+     */
+    public String getSequence(final int index) {
+        checkElementIndex(index, size);
+        return new String(copy(sequences, sequenceOffsets[index], sequenceOffsets[index + 1]), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Return the Phred scaled base qualities of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the Phred scaled base qualities of the alignment at the specified index, empty if none
+     */
+    public byte[] getQuality(final int index) {
+        checkElementIndex(index, size);
+        return copy(qualities, qualityOffsets[index], qualityOffsets[index + 1]);
+    }
+
+    /**
+     * Return the number of CIGAR operations of the alignment at the specified index.
+     *
+     * @param index index
+     * @return the number of CIGAR operations of the alignment at the specified index,
+     *    zero if none or malformed
+     */
+    public int getCigarLength(final int index) {
+        checkElementIndex(index, size);
+        return cigarOffsets[index + 1] - cigarOffsets[index];
+    }
+
+    /**
+     * Return the specified CIGAR operator of the alignment at the specified index.
+     *
+     * @param index index
+     * @param i CIGAR operation index
+     * @return the specified CIGAR operator of the alignment at the specified index
+     */
+    public CigarOperator getCigarOperator(final int index, final int i) {
+        checkElementIndex(i, getCigarLength(index));
+        return OPERATORS[cigars[cigarOffsets[index] + i] & 0xf];
+    }
+
+    /**
+     * Return the specified CIGAR operation length of the alignment at the specified index.
+     *
+     * @param index index
+     * @param i CIGAR operation index
+     * @return the specified CIGAR operation length of the alignment at the specified index
+     */
+    public int getCigarOperationLength(final int index, final int i) {
+        checkElementIndex(i, getCigarLength(index));
+        return cigars[cigarOffsets[index] + i] >>> 4;
+    }
+
+    /**
+     * Return the CIGAR error code of the alignment at the specified index, one of the
+     * <code>CigarParser</code> error codes.
+     *
+     * @param index index
+     * @return the CIGAR error code of the alignment at the specified index
+     */
+    int getCigarError(final int index) {
+        checkElementIndex(index, size);
+        return cigarErrors[index];
+    }
+
+
+    /**
+     * Begin a new alignment, with all fields null.  Fields are set with the package-private
+     * setters in any order, each at most once, and the alignment is added with <code>endRow()</code>.
+     */
+    void beginRow() {
+        ensureCapacity(size + 1);
+        flags[size] = 0;
+        referenceIndexes[size] = -1;
+        starts[size] = 0L;
+        mappingQualities[size] = 0;
+        readInFragments[size] = 0;
+        inferredInsertSizes[size] = 0L;
+        mateReferenceIndexes[size] = -1;
+        mateStarts[size] = 0L;
+        readGroupIndexes[size] = -1;
+        cigarErrors[size] = CigarParser.NULL_CIGAR;
+        cigarOffsets[size + 1] = cigarOffsets[size];
+        readNameOffsets[size + 1] = readNameOffsets[size];
+        sequenceOffsets[size + 1] = sequenceOffsets[size];
+        qualityOffsets[size + 1] = qualityOffsets[size];
+    }
+
+    /**
+     * End the current alignment and add it to this batch.
+     */
+    void endRow() {
+        size++;
+    }
+
+    /**
+     * Set the specified flag of the current alignment if the specified value is true.
+     *
+     * @param flag flag
+     * @param value value, if any
+     */
+    void setFlag(final int flag, final Boolean value) {
+        if (value != null && value) {
+            flags[size] |= flag;
+        }
+    }
+
+    /**
+     * Set the specified flag of the current alignment if the specified value is true.
+     *
+     * @param flag flag
+     * @param value value
+     */
+    void setFlag(final int flag, final boolean value) {
+        if (value) {
+            flags[size] |= flag;
+        }
+    }
+
+    /**
+     * Set the reference name of the current alignment.
+     *
+     * @param bytes UTF-8 encoded reference name
+     * @param length length of the encoded reference name in bytes
+     */
+    void setReferenceName(final byte[] bytes, final int length) {
+        referenceIndexes[size] = referenceNames.index(bytes, length);
+    }
+
+    /**
+     * Set the start of the current alignment.
+     *
+     * @param start start
+     */
+    void setStart(final long start) {
+        starts[size] = start;
+    }
+
+    /**
+     * Set the mapping quality of the current alignment.
+     *
+     * @param mappingQuality mapping quality
+     */
+    void setMappingQuality(final int mappingQuality) {
+        mappingQualities[size] = mappingQuality;
+    }
+
+    /**
+     * Set the read in fragment of the current alignment.
+     *
+     * @param readInFragment read in fragment
+     */
+    void setReadInFragment(final int readInFragment) {
+        readInFragments[size] = readInFragment;
+    }
+
+    /**
+     * Set the inferred insert size of the current alignment.
+     *
+     * @param inferredInsertSize inferred insert size
+     */
+    void setInferredInsertSize(final long inferredInsertSize) {
+        inferredInsertSizes[size] = inferredInsertSize;
+        flags[size] |= HAS_INFERRED_INSERT_SIZE;
+    }
+
+    /**
+     * Set the mate reference name of the current alignment.
+     *
+     * @param bytes UTF-8 encoded mate reference name
+     * @param length length of the encoded mate reference name in bytes
+     */
+    void setMateReferenceName(final byte[] bytes, final int length) {
+        mateReferenceIndexes[size] = referenceNames.index(bytes, length);
+    }
+
+    /**
+     * Set the mate start of the current alignment.
+     *
+     * @param mateStart mate start
+     */
+    void setMateStart(final long mateStart) {
+        mateStarts[size] = mateStart;
+    }
+
+    /**
+     * Set the read group name of the current alignment.
+     *
+     * @param bytes UTF-8 encoded read group name
+     * @param length length of the encoded read group name in bytes
+     */
+    void setReadGroupName(final byte[] bytes, final int length) {
+        readGroupIndexes[size] = readGroupNames.index(bytes, length);
+    }
+
+    /**
+     * Set the read name of the current alignment.
+     *
+     * @param bytes UTF-8 encoded read name
+     * @param length length of the encoded read name in bytes
+     */
+    void setReadName(final byte[] bytes, final int length) {
+        readNames = ensureRemaining(readNames, length);
+        readNames.put(bytes, 0, length);
+        readNameOffsets[size + 1] = readNames.position();
+    }
+
+    /**
+     * Set the sequence of the current alignment.
+     *
+     * @param bytes ASCII encoded sequence
+     * @param length length of the sequence in bytes
+     */
+    void setSequence(final byte[] bytes, final int length) {
+        sequences = ensureRemaining(sequences, length);
+        sequences.put(bytes, 0, length);
+        sequenceOffsets[size + 1] = sequences.position();
+    }
+
+    /**
+     * Set the base qualities of the current alignment from Phred+33 encoded base qualities.
+     *
+     * @param bytes Phred+33 encoded base qualities
+     * @param length length of the base qualities in bytes
+     */
+    void setQuality(final byte[] bytes, final int length) {
+        qualities = ensureRemaining(qualities, length);
+        for (int i = 0; i < length; i++) {
+            qualities.put((byte) (bytes[i] - 33));
+        }
+        qualityOffsets[size + 1] = qualities.position();
+    }
+
+    /**
+     * Set the CIGAR of the current alignment, recording an error code if the CIGAR is malformed.
+     *
+     * @param bytes UTF-8 encoded text CIGAR
+     * @param length length of the encoded text CIGAR in bytes
+     */
+    void setCigar(final byte[] bytes, final int length) {
+        int offset = cigarOffsets[size];
+        if (cigars.length < offset + length / 2) {
+            cigars = Arrays.copyOf(cigars, Math.max(cigars.length * 2, offset + length / 2));
+        }
+        int n = CigarParser.pack(bytes, length, cigars, offset);
+        if (n < 0) {
+            cigarErrors[size] = -n;
+            malformedCigars.put(size, new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+        else {
+            cigarErrors[size] = CigarParser.VALID;
+            cigarOffsets[size + 1] = offset + n;
+        }
+    }
+
+
+    /**
+     * Ensure this batch has capacity for at least the specified number of alignments.
+     *
+     * @param capacity capacity
+     */
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= flags.length) {
+            return;
+        }
+        int n = Math.max(capacity, flags.length * 2);
+        flags = Arrays.copyOf(flags, n);
+        referenceIndexes = Arrays.copyOf(referenceIndexes, n);
+        starts = Arrays.copyOf(starts, n);
+        mappingQualities = Arrays.copyOf(mappingQualities, n);
+        readInFragments = Arrays.copyOf(readInFragments, n);
+        inferredInsertSizes = Arrays.copyOf(inferredInsertSizes, n);
+        mateReferenceIndexes = Arrays.copyOf(mateReferenceIndexes, n);
+        mateStarts = Arrays.copyOf(mateStarts, n);
+        readGroupIndexes = Arrays.copyOf(readGroupIndexes, n);
+        cigarErrors = Arrays.copyOf(cigarErrors, n);
+        cigarOffsets = Arrays.copyOf(cigarOffsets, n + 1);
+        readNameOffsets = Arrays.copyOf(readNameOffsets, n + 1);
+        sequenceOffsets = Arrays.copyOf(sequenceOffsets, n + 1);
+        qualityOffsets = Arrays.copyOf(qualityOffsets, n + 1);
+    }
+
+    /**
+     * Allocate a new shared byte buffer with the specified capacity.
+     *
+     * @param capacity capacity
+     * @return a new shared byte buffer with the specified capacity
+     */
+    private ByteBuffer allocate(final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Return the specified shared byte buffer, or a larger copy of it, with at least
+     * the specified number of bytes remaining.
+     *
+     * @param buffer shared byte buffer
+     * @param remaining number of bytes remaining
+     * @return the specified shared byte buffer, or a larger copy of it
+     */
+    private ByteBuffer ensureRemaining(final ByteBuffer buffer, final int remaining) {
+        if (buffer.remaining() >= remaining) {
+            return buffer;
+        }
+        ByteBuffer larger = allocate(Math.max(buffer.capacity() * 2, buffer.position() + remaining));
+        ((Buffer) buffer).flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * Copy the specified range of the specified shared byte buffer to a new array.
+     *
+     * @param buffer shared byte buffer
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the specified range of the specified shared byte buffer copied to a new array
+     */
+    private static byte[] copy(final ByteBuffer buffer, final int start, final int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer duplicate = buffer.duplicate();
+        ((Buffer) duplicate).clear();
+        ((Buffer) duplicate).position(start);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+
+    /**
+     * Dictionary of names, each with its UTF-8 encoding.
+     */
+    static final class Dictionary {
+        /** Names by index. */
+        private final List<String> names = new ArrayList<String>();
+
+        /** UTF-8 encoded names by index. */
+        private final List<byte[]> encoded = new ArrayList<byte[]>();
+
+        /** Indexes by name. */
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        /** Index of the last name looked up by encoding, or <code>-1</code> if none. */
+        private int last = -1;
+
+
+        /**
+         * Return the index of the specified name, adding it if necessary.
+         *
+         * @param name name
+         * @return the index of the specified name
+         */
+        int index(final String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                index = names.size();
+                names.add(name);
+                encoded.add(name.getBytes(StandardCharsets.UTF_8));
+                indexes.put(name, index);
+            }
+            return index;
+        }
+
+        /**
+         * Return the index of the specified UTF-8 encoded name, adding it if necessary.
+         * Sorted input repeats the same name for long runs, so the last name looked up is
+         * compared first, without decoding.
+         *
+         * @param bytes UTF-8 encoded name
+         * @param length length of the encoded name in bytes
+         * @return the index of the specified UTF-8 encoded name
+         */
+        int index(final byte[] bytes, final int length) {
+            if (last >= 0 && equal(encoded.get(last), bytes, length)) {
+                return last;
+            }
+            last = index(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            return last;
+        }
+
+        /**
+         * Return the name at the specified index.
+         *
+         * @param index index
+         * @return the name at the specified index
+         */
+        String get(final int index) {
+            return names.get(index);
+        }
+
+        /**
+         * Return the UTF-8 encoded name at the specified index.
+         *
+         * @param index index
+         * @return the UTF-8 encoded name at the specified index
+         */
+        byte[] getEncoded(final int index) {
+            return encoded.get(index);
+        }
+
+        /**
+         * Return the number of names in this dictionary.
+         *
+         * @return the number of names in this dictionary
+         */
+        int size() {
+            return names.size();
+        }
+
+        private static boolean equal(final byte[] a, final byte[] b, final int length) {
+            if (a.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (a[i] != b[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.generic.GenericDatumReader;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+
+import org.apache.avro.util.Utf8;
+
+/**
+ * Decoder for Avro binary encoded bdg-formats AlignmentRecords directly into an alignment batch.
+ *
+ * <p>
+ * Fields are decoded in writer schema order straight into the columns of an {@link AlignmentBatch},
+ * without creating an AlignmentRecord, boxed values, or strings (other than for reference and
+ * read group names not seen before).  Fields not read by the GA4GH ReadAlignment conversion are
+ * skipped; for the fewest bytes decoded, write or project with
+ * <code>Projections.alignmentRecordProjection()</code>.
+ * </p>
+ */
+@NotThreadSafe
+public final class AlignmentBatchDecoder {
+    /** Writer schema field schemas. */
+    private final Schema[] schemas;
+
+    /** Writer schema field targets. */
+    private final int[] targets;
+
+    /** Reusable string. */
+    private Utf8 utf8 = new Utf8();
+
+    /** Reusable binary decoder. */
+    private BinaryDecoder decoder;
+
+    /** Target for fields to skip. */
+    static final int SKIP = 0;
+
+    /** Target for the contigName field. */
+    static final int CONTIG_NAME = 1;
+
+    /** Target for the start field. */
+    static final int START = 2;
+
+    /** Target for the mapq field. */
+    static final int MAPQ = 3;
+
+    /** Target for the readInFragment field. */
+    static final int READ_IN_FRAGMENT = 4;
+
+    /** Target for the inferredInsertSize field. */
+    static final int INFERRED_INSERT_SIZE = 5;
+
+    /** Target for the mateContigName field. */
+    static final int MATE_CONTIG_NAME = 6;
+
+    /** Target for the mateAlignmentStart field. */
+    static final int MATE_ALIGNMENT_START = 7;
+
+    /** Target for the recordGroupName field. */
+    static final int RECORD_GROUP_NAME = 8;
+
+    /** Target for the readName field. */
+    static final int READ_NAME = 9;
+
+    /** Target for the sequence field. */
+    static final int SEQUENCE = 10;
+
+    /** Target for the qual field. */
+    static final int QUAL = 11;
+
+    /** Target for the cigar field. */
+    static final int CIGAR = 12;
+
+    /** Offset of targets for boolean fields, or'd with the flag to set. */
+    static final int FLAG = 1 << 16;
+
+
+    /**
+     * Create a new alignment batch decoder for the specified writer schema.
+     *
+     * @param schema AlignmentRecord writer schema, or a projection of it, must not be null
+     */
+    public AlignmentBatchDecoder(final Schema schema) {
+        checkNotNull(schema);
+        checkArgument(schema.getType() == Schema.Type.RECORD, "schema must be a record schema");
+
+        List<Schema.Field> fields = schema.getFields();
+        schemas = new Schema[fields.size()];
+        targets = new int[fields.size()];
+        for (int i = 0, size = fields.size(); i < size; i++) {
+            schemas[i] = fields.get(i).schema();
+            targets[i] = target(fields.get(i).name());
+        }
+    }
+
+
+    /**
+     * Decode the next record from the specified decoder into the specified alignment batch.
+     *
+     * @param decoder decoder to read from, must not be null
+     * @param batch alignment batch to add the decoded record to, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void decode(final Decoder decoder, final AlignmentBatch batch) throws IOException {
+        checkNotNull(decoder);
+        checkNotNull(batch);
+        batch.beginRow();
+        for (int i = 0; i < schemas.length; i++) {
+            decode(decoder, schemas[i], targets[i], batch);
+        }
+        batch.endRow();
+    }
+
+    /**
+     * Decompress and decode all records in the specified Avro container block into the specified
+     * alignment batch.  The block must have been read from a container with the writer schema
+     * of this decoder.
+     *
+     * @param block Avro container block to decode, must not be null
+     * @param batch alignment batch to add the decoded records to, must not be null
+     * @return the number of records decoded
+     * @throws IOException if an I/O error occurs or the block could not be decompressed
+     */
+    public long decode(final AvroBlock block, final AlignmentBatch batch) throws IOException {
+        checkNotNull(block);
+        checkNotNull(batch);
+        decoder = DecoderFactory.get().binaryDecoder(block.decompress(), decoder);
+        for (long i = 0L; i < block.getCount(); i++) {
+            decode(decoder, batch);
+        }
+        return block.getCount();
+    }
+
+    /**
+     * Decode a value of the specified schema into the specified target column of the
+     * current alignment of the specified alignment batch.
+     *
+     * @param decoder decoder to read from
+     * @param schema schema of the value
+     * @param target target column
+     * @param batch alignment batch
+     * @throws IOException if an I/O error occurs
+     */
+    private void decode(final Decoder decoder, final Schema schema, final int target, final AlignmentBatch batch) throws IOException {
+        if (target == SKIP) {
+            GenericDatumReader.skip(schema, decoder);
+            return;
+        }
+        switch (schema.getType()) {
+            case UNION:
+                decode(decoder, schema.getTypes().get(decoder.readIndex()), target, batch);
+                break;
+            case NULL:
+                decoder.readNull();
+                break;
+            case BOOLEAN:
+                boolean b = decoder.readBoolean();
+                if ((target & FLAG) != 0) {
+                    batch.setFlag(target & ~FLAG, b);
+                }
+                break;
+            case INT:
+                int i = decoder.readInt();
+                if (target == MAPQ) {
+                    batch.setMappingQuality(i);
+                }
+                else if (target == READ_IN_FRAGMENT) {
+                    batch.setReadInFragment(i);
+                }
+                break;
+            case LONG:
+                long l = decoder.readLong();
+                if (target == START) {
+                    batch.setStart(l);
+                }
+                else if (target == MATE_ALIGNMENT_START) {
+                    batch.setMateStart(l);
+                }
+                else if (target == INFERRED_INSERT_SIZE) {
+                    batch.setInferredInsertSize(l);
+                }
+                break;
+            case STRING:
+                utf8 = decoder.readString(utf8);
+                decodeString(utf8.getBytes(), utf8.getByteLength(), target, batch);
+                break;
+            default:
+                GenericDatumReader.skip(schema, decoder);
+                break;
+        }
+    }
+
+    /**
+     * Decode the specified UTF-8 encoded string into the specified target column of the
+     * current alignment of the specified alignment batch.
+     *
+     * @param bytes UTF-8 encoded string
+     * @param length length of the encoded string in bytes
+     * @param target target column
+     * @param batch alignment batch
+     */
+    private static void decodeString(final byte[] bytes, final int length, final int target, final AlignmentBatch batch) {
+        switch (target) {
+            case CONTIG_NAME:
+                batch.setReferenceName(bytes, length);
+                break;
+            case MATE_CONTIG_NAME:
+                batch.setMateReferenceName(bytes, length);
+                break;
+            case RECORD_GROUP_NAME:
+                batch.setReadGroupName(bytes, length);
+                break;
+            case READ_NAME:
+                batch.setReadName(bytes, length);
+                break;
+            case SEQUENCE:
+                batch.setSequence(bytes, length);
+                break;
+            case QUAL:
+                batch.setQuality(bytes, length);
+                break;
+            case CIGAR:
+                batch.setCigar(bytes, length);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Return the target column for the specified AlignmentRecord field name.
+     *
+     * @param name AlignmentRecord field name
+     * @return the target column for the specified AlignmentRecord field name
+     */
+    static int target(final String name) {
+        switch (name) {
+            case "contigName":
+                return CONTIG_NAME;
+            case "start":
+                return START;
+            case "mapq":
+                return MAPQ;
+            case "readInFragment":
+                return READ_IN_FRAGMENT;
+            case "inferredInsertSize":
+                return INFERRED_INSERT_SIZE;
+            case "mateContigName":
+                return MATE_CONTIG_NAME;
+            case "mateAlignmentStart":
+                return MATE_ALIGNMENT_START;
+            case "recordGroupName":
+                return RECORD_GROUP_NAME;
+            case "readName":
+                return READ_NAME;
+            case "sequence":
+                return SEQUENCE;
+            case "qual":
+                return QUAL;
+            case "cigar":
+                return CIGAR;
+            case "readPaired":
+                return FLAG | AlignmentBatch.READ_PAIRED;
+            case "properPair":
+                return FLAG | AlignmentBatch.PROPER_PAIR;
+            case "readMapped":
+                return FLAG | AlignmentBatch.READ_MAPPED;
+            case "readNegativeStrand":
+                return FLAG | AlignmentBatch.READ_NEGATIVE_STRAND;
+            case "mateNegativeStrand":
+                return FLAG | AlignmentBatch.MATE_NEGATIVE_STRAND;
+            case "secondaryAlignment":
+                return FLAG | AlignmentBatch.SECONDARY_ALIGNMENT;
+            case "supplementaryAlignment":
+                return FLAG | AlignmentBatch.SUPPLEMENTARY_ALIGNMENT;
+            case "duplicateRead":
+                return FLAG | AlignmentBatch.DUPLICATE_READ;
+            case "failedVendorQualityChecks":
+                return FLAG | AlignmentBatch.FAILED_VENDOR_QUALITY_CHECKS;
+            default:
+                return SKIP;
+        }
+    }
+}
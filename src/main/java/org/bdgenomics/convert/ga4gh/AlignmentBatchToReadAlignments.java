@@ -0,0 +1,636 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.IOException;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.base.Preconditions;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import ga4gh.Common.Position;
+import ga4gh.Common.Strand;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.CigarUnit.Operation;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.Converter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert a columnar alignment batch to a list of GA4GH ReadAlignments.
+ *
+ * <p>
+ * Produces the same ReadAlignments as converting each alignment record with
+ * <code>AlignmentRecordToReadAlignment</code>.  For bulk export, {@link #writeDelimitedTo}
+ * writes length-delimited ReadAlignment messages directly from the columns of the batch,
+ * without building messages, in tight loops over primitive arrays.
+ * </p>
+ */
+@Immutable
+final class AlignmentBatchToReadAlignments extends AbstractConverter<AlignmentBatch, List<ReadAlignment>> {
+    /** Convert htsjdk CigarOperator to GA4GH CigarUnit Operation. */
+    private final Converter<CigarOperator, Operation> operatorConverter;
+
+    /** Quality score binning, if any. */
+    private final QualityScoreBinning qualityScoreBinning;
+
+    /** Read group dictionary, if any. */
+    private final ReadGroupDictionary readGroups;
+
+    /** CIGAR operators by ordinal. */
+    private static final CigarOperator[] OPERATORS = CigarOperator.values();
+
+    /** UTF-8 encoded default read group id. */
+    private static final byte[] ENCODED_DEFAULT_READ_GROUP_ID = ReadGroupDictionary.DEFAULT_READ_GROUP_ID.getBytes(StandardCharsets.UTF_8);
+
+    /** Length-delimited wire type. */
+    private static final int LENGTH_DELIMITED = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+
+    /**
+     * Convert a columnar alignment batch to a list of GA4GH ReadAlignments.
+     *
+     * @param operatorConverter cigar operator converter, must not be null
+     */
+    AlignmentBatchToReadAlignments(final Converter<CigarOperator, Operation> operatorConverter) {
+        this(operatorConverter, null);
+    }
+
+    /**
+     * Convert a columnar alignment batch to a list of GA4GH ReadAlignments, binning base
+     * qualities with the specified quality score binning scheme.
+     *
+     * @param operatorConverter cigar operator converter, must not be null
+     * @param qualityScoreBinning quality score binning, if any; null for lossless conversion
+     */
+    AlignmentBatchToReadAlignments(final Converter<CigarOperator, Operation> operatorConverter,
+                                   final QualityScoreBinning qualityScoreBinning) {
+        this(operatorConverter, qualityScoreBinning, null);
+    }
+
+    /**
+     * Convert a columnar alignment batch to a list of GA4GH ReadAlignments, binning base
+     * qualities with the specified quality score binning scheme and sharing read group ids
+     * with the read groups in the specified read group dictionary.
+     *
+     * @param operatorConverter cigar operator converter, must not be null
+     * @param qualityScoreBinning quality score binning, if any; null for lossless conversion
+     * @param readGroups read group dictionary, if any
+     */
+    AlignmentBatchToReadAlignments(final Converter<CigarOperator, Operation> operatorConverter,
+                                   final QualityScoreBinning qualityScoreBinning,
+                                   final ReadGroupDictionary readGroups) {
+        super(AlignmentBatch.class, List.class);
+        checkNotNull(operatorConverter);
+        this.operatorConverter = operatorConverter;
+        this.qualityScoreBinning = qualityScoreBinning;
+        this.readGroups = readGroups;
+    }
+
+
+    @Override
+    public List<ReadAlignment> convert(final AlignmentBatch batch,
+                                       final ConversionStringency stringency,
+                                       final Logger logger) throws ConversionException {
+
+        if (batch == null) {
+            warnOrThrow(batch, "must not be null", null, stringency, logger);
+            return null;
+        }
+        Operation[] operations = operations(stringency, logger);
+        String[] readGroupIds = readGroupIds(batch);
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>(batch.size());
+        for (int i = 0, size = batch.size(); i < size; i++) {
+            int flags = batch.flags[i];
+            ReadAlignment.Builder builder = ReadAlignment.newBuilder()
+                .setAlignedSequenceBytes(bytes(batch.sequences, batch.sequenceOffsets[i], batch.sequenceOffsets[i + 1]))
+                .setDuplicateFragment((flags & AlignmentBatch.DUPLICATE_READ) != 0)
+                .setFailedVendorQualityChecks((flags & AlignmentBatch.FAILED_VENDOR_QUALITY_CHECKS) != 0)
+                .setFragmentNameBytes(bytes(batch.readNames, batch.readNameOffsets[i], batch.readNameOffsets[i + 1]))
+                .setImproperPlacement((flags & AlignmentBatch.PROPER_PAIR) == 0)
+                .setNumberReads((flags & AlignmentBatch.READ_PAIRED) != 0 ? 2 : 1)
+                .setReadGroupId(batch.readGroupIndexes[i] < 0 ? ReadGroupDictionary.DEFAULT_READ_GROUP_ID : readGroupIds[batch.readGroupIndexes[i]])
+                .setReadNumber(batch.readInFragments[i])
+                .setSecondaryAlignment((flags & AlignmentBatch.SECONDARY_ALIGNMENT) != 0)
+                .setSupplementaryAlignment((flags & AlignmentBatch.SUPPLEMENTARY_ALIGNMENT) != 0);
+
+            if ((flags & AlignmentBatch.HAS_INFERRED_INSERT_SIZE) != 0) {
+                builder.setFragmentLength((int) batch.inferredInsertSizes[i]);
+            }
+            if (batch.mateReferenceIndexes[i] >= 0) {
+                builder.setNextMatePosition(Position.newBuilder()
+                    .setReferenceNameBytes(ByteString.copyFrom(batch.referenceNames.getEncoded(batch.mateReferenceIndexes[i])))
+                    .setPosition(batch.mateStarts[i])
+                    .setStrand((flags & AlignmentBatch.MATE_NEGATIVE_STRAND) != 0 ? Strand.NEG_STRAND : Strand.POS_STRAND));
+            }
+            for (int q = batch.qualityOffsets[i], end = batch.qualityOffsets[i + 1]; q < end; q++) {
+                builder.addAlignedQuality(quality(batch.qualities.get(q)));
+            }
+            if ((flags & AlignmentBatch.READ_MAPPED) != 0) {
+                LinearAlignment.Builder alignmentBuilder = LinearAlignment.newBuilder()
+                    .setPosition(Position.newBuilder()
+                                 .setReferenceNameBytes(ByteString.copyFrom(referenceName(batch, i)))
+                                 .setPosition(batch.starts[i])
+                                 .setStrand((flags & AlignmentBatch.READ_NEGATIVE_STRAND) != 0 ? Strand.NEG_STRAND : Strand.POS_STRAND))
+                    .setMappingQuality(batch.mappingQualities[i]);
+
+                if (checkCigar(batch, i, stringency, logger)) {
+                    for (int c = batch.cigarOffsets[i], end = batch.cigarOffsets[i + 1]; c < end; c++) {
+                        alignmentBuilder.addCigar(CigarUnit.newBuilder()
+                            .setOperationLength(batch.cigars[c] >>> 4)
+                            .setOperation(operations[batch.cigars[c] & 0xf]));
+                    }
+                }
+                builder.setAlignment(alignmentBuilder);
+            }
+            readAlignments.add(builder.build());
+        }
+        return readAlignments;
+    }
+
+    /**
+     * Write the alignments in the specified batch to the specified coded output stream as
+     * length-delimited ReadAlignment messages, as if by converting each and calling
+     * <code>writeDelimitedTo</code>, without building messages.
+     *
+     * @param batch alignment batch to write, must not be null
+     * @param output coded output stream to write to, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if a cigar could not be decoded and stringency is strict
+     */
+    void writeDelimitedTo(final AlignmentBatch batch,
+                          final CodedOutputStream output,
+                          final ConversionStringency stringency,
+                          final Logger logger) throws IOException, ConversionException {
+        Preconditions.checkNotNull(batch);
+        Preconditions.checkNotNull(output);
+        Operation[] operationValues = operations(stringency, logger);
+        int[] operations = new int[operationValues.length];
+        for (int o = 0; o < operations.length; o++) {
+            operations[o] = operationValues[o] == null ? 0 : operationValues[o].getNumber();
+        }
+        byte[] scratch = new byte[256];
+        for (int i = 0, size = batch.size(); i < size; i++) {
+            int flags = batch.flags[i];
+            boolean mapped = (flags & AlignmentBatch.READ_MAPPED) != 0;
+            boolean cigar = mapped && checkCigar(batch, i, stringency, logger);
+            byte[] readGroupId = readGroupId(batch, i);
+            int readNameLength = batch.readNameOffsets[i + 1] - batch.readNameOffsets[i];
+            int sequenceLength = batch.sequenceOffsets[i + 1] - batch.sequenceOffsets[i];
+            int qualitySize = qualitySize(batch, i);
+            int alignmentSize = mapped ? alignmentSize(batch, i, cigar, operations) : 0;
+            int mateSize = batch.mateReferenceIndexes[i] >= 0 ? mateSize(batch, i) : 0;
+
+            int messageSize = stringSize(ReadAlignment.READ_GROUP_ID_FIELD_NUMBER, readGroupId.length)
+                + stringSize(ReadAlignment.FRAGMENT_NAME_FIELD_NUMBER, readNameLength)
+                + boolSize(ReadAlignment.IMPROPER_PLACEMENT_FIELD_NUMBER, (flags & AlignmentBatch.PROPER_PAIR) == 0)
+                + boolSize(ReadAlignment.DUPLICATE_FRAGMENT_FIELD_NUMBER, (flags & AlignmentBatch.DUPLICATE_READ) != 0)
+                + CodedOutputStream.computeInt32Size(ReadAlignment.NUMBER_READS_FIELD_NUMBER, (flags & AlignmentBatch.READ_PAIRED) != 0 ? 2 : 1)
+                + ((flags & AlignmentBatch.HAS_INFERRED_INSERT_SIZE) != 0 ? int32Size(ReadAlignment.FRAGMENT_LENGTH_FIELD_NUMBER, (int) batch.inferredInsertSizes[i]) : 0)
+                + int32Size(ReadAlignment.READ_NUMBER_FIELD_NUMBER, batch.readInFragments[i])
+                + boolSize(ReadAlignment.FAILED_VENDOR_QUALITY_CHECKS_FIELD_NUMBER, (flags & AlignmentBatch.FAILED_VENDOR_QUALITY_CHECKS) != 0)
+                + (mapped ? messageSize(ReadAlignment.ALIGNMENT_FIELD_NUMBER, alignmentSize) : 0)
+                + boolSize(ReadAlignment.SECONDARY_ALIGNMENT_FIELD_NUMBER, (flags & AlignmentBatch.SECONDARY_ALIGNMENT) != 0)
+                + boolSize(ReadAlignment.SUPPLEMENTARY_ALIGNMENT_FIELD_NUMBER, (flags & AlignmentBatch.SUPPLEMENTARY_ALIGNMENT) != 0)
+                + stringSize(ReadAlignment.ALIGNED_SEQUENCE_FIELD_NUMBER, sequenceLength)
+                + (qualitySize > 0 ? messageSize(ReadAlignment.ALIGNED_QUALITY_FIELD_NUMBER, qualitySize) : 0)
+                + (batch.mateReferenceIndexes[i] >= 0 ? messageSize(ReadAlignment.NEXT_MATE_POSITION_FIELD_NUMBER, mateSize) : 0);
+
+            output.writeUInt32NoTag(messageSize);
+            writeString(output, ReadAlignment.READ_GROUP_ID_FIELD_NUMBER, readGroupId);
+            if (readNameLength > 0) {
+                output.writeTag(ReadAlignment.FRAGMENT_NAME_FIELD_NUMBER, LENGTH_DELIMITED);
+                output.writeUInt32NoTag(readNameLength);
+                scratch = writeRawBytes(output, batch.readNames, batch.readNameOffsets[i], readNameLength, scratch);
+            }
+            if ((flags & AlignmentBatch.PROPER_PAIR) == 0) {
+                output.writeBool(ReadAlignment.IMPROPER_PLACEMENT_FIELD_NUMBER, true);
+            }
+            if ((flags & AlignmentBatch.DUPLICATE_READ) != 0) {
+                output.writeBool(ReadAlignment.DUPLICATE_FRAGMENT_FIELD_NUMBER, true);
+            }
+            output.writeInt32(ReadAlignment.NUMBER_READS_FIELD_NUMBER, (flags & AlignmentBatch.READ_PAIRED) != 0 ? 2 : 1);
+            if ((flags & AlignmentBatch.HAS_INFERRED_INSERT_SIZE) != 0 && (int) batch.inferredInsertSizes[i] != 0) {
+                output.writeInt32(ReadAlignment.FRAGMENT_LENGTH_FIELD_NUMBER, (int) batch.inferredInsertSizes[i]);
+            }
+            if (batch.readInFragments[i] != 0) {
+                output.writeInt32(ReadAlignment.READ_NUMBER_FIELD_NUMBER, batch.readInFragments[i]);
+            }
+            if ((flags & AlignmentBatch.FAILED_VENDOR_QUALITY_CHECKS) != 0) {
+                output.writeBool(ReadAlignment.FAILED_VENDOR_QUALITY_CHECKS_FIELD_NUMBER, true);
+            }
+            if (mapped) {
+                output.writeTag(ReadAlignment.ALIGNMENT_FIELD_NUMBER, LENGTH_DELIMITED);
+                output.writeUInt32NoTag(alignmentSize);
+                writeAlignment(output, batch, i, cigar, operations);
+            }
+            if ((flags & AlignmentBatch.SECONDARY_ALIGNMENT) != 0) {
+                output.writeBool(ReadAlignment.SECONDARY_ALIGNMENT_FIELD_NUMBER, true);
+            }
+            if ((flags & AlignmentBatch.SUPPLEMENTARY_ALIGNMENT) != 0) {
+                output.writeBool(ReadAlignment.SUPPLEMENTARY_ALIGNMENT_FIELD_NUMBER, true);
+            }
+            if (sequenceLength > 0) {
+                output.writeTag(ReadAlignment.ALIGNED_SEQUENCE_FIELD_NUMBER, LENGTH_DELIMITED);
+                output.writeUInt32NoTag(sequenceLength);
+                scratch = writeRawBytes(output, batch.sequences, batch.sequenceOffsets[i], sequenceLength, scratch);
+            }
+            if (qualitySize > 0) {
+                output.writeTag(ReadAlignment.ALIGNED_QUALITY_FIELD_NUMBER, LENGTH_DELIMITED);
+                output.writeUInt32NoTag(qualitySize);
+                for (int q = batch.qualityOffsets[i], end = batch.qualityOffsets[i + 1]; q < end; q++) {
+                    output.writeInt32NoTag(quality(batch.qualities.get(q)));
+                }
+            }
+            if (batch.mateReferenceIndexes[i] >= 0) {
+                output.writeTag(ReadAlignment.NEXT_MATE_POSITION_FIELD_NUMBER, LENGTH_DELIMITED);
+                output.writeUInt32NoTag(mateSize);
+                writePosition(output, batch.referenceNames.getEncoded(batch.mateReferenceIndexes[i]), batch.mateStarts[i],
+                              (flags & AlignmentBatch.MATE_NEGATIVE_STRAND) != 0);
+            }
+        }
+    }
+
+    /**
+     * Return the GA4GH CigarUnit Operations, indexed by htsjdk CigarOperator ordinal.
+     *
+     * @param stringency conversion stringency
+     * @param logger logger
+     * @return the GA4GH CigarUnit Operations, indexed by htsjdk CigarOperator ordinal
+     */
+    private Operation[] operations(final ConversionStringency stringency, final Logger logger) {
+        Operation[] operations = new Operation[OPERATORS.length];
+        for (CigarOperator operator : OPERATORS) {
+            operations[operator.ordinal()] = operatorConverter.convert(operator, stringency, logger);
+        }
+        return operations;
+    }
+
+    /**
+     * Return true if the cigar of the alignment at the specified index was decoded, otherwise
+     * warn or throw according to the specified stringency and return false.
+     *
+     * @param batch alignment batch
+     * @param index index
+     * @param stringency conversion stringency
+     * @param logger logger
+     * @return true if the cigar of the alignment at the specified index was decoded
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    private boolean checkCigar(final AlignmentBatch batch,
+                               final int index,
+                               final ConversionStringency stringency,
+                               final Logger logger) throws ConversionException {
+        int error = batch.cigarErrors[index];
+        if (error == CigarParser.VALID) {
+            return true;
+        }
+        // only format a message if it might be thrown, logged, or recorded
+        if (stringency != ConversionStringency.SILENT || ConversionEvents.isWarningEnabled()) {
+            String message = "could not decode cigar, " + CigarParser.describe(error, batch.malformedCigars.get(index));
+            ConversionEvents.warning(AlignmentBatchToReadAlignments.class, message, stringency);
+            warnOrThrow(batch, message, null, stringency, logger);
+        }
+        return false;
+    }
+
+    /**
+     * Return the specified Phred scaled base quality, binned if a quality score binning scheme was specified.
+     *
+     * @param quality Phred scaled base quality
+     * @return the specified Phred scaled base quality, binned if a quality score binning scheme was specified
+     */
+    private int quality(final int quality) {
+        return qualityScoreBinning == null ? quality : qualityScoreBinning.bin(quality);
+    }
+
+    /**
+     * Return the packed size of the base qualities of the alignment at the specified index.
+     *
+     * @param batch alignment batch
+     * @param index index
+     * @return the packed size of the base qualities of the alignment at the specified index
+     */
+    private int qualitySize(final AlignmentBatch batch, final int index) {
+        int size = 0;
+        for (int q = batch.qualityOffsets[index], end = batch.qualityOffsets[index + 1]; q < end; q++) {
+            size += CodedOutputStream.computeInt32SizeNoTag(quality(batch.qualities.get(q)));
+        }
+        return size;
+    }
+
+    /**
+     * Return the size of the linear alignment of the alignment at the specified index.
+     *
+     * @param batch alignment batch
+     * @param index index
+     * @param cigar true to include cigar units
+     * @param operations GA4GH CigarUnit Operation numbers, indexed by htsjdk CigarOperator ordinal
+     * @return the size of the linear alignment of the alignment at the specified index
+     */
+    private static int alignmentSize(final AlignmentBatch batch, final int index, final boolean cigar, final int[] operations) {
+        int size = messageSize(LinearAlignment.POSITION_FIELD_NUMBER,
+                               positionSize(referenceName(batch, index), batch.starts[index],
+                                            (batch.flags[index] & AlignmentBatch.READ_NEGATIVE_STRAND) != 0))
+            + int32Size(LinearAlignment.MAPPING_QUALITY_FIELD_NUMBER, batch.mappingQualities[index]);
+        if (cigar) {
+            for (int c = batch.cigarOffsets[index], end = batch.cigarOffsets[index + 1]; c < end; c++) {
+                size += messageSize(LinearAlignment.CIGAR_FIELD_NUMBER, cigarUnitSize(batch.cigars[c], operations));
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Write the linear alignment of the alignment at the specified index.
+     *
+     * @param output coded output stream
+     * @param batch alignment batch
+     * @param index index
+     * @param cigar true to include cigar units
+     * @param operations GA4GH CigarUnit Operation numbers, indexed by htsjdk CigarOperator ordinal
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeAlignment(final CodedOutputStream output,
+                                       final AlignmentBatch batch,
+                                       final int index,
+                                       final boolean cigar,
+                                       final int[] operations) throws IOException {
+        byte[] referenceName = referenceName(batch, index);
+        boolean negativeStrand = (batch.flags[index] & AlignmentBatch.READ_NEGATIVE_STRAND) != 0;
+        output.writeTag(LinearAlignment.POSITION_FIELD_NUMBER, LENGTH_DELIMITED);
+        output.writeUInt32NoTag(positionSize(referenceName, batch.starts[index], negativeStrand));
+        writePosition(output, referenceName, batch.starts[index], negativeStrand);
+        if (batch.mappingQualities[index] != 0) {
+            output.writeInt32(LinearAlignment.MAPPING_QUALITY_FIELD_NUMBER, batch.mappingQualities[index]);
+        }
+        if (cigar) {
+            for (int c = batch.cigarOffsets[index], end = batch.cigarOffsets[index + 1]; c < end; c++) {
+                int operation = operations[batch.cigars[c] & 0xf];
+                int operationLength = batch.cigars[c] >>> 4;
+                output.writeTag(LinearAlignment.CIGAR_FIELD_NUMBER, LENGTH_DELIMITED);
+                output.writeUInt32NoTag(cigarUnitSize(batch.cigars[c], operations));
+                if (operation != 0) {
+                    output.writeEnum(CigarUnit.OPERATION_FIELD_NUMBER, operation);
+                }
+                if (operationLength != 0) {
+                    output.writeInt64(CigarUnit.OPERATION_LENGTH_FIELD_NUMBER, operationLength);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the size of the specified packed CIGAR operation as a cigar unit.
+     *
+     * @param packed packed CIGAR operation
+     * @param operations GA4GH CigarUnit Operation numbers, indexed by htsjdk CigarOperator ordinal
+     * @return the size of the specified packed CIGAR operation as a cigar unit
+     */
+    private static int cigarUnitSize(final int packed, final int[] operations) {
+        int operation = operations[packed & 0xf];
+        int operationLength = packed >>> 4;
+        return (operation != 0 ? CodedOutputStream.computeEnumSize(CigarUnit.OPERATION_FIELD_NUMBER, operation) : 0)
+            + (operationLength != 0 ? CodedOutputStream.computeInt64Size(CigarUnit.OPERATION_LENGTH_FIELD_NUMBER, operationLength) : 0);
+    }
+
+    /**
+     * Return the size of the next mate position of the alignment at the specified index.
+     *
+     * @param batch alignment batch
+     * @param index index
+     * @return the size of the next mate position of the alignment at the specified index
+     */
+    private static int mateSize(final AlignmentBatch batch, final int index) {
+        return positionSize(batch.referenceNames.getEncoded(batch.mateReferenceIndexes[index]), batch.mateStarts[index],
+                            (batch.flags[index] & AlignmentBatch.MATE_NEGATIVE_STRAND) != 0);
+    }
+
+    /**
+     * Return the size of a position.
+     *
+     * @param referenceName UTF-8 encoded reference name
+     * @param position position
+     * @param negativeStrand true if on the negative strand
+     * @return the size of a position
+     */
+    private static int positionSize(final byte[] referenceName, final long position, final boolean negativeStrand) {
+        int strand = negativeStrand ? Strand.NEG_STRAND.getNumber() : Strand.POS_STRAND.getNumber();
+        return stringSize(Position.REFERENCE_NAME_FIELD_NUMBER, referenceName.length)
+            + (position != 0L ? CodedOutputStream.computeInt64Size(Position.POSITION_FIELD_NUMBER, position) : 0)
+            + (strand != 0 ? CodedOutputStream.computeEnumSize(Position.STRAND_FIELD_NUMBER, strand) : 0);
+    }
+
+    /**
+     * Write the fields of a position.
+     *
+     * @param output coded output stream
+     * @param referenceName UTF-8 encoded reference name
+     * @param position position
+     * @param negativeStrand true if on the negative strand
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writePosition(final CodedOutputStream output,
+                                      final byte[] referenceName,
+                                      final long position,
+                                      final boolean negativeStrand) throws IOException {
+        int strand = negativeStrand ? Strand.NEG_STRAND.getNumber() : Strand.POS_STRAND.getNumber();
+        writeString(output, Position.REFERENCE_NAME_FIELD_NUMBER, referenceName);
+        if (position != 0L) {
+            output.writeInt64(Position.POSITION_FIELD_NUMBER, position);
+        }
+        if (strand != 0) {
+            output.writeEnum(Position.STRAND_FIELD_NUMBER, strand);
+        }
+    }
+
+    /**
+     * Return the UTF-8 encoded reference name of the alignment at the specified index, empty if none.
+     *
+     * @param batch alignment batch
+     * @param index index
+     * @return the UTF-8 encoded reference name of the alignment at the specified index, empty if none
+     */
+    private static byte[] referenceName(final AlignmentBatch batch, final int index) {
+        return batch.referenceIndexes[index] < 0 ? new byte[0] : batch.referenceNames.getEncoded(batch.referenceIndexes[index]);
+    }
+
+    /**
+     * Return the read group ids of the specified batch, indexed by read group name dictionary
+     * index, resolved once per batch.
+     *
+     * @param batch alignment batch
+     * @return the read group ids of the specified batch, indexed by read group name dictionary index
+     */
+    private String[] readGroupIds(final AlignmentBatch batch) {
+        String[] readGroupIds = new String[batch.readGroupNames.size()];
+        for (int i = 0; i < readGroupIds.length; i++) {
+            String name = batch.readGroupNames.get(i);
+            if (readGroups != null) {
+                readGroupIds[i] = readGroups.readGroupId(name);
+            }
+            else {
+                readGroupIds[i] = name.isEmpty() ? ReadGroupDictionary.DEFAULT_READ_GROUP_ID : name;
+            }
+        }
+        return readGroupIds;
+    }
+
+    /**
+     * Return the UTF-8 encoded read group id of the alignment at the specified index.
+     *
+     * @param batch alignment batch
+     * @param index index
+     * @return the UTF-8 encoded read group id of the alignment at the specified index
+     */
+    private static byte[] readGroupId(final AlignmentBatch batch, final int index) {
+        if (batch.readGroupIndexes[index] < 0) {
+            return ENCODED_DEFAULT_READ_GROUP_ID;
+        }
+        byte[] readGroupId = batch.readGroupNames.getEncoded(batch.readGroupIndexes[index]);
+        return readGroupId.length == 0 ? ENCODED_DEFAULT_READ_GROUP_ID : readGroupId;
+    }
+
+    /**
+     * Return the specified range of the specified shared byte buffer as a byte string.
+     *
+     * @param buffer shared byte buffer
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the specified range of the specified shared byte buffer as a byte string
+     */
+    private static ByteString bytes(final ByteBuffer buffer, final int start, final int end) {
+        ByteBuffer duplicate = buffer.duplicate();
+        // ByteBuffer overrides Buffer methods covariantly only since Java 9, call the Buffer methods to run on Java 8
+        ((Buffer) duplicate).clear();
+        ((Buffer) duplicate).position(start);
+        ((Buffer) duplicate).limit(end);
+        return ByteString.copyFrom(duplicate);
+    }
+
+    /**
+     * Write the specified range of the specified shared byte buffer as raw bytes.
+     *
+     * @param output coded output stream
+     * @param buffer shared byte buffer
+     * @param start start offset
+     * @param length number of bytes to write
+     * @param scratch scratch array for off-heap buffers
+     * @return the scratch array, or a larger replacement
+     * @throws IOException if an I/O error occurs
+     */
+    private static byte[] writeRawBytes(final CodedOutputStream output,
+                                        final ByteBuffer buffer,
+                                        final int start,
+                                        final int length,
+                                        final byte[] scratch) throws IOException {
+        if (buffer.hasArray()) {
+            output.writeRawBytes(buffer.array(), buffer.arrayOffset() + start, length);
+            return scratch;
+        }
+        byte[] bytes = scratch.length >= length ? scratch : new byte[Math.max(length, scratch.length * 2)];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        output.writeRawBytes(bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Write the specified UTF-8 encoded string field, if not empty.
+     *
+     * @param output coded output stream
+     * @param fieldNumber field number
+     * @param bytes UTF-8 encoded string
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeString(final CodedOutputStream output, final int fieldNumber, final byte[] bytes) throws IOException {
+        if (bytes.length > 0) {
+            output.writeTag(fieldNumber, LENGTH_DELIMITED);
+            output.writeUInt32NoTag(bytes.length);
+            output.writeRawBytes(bytes);
+        }
+    }
+
+    /**
+     * Return the size of a string field of the specified length, zero if empty.
+     *
+     * @param fieldNumber field number
+     * @param length length of the encoded string in bytes
+     * @return the size of a string field of the specified length, zero if empty
+     */
+    private static int stringSize(final int fieldNumber, final int length) {
+        return length == 0 ? 0 : messageSize(fieldNumber, length);
+    }
+
+    /**
+     * Return the size of a length-delimited field with the specified content size.
+     *
+     * @param fieldNumber field number
+     * @param size content size
+     * @return the size of a length-delimited field with the specified content size
+     */
+    private static int messageSize(final int fieldNumber, final int size) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    /**
+     * Return the size of a bool field, zero if false.
+     *
+     * @param fieldNumber field number
+     * @param value value
+     * @return the size of a bool field, zero if false
+     */
+    private static int boolSize(final int fieldNumber, final boolean value) {
+        return value ? CodedOutputStream.computeBoolSize(fieldNumber, true) : 0;
+    }
+
+    /**
+     * Return the size of an int32 field, zero if zero.
+     *
+     * @param fieldNumber field number
+     * @param value value
+     * @return the size of an int32 field, zero if zero
+     */
+    private static int int32Size(final int fieldNumber, final int value) {
+        return value == 0 ? 0 : CodedOutputStream.computeInt32Size(fieldNumber, value);
+    }
+}
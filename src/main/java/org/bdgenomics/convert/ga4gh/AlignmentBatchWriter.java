@@ -0,0 +1,127 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.protobuf.CodedOutputStream;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.slf4j.Logger;
+
+/**
+ * Writer for length-delimited GA4GH ReadAlignment messages from columnar alignment batches.
+ *
+ * <p>
+ * Output is identical to converting each alignment record and calling
+ * <code>ReadAlignment.writeDelimitedTo</code>, and may be read back with
+ * <code>ReadAlignment.parseDelimitedFrom</code>.  Messages are encoded directly from
+ * the columns of each {@link AlignmentBatch}, without building intermediate objects.
+ * </p>
+ */
+@NotThreadSafe
+public final class AlignmentBatchWriter implements Closeable, Flushable {
+    /** Output stream. */
+    private final OutputStream outputStream;
+
+    /** Coded output stream. */
+    private final CodedOutputStream output;
+
+    /** Columnar alignment batch converter. */
+    private final AlignmentBatchToReadAlignments converter;
+
+    /** Conversion stringency. */
+    private final ConversionStringency stringency;
+
+    /** Logger. */
+    private final Logger logger;
+
+
+    /**
+     * Create a new alignment batch writer.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     */
+    public AlignmentBatchWriter(final OutputStream outputStream,
+                                final ConversionStringency stringency,
+                                final Logger logger) {
+        this(outputStream, stringency, logger, null);
+    }
+
+    /**
+     * Create a new alignment batch writer, binning base qualities with the specified
+     * quality score binning scheme.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param qualityScoreBinning quality score binning, if any; null for lossless conversion
+     */
+    public AlignmentBatchWriter(final OutputStream outputStream,
+                                final ConversionStringency stringency,
+                                final Logger logger,
+                                final QualityScoreBinning qualityScoreBinning) {
+        checkNotNull(outputStream);
+        checkNotNull(stringency);
+        checkNotNull(logger);
+        this.outputStream = outputStream;
+        this.stringency = stringency;
+        this.logger = logger;
+        output = CodedOutputStream.newInstance(outputStream, 64 * 1024);
+        converter = new AlignmentBatchToReadAlignments(new CigarOperatorToOperation(), qualityScoreBinning);
+    }
+
+
+    /**
+     * Write the alignments in the specified batch.
+     *
+     * @param batch alignment batch to write, must not be null
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if a cigar could not be decoded and stringency is strict
+     */
+    public void write(final AlignmentBatch batch) throws IOException, ConversionException {
+        converter.writeDelimitedTo(batch, output, stringency, logger);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert bgd-formats AlignmentRecord to a lazy view of GA4GH ReadAlignment.
+ */
+@Immutable
+final class AlignmentRecordToLazyReadAlignment extends AbstractConverter<AlignmentRecord, LazyReadAlignment> {
+    /** Convert bgd-formats AlignmentRecord to GA4GH ReadAlignment. */
+    private final AlignmentRecordToReadAlignment alignmentConverter;
+
+    /**
+     * Convert bgd-formats AlignmentRecord to a lazy view of GA4GH ReadAlignment.
+     *
+     * @param alignmentConverter alignment converter, must not be null
+     */
+    AlignmentRecordToLazyReadAlignment(final AlignmentRecordToReadAlignment alignmentConverter) {
+        super(AlignmentRecord.class, LazyReadAlignment.class);
+        checkNotNull(alignmentConverter);
+        this.alignmentConverter = alignmentConverter;
+    }
+
+
+    @Override
+    public LazyReadAlignment convert(final AlignmentRecord alignmentRecord,
+                                     final ConversionStringency stringency,
+                                     final Logger logger) throws ConversionException {
+
+        if (alignmentRecord == null) {
+            warnOrThrow(alignmentRecord, "must not be null", null, stringency, logger);
+            return null;
+        }
+        return new LazyReadAlignment(alignmentRecord, alignmentConverter, stringency, logger);
+    }
+}
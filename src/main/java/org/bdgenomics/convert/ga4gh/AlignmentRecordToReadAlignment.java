@@ -32,7 +32,6 @@ import ga4gh.Reads.LinearAlignment;
 import ga4gh.Reads.ReadAlignment;
 
 import htsjdk.samtools.Cigar;
-import htsjdk.samtools.TextCigarCodec;
 
 import org.bdgenomics.convert.AbstractConverter;
 import org.bdgenomics.convert.Converter;
@@ -51,15 +50,50 @@ final class AlignmentRecordToReadAlignment extends AbstractConverter<AlignmentRe
     /** Convert htsjdk Cigar to a list of GA4GH CigarUnits. */
     private final Converter<Cigar, List<CigarUnit>> cigarConverter;
 
+    /** Quality score binning, if any. */
+    private final QualityScoreBinning qualityScoreBinning;
+
+    /** Read group dictionary, if any. */
+    private final ReadGroupDictionary readGroups;
+
     /**
      * Convert bgd-formats AlignmentRecord to GA4GH ReadAlignment.
      *
      * @param cigarConverter cigar converter, must not be null
      */
     AlignmentRecordToReadAlignment(final Converter<Cigar, List<CigarUnit>> cigarConverter) {
+        this(cigarConverter, null);
+    }
+
+    /**
+     * Convert bgd-formats AlignmentRecord to GA4GH ReadAlignment, binning base
+     * qualities with the specified quality score binning scheme.
+     *
+     * @param cigarConverter cigar converter, must not be null
+     * @param qualityScoreBinning quality score binning, if any; null for lossless conversion
+     */
+    AlignmentRecordToReadAlignment(final Converter<Cigar, List<CigarUnit>> cigarConverter,
+                                   final QualityScoreBinning qualityScoreBinning) {
+        this(cigarConverter, qualityScoreBinning, null);
+    }
+
+    /**
+     * Convert bgd-formats AlignmentRecord to GA4GH ReadAlignment, binning base
+     * qualities with the specified quality score binning scheme and sharing read
+     * group ids with the read groups in the specified read group dictionary.
+     *
+     * @param cigarConverter cigar converter, must not be null
+     * @param qualityScoreBinning quality score binning, if any; null for lossless conversion
+     * @param readGroups read group dictionary, if any
+     */
+    AlignmentRecordToReadAlignment(final Converter<Cigar, List<CigarUnit>> cigarConverter,
+                                   final QualityScoreBinning qualityScoreBinning,
+                                   final ReadGroupDictionary readGroups) {
         super(AlignmentRecord.class, ReadAlignment.class);
         checkNotNull(cigarConverter);
         this.cigarConverter = cigarConverter;
+        this.qualityScoreBinning = qualityScoreBinning;
+        this.readGroups = readGroups;
     }
 
 
@@ -72,64 +106,170 @@ final class AlignmentRecordToReadAlignment extends AbstractConverter<AlignmentRe
             warnOrThrow(alignmentRecord, "must not be null", null, stringency, logger);
             return null;
         }
+        long startNanos = ConversionEvents.beginRecord();
         ReadAlignment.Builder builder = ReadAlignment.newBuilder()
-            .setAlignedSequence(alignmentRecord.getSequence())
             .setDuplicateFragment(alignmentRecord.getDuplicateRead())
             .setFailedVendorQualityChecks(alignmentRecord.getFailedVendorQualityChecks())
-            .setFragmentName(alignmentRecord.getReadName())
             .setImproperPlacement(!alignmentRecord.getProperPair())
             .setNumberReads(alignmentRecord.getReadPaired() ? 2 : 1)
-            .setReadGroupId(isNotEmpty(alignmentRecord.getRecordGroupName()) ? alignmentRecord.getRecordGroupName() : "1")
+            .setReadGroupId(convertReadGroupId(alignmentRecord))
             .setReadNumber(alignmentRecord.getReadInFragment())
             .setSecondaryAlignment(alignmentRecord.getSecondaryAlignment())
             .setSupplementaryAlignment(alignmentRecord.getSupplementaryAlignment());
 
+        // read name and sequence may be outside a projection narrowed by a field mask
+        if (alignmentRecord.getReadName() != null) {
+            builder.setFragmentName(alignmentRecord.getReadName());
+        }
+
+        if (alignmentRecord.getSequence() != null) {
+            builder.setAlignedSequence(alignmentRecord.getSequence());
+        }
+
         if (alignmentRecord.getInferredInsertSize() != null) {
             builder.setFragmentLength(alignmentRecord.getInferredInsertSize().intValue());
         }
 
         if (alignmentRecord.getMateContigName() != null) {
-            Position matePosition = Position.newBuilder()
-                .setReferenceName(alignmentRecord.getMateContigName())
-                .setPosition(alignmentRecord.getMateAlignmentStart())
-                .setStrand(alignmentRecord.getMateNegativeStrand() ? Strand.NEG_STRAND : Strand.POS_STRAND)
-                .build();
-
-            builder.setNextMatePosition(matePosition);
+            builder.setNextMatePosition(convertMatePosition(alignmentRecord));
         }
 
         if (isNotEmpty(alignmentRecord.getQual())) {
-            List<Integer> alignedQuality = new ArrayList<Integer>(alignmentRecord.getQual().length());
-            for (char c : alignmentRecord.getQual().toCharArray()) {
-                alignedQuality.add(((int) c) - 33);
-            }
-            builder.addAllAlignedQuality(alignedQuality);
+            builder.addAllAlignedQuality(convertAlignedQuality(alignmentRecord));
         }
 
         if (alignmentRecord.getReadMapped()) {
-            Position position = Position.newBuilder()
-                .setReferenceName(alignmentRecord.getContigName())
-                .setPosition(alignmentRecord.getStart())
-                .setStrand(alignmentRecord.getReadNegativeStrand() ? Strand.NEG_STRAND : Strand.POS_STRAND)
-                .build();
-
-            LinearAlignment.Builder alignmentBuilder = LinearAlignment.newBuilder()
-                .setPosition(position)
-                .setMappingQuality(alignmentRecord.getMapq());
-
-            Cigar cigar = null;
-            try {
-                cigar = TextCigarCodec.decode(alignmentRecord.getCigar());
+            builder.setAlignment(convertAlignment(alignmentRecord, stringency, logger));
+        }
+        ReadAlignment readAlignment = builder.build();
+        ConversionEvents.endRecord(startNanos, AlignmentRecordToReadAlignment.class, alignmentRecord.getReadName(), alignmentRecord.getCigar());
+        return readAlignment;
+    }
+
+    /**
+     * Convert the read group id of the specified alignment record.
+     *
+     * @param alignmentRecord alignment record, must not be null
+     * @return the read group id of the specified alignment record
+     */
+    String convertReadGroupId(final AlignmentRecord alignmentRecord) {
+        if (readGroups != null) {
+            return readGroups.readGroupId(alignmentRecord.getRecordGroupName());
+        }
+        return isNotEmpty(alignmentRecord.getRecordGroupName()) ? alignmentRecord.getRecordGroupName() : ReadGroupDictionary.DEFAULT_READ_GROUP_ID;
+    }
+
+    /**
+     * Convert the mate position of the specified alignment record.
+     *
+     * @param alignmentRecord alignment record with mate contig name, must not be null
+     * @return the mate position of the specified alignment record
+     */
+    Position convertMatePosition(final AlignmentRecord alignmentRecord) {
+        return Position.newBuilder()
+            .setReferenceName(alignmentRecord.getMateContigName())
+            .setPosition(alignmentRecord.getMateAlignmentStart())
+            .setStrand(alignmentRecord.getMateNegativeStrand() ? Strand.NEG_STRAND : Strand.POS_STRAND)
+            .build();
+    }
+
+    /**
+     * Convert the base qualities of the specified alignment record, binning
+     * them if a quality score binning scheme was specified.
+     *
+     * @param alignmentRecord alignment record with non-empty qual, must not be null
+     * @return the base qualities of the specified alignment record
+     */
+    List<Integer> convertAlignedQuality(final AlignmentRecord alignmentRecord) {
+        List<Integer> alignedQuality = new ArrayList<Integer>(alignmentRecord.getQual().length());
+        if (qualityScoreBinning == null) {
+            for (char c : alignmentRecord.getQual().toCharArray()) {
+                alignedQuality.add(((int) c) - 33);
             }
-            catch (RuntimeException e) { // sigh ...
-                warnOrThrow(alignmentRecord, "could not decode cigar, caught " + e.getMessage(), e, stringency, logger);
+        }
+        else {
+            for (char c : alignmentRecord.getQual().toCharArray()) {
+                alignedQuality.add(qualityScoreBinning.bin(((int) c) - 33));
             }
-            if (cigar != null) {
-                alignmentBuilder.addAllCigar(cigarConverter.convert(cigar, stringency, logger));
+        }
+        return alignedQuality;
+    }
+
+    /**
+     * Convert the position of the specified mapped alignment record.
+     *
+     * @param alignmentRecord mapped alignment record, must not be null
+     * @return the position of the specified mapped alignment record
+     */
+    Position convertPosition(final AlignmentRecord alignmentRecord) {
+        return Position.newBuilder()
+            .setReferenceName(alignmentRecord.getContigName())
+            .setPosition(alignmentRecord.getStart())
+            .setStrand(alignmentRecord.getReadNegativeStrand() ? Strand.NEG_STRAND : Strand.POS_STRAND)
+            .build();
+    }
+
+    /**
+     * Convert the cigar of the specified mapped alignment record.
+     *
+     * @param alignmentRecord mapped alignment record, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @return the cigar of the specified mapped alignment record, or null if
+     *    the cigar could not be decoded and stringency is not strict
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    List<CigarUnit> convertCigar(final AlignmentRecord alignmentRecord,
+                                 final ConversionStringency stringency,
+                                 final Logger logger) throws ConversionException {
+        Cigar cigar = CigarParser.parse(alignmentRecord.getCigar());
+        if (cigar == null) {
+            // only format a message if it might be thrown, logged, or recorded
+            if (stringency != ConversionStringency.SILENT || ConversionEvents.isWarningEnabled()) {
+                int error = CigarParser.validate(alignmentRecord.getCigar());
+                String message = "could not decode cigar, " + CigarParser.describe(error, alignmentRecord.getCigar());
+                ConversionEvents.warning(AlignmentRecordToReadAlignment.class, message, stringency);
+                warnOrThrow(alignmentRecord, message, null, stringency, logger);
             }
+            return null;
+        }
+        return cigarConverter.convert(cigar, stringency, logger);
+    }
+
+    /**
+     * Convert the linear alignment of the specified mapped alignment record.
+     *
+     * @param alignmentRecord mapped alignment record, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @return the linear alignment of the specified mapped alignment record
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    LinearAlignment convertAlignment(final AlignmentRecord alignmentRecord,
+                                     final ConversionStringency stringency,
+                                     final Logger logger) throws ConversionException {
+        return convertAlignment(alignmentRecord, convertPosition(alignmentRecord), convertCigar(alignmentRecord, stringency, logger));
+    }
+
+    /**
+     * Convert the linear alignment of the specified mapped alignment record from
+     * previously converted position and cigar.
+     *
+     * @param alignmentRecord mapped alignment record, must not be null
+     * @param position converted position, must not be null
+     * @param cigarUnits converted cigar, if any
+     * @return the linear alignment of the specified mapped alignment record
+     */
+    LinearAlignment convertAlignment(final AlignmentRecord alignmentRecord,
+                                     final Position position,
+                                     final List<CigarUnit> cigarUnits) {
+        LinearAlignment.Builder alignmentBuilder = LinearAlignment.newBuilder()
+            .setPosition(position)
+            .setMappingQuality(alignmentRecord.getMapq());
 
-            builder.setAlignment(alignmentBuilder.build());
+        if (cigarUnits != null) {
+            alignmentBuilder.addAllCigar(cigarUnits);
         }
-        return builder.build();
+        return alignmentBuilder.build();
     }
 }
@@ -0,0 +1,197 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.reactivestreams.Processor;
+
+import org.slf4j.Logger;
+
+/**
+ * Non-blocking asynchronous facade over a converter.
+ *
+ * <p>
+ * Conversions run on the specified executor and results are returned as
+ * <code>CompletableFuture</code>s, so that callers on event loop threads do not block.
+ * Lists of records are converted in batches, one task per batch, to reduce per-record
+ * scheduling overhead.  If a conversion error occurs and stringency is strict, the
+ * future completes exceptionally with the <code>ConversionException</code>.
+ * </p>
+ *
+ * @param <S> source type
+ * @param <T> target type
+ */
+@ThreadSafe
+public final class AsyncConverter<S, T> {
+    /** Converter. */
+    private final Converter<S, T> converter;
+
+    /** Conversion stringency. */
+    private final ConversionStringency stringency;
+
+    /** Logger. */
+    private final Logger logger;
+
+    /** Executor. */
+    private final Executor executor;
+
+    /** Number of records per batch. */
+    private final int batchSize;
+
+
+    /**
+     * Create a new asynchronous converter.
+     *
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param executor executor to run conversions on, must not be null
+     * @param batchSize number of records per batch, must be at least one
+     */
+    public AsyncConverter(final Converter<S, T> converter,
+                          final ConversionStringency stringency,
+                          final Logger logger,
+                          final Executor executor,
+                          final int batchSize) {
+        checkNotNull(converter);
+        checkNotNull(stringency);
+        checkNotNull(logger);
+        checkNotNull(executor);
+        checkArgument(batchSize > 0, "batchSize must be at least one");
+        this.converter = converter;
+        this.stringency = stringency;
+        this.logger = logger;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+
+    /**
+     * Convert the specified source asynchronously.
+     *
+     * @param source source to convert
+     * @return a future for the converted target, which may complete with null if the
+     *    source could not be converted and stringency is not strict
+     */
+    public CompletableFuture<T> convert(final S source) {
+        return CompletableFuture.supplyAsync(new Supplier<T>() {
+                @Override
+                public T get() {
+                    return converter.convert(source, stringency, logger);
+                }
+            }, executor);
+    }
+
+    /**
+     * Convert the specified sources asynchronously, in batches.
+     *
+     * @param sources sources to convert, must not be null
+     * @return a future for the converted targets, in the same order as the specified sources,
+     *    with null in place of any source that could not be converted if stringency is not strict
+     */
+    public CompletableFuture<List<T>> convert(final List<S> sources) {
+        checkNotNull(sources);
+        if (sources.size() <= batchSize) {
+            return convertBatch(sources);
+        }
+        final List<CompletableFuture<List<T>>> batches = new ArrayList<CompletableFuture<List<T>>>();
+        for (int start = 0, size = sources.size(); start < size; start += batchSize) {
+            batches.add(convertBatch(sources.subList(start, Math.min(size, start + batchSize))));
+        }
+        final int size = sources.size();
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[batches.size()]))
+            .thenApply(new Function<Void, List<T>>() {
+                    @Override
+                    public List<T> apply(final Void ignored) {
+                        List<T> targets = new ArrayList<T>(size);
+                        for (CompletableFuture<List<T>> batch : batches) {
+                            targets.addAll(batch.join());
+                        }
+                        return targets;
+                    }
+                });
+    }
+
+    /**
+     * Create a new Reactive Streams processor that converts records from an upstream publisher
+     * for a downstream subscriber, honoring downstream demand.
+     *
+     * @return a new Reactive Streams processor over this asynchronous converter
+     */
+    public Processor<S, T> processor() {
+        return new ConversionProcessor<S, T>(this);
+    }
+
+    /**
+     * Create a new Reactive Streams processor that converts records from an upstream publisher
+     * for a downstream subscriber, honoring downstream demand, and submitting a partial batch
+     * for conversion once its first record has waited for the specified flush delay.
+     *
+     * @param flushDelay flush delay for a partial batch, must be at least zero
+     * @param unit flush delay time unit, must not be null
+     * @return a new Reactive Streams processor over this asynchronous converter
+     */
+    public Processor<S, T> processor(final long flushDelay, final TimeUnit unit) {
+        return new ConversionProcessor<S, T>(this, flushDelay, unit);
+    }
+
+    /**
+     * Return the number of records per batch.
+     *
+     * @return the number of records per batch
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Convert the specified batch of sources asynchronously, as a single task.
+     *
+     * @param batch batch of sources to convert
+     * @return a future for the converted batch
+     */
+    CompletableFuture<List<T>> convertBatch(final List<S> batch) {
+        return CompletableFuture.supplyAsync(new Supplier<List<T>>() {
+                @Override
+                public List<T> get() {
+                    List<T> targets = new ArrayList<T>(batch.size());
+                    for (S source : batch) {
+                        targets.add(converter.convert(source, stringency, logger));
+                    }
+                    return targets;
+                }
+            }, executor);
+    }
+}
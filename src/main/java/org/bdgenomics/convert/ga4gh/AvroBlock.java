@@ -0,0 +1,165 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.xerial.snappy.Snappy;
+
+/**
+ * Raw, still compressed block of records from an Avro container file.
+ */
+@Immutable
+public final class AvroBlock {
+    /** Byte offset of the start of this block in the container file. */
+    private final long offset;
+
+    /** Byte offset of the end of this block, including its sync marker, in the container file. */
+    private final long endOffset;
+
+    /** Number of records in this block. */
+    private final long count;
+
+    /** Compressed block data. */
+    private final byte[] data;
+
+    /** Codec name. */
+    private final String codec;
+
+
+    /**
+     * Create a new Avro block.
+     *
+     * @param offset byte offset of the start of this block in the container file
+     * @param endOffset byte offset of the end of this block, including its sync marker
+     * @param count number of records in this block
+     * @param data compressed block data
+     * @param codec codec name
+     */
+    AvroBlock(final long offset, final long endOffset, final long count, final byte[] data, final String codec) {
+        this.offset = offset;
+        this.endOffset = endOffset;
+        this.count = count;
+        this.data = data;
+        this.codec = codec;
+    }
+
+
+    /**
+     * Return the byte offset of the start of this block in the container file.
+     *
+     * @return the byte offset of the start of this block in the container file
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Return the byte offset of the end of this block, including its sync marker,
+     * in the container file.
+     *
+     * @return the byte offset of the end of this block in the container file
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Return the number of records in this block.
+     *
+     * @return the number of records in this block
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Return the compressed data for this block.  The returned array is not copied and
+     * must not be modified.
+     *
+     * @return the compressed data for this block
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Return the codec name for this block.
+     *
+     * @return the codec name for this block
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * Decompress the data for this block.
+     *
+     * @return the decompressed data for this block
+     * @throws IOException if the data could not be decompressed or the codec is not supported
+     */
+    public byte[] decompress() throws IOException {
+        if ("null".equals(codec)) {
+            return data;
+        }
+        else if ("deflate".equals(codec)) {
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(data);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length * 4);
+                byte[] buffer = new byte[64 * 1024];
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(buffer);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    outputStream.write(buffer, 0, n);
+                }
+                return outputStream.toByteArray();
+            }
+            catch (DataFormatException e) {
+                throw new IOException("could not inflate block at offset " + offset, e);
+            }
+            finally {
+                inflater.end();
+            }
+        }
+        else if ("snappy".equals(codec)) {
+            // Avro snappy blocks are followed by a four byte big endian CRC32 of the uncompressed data
+            int length = data.length - 4;
+            byte[] uncompressed = new byte[Snappy.uncompressedLength(data, 0, length)];
+            Snappy.uncompress(data, 0, length, uncompressed, 0);
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(uncompressed, 0, uncompressed.length);
+            int expected = ((data[length] & 0xff) << 24) | ((data[length + 1] & 0xff) << 16) | ((data[length + 2] & 0xff) << 8) | (data[length + 3] & 0xff);
+            if ((int) crc32.getValue() != expected) {
+                throw new IOException("checksum failure for snappy block at offset " + offset);
+            }
+            return uncompressed;
+        }
+        throw new IOException("codec " + codec + " not supported");
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+/**
+ * Reader for the raw, still compressed blocks of an Avro container file.
+ *
+ * <p>
+ * The container header is parsed on construction.  Each call to {@link #readBlock()}
+ * reads the record count, size, and data for the next block and verifies the sync
+ * marker that follows it, without decompressing or decoding any records.
+ * </p>
+ */
+@NotThreadSafe
+public final class AvroBlockReader implements Closeable {
+    /** Avro container file magic bytes. */
+    private static final byte[] MAGIC = new byte[] { (byte) 'O', (byte) 'b', (byte) 'j', (byte) 1 };
+
+    /** Sync marker length. */
+    private static final int SYNC_LENGTH = 16;
+
+    /** Input stream. */
+    private final CountingInputStream inputStream;
+
+    /** Writer schema. */
+    private final Schema schema;
+
+    /** Codec name. */
+    private final String codec;
+
+    /** Sync marker. */
+    private final byte[] sync;
+
+    /** Header metadata. */
+    private final Map<String, byte[]> metadata;
+
+
+    /**
+     * Create a new Avro block reader and read the container header from the specified
+     * input stream.  The input stream should be buffered.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @throws IOException if an I/O error occurs or the container header is not valid
+     */
+    public AvroBlockReader(final InputStream inputStream) throws IOException {
+        checkNotNull(inputStream);
+        this.inputStream = new CountingInputStream(inputStream);
+
+        // direct binary decoder does not read ahead, so the count remains accurate
+        BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(this.inputStream, null);
+        byte[] magic = new byte[MAGIC.length];
+        decoder.readFixed(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("not an Avro container file");
+        }
+
+        Map<String, byte[]> map = new HashMap<String, byte[]>();
+        for (long n = decoder.readMapStart(); n != 0L; n = decoder.mapNext()) {
+            for (long i = 0L; i < n; i++) {
+                String key = decoder.readString();
+                ByteBuffer value = decoder.readBytes(null);
+                byte[] bytes = new byte[value.remaining()];
+                value.get(bytes);
+                map.put(key, bytes);
+            }
+        }
+        metadata = Collections.unmodifiableMap(map);
+
+        sync = new byte[SYNC_LENGTH];
+        decoder.readFixed(sync);
+
+        byte[] schemaBytes = metadata.get("avro.schema");
+        if (schemaBytes == null) {
+            throw new IOException("container header missing avro.schema");
+        }
+        schema = new Schema.Parser().parse(new String(schemaBytes, StandardCharsets.UTF_8));
+
+        byte[] codecBytes = metadata.get("avro.codec");
+        codec = codecBytes == null ? "null" : new String(codecBytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Return the writer schema from the container header.
+     *
+     * @return the writer schema from the container header
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Return the codec name from the container header.
+     *
+     * @return the codec name from the container header
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * Return the metadata from the container header.
+     *
+     * @return the metadata from the container header
+     */
+    public Map<String, byte[]> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Return the number of bytes read so far, that is the byte offset of the next block.
+     *
+     * @return the number of bytes read so far
+     */
+    public long getOffset() {
+        return inputStream.getCount();
+    }
+
+    /**
+     * Skip forward to the specified offset, typically the offset or end offset of a
+     * block previously read from the same container file.
+     *
+     * @param offset offset to skip to, must be greater than or equal to the current offset
+     * @throws IOException if an I/O error occurs or the end of the container file is reached
+     */
+    public void skipTo(final long offset) throws IOException {
+        checkArgument(offset >= inputStream.getCount(), "offset must be greater than or equal to the current offset");
+        ByteStreams.skipFully(inputStream, offset - inputStream.getCount());
+    }
+
+    /**
+     * Read the next block, or return null if the end of the container file has been reached.
+     *
+     * @return the next block, or null if the end of the container file has been reached
+     * @throws IOException if an I/O error occurs or the sync marker following the block does not match
+     */
+    public AvroBlock readBlock() throws IOException {
+        long offset = inputStream.getCount();
+        int first = inputStream.read();
+        if (first < 0) {
+            return null;
+        }
+        long count = readLong(first);
+        long size = readLong(inputStream.read());
+        if (count < 0L || size < 0L || size > Integer.MAX_VALUE) {
+            throw new IOException("invalid block header at offset " + offset);
+        }
+        byte[] data = new byte[(int) size];
+        ByteStreams.readFully(inputStream, data);
+
+        byte[] blockSync = new byte[SYNC_LENGTH];
+        ByteStreams.readFully(inputStream, blockSync);
+        if (!Arrays.equals(sync, blockSync)) {
+            throw new IOException("invalid sync marker following block at offset " + offset);
+        }
+        return new AvroBlock(offset, inputStream.getCount(), count, data, codec);
+    }
+
+    /**
+     * Read a zig-zag encoded variable length long, the first byte of which has already been read.
+     *
+     * @param first first byte
+     * @return the decoded long
+     * @throws IOException if an I/O error occurs
+     */
+    private long readLong(final int first) throws IOException {
+        int b = first;
+        long value = 0L;
+        int shift = 0;
+        while (true) {
+            if (b < 0) {
+                throw new EOFException("unexpected end of container file");
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("invalid variable length long");
+            }
+            b = inputStream.read();
+        }
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
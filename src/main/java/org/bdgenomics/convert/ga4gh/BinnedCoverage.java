@@ -0,0 +1,225 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import java.util.stream.Collector;
+
+import javax.annotation.concurrent.Immutable;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Per-reference coverage in fixed-size bins, as the number of aligned bases
+ * (CIGAR alignment match, sequence match, and sequence mismatch) in each bin.
+ */
+@Immutable
+public final class BinnedCoverage {
+    /** Bin size. */
+    private final int binSize;
+
+    /** Aligned bases per bin, keyed by reference name. */
+    private final Map<String, long[]> alignedBases;
+
+
+    /**
+     * Create a new binned coverage.
+     *
+     * @param binSize bin size
+     * @param alignedBases aligned bases per bin, keyed by reference name
+     */
+    private BinnedCoverage(final int binSize, final Map<String, long[]> alignedBases) {
+        this.binSize = binSize;
+        Map<String, long[]> copy = new HashMap<String, long[]>(alignedBases.size());
+        for (Map.Entry<String, long[]> entry : alignedBases.entrySet()) {
+            long[] bases = entry.getValue();
+            int length = bases.length;
+            while (length > 0 && bases[length - 1] == 0L) {
+                length--;
+            }
+            copy.put(entry.getKey(), Arrays.copyOf(bases, length));
+        }
+        this.alignedBases = Collections.unmodifiableMap(copy);
+    }
+
+
+    /**
+     * Return the bin size for this binned coverage.
+     *
+     * @return the bin size for this binned coverage
+     */
+    public int getBinSize() {
+        return binSize;
+    }
+
+    /**
+     * Return the reference names with coverage.
+     *
+     * @return the reference names with coverage
+     */
+    public Set<String> getReferenceNames() {
+        return alignedBases.keySet();
+    }
+
+    /**
+     * Return a copy of the number of aligned bases per bin for the specified reference name.
+     * Bins past the last covered bin are not included.
+     *
+     * @param referenceName reference name, must not be null
+     * @return a copy of the number of aligned bases per bin for the specified reference name,
+     *    or an empty array if the reference has no coverage
+     */
+    public long[] getAlignedBases(final String referenceName) {
+        checkNotNull(referenceName);
+        long[] bases = alignedBases.get(referenceName);
+        return bases == null ? new long[0] : bases.clone();
+    }
+
+    /**
+     * Return the mean depth of coverage in the specified bin for the specified reference name.
+     *
+     * @param referenceName reference name, must not be null
+     * @param bin bin, must be at least zero
+     * @return the mean depth of coverage in the specified bin for the specified reference name
+     */
+    public double getMeanDepth(final String referenceName, final int bin) {
+        checkNotNull(referenceName);
+        checkArgument(bin >= 0, "bin must be at least zero");
+        long[] bases = alignedBases.get(referenceName);
+        return (bases == null || bin >= bases.length) ? 0.0d : bases[bin] / (double) binSize;
+    }
+
+
+    /**
+     * Return a new side output collector for binned coverage.
+     *
+     * @param binSize bin size, must be at least one
+     * @return a new side output collector for binned coverage
+     */
+    public static Collector<ReadAlignment, Map<String, long[]>, BinnedCoverage> collector(final int binSize) {
+        checkArgument(binSize > 0, "binSize must be at least one");
+        return Collector.of(new Supplier<Map<String, long[]>>() {
+                @Override
+                public Map<String, long[]> get() {
+                    return new HashMap<String, long[]>();
+                }
+            },
+            new BiConsumer<Map<String, long[]>, ReadAlignment>() {
+                @Override
+                public void accept(final Map<String, long[]> alignedBases, final ReadAlignment readAlignment) {
+                    accumulate(alignedBases, readAlignment, binSize);
+                }
+            },
+            new BinaryOperator<Map<String, long[]>>() {
+                @Override
+                public Map<String, long[]> apply(final Map<String, long[]> left, final Map<String, long[]> right) {
+                    return combine(left, right);
+                }
+            },
+            new Function<Map<String, long[]>, BinnedCoverage>() {
+                @Override
+                public BinnedCoverage apply(final Map<String, long[]> alignedBases) {
+                    return new BinnedCoverage(binSize, alignedBases);
+                }
+            });
+    }
+
+    private static void accumulate(final Map<String, long[]> alignedBases, final ReadAlignment readAlignment, final int binSize) {
+        if (!readAlignment.hasAlignment() || !readAlignment.getAlignment().hasPosition()) {
+            return;
+        }
+        Position position = readAlignment.getAlignment().getPosition();
+        long start = position.getPosition();
+        if (start < 0L) {
+            return;
+        }
+        String referenceName = position.getReferenceName();
+        for (CigarUnit cigarUnit : readAlignment.getAlignment().getCigarList()) {
+            long length = cigarUnit.getOperationLength();
+            if (length <= 0L) {
+                continue;
+            }
+            switch (cigarUnit.getOperation()) {
+                case ALIGNMENT_MATCH:
+                case SEQUENCE_MATCH:
+                case SEQUENCE_MISMATCH:
+                    addAlignedBases(alignedBases, referenceName, start, length, binSize);
+                    start += length;
+                    break;
+                case DELETE:
+                case SKIP:
+                    start += length;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void addAlignedBases(final Map<String, long[]> alignedBases,
+                                        final String referenceName,
+                                        final long start,
+                                        final long length,
+                                        final int binSize) {
+        long[] bases = alignedBases.get(referenceName);
+        long end = start + length;
+        int lastBin = (int) ((end - 1L) / binSize);
+        if (bases == null || lastBin >= bases.length) {
+            bases = (bases == null) ? new long[lastBin + 1] : Arrays.copyOf(bases, Math.max(lastBin + 1, bases.length * 2));
+            alignedBases.put(referenceName, bases);
+        }
+        long s = start;
+        while (s < end) {
+            int bin = (int) (s / binSize);
+            long binEnd = Math.min(end, (bin + 1L) * binSize);
+            bases[bin] += binEnd - s;
+            s = binEnd;
+        }
+    }
+
+    private static Map<String, long[]> combine(final Map<String, long[]> left, final Map<String, long[]> right) {
+        for (Map.Entry<String, long[]> entry : right.entrySet()) {
+            long[] bases = left.get(entry.getKey());
+            long[] other = entry.getValue();
+            if (bases == null || bases.length < other.length) {
+                bases = (bases == null) ? new long[other.length] : Arrays.copyOf(bases, other.length);
+                left.put(entry.getKey(), bases);
+            }
+            for (int i = 0; i < other.length; i++) {
+                bases[i] += other[i];
+            }
+        }
+        return left;
+    }
+}
@@ -0,0 +1,464 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.protobuf.Message;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+
+import org.apache.avro.specific.SpecificDatumReader;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.slf4j.Logger;
+
+/**
+ * Resumable conversion of an Avro container file to length-delimited protobuf messages.
+ *
+ * <p>
+ * Input is converted in segments of whole Avro blocks.  After each segment, the output
+ * is synced to disk and a checkpoint recording the next input block offset, the output
+ * offset, and the CRC32 checksum of the segment just written is committed atomically.
+ * On restart with an existing checkpoint, the last committed segment is verified against
+ * its checksum, any partially written output past the checkpoint is truncated, and
+ * conversion resumes from the next input block, appending to the output.  The checkpoint
+ * file is deleted once conversion is complete.
+ * </p>
+ *
+ * @param <S> source type
+ * @param <T> target protobuf message type
+ */
+@Immutable
+public final class CheckpointedConversion<S, T extends Message> {
+    /** Default minimum number of records per checkpointed segment. */
+    static final long DEFAULT_CHECKPOINT_RECORDS = 1000000L;
+
+    /** Source record class. */
+    private final Class<S> recordClass;
+
+    /** Conversion pipeline. */
+    private final ConversionPipeline<S, T> pipeline;
+
+    /** Minimum number of records per checkpointed segment. */
+    private final long checkpointRecords;
+
+
+    /**
+     * Create a new checkpointed conversion.
+     *
+     * @param recordClass source record class, must not be null
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param threads number of worker threads, must be at least one
+     * @param batchSize number of records per batch, must be at least one
+     * @param checkpointRecords minimum number of records per checkpointed segment, must be at least one;
+     *    segments end on the first block boundary at or past this many records
+     */
+    public CheckpointedConversion(final Class<S> recordClass,
+                                  final Converter<S, T> converter,
+                                  final ConversionStringency stringency,
+                                  final Logger logger,
+                                  final int threads,
+                                  final int batchSize,
+                                  final long checkpointRecords) {
+        checkNotNull(recordClass);
+        checkArgument(checkpointRecords > 0L, "checkpointRecords must be at least one");
+        this.recordClass = recordClass;
+        this.pipeline = new ConversionPipeline<S, T>(converter, stringency, logger, threads, batchSize);
+        this.checkpointRecords = checkpointRecords;
+    }
+
+
+    /**
+     * Convert the specified Avro container file to the specified output file, resuming from
+     * the specified checkpoint file if it exists.
+     *
+     * @param input Avro container file to convert, must not be null
+     * @param output output file, must not be null
+     * @param checkpointFile checkpoint file, must not be null
+     * @return record counts and per-stage timings for this run, not including previous runs
+     * @throws IOException if an I/O error occurs, or if the output does not match the checkpoint
+     * @throws ConversionException if a conversion error occurs and stringency is strict
+     */
+    public ConversionStatistics run(final File input, final File output, final File checkpointFile) throws IOException, ConversionException {
+        checkNotNull(input);
+        checkNotNull(output);
+        checkNotNull(checkpointFile);
+
+        long start = System.nanoTime();
+        Checkpoint checkpoint = checkpointFile.exists() ? Checkpoint.read(checkpointFile) : new Checkpoint(0L, 0L, 0L, 0L, 0L, 0L);
+        truncate(output, checkpoint);
+
+        long records = 0L;
+        long skipped = 0L;
+        long outputBytes = 0L;
+        long decodeNanos = 0L;
+        long convertNanos = 0L;
+        long serializeNanos = 0L;
+        long writeNanos = 0L;
+        long estimatedHeapBytes = 0L;
+        long approximateHeapBytes = 0L;
+        try (AvroBlockReader reader = new AvroBlockReader(new BufferedInputStream(new FileInputStream(input), 1024 * 1024));
+             FileOutputStream fileOutputStream = new FileOutputStream(output, true)) {
+
+            if (checkpoint.getInputOffset() > 0L) {
+                if (checkpoint.getInputOffset() < reader.getOffset()) {
+                    throw new IOException("checkpoint input offset " + checkpoint.getInputOffset() + " is within the container header");
+                }
+                reader.skipTo(checkpoint.getInputOffset());
+            }
+            DatumReader<S> datumReader = new SpecificDatumReader<S>(recordClass);
+            datumReader.setSchema(reader.getSchema());
+
+            CRC32 crc32 = new CRC32();
+            OutputStream outputStream = new BufferedOutputStream(new CheckedOutputStream(fileOutputStream, crc32), 1024 * 1024);
+            while (true) {
+                Segment segment = new Segment(reader, datumReader);
+                crc32.reset();
+                ConversionStatistics statistics = pipeline.run(segment, outputStream);
+                if (segment.getBlocks() == 0) {
+                    break;
+                }
+                long syncStart = System.nanoTime();
+                fileOutputStream.getFD().sync();
+                writeNanos += System.nanoTime() - syncStart;
+
+                checkpoint = new Checkpoint(segment.getEndOffset(),
+                                            checkpoint.getOutputOffset() + statistics.getOutputBytes(),
+                                            checkpoint.getOutputOffset(),
+                                            crc32.getValue(),
+                                            checkpoint.getRecords() + statistics.getRecords(),
+                                            checkpoint.getSkipped() + statistics.getSkipped());
+                checkpoint.write(checkpointFile);
+
+                records += statistics.getRecords();
+                skipped += statistics.getSkipped();
+                outputBytes += statistics.getOutputBytes();
+                decodeNanos += statistics.getDecodeNanos();
+                convertNanos += statistics.getConvertNanos();
+                serializeNanos += statistics.getSerializeNanos();
+                writeNanos += statistics.getWriteNanos();
+                estimatedHeapBytes = Math.max(estimatedHeapBytes, statistics.getEstimatedHeapBytes());
+                approximateHeapBytes = Math.max(approximateHeapBytes, statistics.getApproximateHeapBytes());
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.deleteIfExists(checkpointFile.toPath());
+        return new ConversionStatistics(records, skipped, outputBytes, decodeNanos, convertNanos, serializeNanos, writeNanos, System.nanoTime() - start,
+                                        estimatedHeapBytes, approximateHeapBytes);
+    }
+
+    /**
+     * Verify the last committed segment of the specified output file against the specified
+     * checkpoint and truncate any output past the checkpoint.
+     *
+     * @param output output file
+     * @param checkpoint checkpoint
+     * @throws IOException if an I/O error occurs, or if the output does not match the checkpoint
+     */
+    static void truncate(final File output, final Checkpoint checkpoint) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            if (file.length() < checkpoint.getOutputOffset()) {
+                throw new IOException("output " + output + " is shorter than checkpoint output offset " + checkpoint.getOutputOffset());
+            }
+            CRC32 crc32 = new CRC32();
+            byte[] buffer = new byte[64 * 1024];
+            file.seek(checkpoint.getSegmentOffset());
+            long remaining = checkpoint.getOutputOffset() - checkpoint.getSegmentOffset();
+            while (remaining > 0L) {
+                int n = (int) Math.min(buffer.length, remaining);
+                file.readFully(buffer, 0, n);
+                crc32.update(buffer, 0, n);
+                remaining -= n;
+            }
+            if (crc32.getValue() != checkpoint.getSegmentChecksum()) {
+                throw new IOException("output " + output + " does not match checkpoint segment checksum");
+            }
+            file.setLength(checkpoint.getOutputOffset());
+        }
+    }
+
+
+    /**
+     * Segment of whole Avro blocks, decoded one block at a time.
+     */
+    private final class Segment implements Iterator<S> {
+        private final AvroBlockReader reader;
+        private final DatumReader<S> datumReader;
+        private BinaryDecoder decoder;
+        private List<S> block = Collections.emptyList();
+        private int index = 0;
+        private int blocks = 0;
+        private long records = 0L;
+        private long endOffset;
+        private boolean done = false;
+
+        Segment(final AvroBlockReader reader, final DatumReader<S> datumReader) {
+            this.reader = reader;
+            this.datumReader = datumReader;
+            this.endOffset = reader.getOffset();
+        }
+
+        int getBlocks() {
+            return blocks;
+        }
+
+        long getEndOffset() {
+            return endOffset;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index >= block.size()) {
+                if (done || records >= checkpointRecords) {
+                    return false;
+                }
+                try {
+                    AvroBlock avroBlock = reader.readBlock();
+                    if (avroBlock == null) {
+                        done = true;
+                        return false;
+                    }
+                    decoder = DecoderFactory.get().binaryDecoder(avroBlock.decompress(), decoder);
+                    List<S> decoded = new ArrayList<S>((int) avroBlock.getCount());
+                    for (long i = 0L; i < avroBlock.getCount(); i++) {
+                        decoded.add(datumReader.read(null, decoder));
+                    }
+                    block = decoded;
+                    index = 0;
+                    blocks++;
+                    records += avroBlock.getCount();
+                    endOffset = avroBlock.getEndOffset();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public S next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return block.get(index++);
+        }
+    }
+
+    /**
+     * Committed conversion checkpoint.
+     */
+    @Immutable
+    public static final class Checkpoint {
+        /** Input offset of the next block to convert. */
+        private final long inputOffset;
+
+        /** Output offset at the end of the last committed segment. */
+        private final long outputOffset;
+
+        /** Output offset at the start of the last committed segment. */
+        private final long segmentOffset;
+
+        /** CRC32 checksum of the last committed segment. */
+        private final long segmentChecksum;
+
+        /** Number of records written. */
+        private final long records;
+
+        /** Number of records skipped. */
+        private final long skipped;
+
+
+        /**
+         * Create a new checkpoint.
+         *
+         * @param inputOffset input offset of the next block to convert
+         * @param outputOffset output offset at the end of the last committed segment
+         * @param segmentOffset output offset at the start of the last committed segment
+         * @param segmentChecksum CRC32 checksum of the last committed segment
+         * @param records number of records written
+         * @param skipped number of records skipped
+         */
+        Checkpoint(final long inputOffset,
+                   final long outputOffset,
+                   final long segmentOffset,
+                   final long segmentChecksum,
+                   final long records,
+                   final long skipped) {
+            this.inputOffset = inputOffset;
+            this.outputOffset = outputOffset;
+            this.segmentOffset = segmentOffset;
+            this.segmentChecksum = segmentChecksum;
+            this.records = records;
+            this.skipped = skipped;
+        }
+
+
+        /**
+         * Return the input offset of the next block to convert.
+         *
+         * @return the input offset of the next block to convert
+         */
+        public long getInputOffset() {
+            return inputOffset;
+        }
+
+        /**
+         * Return the output offset at the end of the last committed segment.
+         *
+         * @return the output offset at the end of the last committed segment
+         */
+        public long getOutputOffset() {
+            return outputOffset;
+        }
+
+        /**
+         * Return the output offset at the start of the last committed segment.
+         *
+         * @return the output offset at the start of the last committed segment
+         */
+        public long getSegmentOffset() {
+            return segmentOffset;
+        }
+
+        /**
+         * Return the CRC32 checksum of the last committed segment.
+         *
+         * @return the CRC32 checksum of the last committed segment
+         */
+        public long getSegmentChecksum() {
+            return segmentChecksum;
+        }
+
+        /**
+         * Return the number of records written.
+         *
+         * @return the number of records written
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Return the number of records skipped.
+         *
+         * @return the number of records skipped
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Write this checkpoint to the specified file atomically, via a temporary file and rename.
+         *
+         * @param file file to write to, must not be null
+         * @throws IOException if an I/O error occurs
+         */
+        void write(final File file) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("inputOffset", String.valueOf(inputOffset));
+            properties.setProperty("outputOffset", String.valueOf(outputOffset));
+            properties.setProperty("segmentOffset", String.valueOf(segmentOffset));
+            properties.setProperty("segmentChecksum", String.valueOf(segmentChecksum));
+            properties.setProperty("records", String.valueOf(records));
+            properties.setProperty("skipped", String.valueOf(skipped));
+
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream outputStream = new FileOutputStream(tmp)) {
+                properties.store(outputStream, "conversion checkpoint");
+                outputStream.getFD().sync();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Read a checkpoint from the specified file.
+         *
+         * @param file file to read from, must not be null
+         * @return a checkpoint read from the specified file
+         * @throws IOException if an I/O error occurs or the checkpoint is not valid
+         */
+        public static Checkpoint read(final File file) throws IOException {
+            checkNotNull(file);
+            Properties properties = new Properties();
+            try (InputStream inputStream = new FileInputStream(file)) {
+                properties.load(inputStream);
+            }
+            Checkpoint checkpoint = new Checkpoint(readLong(properties, "inputOffset"),
+                                                   readLong(properties, "outputOffset"),
+                                                   readLong(properties, "segmentOffset"),
+                                                   readLong(properties, "segmentChecksum"),
+                                                   readLong(properties, "records"),
+                                                   readLong(properties, "skipped"));
+            if (checkpoint.getInputOffset() < 0L || checkpoint.getSegmentOffset() < 0L || checkpoint.getOutputOffset() < checkpoint.getSegmentOffset()) {
+                throw new IOException("invalid checkpoint " + file);
+            }
+            return checkpoint;
+        }
+
+        private static long readLong(final Properties properties, final String key) throws IOException {
+            String value = properties.getProperty(key);
+            if (value == null) {
+                throw new IOException("checkpoint missing " + key);
+            }
+            try {
+                return Long.parseLong(value.trim());
+            }
+            catch (NumberFormatException e) {
+                throw new IOException("invalid checkpoint " + key + " " + value, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import javax.annotation.concurrent.Immutable;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+
+/**
+ * Exception-free text CIGAR parser.
+ *
+ * <p>
+ * Accepts the same input as htsjdk <code>TextCigarCodec.decode</code>, but reports
+ * malformed input through error codes instead of thrown runtime exceptions, so that
+ * converters running at silent stringency do not pay for exception construction and
+ * stack trace capture.  Error messages are formatted separately, only when needed.
+ * </p>
+ */
+@Immutable
+final class CigarParser {
+    /** Error code for a valid CIGAR. */
+    static final int VALID = 0;
+
+    /** Error code for a null CIGAR. */
+    static final int NULL_CIGAR = 1;
+
+    /** Error code for an operator not preceded by a length. */
+    static final int MISSING_LENGTH = 2;
+
+    /** Error code for a length not followed by an operator. */
+    static final int MISSING_OPERATOR = 3;
+
+    /** Error code for an unrecognized operator. */
+    static final int INVALID_OPERATOR = 4;
+
+    /** Error code for a length greater than <code>Integer.MAX_VALUE</code>. */
+    static final int LENGTH_OVERFLOW = 5;
+
+    /** Maximum operation length of a packed CIGAR operation, as in BAM. */
+    static final int MAX_PACKED_LENGTH = (1 << 28) - 1;
+
+    /** CIGAR operators by character, or null if not a valid operator. */
+    private static final CigarOperator[] OPERATORS = new CigarOperator[128];
+
+    static {
+        for (CigarOperator operator : CigarOperator.values()) {
+            OPERATORS[(int) CigarOperator.enumToCharacter(operator)] = operator;
+        }
+    }
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private CigarParser() {
+        // empty
+    }
+
+
+    /**
+     * Parse the specified text CIGAR.
+     *
+     * @param cigar text CIGAR to parse
+     * @return the specified text CIGAR parsed into a new htsjdk Cigar, or null if
+     *    the specified text CIGAR is null or malformed
+     */
+    static Cigar parse(final String cigar) {
+        if (cigar == null) {
+            return null;
+        }
+        Cigar parsed = new Cigar();
+        return scan(cigar.toCharArray(), parsed) == VALID ? parsed : null;
+    }
+
+    /**
+     * Validate the specified text CIGAR.
+     *
+     * @param cigar text CIGAR to validate
+     * @return an error code, or <code>VALID</code> if the specified text CIGAR is valid
+     */
+    static int validate(final String cigar) {
+        return cigar == null ? NULL_CIGAR : scan(cigar.toCharArray(), null);
+    }
+
+    /**
+     * Parse the specified UTF-8 or ASCII encoded text CIGAR into packed CIGAR operations, each
+     * the operation length shifted left four bits or'd with the ordinal of the htsjdk
+     * CigarOperator, as in BAM.  Operation lengths greater than <code>MAX_PACKED_LENGTH</code>
+     * are reported as <code>LENGTH_OVERFLOW</code>.
+     *
+     * @param cigar encoded text CIGAR, must not be null
+     * @param length length of the encoded text CIGAR in bytes
+     * @param packed array to write packed CIGAR operations to, must have room for at least
+     *    <code>length / 2</code> operations from the specified offset
+     * @param offset offset in the array to write packed CIGAR operations from
+     * @return the number of packed CIGAR operations written, or a negative error code if
+     *    the specified text CIGAR is malformed
+     */
+    static int pack(final byte[] cigar, final int length, final int[] packed, final int offset) {
+        // "*" is the SAM placeholder for no CIGAR
+        if (length == 1 && cigar[0] == '*') {
+            return 0;
+        }
+        int i = 0;
+        int n = offset;
+        while (i < length) {
+            int c = cigar[i];
+            if (c < '0' || c > '9') {
+                return -MISSING_LENGTH;
+            }
+            int operationLength = 0;
+            while (c >= '0' && c <= '9') {
+                operationLength = operationLength * 10 + (c - '0');
+                if (operationLength > MAX_PACKED_LENGTH) {
+                    return -LENGTH_OVERFLOW;
+                }
+                if (++i == length) {
+                    return -MISSING_OPERATOR;
+                }
+                c = cigar[i];
+            }
+            CigarOperator operator = c >= 0 && c < OPERATORS.length ? OPERATORS[c] : null;
+            if (operator == null) {
+                return -INVALID_OPERATOR;
+            }
+            packed[n++] = (operationLength << 4) | operator.ordinal();
+            i++;
+        }
+        return n - offset;
+    }
+
+    /**
+     * Format an error message for the specified error code and text CIGAR.
+     *
+     * @param error error code
+     * @param cigar text CIGAR
+     * @return an error message for the specified error code and text CIGAR
+     */
+    static String describe(final int error, final String cigar) {
+        switch (error) {
+            case VALID:
+                return "valid cigar " + cigar;
+            case NULL_CIGAR:
+                return "cigar must not be null";
+            case MISSING_LENGTH:
+                return "malformed cigar " + cigar + ", missing operation length";
+            case MISSING_OPERATOR:
+                return "malformed cigar " + cigar + ", missing operator";
+            case INVALID_OPERATOR:
+                return "malformed cigar " + cigar + ", invalid operator";
+            case LENGTH_OVERFLOW:
+                return "malformed cigar " + cigar + ", operation length too large";
+            default:
+                return "malformed cigar " + cigar;
+        }
+    }
+
+    /**
+     * Scan the specified non-null text CIGAR characters, adding elements to the specified Cigar if any.
+     * Scanning a copy of the characters is faster than <code>String.charAt</code>, which checks the
+     * index and, with compact strings, the string encoding for every character.
+     *
+     * @param cigar text CIGAR characters to scan, must not be null
+     * @param parsed Cigar to add elements to, if any
+     * @return an error code, or <code>VALID</code> if the specified text CIGAR is valid
+     */
+    private static int scan(final char[] cigar, final Cigar parsed) {
+        // "*" is the SAM placeholder for no CIGAR
+        if (cigar.length == 1 && cigar[0] == '*') {
+            return VALID;
+        }
+        int i = 0;
+        int length = cigar.length;
+        while (i < length) {
+            char c = cigar[i];
+            if (c < '0' || c > '9') {
+                return MISSING_LENGTH;
+            }
+            long operationLength = 0L;
+            while (c >= '0' && c <= '9') {
+                operationLength = operationLength * 10L + (c - '0');
+                if (operationLength > Integer.MAX_VALUE) {
+                    return LENGTH_OVERFLOW;
+                }
+                if (++i == length) {
+                    return MISSING_OPERATOR;
+                }
+                c = cigar[i];
+            }
+            CigarOperator operator = c < OPERATORS.length ? OPERATORS[c] : null;
+            if (operator == null) {
+                return INVALID_OPERATOR;
+            }
+            if (parsed != null) {
+                parsed.add(new CigarElement((int) operationLength, operator));
+            }
+            i++;
+        }
+        return VALID;
+    }
+}
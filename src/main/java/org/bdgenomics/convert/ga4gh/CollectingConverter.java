@@ -0,0 +1,184 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import java.util.stream.Collector;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.base.Preconditions;
+
+import ga4gh.Reads.ReadAlignment;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert bdg-formats AlignmentRecord to GA4GH ReadAlignment, feeding each converted
+ * ReadAlignment to one or more side output collectors as records stream through.
+ *
+ * <p>
+ * Each converting thread accumulates into its own set of accumulators, so no locking is
+ * needed on the conversion path.  Per-thread accumulators are merged with each collector's
+ * combiner when a result is requested, which should happen only after conversion is complete.
+ * </p>
+ *
+ * @see FlagStatistics#collector()
+ * @see MappingQualityHistogram#collector()
+ * @see BinnedCoverage#collector(int)
+ */
+@ThreadSafe
+public final class CollectingConverter extends AbstractConverter<AlignmentRecord, ReadAlignment> {
+    /** Convert bdg-formats AlignmentRecord to GA4GH ReadAlignment. */
+    private final Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+
+    /** Side output collectors. */
+    private final List<Collector<ReadAlignment, ?, ?>> collectors;
+
+    /** Accumulator suppliers. */
+    private final List<Supplier<Object>> suppliers = new ArrayList<Supplier<Object>>();
+
+    /** Accumulator functions. */
+    private final List<BiConsumer<Object, ReadAlignment>> accumulators = new ArrayList<BiConsumer<Object, ReadAlignment>>();
+
+    /** Accumulator combiners. */
+    private final List<BinaryOperator<Object>> combiners = new ArrayList<BinaryOperator<Object>>();
+
+    /** Accumulator finishers. */
+    private final List<Function<Object, Object>> finishers = new ArrayList<Function<Object, Object>>();
+
+    /** All per-thread accumulators. */
+    private final Queue<Object[]> threadAccumulators = new ConcurrentLinkedQueue<Object[]>();
+
+    /** Per-thread accumulators. */
+    private final ThreadLocal<Object[]> threadLocalAccumulators = new ThreadLocal<Object[]>() {
+        @Override
+        protected Object[] initialValue() {
+            Object[] values = createAccumulators();
+            threadAccumulators.add(values);
+            return values;
+        }
+    };
+
+
+    /**
+     * Convert bdg-formats AlignmentRecord to GA4GH ReadAlignment, feeding each converted
+     * ReadAlignment to the specified side output collectors.
+     *
+     * @param alignmentConverter alignment converter, must not be null
+     * @param collectors side output collectors, must not be null
+     */
+    @SuppressWarnings("unchecked")
+    public CollectingConverter(final Converter<AlignmentRecord, ReadAlignment> alignmentConverter,
+                               final List<? extends Collector<ReadAlignment, ?, ?>> collectors) {
+        super(AlignmentRecord.class, ReadAlignment.class);
+        checkNotNull(alignmentConverter);
+        Preconditions.checkNotNull(collectors);
+        this.alignmentConverter = alignmentConverter;
+        this.collectors = new ArrayList<Collector<ReadAlignment, ?, ?>>(collectors);
+
+        for (Collector<ReadAlignment, ?, ?> collector : this.collectors) {
+            Preconditions.checkNotNull(collector);
+            Collector<ReadAlignment, Object, Object> c = (Collector<ReadAlignment, Object, Object>) collector;
+            suppliers.add(c.supplier());
+            accumulators.add(c.accumulator());
+            combiners.add(c.combiner());
+            finishers.add(c.finisher());
+        }
+    }
+
+
+    @Override
+    public ReadAlignment convert(final AlignmentRecord alignmentRecord,
+                                 final ConversionStringency stringency,
+                                 final Logger logger) throws ConversionException {
+
+        if (alignmentRecord == null) {
+            warnOrThrow(alignmentRecord, "must not be null", null, stringency, logger);
+            return null;
+        }
+        ReadAlignment readAlignment = alignmentConverter.convert(alignmentRecord, stringency, logger);
+        if (readAlignment != null) {
+            Object[] values = threadLocalAccumulators.get();
+            for (int i = 0, size = accumulators.size(); i < size; i++) {
+                accumulators.get(i).accept(values[i], readAlignment);
+            }
+        }
+        return readAlignment;
+    }
+
+    /**
+     * Return the result of the specified side output collector, merged over all converting threads.
+     * Call only after conversion is complete.
+     *
+     * @param <R> result type
+     * @param collector side output collector provided to this converter, must not be null
+     * @return the result of the specified side output collector, merged over all converting threads
+     * @throws IllegalArgumentException if the specified collector was not provided to this converter
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R getResult(final Collector<ReadAlignment, ?, R> collector) {
+        Preconditions.checkNotNull(collector);
+        int index = -1;
+        for (int i = 0, size = collectors.size(); i < size; i++) {
+            if (collectors.get(i) == collector) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("collector was not provided to this converter");
+        }
+        // merge into a new accumulator, so that per-thread accumulators are never modified
+        Object merged = suppliers.get(index).get();
+        for (Object[] values : threadAccumulators) {
+            merged = combiners.get(index).apply(merged, values[index]);
+        }
+        return (R) finishers.get(index).apply(merged);
+    }
+
+    /**
+     * Create a new set of accumulators, one per side output collector.
+     *
+     * @return a new set of accumulators, one per side output collector
+     */
+    private Object[] createAccumulators() {
+        Object[] values = new Object[suppliers.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = suppliers.get(i).get();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.protobuf.CodedInputStream;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Reader for compact, delta and dictionary encoded ReadAlignment containers
+ * written by {@link CompactReadAlignmentWriter}, decoding into standard ReadAlignment messages.
+ */
+@NotThreadSafe
+public final class CompactReadAlignmentReader implements Iterator<ReadAlignment>, Closeable {
+    /** Input stream. */
+    private final InputStream inputStream;
+
+    /** Coded input stream. */
+    private final CodedInputStream input;
+
+    /** Reference name dictionary. */
+    private final List<String> referenceNames = new ArrayList<String>();
+
+    /** Read group ID dictionary. */
+    private final List<String> readGroupIds = new ArrayList<String>();
+
+    /** Maximum number of entries in the CIGAR dictionary. */
+    private final int cigarDictionarySize;
+
+    /** CIGAR dictionary. */
+    private final List<List<CigarUnit>> cigars = new ArrayList<List<CigarUnit>>();
+
+    /** Last alignment position read, indexed by reference name code. */
+    private long[] lastPositions = new long[32];
+
+
+    /**
+     * Create a new compact ReadAlignment reader.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @throws IOException if an I/O error occurs or the input stream is not a compact ReadAlignment container
+     */
+    public CompactReadAlignmentReader(final InputStream inputStream) throws IOException {
+        checkNotNull(inputStream);
+        this.inputStream = inputStream;
+        input = CodedInputStream.newInstance(inputStream);
+
+        byte[] magic = input.readRawBytes(CompactReadAlignmentWriter.MAGIC.length);
+        if (!Arrays.equals(CompactReadAlignmentWriter.MAGIC, magic)) {
+            throw new IOException("not a compact ReadAlignment container, or unsupported version");
+        }
+        cigarDictionarySize = input.readUInt32();
+        if (cigarDictionarySize < 1) {
+            throw new IOException("invalid CIGAR dictionary size " + cigarDictionarySize);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            return !input.isAtEnd();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs or the container is malformed
+     */
+    @Override
+    public ReadAlignment next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return read();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    /**
+     * Read the next ReadAlignment.
+     *
+     * @return the next ReadAlignment
+     * @throws IOException if an I/O error occurs or the container is malformed
+     */
+    private ReadAlignment read() throws IOException {
+        // size limit applies per record, not to the whole container
+        input.resetSizeCounter();
+
+        int flags = input.readUInt32();
+        String readGroupId = readString(readGroupIds);
+        Position position = (flags & CompactReadAlignmentWriter.POSITION) != 0 ? readPosition(true) : null;
+        List<CigarUnit> cigar = (flags & CompactReadAlignmentWriter.CIGAR) != 0 ? readCigar() : null;
+        Position nextMatePosition = (flags & CompactReadAlignmentWriter.MATE) != 0 ? readPosition(false) : null;
+
+        ReadAlignment.Builder builder = ReadAlignment.newBuilder();
+        int limit = input.pushLimit(input.readUInt32());
+        builder.mergeFrom(input);
+        input.popLimit(limit);
+
+        builder.setReadGroupId(readGroupId);
+        if (position != null || cigar != null) {
+            LinearAlignment.Builder alignmentBuilder = builder.getAlignmentBuilder();
+            if (position != null) {
+                alignmentBuilder.setPosition(position);
+            }
+            if (cigar != null) {
+                alignmentBuilder.addAllCigar(cigar);
+            }
+        }
+        if (nextMatePosition != null) {
+            builder.setNextMatePosition(nextMatePosition);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Read a dictionary code, and the value itself if it is a new dictionary entry.
+     *
+     * @param dictionary dictionary
+     * @return the dictionary code
+     * @throws IOException if an I/O error occurs or the dictionary code is invalid
+     */
+    private int readCode(final List<String> dictionary) throws IOException {
+        int code = input.readUInt32();
+        if (code == dictionary.size()) {
+            dictionary.add(input.readStringRequireUtf8());
+        }
+        else if (code < 0 || code > dictionary.size()) {
+            throw new IOException("invalid dictionary code " + code);
+        }
+        return code;
+    }
+
+    /**
+     * Read a dictionary coded value.
+     *
+     * @param dictionary dictionary
+     * @return the dictionary value
+     * @throws IOException if an I/O error occurs or the dictionary code is invalid
+     */
+    private String readString(final List<String> dictionary) throws IOException {
+        return dictionary.get(readCode(dictionary));
+    }
+
+    /**
+     * Read a CIGAR dictionary code, and the CIGAR units themselves if it is a new dictionary entry.
+     * A new entry in a full dictionary resets the dictionary to hold only the new entry.
+     *
+     * @return the CIGAR
+     * @throws IOException if an I/O error occurs or the dictionary code is invalid
+     */
+    private List<CigarUnit> readCigar() throws IOException {
+        int code = input.readUInt32();
+        if (code == cigars.size()) {
+            if (code == cigarDictionarySize) {
+                cigars.clear();
+                code = 0;
+            }
+            int size = input.readUInt32();
+            List<CigarUnit> cigar = new ArrayList<CigarUnit>(size);
+            for (int i = 0; i < size; i++) {
+                cigar.add(CigarUnit.newBuilder()
+                          .setOperationValue(input.readInt32())
+                          .setOperationLength(input.readInt64())
+                          .setReferenceSequence(input.readStringRequireUtf8())
+                          .build());
+            }
+            cigars.add(Collections.unmodifiableList(cigar));
+        }
+        else if (code < 0 || code > cigars.size()) {
+            throw new IOException("invalid CIGAR dictionary code " + code);
+        }
+        return cigars.get(code);
+    }
+
+    /**
+     * Read a position, delta encoded against the last alignment position on the same reference.
+     *
+     * @param update true to update the last alignment position on the same reference
+     * @return the position
+     * @throws IOException if an I/O error occurs or the dictionary code is invalid
+     */
+    private Position readPosition(final boolean update) throws IOException {
+        int code = readCode(referenceNames);
+        if (code >= lastPositions.length) {
+            lastPositions = Arrays.copyOf(lastPositions, Math.max(code + 1, lastPositions.length * 2));
+        }
+        long position = lastPositions[code] + input.readSInt64();
+        if (update) {
+            lastPositions[code] = position;
+        }
+        return Position.newBuilder()
+            .setReferenceName(referenceNames.get(code))
+            .setPosition(position)
+            .setStrandValue(input.readInt32())
+            .build();
+    }
+}
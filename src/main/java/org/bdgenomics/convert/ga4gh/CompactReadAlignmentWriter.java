@@ -0,0 +1,257 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.protobuf.CodedOutputStream;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Writer for compact, delta and dictionary encoded ReadAlignment containers.
+ *
+ * <p>
+ * Reference names, read group IDs, and CIGARs are dictionary coded, with each new
+ * dictionary entry written inline on first use.  The CIGAR dictionary is bounded; when
+ * it is full, the next new CIGAR resets it, so input with many distinct CIGARs does not
+ * grow the writer or the reader without limit.  Alignment and mate positions are
+ * delta encoded against the last alignment position written on the same reference,
+ * so position-sorted input encodes to small varints.  All remaining ReadAlignment
+ * fields are written as a standard protobuf message.  Read with
+ * {@link CompactReadAlignmentReader}, which decodes back into standard ReadAlignment messages.
+ * </p>
+ */
+@NotThreadSafe
+public final class CompactReadAlignmentWriter implements Closeable, Flushable {
+    /** Magic bytes and format version. */
+    static final byte[] MAGIC = { 'G', 'A', 'C', 2 };
+
+    /** Default maximum number of entries in the CIGAR dictionary, <code>4096</code>. */
+    public static final int DEFAULT_CIGAR_DICTIONARY_SIZE = 4096;
+
+    /** Flag for a dictionary coded, delta encoded alignment position. */
+    static final int POSITION = 1;
+
+    /** Flag for a dictionary coded alignment CIGAR. */
+    static final int CIGAR = 2;
+
+    /** Flag for a dictionary coded, delta encoded next mate position. */
+    static final int MATE = 4;
+
+    /** Output stream. */
+    private final OutputStream outputStream;
+
+    /** Coded output stream. */
+    private final CodedOutputStream output;
+
+    /** Reference name dictionary. */
+    private final Map<String, Integer> referenceNames = new HashMap<String, Integer>();
+
+    /** Read group ID dictionary. */
+    private final Map<String, Integer> readGroupIds = new HashMap<String, Integer>();
+
+    /** Maximum number of entries in the CIGAR dictionary. */
+    private final int cigarDictionarySize;
+
+    /** CIGAR dictionary. */
+    private final Map<List<CigarUnit>, Integer> cigars = new HashMap<List<CigarUnit>, Integer>();
+
+    /** Last alignment position written, indexed by reference name code. */
+    private long[] lastPositions = new long[32];
+
+
+    /**
+     * Create a new compact ReadAlignment writer.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public CompactReadAlignmentWriter(final OutputStream outputStream) throws IOException {
+        this(outputStream, DEFAULT_CIGAR_DICTIONARY_SIZE);
+    }
+
+    /**
+     * Create a new compact ReadAlignment writer with the specified maximum number of
+     * entries in the CIGAR dictionary.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @param cigarDictionarySize maximum number of entries in the CIGAR dictionary, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public CompactReadAlignmentWriter(final OutputStream outputStream, final int cigarDictionarySize) throws IOException {
+        checkNotNull(outputStream);
+        checkArgument(cigarDictionarySize > 0, "cigarDictionarySize must be at least one");
+        this.outputStream = outputStream;
+        this.cigarDictionarySize = cigarDictionarySize;
+        output = CodedOutputStream.newInstance(outputStream, 64 * 1024);
+        output.writeRawBytes(MAGIC);
+        output.writeUInt32NoTag(cigarDictionarySize);
+    }
+
+
+    /**
+     * Write the specified ReadAlignment.
+     *
+     * @param readAlignment ReadAlignment to write, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final ReadAlignment readAlignment) throws IOException {
+        checkNotNull(readAlignment);
+
+        int flags = 0;
+        ReadAlignment.Builder remainder = readAlignment.toBuilder().clearReadGroupId();
+        LinearAlignment alignment = readAlignment.getAlignment();
+        if (readAlignment.hasAlignment() && (alignment.hasPosition() || alignment.getCigarCount() > 0)) {
+            LinearAlignment.Builder alignmentRemainder = alignment.toBuilder();
+            if (alignment.hasPosition()) {
+                flags |= POSITION;
+                alignmentRemainder.clearPosition();
+            }
+            if (alignment.getCigarCount() > 0) {
+                flags |= CIGAR;
+                alignmentRemainder.clearCigar();
+            }
+            remainder.setAlignment(alignmentRemainder);
+        }
+        if (readAlignment.hasNextMatePosition()) {
+            flags |= MATE;
+            remainder.clearNextMatePosition();
+        }
+
+        output.writeUInt32NoTag(flags);
+        writeString(readGroupIds, readAlignment.getReadGroupId());
+        if ((flags & POSITION) != 0) {
+            writePosition(alignment.getPosition(), true);
+        }
+        if ((flags & CIGAR) != 0) {
+            writeCigar(alignment.getCigarList());
+        }
+        if ((flags & MATE) != 0) {
+            writePosition(readAlignment.getNextMatePosition(), false);
+        }
+        ReadAlignment message = remainder.build();
+        output.writeUInt32NoTag(message.getSerializedSize());
+        message.writeTo(output);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Write the dictionary code for the specified value, followed by the value
+     * itself if it is a new dictionary entry.
+     *
+     * @param dictionary dictionary
+     * @param value value to write
+     * @return the dictionary code for the specified value
+     * @throws IOException if an I/O error occurs
+     */
+    private int writeString(final Map<String, Integer> dictionary, final String value) throws IOException {
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.put(value, code);
+            output.writeUInt32NoTag(code);
+            output.writeStringNoTag(value);
+        }
+        else {
+            output.writeUInt32NoTag(code);
+        }
+        return code;
+    }
+
+    /**
+     * Write the dictionary code for the specified CIGAR, followed by the CIGAR
+     * units themselves if it is a new dictionary entry.  A new entry in a full
+     * dictionary is written with code equal to the dictionary size, which resets
+     * the dictionary to hold only the new entry.
+     *
+     * @param cigar CIGAR to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeCigar(final List<CigarUnit> cigar) throws IOException {
+        Integer code = cigars.get(cigar);
+        if (code == null) {
+            output.writeUInt32NoTag(cigars.size());
+            if (cigars.size() == cigarDictionarySize) {
+                cigars.clear();
+            }
+            cigars.put(cigar, cigars.size());
+            output.writeUInt32NoTag(cigar.size());
+            for (CigarUnit cigarUnit : cigar) {
+                output.writeInt32NoTag(cigarUnit.getOperationValue());
+                output.writeInt64NoTag(cigarUnit.getOperationLength());
+                output.writeStringNoTag(cigarUnit.getReferenceSequence());
+            }
+        }
+        else {
+            output.writeUInt32NoTag(code);
+        }
+    }
+
+    /**
+     * Write the specified position, delta encoded against the last alignment
+     * position on the same reference.
+     *
+     * @param position position to write
+     * @param update true to update the last alignment position on the same reference
+     * @throws IOException if an I/O error occurs
+     */
+    private void writePosition(final Position position, final boolean update) throws IOException {
+        int code = writeString(referenceNames, position.getReferenceName());
+        if (code >= lastPositions.length) {
+            lastPositions = Arrays.copyOf(lastPositions, Math.max(code + 1, lastPositions.length * 2));
+        }
+        output.writeSInt64NoTag(position.getPosition() - lastPositions[code]);
+        output.writeInt32NoTag(position.getStrandValue());
+        if (update) {
+            lastPositions[code] = position.getPosition();
+        }
+    }
+}
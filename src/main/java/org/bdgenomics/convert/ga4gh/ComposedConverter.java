@@ -0,0 +1,78 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.Converter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.slf4j.Logger;
+
+/**
+ * Compose two converters, converting source to an intermediate type and then
+ * intermediate to target.
+ *
+ * @param <S> source type
+ * @param <M> intermediate type
+ * @param <T> target type
+ */
+@Immutable
+final class ComposedConverter<S, M, T> extends AbstractConverter<S, T> {
+    /** First converter, source to intermediate. */
+    private final Converter<S, M> first;
+
+    /** Second converter, intermediate to target. */
+    private final Converter<M, T> second;
+
+    /**
+     * Compose two converters.
+     *
+     * @param sourceClass source class, must not be null
+     * @param targetClass target class, must not be null
+     * @param first first converter, source to intermediate, must not be null
+     * @param second second converter, intermediate to target, must not be null
+     */
+    ComposedConverter(final Class<S> sourceClass,
+                      final Class<T> targetClass,
+                      final Converter<S, M> first,
+                      final Converter<M, T> second) {
+        super(sourceClass, targetClass);
+        checkNotNull(first);
+        checkNotNull(second);
+        this.first = first;
+        this.second = second;
+    }
+
+
+    @Override
+    public T convert(final S source,
+                     final ConversionStringency stringency,
+                     final Logger logger) throws ConversionException {
+
+        if (source == null) {
+            warnOrThrow(source, "must not be null", null, stringency, logger);
+            return null;
+        }
+        M intermediate = first.convert(source, stringency, logger);
+        // first converter has already warned or thrown
+        return intermediate == null ? null : second.convert(intermediate, stringency, logger);
+    }
+}
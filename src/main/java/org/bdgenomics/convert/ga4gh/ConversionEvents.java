@@ -0,0 +1,111 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import org.bdgenomics.convert.ConversionStringency;
+
+/**
+ * Conversion events.
+ *
+ * <p>
+ * This is the Java 8 implementation, which records nothing; every method is a no-op
+ * and is eliminated by the JIT compiler.  On Java 11 and later, the multi-release JAR
+ * provides an implementation that emits JDK Flight Recorder events for conversion batches,
+ * slow records, and stringency warnings.  Event arguments are only inspected when an event
+ * will be committed, so callers may pass them unconditionally.
+ * </p>
+ */
+final class ConversionEvents {
+    /** Start time returned by <code>beginRecord()</code> if slow record events are not enabled. */
+    static final long UNTIMED = Long.MIN_VALUE;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private ConversionEvents() {
+        // empty
+    }
+
+
+    /**
+     * Return true if stringency warning events are currently enabled.  Callers may
+     * check this before formatting a warning message that would otherwise not be logged.
+     *
+     * @return true if stringency warning events are currently enabled
+     */
+    static boolean isWarningEnabled() {
+        return false;
+    }
+
+    /**
+     * Begin a conversion batch event.
+     *
+     * @return an opaque conversion batch event, or null if conversion batch events are not enabled
+     */
+    static Object beginBatch() {
+        return null;
+    }
+
+    /**
+     * End and commit the specified conversion batch event, if any.
+     *
+     * @param event conversion batch event returned by <code>beginBatch()</code>, if any
+     * @param stage pipeline stage, e.g. <code>convert</code> or <code>write</code>
+     * @param records number of records in the batch
+     * @param skipped number of records skipped in the batch
+     * @param bytes number of bytes serialized or written for the batch
+     */
+    static void endBatch(final Object event, final String stage, final long records, final long skipped, final long bytes) {
+        // empty
+    }
+
+    /**
+     * Begin timing a record for a slow record event.
+     *
+     * @return the start time in nanoseconds, or <code>UNTIMED</code> if slow record events are not enabled
+     */
+    static long beginRecord() {
+        return UNTIMED;
+    }
+
+    /**
+     * End timing a record, and commit a slow record event if the record took at least
+     * <code>SlowRecordThreshold</code> to convert.
+     *
+     * @param start start time returned by <code>beginRecord()</code>
+     * @param converter converter class
+     * @param readName read name, if any
+     * @param cigar cigar string, if any
+     */
+    static void endRecord(final long start, final Class<?> converter, final Object readName, final Object cigar) {
+        // empty
+    }
+
+    /**
+     * Commit a stringency warning event, if stringency warning events are enabled and
+     * the specified stringency is not strict.
+     *
+     * @param converter converter class
+     * @param message warning message
+     * @param stringency conversion stringency
+     */
+    static void warning(final Class<?> converter, final String message, final ConversionStringency stringency) {
+        // empty
+    }
+}
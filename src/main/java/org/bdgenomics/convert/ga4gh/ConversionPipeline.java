@@ -0,0 +1,409 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.protobuf.Message;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.slf4j.Logger;
+
+/**
+ * Streaming decode, convert, serialize, and write pipeline.
+ *
+ * <p>
+ * Source records are pulled in batches from an iterator (typically decoding from an
+ * Avro container) on the calling thread, converted and serialized as length-delimited
+ * protobuf messages on a pool of worker threads, and written in input order to an
+ * output stream on the calling thread.
+ * </p>
+ *
+ * <p>
+ * Batches are sized by record count, or adaptively against a byte budget for the estimated
+ * heap held for each batch.  A batch holds its source records from decode until it has been
+ * converted, and its serialized buffer until it has been written; converted messages are
+ * serialized as they are converted and are not held.  The heap footprint of each source record
+ * is estimated from the serialized size of its converted message.  With a byte budget, the first
+ * batches are small, and each following batch is sized from the estimated source record
+ * footprint plus serialized bytes per record of recently written batches, so that batches of
+ * long reads hold fewer records than batches of short reads.
+ * </p>
+ *
+ * @param <S> source type
+ * @param <T> target protobuf message type
+ */
+@Immutable
+public final class ConversionPipeline<S, T extends Message> {
+    /** Converter. */
+    private final Converter<S, T> converter;
+
+    /** Conversion stringency. */
+    private final ConversionStringency stringency;
+
+    /** Logger. */
+    private final Logger logger;
+
+    /** Number of worker threads. */
+    private final int threads;
+
+    /** Maximum number of records per batch. */
+    private final int batchSize;
+
+    /** Byte budget per batch for the estimated heap held for source records and serialized bytes. */
+    private final long batchBytes;
+
+    /** Heap footprint estimator for source records, if any. */
+    private final HeapFootprint footprint;
+
+    /** Number of records in the first batches when sizing batches against a byte budget. */
+    static final int INITIAL_BATCH_SIZE = 16;
+
+
+    /**
+     * Create a new conversion pipeline.
+     *
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param threads number of worker threads, must be at least one; if one,
+     *    conversion and serialization run on the calling thread
+     * @param batchSize number of records per batch, must be at least one
+     */
+    public ConversionPipeline(final Converter<S, T> converter,
+                              final ConversionStringency stringency,
+                              final Logger logger,
+                              final int threads,
+                              final int batchSize) {
+        checkNotNull(converter);
+        checkNotNull(stringency);
+        checkNotNull(logger);
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(batchSize > 0, "batchSize must be at least one");
+        this.converter = converter;
+        this.stringency = stringency;
+        this.logger = logger;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.batchBytes = 0L;
+        this.footprint = null;
+    }
+
+    /**
+     * Create a new conversion pipeline with batches sized adaptively against the specified
+     * byte budget for the estimated heap held for each batch, its source records and its
+     * serialized buffer.
+     *
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param threads number of worker threads, must be at least one; if one,
+     *    conversion and serialization run on the calling thread
+     * @param maxBatchSize maximum number of records per batch, must be at least one
+     * @param batchBytes byte budget per batch for the estimated heap held for source
+     *    records and serialized bytes, must be at least one
+     * @param footprint heap footprint estimator for source records, from the serialized size
+     *    of their converted messages, e.g. <code>HeapFootprint.alignmentRecord()</code>, must not be null
+     */
+    public ConversionPipeline(final Converter<S, T> converter,
+                              final ConversionStringency stringency,
+                              final Logger logger,
+                              final int threads,
+                              final int maxBatchSize,
+                              final long batchBytes,
+                              final HeapFootprint footprint) {
+        checkNotNull(converter);
+        checkNotNull(stringency);
+        checkNotNull(logger);
+        checkNotNull(footprint);
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be at least one");
+        checkArgument(batchBytes > 0L, "batchBytes must be at least one");
+        this.converter = converter;
+        this.stringency = stringency;
+        this.logger = logger;
+        this.threads = threads;
+        this.batchSize = maxBatchSize;
+        this.batchBytes = batchBytes;
+        this.footprint = footprint;
+    }
+
+
+    /**
+     * Run this conversion pipeline over the specified input, writing length-delimited
+     * protobuf messages to the specified output stream.  The output stream is flushed
+     * but not closed.
+     *
+     * @param input input, must not be null
+     * @param outputStream output stream to write to, must not be null
+     * @return record counts, per-stage timings, and estimated and approximate heap usage for this run
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if a conversion error occurs and stringency is strict
+     */
+    public ConversionStatistics run(final Iterator<S> input, final OutputStream outputStream) throws IOException, ConversionException {
+        checkNotNull(input);
+        checkNotNull(outputStream);
+
+        long start = System.nanoTime();
+        long decodeNanos = 0L;
+        long writeNanos = 0L;
+        Totals totals = new Totals();
+        totals.heapBaseline = usedHeap();
+        ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        Deque<ConvertTask> inFlight = new ArrayDeque<ConvertTask>();
+        try {
+            while (true) {
+                long decodeStart = System.nanoTime();
+                int size = nextBatchSize(totals.bytesPerRecord);
+                List<S> records = new ArrayList<S>(size);
+                while (records.size() < size && input.hasNext()) {
+                    records.add(input.next());
+                }
+                decodeNanos += System.nanoTime() - decodeStart;
+
+                if (records.isEmpty()) {
+                    break;
+                }
+                if (executorService == null) {
+                    writeNanos += write(convert(records), inFlight, outputStream, totals);
+                }
+                else {
+                    ConvertTask task = new ConvertTask(records, (long) (records.size() * totals.bytesPerRecord));
+                    executorService.execute(task);
+                    inFlight.addLast(task);
+                    if (inFlight.size() >= threads * 2) {
+                        writeNanos += write(Futures.await(inFlight.removeFirst(), "converted batch"), inFlight, outputStream, totals);
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeNanos += write(Futures.await(inFlight.removeFirst(), "converted batch"), inFlight, outputStream, totals);
+            }
+            long flushStart = System.nanoTime();
+            outputStream.flush();
+            writeNanos += System.nanoTime() - flushStart;
+        }
+        finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+        return new ConversionStatistics(totals.records, totals.skipped, totals.outputBytes, decodeNanos,
+                                        totals.convertNanos, totals.serializeNanos, writeNanos, System.nanoTime() - start,
+                                        totals.estimatedHeapBytes, totals.approximateHeapBytes);
+    }
+
+    /**
+     * Return the number of records in the next batch, given the estimated heap held
+     * per record of recently written batches.
+     *
+     * @param bytesPerRecord estimated heap held per record of recently written batches,
+     *    or zero if no batches have been written
+     * @return the number of records in the next batch
+     */
+    int nextBatchSize(final double bytesPerRecord) {
+        if (footprint == null) {
+            return batchSize;
+        }
+        if (bytesPerRecord <= 0.0d) {
+            return Math.min(batchSize, INITIAL_BATCH_SIZE);
+        }
+        return (int) Math.max(1L, Math.min((long) batchSize, (long) (batchBytes / bytesPerRecord)));
+    }
+
+    /**
+     * Convert and serialize the specified batch of records.
+     *
+     * @param records batch of records to convert
+     * @return the converted and serialized batch
+     * @throws IOException if an I/O error occurs
+     */
+    Batch convert(final List<S> records) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(records.size() * 256);
+        Batch batch = new Batch(buffer);
+        Object event = ConversionEvents.beginBatch();
+        for (S record : records) {
+            long convertStart = System.nanoTime();
+            T converted = converter.convert(record, stringency, logger);
+            long serializeStart = System.nanoTime();
+            batch.convertNanos += serializeStart - convertStart;
+
+            if (converted == null) {
+                batch.skipped++;
+                if (footprint != null) {
+                    batch.sourceBytes += footprint.estimate(0);
+                }
+            }
+            else {
+                converted.writeDelimitedTo(buffer);
+                batch.serializeNanos += System.nanoTime() - serializeStart;
+                batch.records++;
+                if (footprint != null) {
+                    // serialized size is memoized by writeDelimitedTo
+                    batch.sourceBytes += footprint.estimate(converted.getSerializedSize());
+                }
+            }
+        }
+        ConversionEvents.endBatch(event, "convert", batch.records, batch.skipped, buffer.size());
+        return batch;
+    }
+
+    /**
+     * Write the specified converted batch to the specified output stream.
+     *
+     * @param batch converted batch
+     * @param inFlight batches still in flight
+     * @param outputStream output stream to write to
+     * @param totals totals to update
+     * @return write time in nanoseconds
+     * @throws IOException if an I/O error occurs
+     */
+    private long write(final Batch batch, final Deque<ConvertTask> inFlight,
+                       final OutputStream outputStream, final Totals totals) throws IOException {
+        if (footprint != null) {
+            // sample estimated heap held while this batch is written: its serialized buffer,
+            // since its source records are released once converted, and the batches in flight
+            long estimatedHeapBytes = batch.buffer.size();
+            for (ConvertTask task : inFlight) {
+                estimatedHeapBytes += task.estimatedBytes();
+            }
+            totals.estimatedHeapBytes = Math.max(totals.estimatedHeapBytes, estimatedHeapBytes);
+        }
+        totals.approximateHeapBytes = Math.max(totals.approximateHeapBytes, usedHeap() - totals.heapBaseline);
+
+        long batchRecords = batch.records + batch.skipped;
+        if (batchRecords > 0L) {
+            // while converting, a batch holds both its source records and its serialized buffer
+            double bytesPerRecord = (batch.sourceBytes + batch.buffer.size()) / (double) batchRecords;
+            totals.bytesPerRecord = totals.bytesPerRecord <= 0.0d ? bytesPerRecord : (totals.bytesPerRecord + bytesPerRecord) / 2.0d;
+        }
+
+        Object event = ConversionEvents.beginBatch();
+        long writeStart = System.nanoTime();
+        batch.buffer.writeTo(outputStream);
+        long writeNanos = System.nanoTime() - writeStart;
+        ConversionEvents.endBatch(event, "write", batch.records, batch.skipped, batch.buffer.size());
+
+        totals.records += batch.records;
+        totals.skipped += batch.skipped;
+        totals.outputBytes += batch.buffer.size();
+        totals.convertNanos += batch.convertNanos;
+        totals.serializeNanos += batch.serializeNanos;
+        return writeNanos;
+    }
+
+    /**
+     * Return the number of bytes of heap currently in use, including garbage not yet collected.
+     *
+     * @return the number of bytes of heap currently in use, including garbage not yet collected
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Convert task.
+     */
+    private final class ConvertTask extends FutureTask<Batch> {
+        /** Predicted estimated heap held for the batch while converting. */
+        private final long predictedBytes;
+
+        ConvertTask(final List<S> records, final long predictedBytes) {
+            super(new Callable<Batch>() {
+                    @Override
+                    public Batch call() throws IOException {
+                        return convert(records);
+                    }
+                });
+            this.predictedBytes = predictedBytes;
+        }
+
+        /**
+         * Return the serialized bytes of the converted batch if conversion has completed,
+         * since the source records are then released, otherwise the predicted estimated
+         * heap held for the batch while converting.
+         *
+         * @return the serialized bytes of the converted batch or the predicted estimated heap held
+         */
+        long estimatedBytes() {
+            if (isDone() && !isCancelled()) {
+                try {
+                    return get().buffer.size();
+                }
+                catch (InterruptedException | ExecutionException e) {
+                    return predictedBytes;
+                }
+            }
+            return predictedBytes;
+        }
+    }
+
+    /**
+     * Converted and serialized batch.
+     */
+    static final class Batch {
+        final ByteArrayOutputStream buffer;
+        long records;
+        long skipped;
+        long convertNanos;
+        long serializeNanos;
+        long sourceBytes;
+
+        Batch(final ByteArrayOutputStream buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Running totals.
+     */
+    private static final class Totals {
+        long records;
+        long skipped;
+        long outputBytes;
+        long convertNanos;
+        long serializeNanos;
+        long heapBaseline;
+        long estimatedHeapBytes;
+        long approximateHeapBytes;
+        double bytesPerRecord;
+    }
+}
@@ -0,0 +1,414 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.function.BiConsumer;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Reactive Streams processor that converts records in batches on the executor of an
+ * asynchronous converter.
+ *
+ * <p>
+ * Records are requested from upstream in whole batches, and at most two batches are
+ * outstanding at a time (requested from upstream but not yet delivered downstream), so
+ * memory is bounded regardless of downstream speed.  A partial batch is submitted for
+ * conversion once every record requested from upstream has arrived, or once its first
+ * record has waited for the flush delay, so records from a slow or unbounded upstream are
+ * not held back waiting for a full batch.  Converted records are delivered in upstream
+ * order and never beyond downstream demand.  Records that could not be converted at
+ * lenient or silent stringency are dropped; a conversion error at strict stringency
+ * cancels upstream and is signalled downstream with <code>onError</code>.  An upstream
+ * error is signalled downstream after the records received before it have been
+ * delivered.  Supports a single downstream subscriber.
+ * </p>
+ *
+ * @param <S> source type
+ * @param <T> target type
+ */
+@ThreadSafe
+final class ConversionProcessor<S, T> implements Processor<S, T> {
+    /** Default flush delay for a partial batch, in milliseconds. */
+    static final long DEFAULT_FLUSH_DELAY_MILLIS = 10L;
+
+    /** Shared scheduler for partial batch flushes. */
+    private static final ScheduledThreadPoolExecutor FLUSH_SCHEDULER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "conversion-flush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    static {
+        FLUSH_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    /** Asynchronous converter. */
+    private final AsyncConverter<S, T> asyncConverter;
+
+    /** Number of records per batch. */
+    private final int batchSize;
+
+    /** Flush delay for a partial batch, in nanoseconds. */
+    private final long flushDelay;
+
+    /** Lock for the batch being accumulated, shared by upstream signals and partial batch flushes. */
+    private final Object lock = new Object();
+
+    /** Batch being accumulated from upstream, guarded by lock. */
+    private List<S> batch;
+
+    /** Scheduled flush of the batch being accumulated, if any, guarded by lock. */
+    private ScheduledFuture<?> flush;
+
+    /** Records requested from upstream but not yet received. */
+    private final AtomicLong pending = new AtomicLong();
+
+    /** Converted batches, in upstream order. */
+    private final Queue<CompletableFuture<List<T>>> batches = new ConcurrentLinkedQueue<CompletableFuture<List<T>>>();
+
+    /** Downstream demand. */
+    private final AtomicLong requested = new AtomicLong();
+
+    /** Drain work in progress counter. */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    /** True once a downstream subscriber has subscribed. */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /** Upstream subscription. */
+    private volatile Subscription upstream;
+
+    /** Downstream subscriber. */
+    private volatile Subscriber<? super T> downstream;
+
+    /** True once upstream has completed or failed. */
+    private volatile boolean done;
+
+    /** Upstream error, if any. */
+    private volatile Throwable error;
+
+    /** Downstream request error, if any. */
+    private volatile Throwable requestError;
+
+    /** True once downstream has cancelled or a terminal signal has been sent downstream. */
+    private volatile boolean cancelled;
+
+    /** Records requested from upstream but not yet delivered or dropped; only accessed in drain. */
+    private long outstanding;
+
+    /** Index into the head batch; only accessed in drain. */
+    private int index;
+
+
+    /**
+     * Create a new conversion processor with the default flush delay.
+     *
+     * @param asyncConverter asynchronous converter, must not be null
+     */
+    ConversionProcessor(final AsyncConverter<S, T> asyncConverter) {
+        this(asyncConverter, DEFAULT_FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a new conversion processor.
+     *
+     * @param asyncConverter asynchronous converter, must not be null
+     * @param flushDelay flush delay for a partial batch, must be at least zero
+     * @param unit flush delay time unit, must not be null
+     */
+    ConversionProcessor(final AsyncConverter<S, T> asyncConverter, final long flushDelay, final TimeUnit unit) {
+        checkNotNull(asyncConverter);
+        checkArgument(flushDelay >= 0L, "flushDelay must be at least zero");
+        checkNotNull(unit);
+        this.asyncConverter = asyncConverter;
+        this.batchSize = asyncConverter.getBatchSize();
+        this.flushDelay = unit.toNanos(flushDelay);
+        this.batch = new ArrayList<S>(batchSize);
+    }
+
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {
+        checkNotNull(subscription);
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(final S source) {
+        checkNotNull(source);
+        boolean arrived = pending.decrementAndGet() == 0L;
+        synchronized (lock) {
+            batch.add(source);
+            if (batch.size() == batchSize || arrived) {
+                submit();
+            }
+            else if (batch.size() == 1) {
+                flush = FLUSH_SCHEDULER.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            flush();
+                        }
+                    }, flushDelay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        checkNotNull(throwable);
+        flush();
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        flush();
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        checkNotNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(final long n) {
+                        // empty
+                    }
+
+                    @Override
+                    public void cancel() {
+                        // empty
+                    }
+                });
+            subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(final long n) {
+                    if (n <= 0L) {
+                        requestError = new IllegalArgumentException("request must be positive, rule 3.9");
+                    }
+                    else {
+                        addRequested(n);
+                    }
+                    drain();
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                    Subscription subscription = upstream;
+                    if (subscription != null) {
+                        subscription.cancel();
+                    }
+                }
+            });
+        downstream = subscriber;
+        drain();
+    }
+
+    /**
+     * Submit the current batch for conversion, if it is not empty.
+     */
+    private void flush() {
+        synchronized (lock) {
+            if (!batch.isEmpty() && !cancelled) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Submit the current batch for conversion.  Must be called holding lock.
+     */
+    private void submit() {
+        if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+        }
+        CompletableFuture<List<T>> converted = asyncConverter.convertBatch(batch);
+        batches.add(converted);
+        batch = new ArrayList<S>(batchSize);
+        converted.whenComplete(new BiConsumer<List<T>, Throwable>() {
+                @Override
+                public void accept(final List<T> targets, final Throwable throwable) {
+                    drain();
+                }
+            });
+    }
+
+    /**
+     * Add the specified demand to downstream demand, capped at <code>Long.MAX_VALUE</code>.
+     *
+     * @param n demand to add
+     */
+    private void addRequested(final long n) {
+        while (true) {
+            long current = requested.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            long next = current + n;
+            if (next < 0L) {
+                next = Long.MAX_VALUE;
+            }
+            if (requested.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver converted records downstream within demand, request more from upstream
+     * within the outstanding limit, and signal completion or errors.  Serialized by the
+     * work in progress counter, so only one thread drains at a time.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            Subscriber<? super T> subscriber = downstream;
+            Subscription subscription = upstream;
+            if (subscriber != null && subscription != null && !cancelled) {
+                if (requestError != null) {
+                    terminate(subscription);
+                    subscriber.onError(requestError);
+                }
+                else if (drainBatches(subscriber, subscription)) {
+                    // read done before batches, upstream submits any partial batch before setting done
+                    boolean d = done;
+                    if (d && batches.isEmpty()) {
+                        terminate(subscription);
+                        if (error != null) {
+                            subscriber.onError(error);
+                        }
+                        else {
+                            subscriber.onComplete();
+                        }
+                    }
+                    else {
+                        while (!done && !cancelled && requested.get() > 0L && outstanding + batchSize <= 2L * batchSize) {
+                            outstanding += batchSize;
+                            pending.addAndGet(batchSize);
+                            subscription.request(batchSize);
+                        }
+                    }
+                }
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver converted records from completed batches downstream within demand.
+     *
+     * @param subscriber downstream subscriber
+     * @param subscription upstream subscription
+     * @return false if a conversion error was signalled downstream, after which this processor is cancelled
+     */
+    private boolean drainBatches(final Subscriber<? super T> subscriber, final Subscription subscription) {
+        CompletableFuture<List<T>> head;
+        while ((head = batches.peek()) != null && head.isDone() && !cancelled) {
+            List<T> targets;
+            try {
+                targets = head.get();
+            }
+            catch (ExecutionException e) {
+                terminate(subscription);
+                subscriber.onError(e.getCause());
+                return false;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                terminate(subscription);
+                subscriber.onError(e);
+                return false;
+            }
+            while (index < targets.size()) {
+                T target = targets.get(index);
+                if (target != null) {
+                    if (requested.get() == 0L) {
+                        return true;
+                    }
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    subscriber.onNext(target);
+                }
+                index++;
+                outstanding--;
+            }
+            batches.poll();
+            index = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Cancel upstream and drop any remaining batches, after a terminal signal downstream.
+     *
+     * @param subscription upstream subscription
+     */
+    private void terminate(final Subscription subscription) {
+        cancelled = true;
+        batches.clear();
+        subscription.cancel();
+    }
+}
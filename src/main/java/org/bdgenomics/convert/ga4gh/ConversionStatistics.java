@@ -0,0 +1,234 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Record counts, per-stage timings, and heap usage for a conversion pipeline run.
+ *
+ * <p>
+ * Decode and write times are wall clock times on the calling thread.  Convert and
+ * serialize times are summed over all worker threads.
+ * </p>
+ *
+ * <p>
+ * Estimated heap bytes is the peak estimated heap held for the batches in flight at once,
+ * source records of batches not yet converted as estimated by a heap footprint estimator
+ * plus the serialized buffers of converted batches, and is zero if batches are not sized
+ * against a byte budget.  Approximate heap bytes is the peak growth in used heap
+ * (<code>totalMemory() - freeMemory()</code>) over the start of the run, sampled without
+ * garbage collection as each batch is written.  It includes garbage not yet collected and
+ * depends on when collections happen to run, so it is only a rough upper bound to compare
+ * the estimate against; <code>HeapFootprintCalibration</code> (in the test sources) measures
+ * retained heap after garbage collection.
+ * </p>
+ */
+@Immutable
+public final class ConversionStatistics {
+    /** Number of records converted and written. */
+    private final long records;
+
+    /** Number of records skipped because conversion returned null. */
+    private final long skipped;
+
+    /** Number of bytes written. */
+    private final long outputBytes;
+
+    /** Decode time in nanoseconds. */
+    private final long decodeNanos;
+
+    /** Convert time in nanoseconds. */
+    private final long convertNanos;
+
+    /** Serialize time in nanoseconds. */
+    private final long serializeNanos;
+
+    /** Write time in nanoseconds. */
+    private final long writeNanos;
+
+    /** Elapsed time in nanoseconds. */
+    private final long elapsedNanos;
+
+    /** Peak estimated heap bytes. */
+    private final long estimatedHeapBytes;
+
+    /** Peak approximate heap bytes, growth in used heap without garbage collection. */
+    private final long approximateHeapBytes;
+
+
+    /**
+     * Create a new conversion statistics.
+     *
+     * @param records number of records converted and written
+     * @param skipped number of records skipped because conversion returned null
+     * @param outputBytes number of bytes written
+     * @param decodeNanos decode time in nanoseconds
+     * @param convertNanos convert time in nanoseconds
+     * @param serializeNanos serialize time in nanoseconds
+     * @param writeNanos write time in nanoseconds
+     * @param elapsedNanos elapsed time in nanoseconds
+     * @param estimatedHeapBytes peak estimated heap bytes
+     * @param approximateHeapBytes peak approximate heap bytes
+     */
+    ConversionStatistics(final long records,
+                         final long skipped,
+                         final long outputBytes,
+                         final long decodeNanos,
+                         final long convertNanos,
+                         final long serializeNanos,
+                         final long writeNanos,
+                         final long elapsedNanos,
+                         final long estimatedHeapBytes,
+                         final long approximateHeapBytes) {
+        this.records = records;
+        this.skipped = skipped;
+        this.outputBytes = outputBytes;
+        this.decodeNanos = decodeNanos;
+        this.convertNanos = convertNanos;
+        this.serializeNanos = serializeNanos;
+        this.writeNanos = writeNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.estimatedHeapBytes = estimatedHeapBytes;
+        this.approximateHeapBytes = approximateHeapBytes;
+    }
+
+
+    /**
+     * Return the number of records converted and written.
+     *
+     * @return the number of records converted and written
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Return the number of records skipped because conversion returned null.
+     *
+     * @return the number of records skipped because conversion returned null
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Return the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * Return the decode time in nanoseconds.
+     *
+     * @return the decode time in nanoseconds
+     */
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    /**
+     * Return the convert time in nanoseconds, summed over all worker threads.
+     *
+     * @return the convert time in nanoseconds, summed over all worker threads
+     */
+    public long getConvertNanos() {
+        return convertNanos;
+    }
+
+    /**
+     * Return the serialize time in nanoseconds, summed over all worker threads.
+     *
+     * @return the serialize time in nanoseconds, summed over all worker threads
+     */
+    public long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    /**
+     * Return the write time in nanoseconds.
+     *
+     * @return the write time in nanoseconds
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Return the elapsed time in nanoseconds.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Return the peak estimated heap bytes, or zero if batches are not sized against a byte budget.
+     *
+     * @return the peak estimated heap bytes, or zero if batches are not sized against a byte budget
+     */
+    public long getEstimatedHeapBytes() {
+        return estimatedHeapBytes;
+    }
+
+    /**
+     * Return the peak approximate heap bytes, the growth in used heap including garbage
+     * not yet collected, sampled as each batch is written.
+     *
+     * @return the peak approximate heap bytes, sampled as each batch is written
+     */
+    public long getApproximateHeapBytes() {
+        return approximateHeapBytes;
+    }
+
+    /**
+     * Return the number of records converted per second of elapsed time.
+     *
+     * @return the number of records converted per second of elapsed time
+     */
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0L ? 0.0d : records * 1.0e9d / elapsedNanos;
+    }
+
+    /**
+     * Return the number of bytes written per second of elapsed time.
+     *
+     * @return the number of bytes written per second of elapsed time
+     */
+    public double getOutputBytesPerSecond() {
+        return elapsedNanos == 0L ? 0.0d : outputBytes * 1.0e9d / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionStatistics(records=" + records
+            + ", skipped=" + skipped
+            + ", outputBytes=" + outputBytes
+            + ", decodeNanos=" + decodeNanos
+            + ", convertNanos=" + convertNanos
+            + ", serializeNanos=" + serializeNanos
+            + ", writeNanos=" + writeNanos
+            + ", elapsedNanos=" + elapsedNanos
+            + ", estimatedHeapBytes=" + estimatedHeapBytes
+            + ", approximateHeapBytes=" + approximateHeapBytes + ")";
+    }
+}
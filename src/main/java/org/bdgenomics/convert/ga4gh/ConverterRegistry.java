@@ -0,0 +1,350 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.inject.Binding;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import org.bdgenomics.convert.Converter;
+
+/**
+ * Immutable registry of converters by source and target class, built once from
+ * injector bindings.
+ *
+ * <p>
+ * Lookup by exact source and target class is a single probe into an open-addressing
+ * table, without locks or allocation, so it is cheap enough for per-record use.  Where
+ * no converter is bound directly from a source class to a target class but a chain of
+ * bound converters is, the shortest chain is composed when the registry is built, e.g.
+ * JsonReader to AlignmentRecord to ReadAlignment.
+ * </p>
+ *
+ * <p>
+ * Lookups that miss the table, e.g. by the runtime class of a GenericRecord, resolve
+ * against superclasses and interfaces once per source and target class pair; the
+ * result, including a miss, is memoized per source class.
+ * </p>
+ */
+@Immutable
+public final class ConverterRegistry {
+    /** Source classes, by slot. */
+    private final Class<?>[] sources;
+
+    /** Target classes, by slot. */
+    private final Class<?>[] targets;
+
+    /** Converters, by slot. */
+    private final Converter<?, ?>[] converters;
+
+    /** Slot mask. */
+    private final int mask;
+
+    /** Number of converters. */
+    private final int size;
+
+    /** Converters resolved by supertype search, by source class and then target class; <code>NONE</code> if none. */
+    private final ClassValue<ConcurrentMap<Class<?>, Object>> resolved = new ClassValue<ConcurrentMap<Class<?>, Object>>() {
+            @Override
+            protected ConcurrentMap<Class<?>, Object> computeValue(final Class<?> sourceClass) {
+                return new ConcurrentHashMap<Class<?>, Object>(4);
+            }
+        };
+
+    /** Number of supertype searches. */
+    private final AtomicLong searches = new AtomicLong();
+
+    /** Marker for a supertype search that found no converter. */
+    private static final Object NONE = new Object();
+
+
+    /**
+     * Create a new converter registry from the specified converters by source and target class.
+     *
+     * @param bySourceAndTarget converters by source class and then target class
+     * @param size number of converters
+     */
+    private ConverterRegistry(final Map<Class<?>, Map<Class<?>, Converter<?, ?>>> bySourceAndTarget, final int size) {
+        // at most half full, so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(4, size * 2) - 1) << 1;
+        this.sources = new Class<?>[capacity];
+        this.targets = new Class<?>[capacity];
+        this.converters = new Converter<?, ?>[capacity];
+        this.mask = capacity - 1;
+        this.size = size;
+
+        for (Map.Entry<Class<?>, Map<Class<?>, Converter<?, ?>>> bySource : bySourceAndTarget.entrySet()) {
+            for (Map.Entry<Class<?>, Converter<?, ?>> byTarget : bySource.getValue().entrySet()) {
+                int slot = slot(bySource.getKey(), byTarget.getKey());
+                while (sources[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                sources[slot] = bySource.getKey();
+                targets[slot] = byTarget.getKey();
+                converters[slot] = byTarget.getValue();
+            }
+        }
+    }
+
+
+    /**
+     * Return the converter from the specified source class to the specified target class, if any.
+     * If no converter is registered for the exact source class, its superclasses and interfaces
+     * are searched on first lookup, and the result memoized.
+     *
+     * @param <S> source type
+     * @param <T> target type
+     * @param sourceClass source class, must not be null
+     * @param targetClass target class, must not be null
+     * @return the converter from the specified source class to the specified target class, or
+     *    null if no such converter is registered
+     */
+    @SuppressWarnings("unchecked")
+    public <S, T> Converter<S, T> get(final Class<S> sourceClass, final Class<T> targetClass) {
+        checkNotNull(sourceClass);
+        checkNotNull(targetClass);
+        Converter<?, ?> converter = probe(sourceClass, targetClass);
+        if (converter == null) {
+            converter = resolve(sourceClass, targetClass);
+        }
+        return (Converter<S, T>) converter;
+    }
+
+    /**
+     * Return true if a converter is registered from the specified source class to the specified target class.
+     *
+     * @param sourceClass source class, must not be null
+     * @param targetClass target class, must not be null
+     * @return true if a converter is registered from the specified source class to the specified target class
+     */
+    public boolean contains(final Class<?> sourceClass, final Class<?> targetClass) {
+        return get(sourceClass, targetClass) != null;
+    }
+
+    /**
+     * Return the number of converters in this registry, including composed converters.
+     *
+     * @return the number of converters in this registry, including composed converters
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the converter from the specified exact source class to the specified exact target class.
+     *
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @return the converter from the specified exact source class to the specified exact target class, if any
+     */
+    private Converter<?, ?> probe(final Class<?> sourceClass, final Class<?> targetClass) {
+        int slot = slot(sourceClass, targetClass);
+        Class<?> source;
+        while ((source = sources[slot]) != null) {
+            if (source == sourceClass && targets[slot] == targetClass) {
+                return converters[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of supertype searches made by this registry.
+     *
+     * @return the number of supertype searches made by this registry
+     */
+    long searches() {
+        return searches.get();
+    }
+
+    /**
+     * Resolve the converter from the nearest supertype of the specified source class to the
+     * specified target class, searching only on the first lookup of each pair.
+     *
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @return the converter from the nearest supertype of the specified source class to the specified target class, if any
+     */
+    private Converter<?, ?> resolve(final Class<?> sourceClass, final Class<?> targetClass) {
+        ConcurrentMap<Class<?>, Object> byTarget = resolved.get(sourceClass);
+        Object converter = byTarget.get(targetClass);
+        if (converter == null) {
+            Converter<?, ?> found = search(sourceClass, targetClass);
+            converter = found == null ? NONE : found;
+            // search is deterministic, so a racing lookup memoizes the same result
+            byTarget.putIfAbsent(targetClass, converter);
+        }
+        return converter == NONE ? null : (Converter<?, ?>) converter;
+    }
+
+    /**
+     * Search the superclasses and interfaces of the specified source class for a converter to the specified target class.
+     *
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @return the converter from the nearest supertype of the specified source class to the specified target class, if any
+     */
+    private Converter<?, ?> search(final Class<?> sourceClass, final Class<?> targetClass) {
+        searches.incrementAndGet();
+        Deque<Class<?>> queue = new ArrayDeque<Class<?>>();
+        queue.add(sourceClass);
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.remove();
+            if (type != sourceClass) {
+                Converter<?, ?> converter = probe(type, targetClass);
+                if (converter != null) {
+                    return converter;
+                }
+            }
+            if (type.getSuperclass() != null) {
+                queue.add(type.getSuperclass());
+            }
+            for (Class<?> i : type.getInterfaces()) {
+                queue.add(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the initial slot for the specified source and target classes.
+     *
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @return the initial slot for the specified source and target classes
+     */
+    private int slot(final Class<?> sourceClass, final Class<?> targetClass) {
+        int h = sourceClass.hashCode() * 31 + targetClass.hashCode();
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+
+    /**
+     * Create a new converter registry from the bindings of a new injector over <code>Ga4ghModule</code>.
+     *
+     * @return a new converter registry from the bindings of a new injector over <code>Ga4ghModule</code>
+     */
+    public static ConverterRegistry create() {
+        return create(Guice.createInjector(new Ga4ghModule()));
+    }
+
+    /**
+     * Create a new converter registry from the unannotated <code>Converter&lt;S, T&gt;</code> bindings
+     * of the specified injector, keyed by the raw source and target classes.  If more than one binding
+     * has the same raw source and target classes, the first is used.
+     *
+     * @param injector injector, must not be null
+     * @return a new converter registry from the converter bindings of the specified injector
+     */
+    public static ConverterRegistry create(final Injector injector) {
+        checkNotNull(injector);
+
+        Map<Class<?>, Map<Class<?>, Converter<?, ?>>> direct = new LinkedHashMap<Class<?>, Map<Class<?>, Converter<?, ?>>>();
+        for (Binding<?> binding : injector.getAllBindings().values()) {
+            Key<?> key = binding.getKey();
+            TypeLiteral<?> typeLiteral = key.getTypeLiteral();
+            if (key.getAnnotationType() != null
+                || typeLiteral.getRawType() != Converter.class
+                || !(typeLiteral.getType() instanceof ParameterizedType)) {
+                continue;
+            }
+            Type[] typeArguments = ((ParameterizedType) typeLiteral.getType()).getActualTypeArguments();
+            Class<?> sourceClass = TypeLiteral.get(typeArguments[0]).getRawType();
+            Class<?> targetClass = TypeLiteral.get(typeArguments[1]).getRawType();
+
+            Map<Class<?>, Converter<?, ?>> byTarget = direct.get(sourceClass);
+            if (byTarget == null) {
+                byTarget = new LinkedHashMap<Class<?>, Converter<?, ?>>();
+                direct.put(sourceClass, byTarget);
+            }
+            if (!byTarget.containsKey(targetClass)) {
+                byTarget.put(targetClass, (Converter<?, ?>) injector.getInstance(key));
+            }
+        }
+        return compose(direct);
+    }
+
+    /**
+     * Compose the shortest chains of the specified direct converters, by breadth-first search
+     * from each source class.
+     *
+     * @param direct direct converters by source class and then target class
+     * @return a new converter registry with the specified direct converters and composed chains
+     */
+    private static ConverterRegistry compose(final Map<Class<?>, Map<Class<?>, Converter<?, ?>>> direct) {
+        Map<Class<?>, Map<Class<?>, Converter<?, ?>>> all = new LinkedHashMap<Class<?>, Map<Class<?>, Converter<?, ?>>>();
+        int size = 0;
+        for (Map.Entry<Class<?>, Map<Class<?>, Converter<?, ?>>> entry : direct.entrySet()) {
+            Class<?> sourceClass = entry.getKey();
+            Map<Class<?>, Converter<?, ?>> reachable = new LinkedHashMap<Class<?>, Converter<?, ?>>(entry.getValue());
+            List<Class<?>> frontier = new ArrayList<Class<?>>(entry.getValue().keySet());
+            while (!frontier.isEmpty()) {
+                List<Class<?>> nextFrontier = new ArrayList<Class<?>>();
+                for (Class<?> intermediateClass : frontier) {
+                    Map<Class<?>, Converter<?, ?>> fromIntermediate = direct.get(intermediateClass);
+                    if (fromIntermediate == null) {
+                        continue;
+                    }
+                    for (Map.Entry<Class<?>, Converter<?, ?>> next : fromIntermediate.entrySet()) {
+                        Class<?> targetClass = next.getKey();
+                        if (targetClass == sourceClass || reachable.containsKey(targetClass)) {
+                            continue;
+                        }
+                        reachable.put(targetClass, composed(sourceClass, targetClass, reachable.get(intermediateClass), next.getValue()));
+                        nextFrontier.add(targetClass);
+                    }
+                }
+                frontier = nextFrontier;
+            }
+            all.put(sourceClass, reachable);
+            size += reachable.size();
+        }
+        return new ConverterRegistry(all, size);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Converter<?, ?> composed(final Class<?> sourceClass,
+                                            final Class<?> targetClass,
+                                            final Converter<?, ?> first,
+                                            final Converter<?, ?> second) {
+        return new ComposedConverter(sourceClass, targetClass, first, second);
+    }
+}
@@ -0,0 +1,438 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.apache.hadoop.conf.Configuration;
+
+import org.apache.hadoop.fs.Path;
+
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+
+import org.apache.parquet.column.page.PageReadStore;
+
+import org.apache.parquet.column.statistics.Statistics;
+
+import org.apache.parquet.example.DummyRecordConverter;
+
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+
+import org.apache.parquet.hadoop.ParquetFileReader;
+
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import org.apache.parquet.io.api.Binary;
+
+import org.apache.parquet.schema.MessageType;
+
+/**
+ * Coarse coordinate index over a coordinate-sorted AlignmentRecord input, counting
+ * records by start position in fixed-size bins per contig, in input contig order.
+ *
+ * <p>
+ * Records without a contig name or start are counted as unplaced.  Adding a record
+ * out of coordinate order, or a contig after records on another contig, throws
+ * IllegalArgumentException.
+ * </p>
+ *
+ * <p>
+ * When read from a Parquet file, row groups on a single contig are added from their
+ * column statistics in the footer, spreading their records evenly over the bins between
+ * their minimum and maximum start, without reading any data pages.  Only row groups that
+ * span contigs, or lack statistics, are read, and then only their contigName and start
+ * columns.
+ * </p>
+ */
+@NotThreadSafe
+final class CoordinateIndex {
+    /** Bin size. */
+    private final long binSize;
+
+    /** Bins by contig name, in input contig order. */
+    private final Map<String, Bins> contigs = new LinkedHashMap<String, Bins>();
+
+    /** Bins for the last contig added. */
+    private Bins current;
+
+    /** Number of records. */
+    private long records;
+
+    /** Number of unplaced records. */
+    private long unplaced;
+
+    /** Default bin size, in base pairs. */
+    static final long DEFAULT_BIN_SIZE = 16384L;
+
+    /** Contig name column. */
+    private static final String CONTIG_NAME = "contigName";
+
+    /** Start column. */
+    private static final String START = "start";
+
+    /**
+     * Parquet 1.8 drops binary min/max statistics from footers unless signed ordering is enabled;
+     * the index only compares contigName min and max for equality, which holds under either ordering.
+     */
+    private static final String SIGNED_MIN_MAX = "parquet.strings.signed-min-max.enabled";
+
+
+    /**
+     * Create a new coordinate index with the default bin size.
+     */
+    CoordinateIndex() {
+        this(DEFAULT_BIN_SIZE);
+    }
+
+    /**
+     * Create a new coordinate index with the specified bin size.
+     *
+     * @param binSize bin size, in base pairs, must be at least one
+     */
+    CoordinateIndex(final long binSize) {
+        checkArgument(binSize > 0L, "binSize must be at least one");
+        this.binSize = binSize;
+    }
+
+
+    /**
+     * Add a record with the specified contig name and start to this coordinate index.
+     *
+     * @param referenceName contig name, if any
+     * @param start zero-based start, if any
+     * @throws IllegalArgumentException if the record is out of coordinate order
+     */
+    void add(final String referenceName, final Long start) {
+        records++;
+        if (referenceName == null || start == null) {
+            unplaced++;
+            return;
+        }
+        if (current == null || !current.referenceName.equals(referenceName)) {
+            checkArgument(!contigs.containsKey(referenceName), "input is not coordinate-sorted, contig %s appears after contig %s",
+                          referenceName, current == null ? null : current.referenceName);
+            current = new Bins(referenceName);
+            contigs.put(referenceName, current);
+        }
+        long s = start.longValue();
+        checkArgument(s >= current.lastStart, "input is not coordinate-sorted at %s:%s", referenceName, s);
+        current.lastStart = s;
+        current.add(s / binSize, 1L);
+    }
+
+    /**
+     * Add the specified number of records on the specified contig, with starts between the
+     * specified minimum and maximum start, to this coordinate index, spreading them evenly
+     * over the bins between.
+     *
+     * @param referenceName contig name, must not be null
+     * @param minStart minimum zero-based start
+     * @param maxStart maximum zero-based start, must be at least minStart
+     * @param count number of records, must be at least zero
+     * @throws IllegalArgumentException if the records are out of coordinate order
+     */
+    void add(final String referenceName, final long minStart, final long maxStart, final long count) {
+        checkNotNull(referenceName);
+        checkArgument(maxStart >= minStart, "maxStart must be at least minStart");
+        checkArgument(count >= 0L, "count must be at least zero");
+        if (count == 0L) {
+            return;
+        }
+        records += count;
+        if (current == null || !current.referenceName.equals(referenceName)) {
+            checkArgument(!contigs.containsKey(referenceName), "input is not coordinate-sorted, contig %s appears after contig %s",
+                          referenceName, current == null ? null : current.referenceName);
+            current = new Bins(referenceName);
+            contigs.put(referenceName, current);
+        }
+        checkArgument(minStart >= current.lastStart, "input is not coordinate-sorted at %s:%s", referenceName, minStart);
+        current.lastStart = maxStart;
+
+        long minBin = minStart / binSize;
+        long bins = maxStart / binSize - minBin + 1L;
+        long remainder = count % bins;
+        for (long i = 0L; i < bins; i++) {
+            current.add(minBin + i, count / bins + (i < remainder ? 1L : 0L));
+        }
+    }
+
+    /**
+     * Add the specified number of unplaced records to this coordinate index.
+     *
+     * @param count number of unplaced records, must be at least zero
+     */
+    void addUnplaced(final long count) {
+        checkArgument(count >= 0L, "count must be at least zero");
+        records += count;
+        unplaced += count;
+    }
+
+    /**
+     * Return the bin size for this coordinate index.
+     *
+     * @return the bin size for this coordinate index
+     */
+    long getBinSize() {
+        return binSize;
+    }
+
+    /**
+     * Return the number of records in this coordinate index, including unplaced records.
+     *
+     * @return the number of records in this coordinate index
+     */
+    long getRecords() {
+        return records;
+    }
+
+    /**
+     * Return the number of unplaced records in this coordinate index.
+     *
+     * @return the number of unplaced records in this coordinate index
+     */
+    long getUnplaced() {
+        return unplaced;
+    }
+
+    /**
+     * Return the contig names in this coordinate index, in input contig order.
+     *
+     * @return the contig names in this coordinate index
+     */
+    List<String> getReferenceNames() {
+        return new ArrayList<String>(contigs.keySet());
+    }
+
+    /**
+     * Partition the placed records in this coordinate index into at most the specified
+     * number of chunks of roughly equal record counts, in genome order.  Each chunk is a
+     * list of disjoint regions cut at bin boundaries, possibly spanning several contigs,
+     * and together the chunks cover the start of every placed record exactly once.
+     *
+     * @param chunks number of chunks, must be at least one
+     * @return the placed records in this coordinate index partitioned into chunks
+     */
+    List<List<Region>> partition(final int chunks) {
+        checkArgument(chunks > 0, "chunks must be at least one");
+        long placed = records - unplaced;
+        long target = Math.max(1L, (placed + chunks - 1) / chunks);
+
+        List<List<Region>> partitions = new ArrayList<List<Region>>();
+        List<Region> regions = new ArrayList<Region>();
+        long count = 0L;
+        for (Bins bins : contigs.values()) {
+            long regionStart = 0L;
+            for (int i = 0; i < bins.size; i++) {
+                count += bins.counts[i];
+                if (count >= target) {
+                    long regionEnd = (i + 1) * binSize;
+                    regions.add(new Region(bins.referenceName, regionStart, regionEnd));
+                    partitions.add(regions);
+                    regions = new ArrayList<Region>();
+                    count = 0L;
+                    regionStart = regionEnd;
+                }
+            }
+            long end = bins.size * binSize;
+            if (regionStart < end) {
+                regions.add(new Region(bins.referenceName, regionStart, end));
+            }
+        }
+        if (!regions.isEmpty()) {
+            partitions.add(regions);
+        }
+        return partitions;
+    }
+
+    /**
+     * Read a coordinate index from the row group statistics, and where needed the contigName
+     * and start columns, of the specified coordinate-sorted AlignmentRecord Parquet file.
+     *
+     * @param path path to read from, must not be null
+     * @param conf Hadoop configuration, must not be null
+     * @param binSize bin size, in base pairs, must be at least one
+     * @return a coordinate index read from the specified path
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input is not coordinate-sorted
+     */
+    static CoordinateIndex read(final Path path, final Configuration conf, final long binSize) throws IOException {
+        checkNotNull(path);
+        checkNotNull(conf);
+        CoordinateIndex index = new CoordinateIndex(binSize);
+        ParquetMetadata footer = readFooter(path, conf);
+        FileMetaData fileMetaData = footer.getFileMetaData();
+        MessageType fileSchema = fileMetaData.getSchema();
+        MessageType projection = new MessageType(fileSchema.getName(), fileSchema.getType(CONTIG_NAME), fileSchema.getType(START));
+        ColumnDescriptor contigNameColumn = projection.getColumnDescription(new String[] { CONTIG_NAME });
+        ColumnDescriptor startColumn = projection.getColumnDescription(new String[] { START });
+
+        List<BlockMetaData> unindexed = new ArrayList<BlockMetaData>();
+        for (BlockMetaData block : footer.getBlocks()) {
+            if (!isIndexed(block)) {
+                unindexed.add(block);
+            }
+        }
+        if (unindexed.isEmpty()) {
+            for (BlockMetaData block : footer.getBlocks()) {
+                index.add(block);
+            }
+            return index;
+        }
+
+        // read contigName and start columns from the remaining row groups, in file order
+        try (ParquetFileReader reader = ParquetFileReader.open(conf, path, new ParquetMetadata(fileMetaData, unindexed))) {
+            reader.setRequestedSchema(projection);
+            for (BlockMetaData block : footer.getBlocks()) {
+                if (isIndexed(block)) {
+                    index.add(block);
+                    continue;
+                }
+                PageReadStore pages = reader.readNextRowGroup();
+                ColumnReadStoreImpl columns = new ColumnReadStoreImpl(pages, new DummyRecordConverter(projection).getRootConverter(),
+                                                                      projection, fileMetaData.getCreatedBy());
+                ColumnReader contigNames = columns.getColumnReader(contigNameColumn);
+                ColumnReader starts = columns.getColumnReader(startColumn);
+                for (long i = 0L, rows = block.getRowCount(); i < rows; i++) {
+                    String referenceName = contigNames.getCurrentDefinitionLevel() == contigNameColumn.getMaxDefinitionLevel()
+                        ? contigNames.getBinary().toStringUsingUTF8() : null;
+                    Long start = starts.getCurrentDefinitionLevel() == startColumn.getMaxDefinitionLevel()
+                        ? Long.valueOf(starts.getLong()) : null;
+                    contigNames.consume();
+                    starts.consume();
+                    index.add(referenceName, start);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Read the footer of the specified Parquet file, keeping the contigName column statistics.
+     *
+     * @param path path, must not be null
+     * @param conf Hadoop configuration, must not be null
+     * @return the footer of the specified Parquet file
+     * @throws IOException if an I/O error occurs
+     */
+    static ParquetMetadata readFooter(final Path path, final Configuration conf) throws IOException {
+        checkNotNull(path);
+        checkNotNull(conf);
+        Configuration footerConf = new Configuration(conf);
+        footerConf.setBoolean(SIGNED_MIN_MAX, true);
+        return ParquetFileReader.readFooter(footerConf, path, ParquetMetadataConverter.NO_FILTER);
+    }
+
+    /**
+     * Return true if the records in the specified row group can be added to a coordinate index
+     * from its column statistics alone, that is if the statistics are present, and either every
+     * record is unplaced, or every record with a contig name has a start and all are on a single contig.
+     *
+     * @param block row group
+     * @return true if the records in the specified row group can be added from its column statistics
+     */
+    static boolean isIndexed(final BlockMetaData block) {
+        Statistics<?> contigNames = statistics(block, CONTIG_NAME);
+        Statistics<?> starts = statistics(block, START);
+        if (contigNames == null || starts == null) {
+            return false;
+        }
+        if (!contigNames.hasNonNullValue()) {
+            return contigNames.getNumNulls() == block.getRowCount();
+        }
+        return starts.hasNonNullValue()
+            && contigNames.getNumNulls() == starts.getNumNulls()
+            && contigNames.genericGetMin().equals(contigNames.genericGetMax());
+    }
+
+    /**
+     * Add the records in the specified row group to this coordinate index from its column statistics.
+     *
+     * @param block row group, must be indexed from its column statistics
+     * @throws IllegalArgumentException if the records are out of coordinate order
+     */
+    private void add(final BlockMetaData block) {
+        Statistics<?> contigNames = statistics(block, CONTIG_NAME);
+        Statistics<?> starts = statistics(block, START);
+        long unplacedRecords = contigNames.getNumNulls();
+        if (contigNames.hasNonNullValue()) {
+            add(((Binary) contigNames.genericGetMin()).toStringUsingUTF8(), (Long) starts.genericGetMin(), (Long) starts.genericGetMax(),
+                block.getRowCount() - unplacedRecords);
+        }
+        addUnplaced(unplacedRecords);
+    }
+
+    /**
+     * Return the column statistics for the specified column in the specified row group, or
+     * null if the column is missing or has no statistics.
+     *
+     * @param block row group
+     * @param column column name
+     * @return the column statistics for the specified column in the specified row group, or null
+     */
+    private static Statistics<?> statistics(final BlockMetaData block, final String column) {
+        for (ColumnChunkMetaData columnChunk : block.getColumns()) {
+            if (columnChunk.getPath().size() == 1 && column.equals(columnChunk.getPath().toArray()[0])) {
+                Statistics<?> statistics = columnChunk.getStatistics();
+                return statistics == null || statistics.isEmpty() ? null : statistics;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Record counts by bin for a contig.
+     */
+    private static final class Bins {
+        private final String referenceName;
+        private long[] counts = new long[64];
+        private int size;
+        private long lastStart;
+
+        Bins(final String referenceName) {
+            checkNotNull(referenceName);
+            this.referenceName = referenceName;
+        }
+
+        void add(final long bin, final long count) {
+            checkArgument(bin < Integer.MAX_VALUE, "start too large for bin size");
+            int i = (int) bin;
+            if (i >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(i + 1, counts.length * 2));
+            }
+            counts[i] += count;
+            size = Math.max(size, i + 1);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.util.stream.Collector;
+
+import javax.annotation.concurrent.Immutable;
+
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Flagstat-style read counts.
+ */
+@Immutable
+public final class FlagStatistics {
+    /** Index of total count. */
+    private static final int TOTAL = 0;
+
+    /** Index of mapped count. */
+    private static final int MAPPED = 1;
+
+    /** Index of paired count. */
+    private static final int PAIRED = 2;
+
+    /** Index of properly paired count. */
+    private static final int PROPERLY_PAIRED = 3;
+
+    /** Index of duplicate count. */
+    private static final int DUPLICATE = 4;
+
+    /** Index of failed vendor quality checks count. */
+    private static final int QC_FAIL = 5;
+
+    /** Index of secondary alignment count. */
+    private static final int SECONDARY = 6;
+
+    /** Index of supplementary alignment count. */
+    private static final int SUPPLEMENTARY = 7;
+
+    /** Number of counts. */
+    private static final int COUNTS = 8;
+
+    /** Counts. */
+    private final long[] counts;
+
+
+    /**
+     * Create a new flag statistics from the specified counts.
+     *
+     * @param counts counts
+     */
+    private FlagStatistics(final long[] counts) {
+        this.counts = counts.clone();
+    }
+
+
+    /**
+     * Return the total number of reads.
+     *
+     * @return the total number of reads
+     */
+    public long getTotal() {
+        return counts[TOTAL];
+    }
+
+    /**
+     * Return the number of mapped reads.
+     *
+     * @return the number of mapped reads
+     */
+    public long getMapped() {
+        return counts[MAPPED];
+    }
+
+    /**
+     * Return the number of paired reads.
+     *
+     * @return the number of paired reads
+     */
+    public long getPaired() {
+        return counts[PAIRED];
+    }
+
+    /**
+     * Return the number of properly paired reads.
+     *
+     * @return the number of properly paired reads
+     */
+    public long getProperlyPaired() {
+        return counts[PROPERLY_PAIRED];
+    }
+
+    /**
+     * Return the number of duplicate reads.
+     *
+     * @return the number of duplicate reads
+     */
+    public long getDuplicate() {
+        return counts[DUPLICATE];
+    }
+
+    /**
+     * Return the number of reads that failed vendor quality checks.
+     *
+     * @return the number of reads that failed vendor quality checks
+     */
+    public long getFailedVendorQualityChecks() {
+        return counts[QC_FAIL];
+    }
+
+    /**
+     * Return the number of secondary alignments.
+     *
+     * @return the number of secondary alignments
+     */
+    public long getSecondary() {
+        return counts[SECONDARY];
+    }
+
+    /**
+     * Return the number of supplementary alignments.
+     *
+     * @return the number of supplementary alignments
+     */
+    public long getSupplementary() {
+        return counts[SUPPLEMENTARY];
+    }
+
+    @Override
+    public String toString() {
+        return "FlagStatistics{total=" + getTotal() + ", mapped=" + getMapped() + ", paired=" + getPaired()
+            + ", properlyPaired=" + getProperlyPaired() + ", duplicate=" + getDuplicate()
+            + ", failedVendorQualityChecks=" + getFailedVendorQualityChecks() + ", secondary=" + getSecondary()
+            + ", supplementary=" + getSupplementary() + "}";
+    }
+
+
+    /**
+     * Return a new side output collector for flag statistics.
+     *
+     * @return a new side output collector for flag statistics
+     */
+    public static Collector<ReadAlignment, long[], FlagStatistics> collector() {
+        return Collector.of(FlagStatistics::createCounts, FlagStatistics::accumulate, FlagStatistics::combine, FlagStatistics::new);
+    }
+
+    private static long[] createCounts() {
+        return new long[COUNTS];
+    }
+
+    private static void accumulate(final long[] counts, final ReadAlignment readAlignment) {
+        counts[TOTAL]++;
+        if (readAlignment.hasAlignment()) {
+            counts[MAPPED]++;
+        }
+        if (readAlignment.getNumberReads() == 2) {
+            counts[PAIRED]++;
+            if (!readAlignment.getImproperPlacement()) {
+                counts[PROPERLY_PAIRED]++;
+            }
+        }
+        if (readAlignment.getDuplicateFragment()) {
+            counts[DUPLICATE]++;
+        }
+        if (readAlignment.getFailedVendorQualityChecks()) {
+            counts[QC_FAIL]++;
+        }
+        if (readAlignment.getSecondaryAlignment()) {
+            counts[SECONDARY]++;
+        }
+        if (readAlignment.getSupplementaryAlignment()) {
+            counts[SUPPLEMENTARY]++;
+        }
+    }
+
+    private static long[] combine(final long[] left, final long[] right) {
+        for (int i = 0; i < COUNTS; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Waiting on futures and worker threads from I/O code.
+ */
+final class Futures {
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Futures() {
+        // empty
+    }
+
+
+    /**
+     * Wait for and return the result of the specified future, unwrapping any exceptions.
+     *
+     * @param <T> result type
+     * @param future future to wait for
+     * @param description description of the result, for the message if interrupted
+     * @return the result of the specified future
+     * @throws IOException if the computation threw an I/O error or a checked exception,
+     *    or if interrupted while waiting
+     */
+    static <T> T await(final Future<T> future, final String description) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            throw interrupted("interrupted waiting for " + description);
+        }
+        catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Restore the interrupt status of the current thread and return a new interrupted I/O
+     * exception with the specified message, to be thrown by the caller.
+     *
+     * @param message message
+     * @return a new interrupted I/O exception with the specified message
+     */
+    static InterruptedIOException interrupted(final String message) {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException(message);
+    }
+
+    /**
+     * Rethrow the specified cause if it is a runtime exception or an error, otherwise
+     * return it as an I/O exception, wrapping it if necessary, to be thrown by the caller.
+     *
+     * @param cause cause, must not be null
+     * @return the specified cause as an I/O exception
+     */
+    static IOException propagate(final Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+}
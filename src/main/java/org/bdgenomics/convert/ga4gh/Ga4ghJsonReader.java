@@ -0,0 +1,243 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.slf4j.Logger;
+
+/**
+ * Streaming, pull-based reader of GA4GH JSON messages, converting each message
+ * directly to a record one at a time.
+ *
+ * <p>
+ * The input may be a top-level array of messages, a sequence of concatenated or
+ * newline-delimited messages, or, when an array field name is specified, one or
+ * more search response objects (e.g. <code>{"alignments": [...], "nextPageToken": "..."}</code>)
+ * containing an array of messages.  Only the message being converted is held in memory,
+ * regardless of array size.  Messages that convert to null are skipped.
+ * </p>
+ *
+ * @param <T> record type
+ */
+@NotThreadSafe
+public final class Ga4ghJsonReader<T> implements Iterator<T>, Closeable {
+    /** JSON reader. */
+    private final JsonReader reader;
+
+    /** Converter. */
+    private final Converter<JsonReader, T> converter;
+
+    /** Array field name, if any. */
+    private final String arrayField;
+
+    /** Conversion stringency. */
+    private final ConversionStringency stringency;
+
+    /** Logger. */
+    private final Logger logger;
+
+    /** Reader state. */
+    private State state = State.START;
+
+    /** True if the current array is within a search response object. */
+    private boolean response = false;
+
+    /** Next record, if any. */
+    private T next;
+
+    /** Reader states. */
+    private enum State {
+        /** Before the next top-level value. */
+        START,
+        /** Within an array of messages. */
+        ARRAY,
+        /** Within a sequence of top-level messages. */
+        SEQUENCE,
+        /** At the end of the document. */
+        END
+    }
+
+
+    /**
+     * Create a new GA4GH JSON reader.
+     *
+     * @param reader reader to read from, must not be null
+     * @param converter converter, must not be null
+     * @param arrayField array field name within top-level search response objects, if any
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     */
+    public Ga4ghJsonReader(final Reader reader,
+                           final Converter<JsonReader, T> converter,
+                           final String arrayField,
+                           final ConversionStringency stringency,
+                           final Logger logger) {
+        checkNotNull(reader);
+        checkNotNull(converter);
+        checkNotNull(stringency);
+        checkNotNull(logger);
+        this.reader = new JsonReader(reader);
+        // lenient to allow concatenated top-level values
+        this.reader.setLenient(true);
+        this.converter = converter;
+        this.arrayField = arrayField;
+        this.stringency = stringency;
+        this.logger = logger;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs or the JSON is not well formed
+     * @throws ConversionException if a conversion error occurs and stringency is strict
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null && state != State.END) {
+                next = advance();
+            }
+            return next != null;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T current = next;
+        next = null;
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Advance the reader state, returning the next converted record, or null if none
+     * was converted in this step.
+     *
+     * @return the next converted record, or null if none was converted in this step
+     * @throws IOException if an I/O error occurs
+     */
+    private T advance() throws IOException {
+        switch (state) {
+            case START:
+                JsonToken token;
+                try {
+                    token = reader.peek();
+                }
+                catch (EOFException e) {
+                    // gson throws rather than returning END_DOCUMENT for an empty document
+                    state = State.END;
+                    return null;
+                }
+                if (token == JsonToken.END_DOCUMENT) {
+                    state = State.END;
+                }
+                else if (token == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    state = State.ARRAY;
+                }
+                else if (arrayField != null && token == JsonToken.BEGIN_OBJECT) {
+                    startResponse();
+                }
+                else {
+                    state = State.SEQUENCE;
+                }
+                return null;
+            case ARRAY:
+                if (reader.hasNext()) {
+                    return converter.convert(reader, stringency, logger);
+                }
+                reader.endArray();
+                if (response) {
+                    endResponse();
+                }
+                state = State.START;
+                return null;
+            case SEQUENCE:
+                if (reader.peek() == JsonToken.END_DOCUMENT) {
+                    state = State.END;
+                    return null;
+                }
+                return converter.convert(reader, stringency, logger);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Read the fields of a search response object up to the start of the array field.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void startResponse() throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (arrayField.equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                response = true;
+                state = State.ARRAY;
+                return;
+            }
+            reader.skipValue();
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Skip the remaining fields of a search response object.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void endResponse() throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endObject();
+        response = false;
+    }
+}
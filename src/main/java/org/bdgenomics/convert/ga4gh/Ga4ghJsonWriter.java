@@ -0,0 +1,547 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+
+import com.google.protobuf.util.JsonFormat;
+
+import ga4gh.Common.OntologyTerm;
+import ga4gh.Common.Position;
+import ga4gh.Common.Strand;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+/**
+ * Streaming GA4GH JSON writer for ReadAlignment, Feature, and their nested messages.
+ *
+ * <p>
+ * Output is byte-compatible with the default <code>JsonFormat.printer()</code> for the
+ * same messages, but is written directly from generated accessors to the underlying
+ * writer, without building intermediate strings or walking field descriptors.  Messages
+ * with fields this writer does not handle directly (e.g. ReadAlignment info) set are
+ * delegated to <code>JsonFormat</code>.
+ * </p>
+ */
+@NotThreadSafe
+public final class Ga4ghJsonWriter implements Closeable, Flushable {
+    /** Fields not handled directly, by message type. */
+    private static final List<FieldDescriptor> READ_ALIGNMENT_UNHANDLED = unhandled(ReadAlignment.getDescriptor(),
+        "id", "read_group_id", "fragment_name", "improper_placement", "duplicate_fragment", "number_reads",
+        "fragment_length", "read_number", "failed_vendor_quality_checks", "alignment", "secondary_alignment",
+        "supplementary_alignment", "aligned_sequence", "aligned_quality", "next_mate_position");
+    private static final List<FieldDescriptor> LINEAR_ALIGNMENT_UNHANDLED = unhandled(LinearAlignment.getDescriptor(),
+        "position", "mapping_quality", "cigar");
+    private static final List<FieldDescriptor> POSITION_UNHANDLED = unhandled(Position.getDescriptor(),
+        "reference_name", "position", "strand");
+    private static final List<FieldDescriptor> CIGAR_UNIT_UNHANDLED = unhandled(CigarUnit.getDescriptor(),
+        "operation", "operation_length", "reference_sequence");
+    private static final List<FieldDescriptor> FEATURE_UNHANDLED = unhandled(Feature.getDescriptor(),
+        "reference_name", "start", "end", "strand", "feature_type");
+    private static final List<FieldDescriptor> ONTOLOGY_TERM_UNHANDLED = unhandled(OntologyTerm.getDescriptor(),
+        "term_id", "term");
+
+    /** Escapes for ASCII characters as written by JsonFormat, which disables Gson HTML escaping, null if no escape is needed. */
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            ESCAPES[i] = String.format("\\u%04x", i);
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+    }
+
+    /** Writer. */
+    private final Writer writer;
+
+    /** JSON format printer, for unhandled fields. */
+    private final JsonFormat.Printer printer = JsonFormat.printer();
+
+    /** Scratch buffer for formatting numbers. */
+    private final char[] digits = new char[20];
+
+    /** Current indent depth. */
+    private int depth = 0;
+
+
+    /**
+     * Create a new GA4GH JSON writer.
+     *
+     * @param writer writer to write to, must not be null
+     */
+    public Ga4ghJsonWriter(final Writer writer) {
+        checkNotNull(writer);
+        this.writer = writer;
+    }
+
+    /**
+     * Create a new GA4GH JSON writer encoding UTF-8 to the specified output stream.
+     *
+     * @param outputStream output stream to write to, must not be null
+     */
+    public Ga4ghJsonWriter(final OutputStream outputStream) {
+        this(new BufferedWriter(new OutputStreamWriter(checkNotNull(outputStream), StandardCharsets.UTF_8), 64 * 1024));
+    }
+
+
+    /**
+     * Write the specified read alignment as GA4GH JSON.
+     *
+     * @param readAlignment read alignment to write, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final ReadAlignment readAlignment) throws IOException {
+        checkNotNull(readAlignment);
+        writeReadAlignment(readAlignment);
+    }
+
+    /**
+     * Write the specified feature as GA4GH JSON.
+     *
+     * @param feature feature to write, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final Feature feature) throws IOException {
+        checkNotNull(feature);
+        writeFeature(feature);
+    }
+
+    /**
+     * Write a line separator, for newline-delimited output.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void newLine() throws IOException {
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeReadAlignment(final ReadAlignment m) throws IOException {
+        if (isUnhandled(m, READ_ALIGNMENT_UNHANDLED)) {
+            delegate(m);
+            return;
+        }
+        startMessage();
+        boolean printed = false;
+        if (!m.getId().isEmpty()) {
+            printed = name(printed, "id");
+            string(m.getId());
+        }
+        if (!m.getReadGroupId().isEmpty()) {
+            printed = name(printed, "readGroupId");
+            string(m.getReadGroupId());
+        }
+        if (!m.getFragmentName().isEmpty()) {
+            printed = name(printed, "fragmentName");
+            string(m.getFragmentName());
+        }
+        if (m.getImproperPlacement()) {
+            printed = name(printed, "improperPlacement");
+            writer.write("true");
+        }
+        if (m.getDuplicateFragment()) {
+            printed = name(printed, "duplicateFragment");
+            writer.write("true");
+        }
+        if (m.getNumberReads() != 0) {
+            printed = name(printed, "numberReads");
+            int32(m.getNumberReads());
+        }
+        if (m.getFragmentLength() != 0) {
+            printed = name(printed, "fragmentLength");
+            int32(m.getFragmentLength());
+        }
+        if (m.getReadNumber() != 0) {
+            printed = name(printed, "readNumber");
+            int32(m.getReadNumber());
+        }
+        if (m.getFailedVendorQualityChecks()) {
+            printed = name(printed, "failedVendorQualityChecks");
+            writer.write("true");
+        }
+        if (m.hasAlignment()) {
+            printed = name(printed, "alignment");
+            writeLinearAlignment(m.getAlignment());
+        }
+        if (m.getSecondaryAlignment()) {
+            printed = name(printed, "secondaryAlignment");
+            writer.write("true");
+        }
+        if (m.getSupplementaryAlignment()) {
+            printed = name(printed, "supplementaryAlignment");
+            writer.write("true");
+        }
+        if (!m.getAlignedSequence().isEmpty()) {
+            printed = name(printed, "alignedSequence");
+            string(m.getAlignedSequence());
+        }
+        int qualities = m.getAlignedQualityCount();
+        if (qualities > 0) {
+            printed = name(printed, "alignedQuality");
+            writer.write('[');
+            for (int i = 0; i < qualities; i++) {
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                int32(m.getAlignedQuality(i));
+            }
+            writer.write(']');
+        }
+        if (m.hasNextMatePosition()) {
+            printed = name(printed, "nextMatePosition");
+            writePosition(m.getNextMatePosition());
+        }
+        endMessage(printed);
+    }
+
+    private void writeLinearAlignment(final LinearAlignment m) throws IOException {
+        if (isUnhandled(m, LINEAR_ALIGNMENT_UNHANDLED)) {
+            delegate(m);
+            return;
+        }
+        startMessage();
+        boolean printed = false;
+        if (m.hasPosition()) {
+            printed = name(printed, "position");
+            writePosition(m.getPosition());
+        }
+        if (m.getMappingQuality() != 0) {
+            printed = name(printed, "mappingQuality");
+            int32(m.getMappingQuality());
+        }
+        int cigarUnits = m.getCigarCount();
+        if (cigarUnits > 0) {
+            printed = name(printed, "cigar");
+            writer.write('[');
+            for (int i = 0; i < cigarUnits; i++) {
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                writeCigarUnit(m.getCigar(i));
+            }
+            writer.write(']');
+        }
+        endMessage(printed);
+    }
+
+    private void writePosition(final Position m) throws IOException {
+        if (isUnhandled(m, POSITION_UNHANDLED)) {
+            delegate(m);
+            return;
+        }
+        startMessage();
+        boolean printed = false;
+        if (!m.getReferenceName().isEmpty()) {
+            printed = name(printed, "referenceName");
+            string(m.getReferenceName());
+        }
+        if (m.getPosition() != 0L) {
+            printed = name(printed, "position");
+            int64(m.getPosition());
+        }
+        if (m.getStrandValue() != 0) {
+            printed = name(printed, "strand");
+            strand(m.getStrand(), m.getStrandValue());
+        }
+        endMessage(printed);
+    }
+
+    private void writeCigarUnit(final CigarUnit m) throws IOException {
+        if (isUnhandled(m, CIGAR_UNIT_UNHANDLED)) {
+            delegate(m);
+            return;
+        }
+        startMessage();
+        boolean printed = false;
+        if (m.getOperationValue() != 0) {
+            printed = name(printed, "operation");
+            if (m.getOperation() == CigarUnit.Operation.UNRECOGNIZED) {
+                int32(m.getOperationValue());
+            }
+            else {
+                quoted(m.getOperation().name());
+            }
+        }
+        if (m.getOperationLength() != 0L) {
+            printed = name(printed, "operationLength");
+            int64(m.getOperationLength());
+        }
+        if (!m.getReferenceSequence().isEmpty()) {
+            printed = name(printed, "referenceSequence");
+            string(m.getReferenceSequence());
+        }
+        endMessage(printed);
+    }
+
+    private void writeFeature(final Feature m) throws IOException {
+        if (isUnhandled(m, FEATURE_UNHANDLED)) {
+            delegate(m);
+            return;
+        }
+        startMessage();
+        boolean printed = false;
+        if (!m.getReferenceName().isEmpty()) {
+            printed = name(printed, "referenceName");
+            string(m.getReferenceName());
+        }
+        if (m.getStart() != 0L) {
+            printed = name(printed, "start");
+            int64(m.getStart());
+        }
+        if (m.getEnd() != 0L) {
+            printed = name(printed, "end");
+            int64(m.getEnd());
+        }
+        if (m.getStrandValue() != 0) {
+            printed = name(printed, "strand");
+            strand(m.getStrand(), m.getStrandValue());
+        }
+        if (m.hasFeatureType()) {
+            printed = name(printed, "featureType");
+            writeOntologyTerm(m.getFeatureType());
+        }
+        endMessage(printed);
+    }
+
+    private void writeOntologyTerm(final OntologyTerm m) throws IOException {
+        if (isUnhandled(m, ONTOLOGY_TERM_UNHANDLED)) {
+            delegate(m);
+            return;
+        }
+        startMessage();
+        boolean printed = false;
+        if (!m.getTermId().isEmpty()) {
+            printed = name(printed, "termId");
+            string(m.getTermId());
+        }
+        if (!m.getTerm().isEmpty()) {
+            printed = name(printed, "term");
+            string(m.getTerm());
+        }
+        endMessage(printed);
+    }
+
+    private void startMessage() throws IOException {
+        writer.write("{\n");
+        depth++;
+    }
+
+    private boolean name(final boolean printed, final String name) throws IOException {
+        if (printed) {
+            writer.write(",\n");
+        }
+        indent();
+        writer.write('"');
+        writer.write(name);
+        writer.write("\": ");
+        return true;
+    }
+
+    private void endMessage(final boolean printed) throws IOException {
+        if (printed) {
+            writer.write('\n');
+        }
+        depth--;
+        indent();
+        writer.write('}');
+    }
+
+    private void indent() throws IOException {
+        for (int i = 0; i < depth; i++) {
+            writer.write("  ");
+        }
+    }
+
+    private void strand(final Strand strand, final int value) throws IOException {
+        if (strand == Strand.UNRECOGNIZED) {
+            int32(value);
+        }
+        else {
+            quoted(strand.name());
+        }
+    }
+
+    private void quoted(final String value) throws IOException {
+        writer.write('"');
+        writer.write(value);
+        writer.write('"');
+    }
+
+    private void int32(final int value) throws IOException {
+        if (value >= 0 && value < 10) {
+            writer.write('0' + value);
+        }
+        else {
+            int64Unquoted(value);
+        }
+    }
+
+    private void int64(final long value) throws IOException {
+        writer.write('"');
+        int64Unquoted(value);
+        writer.write('"');
+    }
+
+    private void int64Unquoted(final long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writer.write(Long.toString(value));
+            return;
+        }
+        long v = Math.abs(value);
+        int i = digits.length;
+        do {
+            digits[--i] = (char) ('0' + (v % 10L));
+            v /= 10L;
+        } while (v != 0L);
+        if (value < 0L) {
+            digits[--i] = '-';
+        }
+        writer.write(digits, i, digits.length - i);
+    }
+
+    private void string(final String value) throws IOException {
+        writer.write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c < 128) {
+                escape = ESCAPES[c];
+                if (escape == null) {
+                    continue;
+                }
+            }
+            else if (c == '\u2028') {
+                escape = "\\u2028";
+            }
+            else if (c == '\u2029') {
+                escape = "\\u2029";
+            }
+            else {
+                continue;
+            }
+            if (last < i) {
+                writer.write(value, last, i - last);
+            }
+            writer.write(escape);
+            last = i + 1;
+        }
+        if (last < length) {
+            writer.write(value, last, length - last);
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Delegate the specified message to JSON format, indented to the current depth.
+     *
+     * @param message message to delegate
+     * @throws IOException if an I/O error occurs
+     */
+    private void delegate(final Message message) throws IOException {
+        String json = printer.print(message);
+        if (depth == 0) {
+            writer.write(json);
+            return;
+        }
+        int last = 0;
+        for (int i = json.indexOf('\n'); i >= 0; i = json.indexOf('\n', last)) {
+            writer.write(json, last, i + 1 - last);
+            indent();
+            last = i + 1;
+        }
+        writer.write(json, last, json.length() - last);
+    }
+
+    /**
+     * Return true if any of the specified unhandled fields are set on the specified message.
+     *
+     * @param message message
+     * @param unhandled unhandled fields
+     * @return true if any of the specified unhandled fields are set on the specified message
+     */
+    private static boolean isUnhandled(final Message message, final List<FieldDescriptor> unhandled) {
+        for (int i = 0, size = unhandled.size(); i < size; i++) {
+            FieldDescriptor field = unhandled.get(i);
+            if (field.isRepeated() ? message.getRepeatedFieldCount(field) > 0 : message.hasField(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the fields of the specified message type not in the specified handled field names.
+     *
+     * @param descriptor message type descriptor
+     * @param handled handled field names
+     * @return the fields of the specified message type not in the specified handled field names
+     */
+    private static List<FieldDescriptor> unhandled(final Descriptor descriptor, final String... handled) {
+        Set<String> names = new HashSet<String>(Arrays.asList(handled));
+        List<FieldDescriptor> unhandled = new ArrayList<FieldDescriptor>();
+        for (FieldDescriptor field : descriptor.getFields()) {
+            if (!names.contains(field.getName())) {
+                unhandled.add(field);
+            }
+        }
+        return unhandled;
+    }
+}
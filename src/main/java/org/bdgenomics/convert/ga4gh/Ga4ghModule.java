@@ -17,6 +17,8 @@
  */
 package org.bdgenomics.convert.ga4gh;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.List;
 
 import javax.annotation.concurrent.Immutable;
@@ -24,17 +26,23 @@ import javax.annotation.concurrent.Immutable;
 import ga4gh.Reads.CigarUnit;
 import ga4gh.Reads.CigarUnit.Operation;
 import ga4gh.Reads.ReadAlignment;
+import ga4gh.Reads.ReadGroup;
 
 import htsjdk.samtools.Cigar;
 import htsjdk.samtools.CigarOperator;
 
+import com.google.gson.stream.JsonReader;
+
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 
+import org.apache.avro.generic.GenericRecord;
+
 import org.bdgenomics.convert.Converter;
 
 import org.bdgenomics.formats.avro.AlignmentRecord;
+import org.bdgenomics.formats.avro.RecordGroup;
 
 /**
  * Guice module for the org.bdgenomics.convert.ga4gh package.
@@ -51,6 +59,11 @@ public final class Ga4ghModule extends AbstractModule {
         return new CigarOperatorToOperation();
     }
 
+    @Provides @Singleton
+    Converter<Operation, CigarOperator> createOperationToCigarOperator() {
+        return new OperationToCigarOperator();
+    }
+
     @Provides @Singleton
     Converter<Cigar, List<CigarUnit>> createCigarToCigarUnits(final Converter<CigarOperator, Operation> operatorConverter) {
         return new CigarToCigarUnits(operatorConverter);
@@ -61,6 +74,28 @@ public final class Ga4ghModule extends AbstractModule {
         return new AlignmentRecordToReadAlignment(cigarConverter);
     }
 
+    @Provides @Singleton
+    Converter<AlignmentRecord, LazyReadAlignment> createAlignmentRecordToLazyReadAlignment(final Converter<AlignmentRecord, ReadAlignment> alignmentConverter) {
+        checkArgument(alignmentConverter instanceof AlignmentRecordToReadAlignment,
+                      "lazy conversion requires the AlignmentRecord to ReadAlignment converter to be an AlignmentRecordToReadAlignment");
+        return new AlignmentRecordToLazyReadAlignment((AlignmentRecordToReadAlignment) alignmentConverter);
+    }
+
+    @Provides @Singleton
+    Converter<GenericRecord, ReadAlignment> createGenericRecordToReadAlignment(Converter<Cigar, List<CigarUnit>> cigarConverter) {
+        return new GenericRecordToReadAlignment(cigarConverter);
+    }
+
+    @Provides @Singleton
+    Converter<AlignmentBatch, List<ReadAlignment>> createAlignmentBatchToReadAlignments(final Converter<CigarOperator, Operation> operatorConverter) {
+        return new AlignmentBatchToReadAlignments(operatorConverter);
+    }
+
+    @Provides @Singleton
+    Converter<RecordGroup, ReadGroup> createRecordGroupToReadGroup() {
+        return new RecordGroupToReadGroup();
+    }
+
     @Provides @Singleton
     Converter<ga4gh.Common.Strand, org.bdgenomics.formats.avro.Strand> createGa4ghStrandToBdgenomicsStrand() {
         return new Ga4ghStrandToBdgenomicsStrand();
@@ -90,4 +125,14 @@ public final class Ga4ghModule extends AbstractModule {
     Converter<org.bdgenomics.formats.avro.Feature, ga4gh.SequenceAnnotations.Feature> createBdgenomicsFeatureToGa4ghFeature(final Converter<String, ga4gh.Common.OntologyTerm> featureTypeConverter, final Converter<org.bdgenomics.formats.avro.Strand, ga4gh.Common.Strand> strandConverter) {
         return new BdgenomicsFeatureToGa4ghFeature(featureTypeConverter, strandConverter);
     }
+
+    @Provides @Singleton
+    Converter<JsonReader, AlignmentRecord> createJsonReaderToAlignmentRecord(final Converter<Operation, CigarOperator> operationConverter) {
+        return new JsonReaderToAlignmentRecord(operationConverter);
+    }
+
+    @Provides @Singleton
+    Converter<JsonReader, org.bdgenomics.formats.avro.Feature> createJsonReaderToFeature(final Converter<ga4gh.Common.Strand, org.bdgenomics.formats.avro.Strand> strandConverter) {
+        return new JsonReaderToFeature(strandConverter);
+    }
 }
@@ -0,0 +1,631 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import java.net.InetSocketAddress;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonParseException;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+
+import com.google.protobuf.util.JsonFormat;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+
+import ga4gh.ReadServiceOuterClass.SearchReadsRequest;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import ga4gh.SequenceAnnotationServiceOuterClass.SearchFeaturesRequest;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embedded HTTP server for GA4GH <code>reads/search</code> and <code>features/search</code>
+ * over files of length-delimited ReadAlignment and Feature messages, such as written by
+ * <code>ConversionPipeline</code>.
+ *
+ * <p>
+ * Search requests and responses are GA4GH JSON.  Responses are streamed, each message
+ * written as it is read, and page tokens encode the file offset of the next message, so
+ * each page is served by seeking rather than re-scanning.  Region requests over a
+ * position-sorted file seek to the first candidate message with a sparse offset index
+ * built on first use; other requests are matched by scanning forward from the page
+ * token offset.  The <code>reference_id</code> of a reads search request is matched
+ * against alignment reference names; if empty, unmapped reads are returned.
+ * </p>
+ *
+ * <p>
+ * An I/O error before the response has started is sent as a 500 response.  An I/O error
+ * after the response has started closes the exchange, truncating the response.
+ * </p>
+ */
+public final class Ga4ghSearchServer implements Closeable {
+    /** Default page size, if not specified in a search request. */
+    static final int DEFAULT_PAGE_SIZE = 256;
+
+    /** Maximum page size. */
+    static final int MAX_PAGE_SIZE = 4096;
+
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(Ga4ghSearchServer.class);
+
+    /** HTTP server. */
+    private final HttpServer server;
+
+    /** Request executor service. */
+    private final ExecutorService executorService;
+
+    /** Paged ReadAlignment reader, if any. */
+    private final PagedMessageReader<ReadAlignment> readAlignments;
+
+    /** Paged Feature reader, if any. */
+    private final PagedMessageReader<Feature> features;
+
+
+    /**
+     * Create a new GA4GH search server.  The server is not started until <code>start()</code> is called.
+     *
+     * @param address address to bind to, must not be null; use port zero for an ephemeral port
+     * @param readAlignments file of length-delimited ReadAlignment messages, if any
+     * @param features file of length-delimited Feature messages, if any
+     * @param threads number of request threads, must be at least one
+     * @throws IOException if the server could not be bound to the specified address
+     */
+    public Ga4ghSearchServer(final InetSocketAddress address,
+                             final File readAlignments,
+                             final File features,
+                             final int threads) throws IOException {
+        checkNotNull(address);
+        checkArgument(threads > 0, "threads must be at least one");
+        this.readAlignments = readAlignments == null ? null : new PagedMessageReader<ReadAlignment>(readAlignments, ReadAlignment.getDefaultInstance().getParserForType(),
+            new Function<ReadAlignment, Region>() {
+                @Override
+                public Region apply(final ReadAlignment readAlignment) {
+                    return locate(readAlignment);
+                }
+            });
+        this.features = features == null ? null : new PagedMessageReader<Feature>(features, Feature.getDefaultInstance().getParserForType(),
+            new Function<Feature, Region>() {
+                @Override
+                public Region apply(final Feature feature) {
+                    return locate(feature);
+                }
+            });
+
+        server = HttpServer.create(address, 0);
+        executorService = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executorService);
+        server.createContext("/reads/search", new HttpHandler() {
+                @Override
+                public void handle(final HttpExchange exchange) throws IOException {
+                    handleReads(exchange);
+                }
+            });
+        server.createContext("/features/search", new HttpHandler() {
+                @Override
+                public void handle(final HttpExchange exchange) throws IOException {
+                    handleFeatures(exchange);
+                }
+            });
+    }
+
+
+    /**
+     * Start this GA4GH search server.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Return the address this GA4GH search server is bound to.
+     *
+     * @return the address this GA4GH search server is bound to
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executorService.shutdown();
+    }
+
+    /**
+     * Handle a <code>reads/search</code> request.
+     *
+     * @param exchange HTTP exchange
+     * @throws IOException if an I/O error occurs
+     */
+    private void handleReads(final HttpExchange exchange) throws IOException {
+        try {
+            if (!checkRequest(exchange, readAlignments)) {
+                return;
+            }
+            SearchReadsRequest.Builder builder = SearchReadsRequest.newBuilder();
+            if (!parseRequest(exchange, builder)) {
+                return;
+            }
+            SearchReadsRequest request = builder.build();
+            Region region;
+            try {
+                region = request.getReferenceId().isEmpty() ? null : region(request.getReferenceId(), request.getStart(), request.getEnd());
+            }
+            catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            search(exchange, readAlignments, request.getPageToken(), region, pageSize(request.getPageSize()), filter(request),
+                new JsonResponse<ReadAlignment>(exchange, "alignments") {
+                    @Override
+                    void write(final Ga4ghJsonWriter jsonWriter, final ReadAlignment readAlignment) throws IOException {
+                        jsonWriter.write(readAlignment);
+                    }
+                });
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handle a <code>features/search</code> request.
+     *
+     * @param exchange HTTP exchange
+     * @throws IOException if an I/O error occurs
+     */
+    private void handleFeatures(final HttpExchange exchange) throws IOException {
+        try {
+            if (!checkRequest(exchange, features)) {
+                return;
+            }
+            SearchFeaturesRequest.Builder builder = SearchFeaturesRequest.newBuilder();
+            if (!parseRequest(exchange, builder)) {
+                return;
+            }
+            SearchFeaturesRequest request = builder.build();
+            Region region;
+            try {
+                region = request.getReferenceName().isEmpty() ? null : region(request.getReferenceName(), request.getStart(), request.getEnd());
+            }
+            catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            search(exchange, features, request.getPageToken(), region, pageSize(request.getPageSize()), filter(request),
+                new JsonResponse<Feature>(exchange, "features") {
+                    @Override
+                    void write(final Ga4ghJsonWriter jsonWriter, final Feature feature) throws IOException {
+                        jsonWriter.write(feature);
+                    }
+                });
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Read a page of messages from the specified paged reader and stream them as a GA4GH JSON
+     * search response, sending an error response if the page token is invalid or an I/O error
+     * occurs before the response has started.
+     *
+     * @param <T> protobuf message type
+     * @param exchange HTTP exchange
+     * @param reader paged reader
+     * @param pageToken page token
+     * @param region region, if any
+     * @param pageSize page size
+     * @param filter filter
+     * @param response JSON response
+     * @throws IOException if an I/O error occurs after the response has started
+     */
+    private static <T extends Message> void search(final HttpExchange exchange,
+                                                   final PagedMessageReader<T> reader,
+                                                   final String pageToken,
+                                                   final Region region,
+                                                   final int pageSize,
+                                                   final Predicate<? super T> filter,
+                                                   final JsonResponse<T> response) throws IOException {
+        try {
+            String nextPageToken = reader.read(pageToken, region, pageSize, filter, response);
+            response.end(nextPageToken);
+        }
+        catch (IllegalArgumentException e) {
+            // thrown for an invalid page token before any message is read
+            sendError(exchange, 400, e.getMessage());
+        }
+        catch (IOException | UncheckedIOException e) {
+            IOException cause = e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+            if (response.isStarted()) {
+                throw cause;
+            }
+            logger.warn("could not read " + reader.getFile() + ", caught " + cause.getMessage(), cause);
+            sendError(exchange, 500, "internal server error");
+        }
+    }
+
+    /**
+     * Check the method of the specified exchange and that the specified reader is available,
+     * sending an error response if not.
+     *
+     * @param exchange HTTP exchange
+     * @param reader paged reader, if any
+     * @return true if the request should be handled
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean checkRequest(final HttpExchange exchange, final PagedMessageReader<?> reader) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            sendError(exchange, 405, "method not allowed");
+            return false;
+        }
+        if (reader == null) {
+            sendError(exchange, 404, "not found");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse the GA4GH JSON request body of the specified exchange into the specified builder,
+     * sending an error response if the request body is malformed.
+     *
+     * @param exchange HTTP exchange
+     * @param builder builder to merge into
+     * @return true if the request body was parsed
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean parseRequest(final HttpExchange exchange, final Message.Builder builder) throws IOException {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonFormat.parser().merge(reader, builder);
+            return true;
+        }
+        catch (InvalidProtocolBufferException | JsonParseException e) {
+            sendError(exchange, 400, "malformed request, " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Start a chunked GA4GH JSON response for the specified exchange.
+     *
+     * @param exchange HTTP exchange
+     * @return a writer for the response body
+     * @throws IOException if an I/O error occurs
+     */
+    private static Writer startResponse(final HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0L);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * End a GA4GH JSON search response with the specified next page token.
+     *
+     * @param writer writer
+     * @param nextPageToken next page token, empty if there are no more pages
+     * @throws IOException if an I/O error occurs
+     */
+    private static void endResponse(final Writer writer, final String nextPageToken) throws IOException {
+        writer.write(']');
+        if (!nextPageToken.isEmpty()) {
+            writer.write(",\"nextPageToken\":\"");
+            writer.write(nextPageToken);
+            writer.write('"');
+        }
+        writer.write("}\n");
+    }
+
+    /**
+     * Send an error response with the specified status code and message.
+     *
+     * @param exchange HTTP exchange
+     * @param status HTTP status code
+     * @param message message
+     * @throws IOException if an I/O error occurs
+     */
+    private static void sendError(final HttpExchange exchange, final int status, final String message) throws IOException {
+        logger.debug("{} {} {}", status, exchange.getRequestURI(), message);
+        String escaped = message == null ? "" : message.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", " ");
+        byte[] body = ("{\"errorCode\":" + status + ",\"message\":\"" + escaped + "\"}\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    /**
+     * Return a region over the specified reference name, start, and end, with an end of zero meaning unbounded.
+     *
+     * @param referenceName reference name
+     * @param start start
+     * @param end end, or zero if unbounded
+     * @return a region over the specified reference name, start, and end
+     * @throws IllegalArgumentException if start is less than zero or greater than end
+     */
+    static Region region(final String referenceName, final long start, final long end) {
+        return new Region(referenceName, start, end > 0L ? end : Long.MAX_VALUE);
+    }
+
+    /**
+     * Return the region covered by the specified ReadAlignment, or null if it is unmapped.
+     *
+     * @param readAlignment ReadAlignment
+     * @return the region covered by the specified ReadAlignment, or null if it is unmapped
+     */
+    static Region locate(final ReadAlignment readAlignment) {
+        String referenceName = readAlignment.hasAlignment() ? readAlignment.getAlignment().getPosition().getReferenceName() : "";
+        long position = readAlignment.getAlignment().getPosition().getPosition();
+        if (referenceName.isEmpty() || position < 0L) {
+            return null;
+        }
+        return new Region(referenceName, position, referenceEnd(readAlignment));
+    }
+
+    /**
+     * Return the region covered by the specified Feature, or null if it is unplaced.
+     *
+     * @param feature Feature
+     * @return the region covered by the specified Feature, or null if it is unplaced
+     */
+    static Region locate(final Feature feature) {
+        if (feature.getReferenceName().isEmpty() || feature.getStart() < 0L || feature.getEnd() < feature.getStart()) {
+            return null;
+        }
+        return new Region(feature.getReferenceName(), feature.getStart(), feature.getEnd());
+    }
+
+    /**
+     * Return the specified page size, defaulted if zero and capped at the maximum page size.
+     *
+     * @param pageSize requested page size
+     * @return the specified page size, defaulted if zero and capped at the maximum page size
+     */
+    static int pageSize(final int pageSize) {
+        return pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Return a filter for the specified reads search request.
+     *
+     * @param request reads search request
+     * @return a filter for the specified reads search request
+     */
+    static Predicate<ReadAlignment> filter(final SearchReadsRequest request) {
+        final Set<String> readGroupIds = new HashSet<String>(request.getReadGroupIdsList());
+        final String referenceName = request.getReferenceId();
+        final long start = request.getStart();
+        final long end = request.getEnd() > 0L ? request.getEnd() : Long.MAX_VALUE;
+        return new Predicate<ReadAlignment>() {
+            @Override
+            public boolean test(final ReadAlignment readAlignment) {
+                if (!readGroupIds.isEmpty() && !readGroupIds.contains(readAlignment.getReadGroupId())) {
+                    return false;
+                }
+                String alignmentReferenceName = readAlignment.hasAlignment() ? readAlignment.getAlignment().getPosition().getReferenceName() : "";
+                if (referenceName.isEmpty()) {
+                    return alignmentReferenceName.isEmpty();
+                }
+                if (!referenceName.equals(alignmentReferenceName)) {
+                    return false;
+                }
+                long position = readAlignment.getAlignment().getPosition().getPosition();
+                return position < end && referenceEnd(readAlignment) > start;
+            }
+        };
+    }
+
+    /**
+     * Return a filter for the specified features search request.
+     *
+     * @param request features search request
+     * @return a filter for the specified features search request
+     */
+    static Predicate<Feature> filter(final SearchFeaturesRequest request) {
+        final Set<String> featureTypes = new HashSet<String>(request.getFeatureTypesList());
+        final String referenceName = request.getReferenceName();
+        final String name = request.getName();
+        final String geneSymbol = request.getGeneSymbol();
+        final String parentId = request.getParentId();
+        final long start = request.getStart();
+        final long end = request.getEnd() > 0L ? request.getEnd() : Long.MAX_VALUE;
+        return new Predicate<Feature>() {
+            @Override
+            public boolean test(final Feature feature) {
+                if (!referenceName.isEmpty()
+                    && (!referenceName.equals(feature.getReferenceName()) || feature.getStart() >= end || feature.getEnd() <= start)) {
+                    return false;
+                }
+                if (!name.isEmpty() && !name.equals(feature.getName())) {
+                    return false;
+                }
+                if (!geneSymbol.isEmpty() && !geneSymbol.equals(feature.getGeneSymbol())) {
+                    return false;
+                }
+                if (!parentId.isEmpty() && !parentId.equals(feature.getParentId())) {
+                    return false;
+                }
+                return featureTypes.isEmpty() || featureTypes.contains(feature.getFeatureType().getTermId());
+            }
+        };
+    }
+
+    /**
+     * Return the reference end position of the specified aligned read alignment, exclusive.
+     *
+     * @param readAlignment aligned read alignment
+     * @return the reference end position of the specified aligned read alignment, exclusive
+     */
+    static long referenceEnd(final ReadAlignment readAlignment) {
+        long position = readAlignment.getAlignment().getPosition().getPosition();
+        long length = 0L;
+        for (CigarUnit cigarUnit : readAlignment.getAlignment().getCigarList()) {
+            switch (cigarUnit.getOperation()) {
+                case ALIGNMENT_MATCH:
+                case SEQUENCE_MATCH:
+                case SEQUENCE_MISMATCH:
+                case DELETE:
+                case SKIP:
+                    length += cigarUnit.getOperationLength();
+                    break;
+                default:
+                    break;
+            }
+        }
+        // count an alignment without cigar as covering its start position
+        return position + Math.max(1L, length);
+    }
+
+
+    /**
+     * GA4GH JSON search response, started on the first message or at the end of the page,
+     * so that errors found before then can still be sent as error responses.
+     *
+     * @param <T> protobuf message type
+     */
+    private abstract static class JsonResponse<T extends Message> implements Consumer<T> {
+        /** HTTP exchange. */
+        private final HttpExchange exchange;
+
+        /** Name of the repeated messages field. */
+        private final String field;
+
+        /** Response writer, null until the response has started. */
+        private Writer writer;
+
+        /** GA4GH JSON writer, null until the response has started. */
+        private Ga4ghJsonWriter jsonWriter;
+
+        /** Number of messages written. */
+        private int count;
+
+
+        /**
+         * Create a new GA4GH JSON search response.
+         *
+         * @param exchange HTTP exchange
+         * @param field name of the repeated messages field
+         */
+        JsonResponse(final HttpExchange exchange, final String field) {
+            this.exchange = exchange;
+            this.field = field;
+        }
+
+
+        /**
+         * Write the specified message with the specified GA4GH JSON writer.
+         *
+         * @param jsonWriter GA4GH JSON writer
+         * @param message message to write
+         * @throws IOException if an I/O error occurs
+         */
+        abstract void write(Ga4ghJsonWriter jsonWriter, T message) throws IOException;
+
+        /**
+         * Return true if this response has started.
+         *
+         * @return true if this response has started
+         */
+        boolean isStarted() {
+            return writer != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws UncheckedIOException if an I/O error occurs
+         */
+        @Override
+        public void accept(final T message) {
+            try {
+                start();
+                if (count > 0) {
+                    writer.write(',');
+                }
+                write(jsonWriter, message);
+                count++;
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * End this response with the specified next page token.
+         *
+         * @param nextPageToken next page token, empty if there are no more pages
+         * @throws IOException if an I/O error occurs
+         */
+        void end(final String nextPageToken) throws IOException {
+            start();
+            endResponse(writer, nextPageToken);
+            writer.close();
+        }
+
+        /**
+         * Start this response, if it has not already started.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void start() throws IOException {
+            if (writer == null) {
+                writer = startResponse(exchange);
+                jsonWriter = new Ga4ghJsonWriter(writer);
+                writer.write("{\"" + field + "\":[");
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.protobuf.ByteString;
+
+import ga4gh.Common.Position;
+import ga4gh.Common.Strand;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.generic.GenericRecord;
+
+import org.apache.avro.util.Utf8;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.Converter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert bdg-formats AlignmentRecord as an Avro GenericRecord to GA4GH ReadAlignment.
+ *
+ * <p>
+ * Sequence, quality, name, and contig name fields are carried from Avro Utf8 bytes
+ * into protobuf ByteStrings without decoding to and re-encoding from java.lang.String.
+ * Use {@link Utf8DatumReader} to decode generic records with Utf8 string fields.
+ * Generic records must use the bdg-formats AlignmentRecord schema.
+ * </p>
+ */
+@Immutable
+final class GenericRecordToReadAlignment extends AbstractConverter<GenericRecord, ReadAlignment> {
+    /** Convert htsjdk Cigar to a list of GA4GH CigarUnits. */
+    private final Converter<Cigar, List<CigarUnit>> cigarConverter;
+
+    /** AlignmentRecord schema field positions. */
+    private static final int READ_IN_FRAGMENT = position("readInFragment");
+    private static final int CONTIG_NAME = position("contigName");
+    private static final int START = position("start");
+    private static final int MAPQ = position("mapq");
+    private static final int READ_NAME = position("readName");
+    private static final int SEQUENCE = position("sequence");
+    private static final int QUAL = position("qual");
+    private static final int CIGAR = position("cigar");
+    private static final int READ_PAIRED = position("readPaired");
+    private static final int PROPER_PAIR = position("properPair");
+    private static final int READ_MAPPED = position("readMapped");
+    private static final int FAILED_VENDOR_QUALITY_CHECKS = position("failedVendorQualityChecks");
+    private static final int DUPLICATE_READ = position("duplicateRead");
+    private static final int READ_NEGATIVE_STRAND = position("readNegativeStrand");
+    private static final int MATE_NEGATIVE_STRAND = position("mateNegativeStrand");
+    private static final int SECONDARY_ALIGNMENT = position("secondaryAlignment");
+    private static final int SUPPLEMENTARY_ALIGNMENT = position("supplementaryAlignment");
+    private static final int RECORD_GROUP_NAME = position("recordGroupName");
+    private static final int MATE_ALIGNMENT_START = position("mateAlignmentStart");
+    private static final int MATE_CONTIG_NAME = position("mateContigName");
+    private static final int INFERRED_INSERT_SIZE = position("inferredInsertSize");
+
+    /** Default read group id, as bytes. */
+    private static final ByteString DEFAULT_READ_GROUP_ID = ByteString.copyFromUtf8("1");
+
+
+    /**
+     * Convert bdg-formats AlignmentRecord as an Avro GenericRecord to GA4GH ReadAlignment.
+     *
+     * @param cigarConverter cigar converter, must not be null
+     */
+    GenericRecordToReadAlignment(final Converter<Cigar, List<CigarUnit>> cigarConverter) {
+        super(GenericRecord.class, ReadAlignment.class);
+        checkNotNull(cigarConverter);
+        this.cigarConverter = cigarConverter;
+    }
+
+
+    @Override
+    public ReadAlignment convert(final GenericRecord record,
+                                 final ConversionStringency stringency,
+                                 final Logger logger) throws ConversionException {
+
+        if (record == null) {
+            warnOrThrow(record, "must not be null", null, stringency, logger);
+            return null;
+        }
+        long startNanos = ConversionEvents.beginRecord();
+        ReadAlignment.Builder builder = ReadAlignment.newBuilder()
+            .setDuplicateFragment(isTrue(record.get(DUPLICATE_READ)))
+            .setFailedVendorQualityChecks(isTrue(record.get(FAILED_VENDOR_QUALITY_CHECKS)))
+            .setImproperPlacement(!isTrue(record.get(PROPER_PAIR)))
+            .setNumberReads(isTrue(record.get(READ_PAIRED)) ? 2 : 1)
+            .setSecondaryAlignment(isTrue(record.get(SECONDARY_ALIGNMENT)))
+            .setSupplementaryAlignment(isTrue(record.get(SUPPLEMENTARY_ALIGNMENT)));
+
+        Object sequence = record.get(SEQUENCE);
+        if (sequence != null) {
+            builder.setAlignedSequenceBytes(toByteString(sequence));
+        }
+        Object readName = record.get(READ_NAME);
+        if (readName != null) {
+            builder.setFragmentNameBytes(toByteString(readName));
+        }
+        Object recordGroupName = record.get(RECORD_GROUP_NAME);
+        builder.setReadGroupIdBytes(isNotEmpty(recordGroupName) ? toByteString(recordGroupName) : DEFAULT_READ_GROUP_ID);
+
+        Object readInFragment = record.get(READ_IN_FRAGMENT);
+        if (readInFragment != null) {
+            builder.setReadNumber(((Number) readInFragment).intValue());
+        }
+
+        Object inferredInsertSize = record.get(INFERRED_INSERT_SIZE);
+        if (inferredInsertSize != null) {
+            builder.setFragmentLength(((Number) inferredInsertSize).intValue());
+        }
+
+        Object mateContigName = record.get(MATE_CONTIG_NAME);
+        if (mateContigName != null) {
+            Object mateAlignmentStart = record.get(MATE_ALIGNMENT_START);
+            Position matePosition = Position.newBuilder()
+                .setReferenceNameBytes(toByteString(mateContigName))
+                .setPosition(mateAlignmentStart == null ? 0L : ((Number) mateAlignmentStart).longValue())
+                .setStrand(isTrue(record.get(MATE_NEGATIVE_STRAND)) ? Strand.NEG_STRAND : Strand.POS_STRAND)
+                .build();
+
+            builder.setNextMatePosition(matePosition);
+        }
+
+        Object qual = record.get(QUAL);
+        if (isNotEmpty(qual)) {
+            if (qual instanceof Utf8) {
+                Utf8 utf8 = (Utf8) qual;
+                byte[] bytes = utf8.getBytes();
+                for (int i = 0, length = utf8.getByteLength(); i < length; i++) {
+                    builder.addAlignedQuality((bytes[i] & 0xff) - 33);
+                }
+            }
+            else {
+                CharSequence charSequence = (CharSequence) qual;
+                for (int i = 0, length = charSequence.length(); i < length; i++) {
+                    builder.addAlignedQuality(((int) charSequence.charAt(i)) - 33);
+                }
+            }
+        }
+
+        if (isTrue(record.get(READ_MAPPED))) {
+            Object contigName = record.get(CONTIG_NAME);
+            Object start = record.get(START);
+            Object mapq = record.get(MAPQ);
+
+            Position.Builder positionBuilder = Position.newBuilder()
+                .setPosition(start == null ? 0L : ((Number) start).longValue())
+                .setStrand(isTrue(record.get(READ_NEGATIVE_STRAND)) ? Strand.NEG_STRAND : Strand.POS_STRAND);
+
+            if (contigName != null) {
+                positionBuilder.setReferenceNameBytes(toByteString(contigName));
+            }
+
+            LinearAlignment.Builder alignmentBuilder = LinearAlignment.newBuilder()
+                .setPosition(positionBuilder.build())
+                .setMappingQuality(mapq == null ? 0 : ((Number) mapq).intValue());
+
+            Object cigarValue = record.get(CIGAR);
+            String cigarText = cigarValue == null ? null : cigarValue.toString();
+            Cigar cigar = CigarParser.parse(cigarText);
+            if (cigar == null && (stringency != ConversionStringency.SILENT || ConversionEvents.isWarningEnabled())) {
+                String message = "could not decode cigar, " + CigarParser.describe(CigarParser.validate(cigarText), cigarText);
+                ConversionEvents.warning(GenericRecordToReadAlignment.class, message, stringency);
+                warnOrThrow(record, message, null, stringency, logger);
+            }
+            if (cigar != null) {
+                alignmentBuilder.addAllCigar(cigarConverter.convert(cigar, stringency, logger));
+            }
+
+            builder.setAlignment(alignmentBuilder.build());
+        }
+        ReadAlignment readAlignment = builder.build();
+        ConversionEvents.endRecord(startNanos, GenericRecordToReadAlignment.class, readName, record.get(CIGAR));
+        return readAlignment;
+    }
+
+    /**
+     * Return the position of the specified field in the AlignmentRecord schema.
+     *
+     * @param name field name
+     * @return the position of the specified field in the AlignmentRecord schema
+     */
+    private static int position(final String name) {
+        Schema.Field field = AlignmentRecord.getClassSchema().getField(name);
+        if (field == null) {
+            throw new IllegalStateException("AlignmentRecord schema missing field " + name);
+        }
+        return field.pos();
+    }
+
+    /**
+     * Return true if the specified value is Boolean.TRUE.
+     *
+     * @param value value
+     * @return true if the specified value is Boolean.TRUE
+     */
+    private static boolean isTrue(final Object value) {
+        return Boolean.TRUE.equals(value);
+    }
+
+    /**
+     * Return true if the specified value is a non-empty character sequence.
+     *
+     * @param value value
+     * @return true if the specified value is a non-empty character sequence
+     */
+    private static boolean isNotEmpty(final Object value) {
+        if (value instanceof Utf8) {
+            return ((Utf8) value).getByteLength() > 0;
+        }
+        return value instanceof CharSequence && ((CharSequence) value).length() > 0;
+    }
+
+    /**
+     * Copy the specified character sequence into a protobuf ByteString.  Utf8
+     * values are copied as bytes without decoding.
+     *
+     * @param value character sequence value, must not be null
+     * @return the specified character sequence copied into a protobuf ByteString
+     */
+    private static ByteString toByteString(final Object value) {
+        if (value instanceof Utf8) {
+            Utf8 utf8 = (Utf8) value;
+            return ByteString.copyFrom(utf8.getBytes(), 0, utf8.getByteLength());
+        }
+        return ByteString.copyFromUtf8(value.toString());
+    }
+}
@@ -0,0 +1,637 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import java.util.zip.CRC32;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.io.BaseEncoding;
+
+import com.google.protobuf.Message;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+
+import org.apache.avro.specific.SpecificDatumReader;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.slf4j.Logger;
+
+/**
+ * Incremental conversion of an Avro container file to length-delimited protobuf messages.
+ *
+ * <p>
+ * Each Avro block of the input is converted to its own output segment, and a manifest of
+ * the SHA-256 hash of each input block, with the offset, length, and CRC32 checksum of its
+ * output segment, is kept next to the output.  On the next run, output segments for blocks
+ * whose hash is in the manifest are copied from the previous output, after verifying their
+ * checksum, and only new or changed blocks are converted.  Blocks may be appended, removed,
+ * rewritten, or reordered between runs.  Since each record converts independently, the output
+ * is identical to a full conversion.
+ * </p>
+ *
+ * <p>
+ * The manifest also records a key over the input schema and codec, the converter class
+ * and stringency, and a fingerprint of the converter configuration, e.g. quality score
+ * binning or read group dictionary; if any of these change, the previous output is not
+ * reused.  The fingerprint is provided by the caller, since converter configuration is
+ * not otherwise visible, e.g. from {@link QualityScoreBinning#getFingerprint()} and
+ * {@link ReadGroupDictionary#getFingerprint()}.
+ * The new output is written to a temporary file and renamed over the previous output, then
+ * the manifest is replaced, both atomically.
+ * </p>
+ *
+ * @param <S> source type
+ * @param <T> target protobuf message type
+ */
+@Immutable
+public final class IncrementalConversion<S, T extends Message> {
+    /** Source record class. */
+    private final Class<S> recordClass;
+
+    /** Converter. */
+    private final Converter<S, T> converter;
+
+    /** Conversion stringency. */
+    private final ConversionStringency stringency;
+
+    /** Logger. */
+    private final Logger logger;
+
+    /** Conversion pipeline, converting one block per batch. */
+    private final ConversionPipeline<S, T> pipeline;
+
+    /** Number of worker threads. */
+    private final int threads;
+
+    /** Converter configuration fingerprint. */
+    private final String fingerprint;
+
+    /**
+     * Create a new incremental conversion.
+     *
+     * @param recordClass source record class, must not be null
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param threads number of worker threads, must be at least one; if one,
+     *    changed blocks are converted on the calling thread
+     * @param fingerprint fingerprint of the converter configuration, any string that changes
+     *    whenever the converter would produce different output, e.g. the concatenated
+     *    {@link QualityScoreBinning#getFingerprint()} and {@link ReadGroupDictionary#getFingerprint()}
+     *    of the quality score binning and read group dictionary, must not be null
+     */
+    public IncrementalConversion(final Class<S> recordClass,
+                                 final Converter<S, T> converter,
+                                 final ConversionStringency stringency,
+                                 final Logger logger,
+                                 final int threads,
+                                 final String fingerprint) {
+        checkNotNull(recordClass);
+        checkNotNull(fingerprint);
+        checkArgument(threads > 0, "threads must be at least one");
+        this.recordClass = recordClass;
+        this.pipeline = new ConversionPipeline<S, T>(converter, stringency, logger, 1, 1);
+        this.converter = converter;
+        this.stringency = stringency;
+        this.logger = logger;
+        this.threads = threads;
+        this.fingerprint = fingerprint;
+    }
+
+
+    /**
+     * Convert the specified Avro container file to the specified output file, reusing output
+     * segments recorded in the specified manifest file for unchanged input blocks, if it exists.
+     *
+     * @param input Avro container file to convert, must not be null
+     * @param output output file, must not be null
+     * @param manifestFile manifest file, must not be null
+     * @return record counts and output bytes for the whole output, including reused output segments,
+     *    and per-stage timings for this run
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if a conversion error occurs and stringency is strict
+     */
+    public ConversionStatistics run(final File input, final File output, final File manifestFile) throws IOException, ConversionException {
+        checkNotNull(input);
+        checkNotNull(output);
+        checkNotNull(manifestFile);
+
+        long start = System.nanoTime();
+        Manifest previous = manifestFile.exists() && output.exists() ? Manifest.read(manifestFile) : null;
+        File tmp = new File(output.getPath() + ".tmp");
+        List<Manifest.Entry> entries = new ArrayList<Manifest.Entry>();
+        Totals totals = new Totals();
+        String key;
+        ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try (AvroBlockReader reader = new AvroBlockReader(new BufferedInputStream(new FileInputStream(input), 1024 * 1024));
+             RandomAccessFile previousOutput = previous == null ? null : new RandomAccessFile(output, "r");
+             FileOutputStream outputStream = new FileOutputStream(tmp)) {
+
+            key = key(reader.getSchema(), reader.getCodec());
+            Map<String, Manifest.Entry> reusable = previous != null && previous.getKey().equals(key) ? previous.index() : Collections.<String, Manifest.Entry>emptyMap();
+            MessageDigest digest = sha256();
+            Deque<Pending> pending = new ArrayDeque<Pending>();
+            AvroBlock block = null;
+            while ((block = reader.readBlock()) != null) {
+                long hashStart = System.nanoTime();
+                String hash = hash(block, digest);
+                totals.decodeNanos += System.nanoTime() - hashStart;
+
+                Pending next = new Pending(block, reader.getSchema(), hash, reusable.get(hash));
+                if (next.reuse == null && executorService != null) {
+                    next.task = new FutureTask<Converted>(next);
+                    executorService.execute(next.task);
+                }
+                pending.addLast(next);
+                if (pending.size() >= threads * 2) {
+                    write(pending.removeFirst(), previousOutput, outputStream, entries, totals);
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.removeFirst(), previousOutput, outputStream, entries, totals);
+            }
+            long syncStart = System.nanoTime();
+            outputStream.getFD().sync();
+            totals.writeNanos += System.nanoTime() - syncStart;
+        }
+        finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+        Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        new Manifest(key, entries).write(manifestFile);
+
+        if (logger.isInfoEnabled()) {
+            logger.info("reused output for {} of {} blocks, converted {}", totals.reusedBlocks, entries.size(), entries.size() - totals.reusedBlocks);
+        }
+        return new ConversionStatistics(totals.records, totals.skipped, totals.outputBytes, totals.decodeNanos, totals.convertNanos,
+                                        totals.serializeNanos, totals.writeNanos, System.nanoTime() - start, 0L, 0L);
+    }
+
+    /**
+     * Write the output segment for the specified pending block, copied from the previous
+     * output if reusable and converted otherwise, and record its manifest entry.
+     *
+     * @param pending pending block
+     * @param previousOutput previous output, if any
+     * @param outputStream output stream to write to
+     * @param entries manifest entries to add to
+     * @param totals totals to update
+     * @throws IOException if an I/O error occurs
+     */
+    private void write(final Pending pending,
+                       final RandomAccessFile previousOutput,
+                       final FileOutputStream outputStream,
+                       final List<Manifest.Entry> entries,
+                       final Totals totals) throws IOException {
+
+        CRC32 crc32 = new CRC32();
+        byte[] segment = null;
+        long records = 0L;
+        long skipped = 0L;
+        if (pending.reuse != null) {
+            long copyStart = System.nanoTime();
+            segment = read(previousOutput, pending.reuse);
+            if (segment != null) {
+                crc32.update(segment, 0, segment.length);
+            }
+            totals.writeNanos += System.nanoTime() - copyStart;
+            if (segment != null && crc32.getValue() == pending.reuse.getOutputChecksum()) {
+                records = pending.reuse.getRecords();
+                skipped = pending.reuse.getSkipped();
+                totals.reusedBlocks++;
+            }
+            else {
+                logger.warn("previous output segment at offset {} does not match manifest checksum, converting", pending.reuse.getOutputOffset());
+                segment = null;
+                crc32.reset();
+            }
+        }
+        if (segment == null) {
+            Converted converted = pending.task == null ? pending.call() : Futures.await(pending.task, "converted block");
+            segment = converted.batch.buffer.toByteArray();
+            crc32.update(segment, 0, segment.length);
+            records = converted.batch.records;
+            skipped = converted.batch.skipped;
+            totals.decodeNanos += converted.decodeNanos;
+            totals.convertNanos += converted.batch.convertNanos;
+            totals.serializeNanos += converted.batch.serializeNanos;
+        }
+
+        long writeStart = System.nanoTime();
+        outputStream.write(segment);
+        totals.writeNanos += System.nanoTime() - writeStart;
+
+        entries.add(new Manifest.Entry(pending.hash, records, skipped, totals.outputBytes, segment.length, crc32.getValue()));
+        totals.records += records;
+        totals.skipped += skipped;
+        totals.outputBytes += segment.length;
+    }
+
+    /**
+     * Return the key for the specified input schema and codec and this conversion's
+     * converter class, stringency, and converter configuration fingerprint.
+     *
+     * @param schema input schema
+     * @param codec input codec
+     * @return the key for the specified input schema and codec and this conversion's
+     *    converter class, stringency, and converter configuration fingerprint
+     */
+    String key(final Schema schema, final String codec) {
+        MessageDigest digest = sha256();
+        String text = schema.toString() + "\n" + codec + "\n" + converter.getClass().getName() + "\n" + stringency.name() + "\n" + fingerprint;
+        return BaseEncoding.base16().lowerCase().encode(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Return the SHA-256 hash of the specified Avro block, over its record count and data as stored.
+     *
+     * @param block Avro block
+     * @param digest SHA-256 message digest
+     * @return the SHA-256 hash of the specified Avro block as a lowercase hex string
+     */
+    static String hash(final AvroBlock block, final MessageDigest digest) {
+        digest.reset();
+        long count = block.getCount();
+        for (int i = 56; i >= 0; i -= 8) {
+            digest.update((byte) (count >>> i));
+        }
+        digest.update(block.getData());
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    /**
+     * Return a new SHA-256 message digest.
+     *
+     * @return a new SHA-256 message digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read the output segment for the specified manifest entry from the specified previous output.
+     *
+     * @param previousOutput previous output
+     * @param entry manifest entry
+     * @return the output segment for the specified manifest entry, or null if out of range
+     * @throws IOException if an I/O error occurs
+     */
+    private static byte[] read(final RandomAccessFile previousOutput, final Manifest.Entry entry) throws IOException {
+        if (entry.getOutputOffset() + entry.getOutputLength() > previousOutput.length() || entry.getOutputLength() > Integer.MAX_VALUE) {
+            return null;
+        }
+        byte[] segment = new byte[(int) entry.getOutputLength()];
+        previousOutput.seek(entry.getOutputOffset());
+        previousOutput.readFully(segment);
+        return segment;
+    }
+
+
+    /**
+     * Input block pending output, converted on a worker thread unless reusable.
+     */
+    private final class Pending implements Callable<Converted> {
+        private final AvroBlock block;
+        private final Schema schema;
+        private final String hash;
+        private final Manifest.Entry reuse;
+        private FutureTask<Converted> task;
+
+        Pending(final AvroBlock block, final Schema schema, final String hash, final Manifest.Entry reuse) {
+            this.block = block;
+            this.schema = schema;
+            this.hash = hash;
+            this.reuse = reuse;
+        }
+
+        @Override
+        public Converted call() throws IOException {
+            long decodeStart = System.nanoTime();
+            DatumReader<S> datumReader = new SpecificDatumReader<S>(recordClass);
+            datumReader.setSchema(schema);
+            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(block.decompress(), null);
+            List<S> records = new ArrayList<S>((int) block.getCount());
+            for (long i = 0L; i < block.getCount(); i++) {
+                records.add(datumReader.read(null, decoder));
+            }
+            long decodeNanos = System.nanoTime() - decodeStart;
+            return new Converted(pipeline.convert(records), decodeNanos);
+        }
+    }
+
+    /**
+     * Converted input block.
+     */
+    private static final class Converted {
+        final ConversionPipeline.Batch batch;
+        final long decodeNanos;
+
+        Converted(final ConversionPipeline.Batch batch, final long decodeNanos) {
+            this.batch = batch;
+            this.decodeNanos = decodeNanos;
+        }
+    }
+
+    /**
+     * Running totals.
+     */
+    private static final class Totals {
+        long records;
+        long skipped;
+        long outputBytes;
+        long decodeNanos;
+        long convertNanos;
+        long serializeNanos;
+        long writeNanos;
+        int reusedBlocks;
+    }
+
+    /**
+     * Manifest of input block hashes and output segments.
+     */
+    @Immutable
+    public static final class Manifest {
+        /** Manifest format header. */
+        static final String HEADER = "# incremental conversion manifest v1";
+
+        /** Key over the input schema and codec and the converter class and stringency. */
+        private final String key;
+
+        /** Manifest entries, one per input block, in input order. */
+        private final List<Entry> entries;
+
+
+        /**
+         * Create a new manifest.
+         *
+         * @param key key over the input schema and codec, the converter class and stringency, and the converter configuration fingerprint
+         * @param entries manifest entries, one per input block, in input order
+         */
+        Manifest(final String key, final List<Entry> entries) {
+            this.key = key;
+            this.entries = Collections.unmodifiableList(new ArrayList<Entry>(entries));
+        }
+
+
+        /**
+         * Return the key over the input schema and codec, the converter class and stringency, and the converter configuration fingerprint.
+         *
+         * @return the key over the input schema and codec, the converter class and stringency, and the converter configuration fingerprint
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Return the manifest entries, one per input block, in input order.
+         *
+         * @return the manifest entries, one per input block, in input order
+         */
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Return the manifest entries indexed by input block hash.
+         *
+         * @return the manifest entries indexed by input block hash
+         */
+        Map<String, Entry> index() {
+            Map<String, Entry> index = new HashMap<String, Entry>(entries.size() * 2);
+            for (Entry entry : entries) {
+                index.put(entry.getHash(), entry);
+            }
+            return index;
+        }
+
+        /**
+         * Write this manifest to the specified file atomically, via a temporary file and rename.
+         *
+         * @param file file to write to, must not be null
+         * @throws IOException if an I/O error occurs
+         */
+        void write(final File file) throws IOException {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream outputStream = new FileOutputStream(tmp)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                writer.write(HEADER + "\n");
+                writer.write("key\t" + key + "\n");
+                for (Entry entry : entries) {
+                    writer.write(entry.getHash() + "\t" + entry.getRecords() + "\t" + entry.getSkipped() + "\t"
+                                 + entry.getOutputOffset() + "\t" + entry.getOutputLength() + "\t" + entry.getOutputChecksum() + "\n");
+                }
+                writer.flush();
+                outputStream.getFD().sync();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Read a manifest from the specified file.
+         *
+         * @param file file to read from, must not be null
+         * @return a manifest read from the specified file
+         * @throws IOException if an I/O error occurs or the manifest is not valid
+         */
+        public static Manifest read(final File file) throws IOException {
+            checkNotNull(file);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                if (!HEADER.equals(reader.readLine())) {
+                    throw new IOException("invalid manifest " + file + ", missing header");
+                }
+                String keyLine = reader.readLine();
+                if (keyLine == null || !keyLine.startsWith("key\t")) {
+                    throw new IOException("invalid manifest " + file + ", missing key");
+                }
+                List<Entry> entries = new ArrayList<Entry>();
+                String line = null;
+                while ((line = reader.readLine()) != null) {
+                    String[] tokens = line.split("\t");
+                    if (tokens.length != 6) {
+                        throw new IOException("invalid manifest " + file + " entry " + line);
+                    }
+                    try {
+                        entries.add(new Entry(tokens[0], Long.parseLong(tokens[1]), Long.parseLong(tokens[2]),
+                                              Long.parseLong(tokens[3]), Long.parseLong(tokens[4]), Long.parseLong(tokens[5])));
+                    }
+                    catch (NumberFormatException e) {
+                        throw new IOException("invalid manifest " + file + " entry " + line, e);
+                    }
+                }
+                return new Manifest(keyLine.substring(4), entries);
+            }
+        }
+
+
+        /**
+         * Manifest entry for one input block and its output segment.
+         */
+        @Immutable
+        public static final class Entry {
+            /** SHA-256 hash of the input block. */
+            private final String hash;
+
+            /** Number of records written. */
+            private final long records;
+
+            /** Number of records skipped. */
+            private final long skipped;
+
+            /** Offset of the output segment. */
+            private final long outputOffset;
+
+            /** Length of the output segment in bytes. */
+            private final long outputLength;
+
+            /** CRC32 checksum of the output segment. */
+            private final long outputChecksum;
+
+
+            /**
+             * Create a new manifest entry.
+             *
+             * @param hash SHA-256 hash of the input block
+             * @param records number of records written
+             * @param skipped number of records skipped
+             * @param outputOffset offset of the output segment
+             * @param outputLength length of the output segment in bytes
+             * @param outputChecksum CRC32 checksum of the output segment
+             */
+            Entry(final String hash,
+                  final long records,
+                  final long skipped,
+                  final long outputOffset,
+                  final long outputLength,
+                  final long outputChecksum) {
+                this.hash = hash;
+                this.records = records;
+                this.skipped = skipped;
+                this.outputOffset = outputOffset;
+                this.outputLength = outputLength;
+                this.outputChecksum = outputChecksum;
+            }
+
+
+            /**
+             * Return the SHA-256 hash of the input block, as a lowercase hex string.
+             *
+             * @return the SHA-256 hash of the input block, as a lowercase hex string
+             */
+            public String getHash() {
+                return hash;
+            }
+
+            /**
+             * Return the number of records written.
+             *
+             * @return the number of records written
+             */
+            public long getRecords() {
+                return records;
+            }
+
+            /**
+             * Return the number of records skipped.
+             *
+             * @return the number of records skipped
+             */
+            public long getSkipped() {
+                return skipped;
+            }
+
+            /**
+             * Return the offset of the output segment.
+             *
+             * @return the offset of the output segment
+             */
+            public long getOutputOffset() {
+                return outputOffset;
+            }
+
+            /**
+             * Return the length of the output segment in bytes.
+             *
+             * @return the length of the output segment in bytes
+             */
+            public long getOutputLength() {
+                return outputLength;
+            }
+
+            /**
+             * Return the CRC32 checksum of the output segment.
+             *
+             * @return the CRC32 checksum of the output segment
+             */
+            public long getOutputChecksum() {
+                return outputChecksum;
+            }
+        }
+    }
+}
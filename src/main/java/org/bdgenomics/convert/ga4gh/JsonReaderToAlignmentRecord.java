@@ -0,0 +1,461 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+
+import ga4gh.Common.Strand;
+
+import ga4gh.Reads.CigarUnit.Operation;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.TextCigarCodec;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert the next GA4GH JSON ReadAlignment object from a JsonReader to bdg-formats AlignmentRecord.
+ *
+ * <p>
+ * Fields are read in a single pass directly into the AlignmentRecord builder,
+ * without an intermediate ReadAlignment message.  Both GA4GH lowerCamelCase and
+ * original proto field names are accepted, and unknown fields are skipped.
+ * Malformed field values are skipped after a warning or exception according to
+ * conversion stringency.  I/O errors and malformed JSON syntax are always rethrown
+ * as <code>UncheckedIOException</code>.
+ * </p>
+ */
+@Immutable
+final class JsonReaderToAlignmentRecord extends AbstractConverter<JsonReader, AlignmentRecord> {
+
+    /** Convert GA4GH CigarUnit Operation to htsjdk CigarOperator. */
+    private final Converter<Operation, CigarOperator> operationConverter;
+
+
+    /**
+     * Convert the next GA4GH JSON ReadAlignment object from a JsonReader to bdg-formats AlignmentRecord.
+     *
+     * @param operationConverter convert GA4GH CigarUnit Operation to htsjdk CigarOperator, must not be null
+     */
+    JsonReaderToAlignmentRecord(final Converter<Operation, CigarOperator> operationConverter) {
+        super(JsonReader.class, AlignmentRecord.class);
+        checkNotNull(operationConverter);
+        this.operationConverter = operationConverter;
+    }
+
+
+    @Override
+    public AlignmentRecord convert(final JsonReader reader,
+                                   final ConversionStringency stringency,
+                                   final Logger logger) throws ConversionException {
+
+        if (reader == null) {
+            warnOrThrow(reader, "must not be null", null, stringency, logger);
+            return null;
+        }
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                warnOrThrow(reader, "expected ReadAlignment object, found " + reader.peek(), null, stringency, logger);
+                reader.skipValue();
+                return null;
+            }
+            return readReadAlignment(reader, stringency, logger);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read a ReadAlignment object into a new AlignmentRecord.
+     */
+    private AlignmentRecord readReadAlignment(final JsonReader reader,
+                                              final ConversionStringency stringency,
+                                              final Logger logger) throws IOException {
+
+        AlignmentRecord.Builder builder = AlignmentRecord.newBuilder()
+            .setReadMapped(false)
+            .setProperPair(true)
+            .setReadPaired(false)
+            .setReadInFragment(0);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "readGroupId":
+                    case "read_group_id":
+                        builder.setRecordGroupName(reader.nextString());
+                        break;
+                    case "fragmentName":
+                    case "fragment_name":
+                        builder.setReadName(reader.nextString());
+                        break;
+                    case "improperPlacement":
+                    case "improper_placement":
+                        builder.setProperPair(!reader.nextBoolean());
+                        break;
+                    case "duplicateFragment":
+                    case "duplicate_fragment":
+                        builder.setDuplicateRead(reader.nextBoolean());
+                        break;
+                    case "numberReads":
+                    case "number_reads":
+                        builder.setReadPaired(reader.nextInt() > 1);
+                        break;
+                    case "fragmentLength":
+                    case "fragment_length":
+                        builder.setInferredInsertSize(Long.valueOf(reader.nextInt()));
+                        break;
+                    case "readNumber":
+                    case "read_number":
+                        builder.setReadInFragment(reader.nextInt());
+                        break;
+                    case "failedVendorQualityChecks":
+                    case "failed_vendor_quality_checks":
+                        builder.setFailedVendorQualityChecks(reader.nextBoolean());
+                        break;
+                    case "alignment":
+                        readLinearAlignment(reader, builder, stringency, logger);
+                        builder.setReadMapped(true);
+                        break;
+                    case "secondaryAlignment":
+                    case "secondary_alignment":
+                        builder.setSecondaryAlignment(reader.nextBoolean());
+                        break;
+                    case "supplementaryAlignment":
+                    case "supplementary_alignment":
+                        builder.setSupplementaryAlignment(reader.nextBoolean());
+                        break;
+                    case "alignedSequence":
+                    case "aligned_sequence":
+                        builder.setSequence(reader.nextString());
+                        break;
+                    case "alignedQuality":
+                    case "aligned_quality":
+                        builder.setQual(readQuality(reader, stringency, logger));
+                        break;
+                    case "nextMatePosition":
+                    case "next_mate_position":
+                        readMatePosition(reader, builder, stringency, logger);
+                        builder.setMateMapped(true);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                warnOrThrow(reader, "could not read field " + name + ", caught " + e.getMessage(), e, stringency, logger);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (builder.getReadMapped()) {
+            builder.setPrimaryAlignment(!Boolean.TRUE.equals(builder.getSecondaryAlignment())
+                                        && !Boolean.TRUE.equals(builder.getSupplementaryAlignment()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Read a LinearAlignment object into the specified AlignmentRecord builder.
+     */
+    private void readLinearAlignment(final JsonReader reader,
+                                     final AlignmentRecord.Builder builder,
+                                     final ConversionStringency stringency,
+                                     final Logger logger) throws IOException {
+
+        Cigar cigar = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "position":
+                        readPosition(reader, builder, false, stringency, logger);
+                        break;
+                    case "mappingQuality":
+                    case "mapping_quality":
+                        builder.setMapq(reader.nextInt());
+                        break;
+                    case "cigar":
+                        cigar = readCigar(reader, stringency, logger);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                warnOrThrow(reader, "could not read field alignment." + name + ", caught " + e.getMessage(), e, stringency, logger);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!builder.hasMapq()) {
+            // proto3 JSON omits a mapping quality of zero
+            builder.setMapq(0);
+        }
+        if (cigar != null) {
+            builder.setCigar(TextCigarCodec.encode(cigar));
+            if (builder.hasStart()) {
+                builder.setEnd(builder.getStart() + cigar.getReferenceLength());
+            }
+        }
+    }
+
+    /**
+     * Read a Position object into the specified AlignmentRecord builder, as either
+     * the alignment or the mate position.
+     */
+    private void readPosition(final JsonReader reader,
+                              final AlignmentRecord.Builder builder,
+                              final boolean mate,
+                              final ConversionStringency stringency,
+                              final Logger logger) throws IOException {
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "referenceName":
+                    case "reference_name":
+                        if (mate) {
+                            builder.setMateContigName(reader.nextString());
+                        }
+                        else {
+                            builder.setContigName(reader.nextString());
+                        }
+                        break;
+                    case "position":
+                        if (mate) {
+                            builder.setMateAlignmentStart(reader.nextLong());
+                        }
+                        else {
+                            builder.setStart(reader.nextLong());
+                        }
+                        break;
+                    case "strand":
+                        Strand strand = readStrand(reader, stringency, logger);
+                        if (strand != null) {
+                            if (mate) {
+                                builder.setMateNegativeStrand(strand == Strand.NEG_STRAND);
+                            }
+                            else {
+                                builder.setReadNegativeStrand(strand == Strand.NEG_STRAND);
+                            }
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                warnOrThrow(reader, "could not read field position." + name + ", caught " + e.getMessage(), e, stringency, logger);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read the next mate Position object into the specified AlignmentRecord builder.
+     */
+    private void readMatePosition(final JsonReader reader,
+                                  final AlignmentRecord.Builder builder,
+                                  final ConversionStringency stringency,
+                                  final Logger logger) throws IOException {
+        readPosition(reader, builder, true, stringency, logger);
+    }
+
+    /**
+     * Read a Strand enum value, as a name or number.  Returns null if the value could not be matched.
+     */
+    private Strand readStrand(final JsonReader reader,
+                              final ConversionStringency stringency,
+                              final Logger logger) throws IOException {
+
+        if (reader.peek() == JsonToken.NUMBER) {
+            int value = reader.nextInt();
+            Strand strand = Strand.forNumber(value);
+            if (strand == null) {
+                warnOrThrow(reader, "could not match strand " + value, null, stringency, logger);
+            }
+            return strand;
+        }
+        String value = reader.nextString();
+        EnumValueDescriptor descriptor = Strand.getDescriptor().findValueByName(value);
+        if (descriptor == null) {
+            warnOrThrow(reader, "could not match strand " + value, null, stringency, logger);
+            return null;
+        }
+        return Strand.valueOf(descriptor);
+    }
+
+    /**
+     * Read an array of CigarUnit objects into a new Cigar.  Returns null if any cigar unit could not be read.
+     */
+    private Cigar readCigar(final JsonReader reader,
+                            final ConversionStringency stringency,
+                            final Logger logger) throws IOException {
+
+        Cigar cigar = new Cigar();
+        boolean valid = true;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            CigarElement cigarElement = readCigarUnit(reader, stringency, logger);
+            if (cigarElement == null) {
+                valid = false;
+            }
+            else {
+                cigar.add(cigarElement);
+            }
+        }
+        reader.endArray();
+        return valid ? cigar : null;
+    }
+
+    /**
+     * Read a CigarUnit object into a new CigarElement.  Returns null if the cigar unit could not be read.
+     */
+    private CigarElement readCigarUnit(final JsonReader reader,
+                                       final ConversionStringency stringency,
+                                       final Logger logger) throws IOException {
+
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            warnOrThrow(reader, "expected CigarUnit object, found " + reader.peek(), null, stringency, logger);
+            reader.skipValue();
+            return null;
+        }
+        Operation operation = null;
+        long operationLength = 0L;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "operation":
+                        if (reader.peek() == JsonToken.NUMBER) {
+                            operation = Operation.forNumber(reader.nextInt());
+                        }
+                        else {
+                            EnumValueDescriptor descriptor = Operation.getDescriptor().findValueByName(reader.nextString());
+                            operation = descriptor == null ? Operation.UNRECOGNIZED : Operation.valueOf(descriptor);
+                        }
+                        break;
+                    case "operationLength":
+                    case "operation_length":
+                        operationLength = reader.nextLong();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                warnOrThrow(reader, "could not read field cigar." + name + ", caught " + e.getMessage(), e, stringency, logger);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        CigarOperator cigarOperator = operationConverter.convert(operation == null ? Operation.UNRECOGNIZED : operation, stringency, logger);
+        if (cigarOperator == null) {
+            return null;
+        }
+        if (operationLength < 0L || operationLength > Integer.MAX_VALUE) {
+            warnOrThrow(reader, "invalid cigar operation length " + operationLength, null, stringency, logger);
+            return null;
+        }
+        return new CigarElement((int) operationLength, cigarOperator);
+    }
+
+    /**
+     * Read an array of base qualities into a new Phred+33 quality string.  Returns null if any
+     * base quality is not a number or is out of range.
+     */
+    private String readQuality(final JsonReader reader,
+                               final ConversionStringency stringency,
+                               final Logger logger) throws IOException {
+
+        StringBuilder sb = new StringBuilder();
+        boolean valid = true;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            try {
+                int quality = reader.nextInt();
+                if (quality < 0 || quality > 93) {
+                    valid = false;
+                }
+                else {
+                    sb.append((char) (quality + 33));
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                reader.skipValue();
+                valid = false;
+            }
+        }
+        reader.endArray();
+
+        if (!valid) {
+            warnOrThrow(reader, "could not read base qualities", null, stringency, logger);
+            return null;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert the next GA4GH JSON Feature object from a JsonReader to bdg-formats Feature.
+ *
+ * <p>
+ * Fields are read in a single pass directly into the Feature builder, without an
+ * intermediate GA4GH Feature message.  Both GA4GH lowerCamelCase and original proto
+ * field names are accepted, and unknown fields are skipped.  Malformed field values
+ * are skipped after a warning or exception according to conversion stringency.  I/O
+ * errors and malformed JSON syntax are always rethrown as <code>UncheckedIOException</code>.
+ * </p>
+ */
+@Immutable
+final class JsonReaderToFeature extends AbstractConverter<JsonReader, org.bdgenomics.formats.avro.Feature> {
+
+    /** Convert GA4GH Strand to bdg-formats Strand. */
+    private final Converter<ga4gh.Common.Strand, org.bdgenomics.formats.avro.Strand> strandConverter;
+
+
+    /**
+     * Convert the next GA4GH JSON Feature object from a JsonReader to bdg-formats Feature.
+     *
+     * @param strandConverter convert GA4GH Strand to bdg-formats Strand, must not be null
+     */
+    JsonReaderToFeature(final Converter<ga4gh.Common.Strand, org.bdgenomics.formats.avro.Strand> strandConverter) {
+        super(JsonReader.class, org.bdgenomics.formats.avro.Feature.class);
+        checkNotNull(strandConverter);
+        this.strandConverter = strandConverter;
+    }
+
+
+    @Override
+    public org.bdgenomics.formats.avro.Feature convert(final JsonReader reader,
+                                                      final ConversionStringency stringency,
+                                                      final Logger logger) throws ConversionException {
+
+        if (reader == null) {
+            warnOrThrow(reader, "must not be null", null, stringency, logger);
+            return null;
+        }
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                warnOrThrow(reader, "expected Feature object, found " + reader.peek(), null, stringency, logger);
+                reader.skipValue();
+                return null;
+            }
+            return readFeature(reader, stringency, logger);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read a Feature object into a new bdg-formats Feature.
+     */
+    private org.bdgenomics.formats.avro.Feature readFeature(final JsonReader reader,
+                                                           final ConversionStringency stringency,
+                                                           final Logger logger) throws IOException {
+
+        org.bdgenomics.formats.avro.Feature.Builder builder = org.bdgenomics.formats.avro.Feature.newBuilder();
+        ga4gh.Common.Strand strand = ga4gh.Common.Strand.forNumber(0);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "id":
+                        builder.setFeatureId(reader.nextString());
+                        break;
+                    case "referenceName":
+                    case "reference_name":
+                        builder.setContigName(reader.nextString());
+                        break;
+                    case "start":
+                        builder.setStart(reader.nextLong());
+                        break;
+                    case "end":
+                        builder.setEnd(reader.nextLong());
+                        break;
+                    case "strand":
+                        strand = readStrand(reader, stringency, logger);
+                        break;
+                    case "featureType":
+                    case "feature_type":
+                        builder.setFeatureType(readFeatureType(reader, stringency, logger));
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                warnOrThrow(reader, "could not read field " + name + ", caught " + e.getMessage(), e, stringency, logger);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (strand != null) {
+            builder.setStrand(strandConverter.convert(strand, stringency, logger));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Read a Strand enum value, as a name or number.  Returns null if the value could not be matched.
+     */
+    private ga4gh.Common.Strand readStrand(final JsonReader reader,
+                                           final ConversionStringency stringency,
+                                           final Logger logger) throws IOException {
+
+        if (reader.peek() == JsonToken.NUMBER) {
+            int value = reader.nextInt();
+            ga4gh.Common.Strand strand = ga4gh.Common.Strand.forNumber(value);
+            if (strand == null) {
+                warnOrThrow(reader, "could not match strand " + value, null, stringency, logger);
+            }
+            return strand;
+        }
+        String value = reader.nextString();
+        EnumValueDescriptor descriptor = ga4gh.Common.Strand.getDescriptor().findValueByName(value);
+        if (descriptor == null) {
+            warnOrThrow(reader, "could not match strand " + value, null, stringency, logger);
+            return null;
+        }
+        return ga4gh.Common.Strand.valueOf(descriptor);
+    }
+
+    /**
+     * Read an OntologyTerm object into a feature type, the ontology term id.
+     */
+    private String readFeatureType(final JsonReader reader,
+                                   final ConversionStringency stringency,
+                                   final Logger logger) throws IOException {
+
+        String featureType = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "termId":
+                    case "term_id":
+                        featureType = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            catch (IllegalStateException | NumberFormatException e) {
+                warnOrThrow(reader, "could not read field featureType." + name + ", caught " + e.getMessage(), e, stringency, logger);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return featureType;
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+
+/**
+ * Lazy view of a bdg-formats AlignmentRecord as a GA4GH ReadAlignment.
+ *
+ * <p>
+ * Accessors mirror those of ReadAlignment.  Scalar fields are read through from the
+ * source AlignmentRecord, while position, cigar units, linear alignment, and aligned
+ * qualities are converted on first access and memoized.  A ReadAlignment message is
+ * built only when this view is serialized or explicitly materialized with
+ * {@link #toReadAlignment()}.
+ * </p>
+ *
+ * <p>
+ * Conversion errors (e.g. an invalid cigar) are reported on first access to the
+ * affected field, according to the conversion stringency provided at conversion time.
+ * </p>
+ */
+@NotThreadSafe
+public final class LazyReadAlignment {
+    /** Source alignment record. */
+    private final AlignmentRecord alignmentRecord;
+
+    /** Convert bgd-formats AlignmentRecord to GA4GH ReadAlignment. */
+    private final AlignmentRecordToReadAlignment alignmentConverter;
+
+    /** Conversion stringency. */
+    private final ConversionStringency stringency;
+
+    /** Logger. */
+    private final Logger logger;
+
+    /** Memoized position. */
+    private Position position;
+
+    /** Memoized cigar units, <code>Collections.emptyList()</code> if not present. */
+    private List<CigarUnit> cigarUnits;
+
+    /** Memoized linear alignment. */
+    private LinearAlignment alignment;
+
+    /** Memoized aligned quality. */
+    private List<Integer> alignedQuality;
+
+    /** Memoized next mate position. */
+    private Position nextMatePosition;
+
+    /** Memoized read alignment. */
+    private ReadAlignment readAlignment;
+
+
+    /**
+     * Create a new lazy view of the specified alignment record.
+     *
+     * @param alignmentRecord alignment record, must not be null
+     * @param alignmentConverter alignment converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     */
+    LazyReadAlignment(final AlignmentRecord alignmentRecord,
+                      final AlignmentRecordToReadAlignment alignmentConverter,
+                      final ConversionStringency stringency,
+                      final Logger logger) {
+        this.alignmentRecord = alignmentRecord;
+        this.alignmentConverter = alignmentConverter;
+        this.stringency = stringency;
+        this.logger = logger;
+    }
+
+
+    /**
+     * Return the source alignment record for this lazy view.
+     *
+     * @return the source alignment record for this lazy view
+     */
+    public AlignmentRecord getAlignmentRecord() {
+        return alignmentRecord;
+    }
+
+    public String getReadGroupId() {
+        return alignmentConverter.convertReadGroupId(alignmentRecord);
+    }
+
+    public String getFragmentName() {
+        return alignmentRecord.getReadName() == null ? "" : alignmentRecord.getReadName();
+    }
+
+    public boolean getImproperPlacement() {
+        return !alignmentRecord.getProperPair();
+    }
+
+    public boolean getDuplicateFragment() {
+        return alignmentRecord.getDuplicateRead();
+    }
+
+    public int getNumberReads() {
+        return alignmentRecord.getReadPaired() ? 2 : 1;
+    }
+
+    public int getFragmentLength() {
+        return alignmentRecord.getInferredInsertSize() == null ? 0 : alignmentRecord.getInferredInsertSize().intValue();
+    }
+
+    public int getReadNumber() {
+        return alignmentRecord.getReadInFragment() == null ? 0 : alignmentRecord.getReadInFragment();
+    }
+
+    public boolean getFailedVendorQualityChecks() {
+        return alignmentRecord.getFailedVendorQualityChecks();
+    }
+
+    public boolean getSecondaryAlignment() {
+        return alignmentRecord.getSecondaryAlignment();
+    }
+
+    public boolean getSupplementaryAlignment() {
+        return alignmentRecord.getSupplementaryAlignment();
+    }
+
+    public String getAlignedSequence() {
+        return alignmentRecord.getSequence() == null ? "" : alignmentRecord.getSequence();
+    }
+
+    public boolean hasAlignment() {
+        return alignmentRecord.getReadMapped();
+    }
+
+    /**
+     * Return the position of the linear alignment, converted on first access.
+     *
+     * @return the position of the linear alignment, converted on first access
+     */
+    public Position getPosition() {
+        if (!hasAlignment()) {
+            return Position.getDefaultInstance();
+        }
+        if (position == null) {
+            position = alignmentConverter.convertPosition(alignmentRecord);
+        }
+        return position;
+    }
+
+    /**
+     * Return the cigar units of the linear alignment, converted on first access.
+     *
+     * @return the cigar units of the linear alignment, converted on first access
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public List<CigarUnit> getCigarList() throws ConversionException {
+        if (!hasAlignment()) {
+            return Collections.<CigarUnit>emptyList();
+        }
+        if (cigarUnits == null) {
+            List<CigarUnit> converted = alignmentConverter.convertCigar(alignmentRecord, stringency, logger);
+            cigarUnits = converted == null ? Collections.<CigarUnit>emptyList() : converted;
+        }
+        return cigarUnits;
+    }
+
+    /**
+     * Return the linear alignment, converted on first access.
+     *
+     * @return the linear alignment, converted on first access
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public LinearAlignment getAlignment() throws ConversionException {
+        if (!hasAlignment()) {
+            return LinearAlignment.getDefaultInstance();
+        }
+        if (alignment == null) {
+            alignment = alignmentConverter.convertAlignment(alignmentRecord, getPosition(), getCigarList());
+        }
+        return alignment;
+    }
+
+    /**
+     * Return the aligned quality, converted on first access.
+     *
+     * @return the aligned quality, converted on first access
+     */
+    public List<Integer> getAlignedQualityList() {
+        if (alignedQuality == null) {
+            alignedQuality = isNotEmpty(alignmentRecord.getQual()) ? alignmentConverter.convertAlignedQuality(alignmentRecord) : Collections.<Integer>emptyList();
+        }
+        return alignedQuality;
+    }
+
+    public int getAlignedQualityCount() {
+        return alignmentRecord.getQual() == null ? 0 : alignmentRecord.getQual().length();
+    }
+
+    public int getAlignedQuality(final int index) {
+        return getAlignedQualityList().get(index);
+    }
+
+    public boolean hasNextMatePosition() {
+        return alignmentRecord.getMateContigName() != null;
+    }
+
+    /**
+     * Return the next mate position, converted on first access.
+     *
+     * @return the next mate position, converted on first access
+     */
+    public Position getNextMatePosition() {
+        if (!hasNextMatePosition()) {
+            return Position.getDefaultInstance();
+        }
+        if (nextMatePosition == null) {
+            nextMatePosition = alignmentConverter.convertMatePosition(alignmentRecord);
+        }
+        return nextMatePosition;
+    }
+
+    /**
+     * Materialize this lazy view into a GA4GH ReadAlignment message, reusing any
+     * fields already converted.
+     *
+     * @return this lazy view materialized into a GA4GH ReadAlignment message
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public ReadAlignment toReadAlignment() throws ConversionException {
+        if (readAlignment == null) {
+            ReadAlignment.Builder builder = ReadAlignment.newBuilder()
+                .setAlignedSequence(getAlignedSequence())
+                .setDuplicateFragment(alignmentRecord.getDuplicateRead())
+                .setFailedVendorQualityChecks(alignmentRecord.getFailedVendorQualityChecks())
+                .setFragmentName(getFragmentName())
+                .setImproperPlacement(!alignmentRecord.getProperPair())
+                .setNumberReads(alignmentRecord.getReadPaired() ? 2 : 1)
+                .setReadGroupId(getReadGroupId())
+                .setReadNumber(getReadNumber())
+                .setSecondaryAlignment(alignmentRecord.getSecondaryAlignment())
+                .setSupplementaryAlignment(alignmentRecord.getSupplementaryAlignment())
+                .setFragmentLength(getFragmentLength())
+                .addAllAlignedQuality(getAlignedQualityList());
+
+            if (hasNextMatePosition()) {
+                builder.setNextMatePosition(getNextMatePosition());
+            }
+            if (hasAlignment()) {
+                builder.setAlignment(getAlignment());
+            }
+            readAlignment = builder.build();
+        }
+        return readAlignment;
+    }
+
+    /**
+     * Return the serialized size of this lazy view as a GA4GH ReadAlignment message.
+     *
+     * @return the serialized size of this lazy view as a GA4GH ReadAlignment message
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public int getSerializedSize() throws ConversionException {
+        return toReadAlignment().getSerializedSize();
+    }
+
+    /**
+     * Serialize this lazy view as a GA4GH ReadAlignment message to a byte array.
+     *
+     * @return this lazy view serialized as a GA4GH ReadAlignment message to a byte array
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public byte[] toByteArray() throws ConversionException {
+        return toReadAlignment().toByteArray();
+    }
+
+    /**
+     * Serialize this lazy view as a GA4GH ReadAlignment message to the specified output stream.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException, ConversionException {
+        toReadAlignment().writeTo(outputStream);
+    }
+
+    /**
+     * Serialize this lazy view as a length-delimited GA4GH ReadAlignment message to the
+     * specified output stream.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if the cigar could not be decoded and stringency is strict
+     */
+    public void writeDelimitedTo(final OutputStream outputStream) throws IOException, ConversionException {
+        toReadAlignment().writeDelimitedTo(outputStream);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyReadAlignment(" + getFragmentName() + ")";
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.stream.Collector;
+
+import javax.annotation.concurrent.Immutable;
+
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Histogram of mapping quality over mapped reads.
+ */
+@Immutable
+public final class MappingQualityHistogram {
+    /** Maximum mapping quality; higher values are counted as the maximum. */
+    public static final int MAX_MAPPING_QUALITY = 255;
+
+    /** Counts, indexed by mapping quality. */
+    private final long[] counts;
+
+
+    /**
+     * Create a new mapping quality histogram from the specified counts.
+     *
+     * @param counts counts, indexed by mapping quality
+     */
+    private MappingQualityHistogram(final long[] counts) {
+        this.counts = counts.clone();
+    }
+
+
+    /**
+     * Return the number of mapped reads with the specified mapping quality.
+     *
+     * @param mappingQuality mapping quality, must be in range <code>[0, MAX_MAPPING_QUALITY]</code>
+     * @return the number of mapped reads with the specified mapping quality
+     */
+    public long getCount(final int mappingQuality) {
+        checkArgument(mappingQuality >= 0 && mappingQuality <= MAX_MAPPING_QUALITY, "mappingQuality must be in range [0, " + MAX_MAPPING_QUALITY + "]");
+        return counts[mappingQuality];
+    }
+
+    /**
+     * Return the total number of mapped reads.
+     *
+     * @return the total number of mapped reads
+     */
+    public long getTotal() {
+        long total = 0L;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Return a copy of the counts, indexed by mapping quality.
+     *
+     * @return a copy of the counts, indexed by mapping quality
+     */
+    public long[] getCounts() {
+        return counts.clone();
+    }
+
+
+    /**
+     * Return a new side output collector for mapping quality histograms.
+     *
+     * @return a new side output collector for mapping quality histograms
+     */
+    public static Collector<ReadAlignment, long[], MappingQualityHistogram> collector() {
+        return Collector.of(MappingQualityHistogram::createCounts, MappingQualityHistogram::accumulate, MappingQualityHistogram::combine, MappingQualityHistogram::new);
+    }
+
+    private static long[] createCounts() {
+        return new long[MAX_MAPPING_QUALITY + 1];
+    }
+
+    private static void accumulate(final long[] counts, final ReadAlignment readAlignment) {
+        if (readAlignment.hasAlignment()) {
+            int mappingQuality = readAlignment.getAlignment().getMappingQuality();
+            counts[Math.max(0, Math.min(MAX_MAPPING_QUALITY, mappingQuality))]++;
+        }
+    }
+
+    private static long[] combine(final long[] left, final long[] right) {
+        for (int i = 0; i <= MAX_MAPPING_QUALITY; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+}
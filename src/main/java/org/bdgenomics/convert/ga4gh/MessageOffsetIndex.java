@@ -0,0 +1,271 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import java.util.function.Function;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+/**
+ * Sparse file offset index over a position-sorted file of length-delimited protobuf messages.
+ *
+ * <p>
+ * For each reference, the index holds the file offsets at which its contiguous run of
+ * messages starts and ends, the start position and file offset of every
+ * <code>interval</code>-th message in the run, and the largest span of any message in
+ * the run.  This is enough to seek to the first message that may overlap a region,
+ * and to stop at the end of the run or at the first message starting past the region.
+ * If the messages for a reference are not contiguous, or are not sorted by start
+ * position, the index is built unsorted and can not be used to seek.
+ * </p>
+ */
+@Immutable
+final class MessageOffsetIndex {
+    /** Default checkpoint interval, in messages. */
+    static final int DEFAULT_INTERVAL = 256;
+
+    /** File length when this index was built. */
+    private final long length;
+
+    /** File last modified time when this index was built. */
+    private final long lastModified;
+
+    /** Runs keyed by reference name, or null if the file is not position-sorted. */
+    private final Map<String, Run> runs;
+
+
+    /**
+     * Create a new message offset index.
+     *
+     * @param length file length when this index was built
+     * @param lastModified file last modified time when this index was built
+     * @param runs runs keyed by reference name, or null if the file is not position-sorted
+     */
+    private MessageOffsetIndex(final long length, final long lastModified, final Map<String, Run> runs) {
+        this.length = length;
+        this.lastModified = lastModified;
+        this.runs = runs;
+    }
+
+
+    /**
+     * Return true if this index was built from the current contents of the specified file,
+     * as far as can be told from its length and last modified time.
+     *
+     * @param file file, must not be null
+     * @return true if this index was built from the current contents of the specified file
+     */
+    boolean isCurrent(final File file) {
+        return file.length() == length && file.lastModified() == lastModified;
+    }
+
+    /**
+     * Return true if the indexed file is position-sorted, in which case this index can be used to seek.
+     *
+     * @return true if the indexed file is position-sorted
+     */
+    boolean isSorted() {
+        return runs != null;
+    }
+
+    /**
+     * Return the file offset of the first message that may overlap the specified region, or
+     * <code>-1L</code> if no message in the indexed file is on the region's reference.
+     *
+     * @param region region, must not be null
+     * @return the file offset of the first message that may overlap the specified region,
+     *    or <code>-1L</code> if no message is on the region's reference
+     * @throws IllegalStateException if the indexed file is not position-sorted
+     */
+    long seek(final Region region) {
+        checkNotNull(region);
+        if (runs == null) {
+            throw new IllegalStateException("file is not position-sorted");
+        }
+        Run run = runs.get(region.getReferenceName());
+        if (run == null) {
+            return -1L;
+        }
+        // a message starting at or before threshold ends at or before the region start
+        long threshold = region.getStart() - run.maxSpan;
+        int low = 0;
+        int high = run.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (run.positions[mid] <= threshold) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        // seek to the last checkpoint at or before threshold, or to the start of the run
+        return run.offsets[Math.max(0, low - 1)];
+    }
+
+    /**
+     * Return the file offset just past the last message on the specified reference, or
+     * <code>-1L</code> if no message in the indexed file is on the specified reference.
+     *
+     * @param referenceName reference name, must not be null
+     * @return the file offset just past the last message on the specified reference, or
+     *    <code>-1L</code> if no message is on the specified reference
+     * @throws IllegalStateException if the indexed file is not position-sorted
+     */
+    long end(final String referenceName) {
+        checkNotNull(referenceName);
+        if (runs == null) {
+            throw new IllegalStateException("file is not position-sorted");
+        }
+        Run run = runs.get(referenceName);
+        return run == null ? -1L : run.end;
+    }
+
+    /**
+     * Build a message offset index over the specified file of length-delimited protobuf messages.
+     *
+     * @param <T> protobuf message type
+     * @param file file of length-delimited protobuf messages, must not be null
+     * @param parser message parser, must not be null
+     * @param locator function returning the region covered by a message, or null if the message is unplaced, must not be null
+     * @param interval checkpoint interval, in messages, must be at least one
+     * @return a message offset index over the specified file
+     * @throws IOException if an I/O error occurs or the file is malformed
+     */
+    static <T extends Message> MessageOffsetIndex build(final File file,
+                                                       final Parser<T> parser,
+                                                       final Function<? super T, Region> locator,
+                                                       final int interval) throws IOException {
+        checkNotNull(file);
+        checkNotNull(parser);
+        checkNotNull(locator);
+        checkArgument(interval > 0, "interval must be at least one");
+
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Map<String, Run> runs = new HashMap<String, Run>();
+        Run run = null;
+        String referenceName = null;
+        long offset = 0L;
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            CodedInputStream input = CodedInputStream.newInstance(inputStream);
+            while (!input.isAtEnd()) {
+                input.resetSizeCounter();
+                int size = input.readRawVarint32();
+                int limit = input.pushLimit(size);
+                T message = parser.parseFrom(input);
+                input.popLimit(limit);
+                long next = offset + input.getTotalBytesRead();
+
+                Region region = locator.apply(message);
+                String messageReferenceName = region == null ? null : region.getReferenceName();
+                if (messageReferenceName == null ? referenceName != null : !messageReferenceName.equals(referenceName)) {
+                    // unplaced messages end a run, but are not indexed themselves
+                    if (messageReferenceName != null && runs.containsKey(messageReferenceName)) {
+                        return new MessageOffsetIndex(length, lastModified, null);
+                    }
+                    run = messageReferenceName == null ? null : new Run();
+                    if (run != null) {
+                        runs.put(messageReferenceName, run);
+                    }
+                    referenceName = messageReferenceName;
+                }
+                if (run != null) {
+                    if (!run.add(region, offset, interval)) {
+                        return new MessageOffsetIndex(length, lastModified, null);
+                    }
+                    run.end = next;
+                }
+                offset = next;
+            }
+        }
+        return new MessageOffsetIndex(length, lastModified, runs);
+    }
+
+
+    /**
+     * Contiguous run of messages on one reference.
+     */
+    private static final class Run {
+        /** Start positions of checkpointed messages. */
+        long[] positions = new long[16];
+
+        /** File offsets of checkpointed messages. */
+        long[] offsets = new long[16];
+
+        /** Number of checkpoints. */
+        int size;
+
+        /** Number of messages in this run. */
+        long count;
+
+        /** Start position of the last message in this run. */
+        long last = Long.MIN_VALUE;
+
+        /** Largest span of any message in this run. */
+        long maxSpan;
+
+        /** File offset just past the last message in this run. */
+        long end;
+
+
+        /**
+         * Add a message covering the specified region at the specified file offset to this run.
+         *
+         * @param region region covered by the message
+         * @param offset file offset of the message
+         * @param interval checkpoint interval, in messages
+         * @return false if the message starts before the last message in this run
+         */
+        boolean add(final Region region, final long offset, final int interval) {
+            if (region.getStart() < last) {
+                return false;
+            }
+            if (count % interval == 0L) {
+                if (size == positions.length) {
+                    positions = Arrays.copyOf(positions, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                positions[size] = region.getStart();
+                offsets[size] = offset;
+                size++;
+            }
+            last = region.getStart();
+            maxSpan = Math.max(maxSpan, region.getEnd() - region.getStart());
+            count++;
+            return true;
+        }
+    }
+}
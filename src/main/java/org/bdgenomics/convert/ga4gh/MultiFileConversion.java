@@ -0,0 +1,529 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.protobuf.Message;
+
+import org.apache.avro.file.DataFileStream;
+
+import org.apache.avro.specific.SpecificDatumReader;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert many small Avro container files, each as its own task.
+ *
+ * <p>
+ * Each input file is converted to a file of length-delimited protobuf messages with
+ * the same base name and a <code>.pb</code> extension in the output directory.  On Java 21
+ * and later each task runs on its own virtual thread, and on earlier versions on a bounded
+ * pool of platform threads.  In either case at most <code>concurrency</code> files are
+ * converted at a time, and at most <code>maxOpenFiles</code> files (two per task, input
+ * and output) are open at a time.  Progress is aggregated across tasks and can be read
+ * from another thread while running; input bytes read are counted as each file is read,
+ * and records as each file completes.
+ * </p>
+ *
+ * @param <S> source type
+ * @param <T> target protobuf message type
+ */
+@ThreadSafe
+public final class MultiFileConversion<S, T extends Message> {
+    /** Source class. */
+    private final Class<S> sourceClass;
+
+    /** Per-file conversion pipeline, running on the task thread. */
+    private final ConversionPipeline<S, T> pipeline;
+
+    /** Logger. */
+    private final Logger logger;
+
+    /** Maximum number of files converted at a time. */
+    private final int concurrency;
+
+    /** Maximum number of files open at a time. */
+    private final int maxOpenFiles;
+
+    /** Number of files in the current or last run. */
+    private final AtomicInteger files = new AtomicInteger();
+
+    /** Number of files converted in the current or last run. */
+    private final AtomicInteger completedFiles = new AtomicInteger();
+
+    /** Number of files that failed in the current or last run. */
+    private final AtomicInteger failedFiles = new AtomicInteger();
+
+    /** Number of records converted and written in the current or last run. */
+    private final AtomicLong records = new AtomicLong();
+
+    /** Number of records skipped in the current or last run. */
+    private final AtomicLong skipped = new AtomicLong();
+
+    /** Number of bytes written in the current or last run. */
+    private final AtomicLong outputBytes = new AtomicLong();
+
+    /** Number of input bytes read in the current or last run. */
+    private final AtomicLong inputBytes = new AtomicLong();
+
+    /** Total length of the input files in the current or last run. */
+    private final AtomicLong totalInputBytes = new AtomicLong();
+
+    /** Start time of the current or last run, in nanoseconds. */
+    private final AtomicLong start = new AtomicLong();
+
+    /** End time of the last run, in nanoseconds, or zero if running. */
+    private final AtomicLong end = new AtomicLong();
+
+
+    /**
+     * Create a new multi-file conversion.
+     *
+     * @param sourceClass source class, must not be null
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param concurrency maximum number of files converted at a time, must be at least one
+     * @param maxOpenFiles maximum number of files open at a time, must be at least two
+     */
+    public MultiFileConversion(final Class<S> sourceClass,
+                               final Converter<S, T> converter,
+                               final ConversionStringency stringency,
+                               final Logger logger,
+                               final int concurrency,
+                               final int maxOpenFiles) {
+        checkNotNull(sourceClass);
+        checkArgument(concurrency > 0, "concurrency must be at least one");
+        checkArgument(maxOpenFiles > 1, "maxOpenFiles must be at least two");
+        this.sourceClass = sourceClass;
+        this.pipeline = new ConversionPipeline<S, T>(converter, stringency, logger, 1, 1000);
+        this.logger = logger;
+        this.concurrency = concurrency;
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+
+    /**
+     * Convert the specified input files into the specified output directory.  All files are
+     * attempted even if some fail.
+     *
+     * @param inputs input Avro container files, must not be null and must have distinct base names
+     * @param outputDirectory output directory, must not be null and must exist
+     * @return progress at the end of this run
+     * @throws IOException if any file could not be converted, with the first failure as the cause
+     *    and the remaining failures suppressed; failed files leave no output
+     */
+    public Progress run(final List<File> inputs, final File outputDirectory) throws IOException {
+        checkNotNull(inputs);
+        checkNotNull(outputDirectory);
+        checkArgument(outputDirectory.isDirectory(), "outputDirectory must be a directory");
+
+        final List<File> outputs = new ArrayList<File>(inputs.size());
+        Set<String> names = new HashSet<String>();
+        long total = 0L;
+        for (File input : inputs) {
+            File output = new File(outputDirectory, outputName(input));
+            checkArgument(names.add(output.getName()), "duplicate output file name %s", output.getName());
+            outputs.add(output);
+            total += input.length();
+        }
+
+        files.set(inputs.size());
+        completedFiles.set(0);
+        failedFiles.set(0);
+        records.set(0L);
+        skipped.set(0L);
+        outputBytes.set(0L);
+        inputBytes.set(0L);
+        totalInputBytes.set(total);
+        end.set(0L);
+        start.set(System.nanoTime());
+
+        final Semaphore running = new Semaphore(concurrency);
+        final Semaphore openFiles = new Semaphore(maxOpenFiles);
+        final int logInterval = Math.max(1, inputs.size() / 100);
+        ExecutorService executorService = TaskExecutors.newTaskExecutor(concurrency);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(inputs.size());
+        try {
+            for (int i = 0, size = inputs.size(); i < size; i++) {
+                final File input = inputs.get(i);
+                final File output = outputs.get(i);
+                futures.add(executorService.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            running.acquire();
+                            try {
+                                openFiles.acquire(2);
+                                try {
+                                    convert(input, output);
+                                }
+                                finally {
+                                    openFiles.release(2);
+                                }
+                            }
+                            catch (Exception e) {
+                                failedFiles.incrementAndGet();
+                                throw e;
+                            }
+                            finally {
+                                running.release();
+                            }
+                            int completed = completedFiles.incrementAndGet();
+                            if (completed % logInterval == 0) {
+                                logger.info("converted {} of {} files, {} records, {} of {} input bytes", completed, files.get(), records.get(), inputBytes.get(), totalInputBytes.get());
+                            }
+                            return null;
+                        }
+                    }));
+            }
+
+            IOException failure = null;
+            for (int i = 0, size = futures.size(); i < size; i++) {
+                try {
+                    futures.get(i).get();
+                }
+                catch (InterruptedException e) {
+                    for (Future<Void> future : futures) {
+                        future.cancel(true);
+                    }
+                    throw Futures.interrupted("interrupted waiting for conversion");
+                }
+                catch (ExecutionException e) {
+                    logger.warn("could not convert {}, caught {}", inputs.get(i), e.getCause().getMessage());
+                    if (failure == null) {
+                        failure = new IOException("could not convert " + inputs.get(i), e.getCause());
+                    }
+                    else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            end.set(System.nanoTime());
+            if (failure != null) {
+                throw failure;
+            }
+            return getProgress();
+        }
+        finally {
+            end.compareAndSet(0L, System.nanoTime());
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Return a snapshot of progress for the current or last run.
+     *
+     * @return a snapshot of progress for the current or last run
+     */
+    public Progress getProgress() {
+        long endNanos = end.get();
+        long elapsedNanos = (endNanos == 0L ? System.nanoTime() : endNanos) - start.get();
+        return new Progress(files.get(), completedFiles.get(), failedFiles.get(), records.get(), skipped.get(), outputBytes.get(),
+                            inputBytes.get(), totalInputBytes.get(), start.get() == 0L ? 0L : elapsedNanos);
+    }
+
+    /**
+     * Convert the specified input file to the specified output file.
+     *
+     * @param input input Avro container file
+     * @param output output file
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if a conversion error occurs and stringency is strict
+     */
+    private void convert(final File input, final File output) throws IOException, ConversionException {
+        ConversionStatistics statistics = null;
+        try (InputStream inputStream = new BufferedInputStream(new ProgressInputStream(new FileInputStream(input), inputBytes), 64 * 1024);
+             DataFileStream<S> dataFileStream = new DataFileStream<S>(inputStream, new SpecificDatumReader<S>(sourceClass));
+             OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(output), 64 * 1024)) {
+
+            statistics = pipeline.run(dataFileStream, outputStream);
+        }
+        finally {
+            // do not leave partial output behind
+            if (statistics == null) {
+                output.delete();
+            }
+        }
+        records.addAndGet(statistics.getRecords());
+        skipped.addAndGet(statistics.getSkipped());
+        outputBytes.addAndGet(statistics.getOutputBytes());
+    }
+
+    /**
+     * Return the output file name for the specified input file.
+     *
+     * @param input input file
+     * @return the output file name for the specified input file
+     */
+    static String outputName(final File input) {
+        String name = input.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".pb";
+    }
+
+
+    /**
+     * Input stream that adds the number of bytes read to a shared counter.
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        /** Shared counter of bytes read. */
+        private final AtomicLong bytesRead;
+
+
+        /**
+         * Create a new progress input stream.
+         *
+         * @param inputStream input stream to wrap
+         * @param bytesRead shared counter of bytes read
+         */
+        ProgressInputStream(final InputStream inputStream, final AtomicLong bytesRead) {
+            super(inputStream);
+            this.bytesRead = bytesRead;
+        }
+
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                bytesRead.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = super.skip(n);
+            bytesRead.addAndGet(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            // a reset would count bytes twice
+            return false;
+        }
+    }
+
+
+    /**
+     * Snapshot of multi-file conversion progress.
+     */
+    @Immutable
+    public static final class Progress {
+        /** Number of files. */
+        private final int files;
+
+        /** Number of files converted. */
+        private final int completedFiles;
+
+        /** Number of files that failed. */
+        private final int failedFiles;
+
+        /** Number of records converted and written. */
+        private final long records;
+
+        /** Number of records skipped. */
+        private final long skipped;
+
+        /** Number of bytes written. */
+        private final long outputBytes;
+
+        /** Number of input bytes read. */
+        private final long inputBytes;
+
+        /** Total length of the input files. */
+        private final long totalInputBytes;
+
+        /** Elapsed time in nanoseconds. */
+        private final long elapsedNanos;
+
+
+        /**
+         * Create a new progress snapshot.
+         */
+        private Progress(final int files,
+                         final int completedFiles,
+                         final int failedFiles,
+                         final long records,
+                         final long skipped,
+                         final long outputBytes,
+                         final long inputBytes,
+                         final long totalInputBytes,
+                         final long elapsedNanos) {
+            this.files = files;
+            this.completedFiles = completedFiles;
+            this.failedFiles = failedFiles;
+            this.records = records;
+            this.skipped = skipped;
+            this.outputBytes = outputBytes;
+            this.inputBytes = inputBytes;
+            this.totalInputBytes = totalInputBytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+
+        /**
+         * Return the number of files.
+         *
+         * @return the number of files
+         */
+        public int getFiles() {
+            return files;
+        }
+
+        /**
+         * Return the number of files converted.
+         *
+         * @return the number of files converted
+         */
+        public int getCompletedFiles() {
+            return completedFiles;
+        }
+
+        /**
+         * Return the number of files that failed.
+         *
+         * @return the number of files that failed
+         */
+        public int getFailedFiles() {
+            return failedFiles;
+        }
+
+        /**
+         * Return the number of records converted and written.
+         *
+         * @return the number of records converted and written
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Return the number of records skipped because conversion returned null.
+         *
+         * @return the number of records skipped because conversion returned null
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Return the number of bytes written.
+         *
+         * @return the number of bytes written
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+
+        /**
+         * Return the number of input bytes read, updated as each file is read.
+         *
+         * @return the number of input bytes read
+         */
+        public long getInputBytes() {
+            return inputBytes;
+        }
+
+        /**
+         * Return the total length of the input files.
+         *
+         * @return the total length of the input files
+         */
+        public long getTotalInputBytes() {
+            return totalInputBytes;
+        }
+
+        /**
+         * Return the fraction of input bytes read, between zero and one.
+         *
+         * @return the fraction of input bytes read, between zero and one
+         */
+        public double getInputFraction() {
+            return totalInputBytes == 0L ? 0.0d : Math.min(1.0d, inputBytes / (double) totalInputBytes);
+        }
+
+        /**
+         * Return the elapsed time in nanoseconds.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Return the number of files converted per second.
+         *
+         * @return the number of files converted per second
+         */
+        public double getFilesPerSecond() {
+            return elapsedNanos == 0L ? 0.0d : completedFiles / (elapsedNanos / 1.0e9d);
+        }
+
+        @Override
+        public String toString() {
+            return completedFiles + " of " + files + " files converted, " + failedFiles + " failed, " + records + " records, "
+                + skipped + " skipped, " + inputBytes + " of " + totalInputBytes + " input bytes read, " + outputBytes + " bytes written in "
+                + (elapsedNanos / 1000000L) + " ms";
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import javax.annotation.concurrent.Immutable;
+
+import ga4gh.Reads.CigarUnit.Operation;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert GA4GH CigarUnit Operation to htsjdk CigarOperator.
+ */
+@Immutable
+final class OperationToCigarOperator extends AbstractConverter<Operation, CigarOperator> {
+
+    /**
+     * Convert GA4GH CigarUnit Operation to htsjdk CigarOperator.
+     */
+    OperationToCigarOperator() {
+        super(Operation.class, CigarOperator.class);
+    }
+
+
+    @Override
+    public CigarOperator convert(final Operation operation,
+                                 final ConversionStringency stringency,
+                                 final Logger logger) throws ConversionException {
+
+        if (operation == null) {
+            warnOrThrow(operation, "must not be null", null, stringency, logger);
+            return null;
+        }
+        switch (operation) {
+            case ALIGNMENT_MATCH: return CigarOperator.M;
+            case INSERT: return CigarOperator.I;
+            case DELETE: return CigarOperator.D;
+            case SKIP: return CigarOperator.N;
+            case CLIP_SOFT: return CigarOperator.S;
+            case CLIP_HARD: return CigarOperator.H;
+            case PAD: return CigarOperator.P;
+            case SEQUENCE_MATCH: return CigarOperator.EQ;
+            case SEQUENCE_MISMATCH: return CigarOperator.X;
+            default: {
+                warnOrThrow(operation, "could not match operation", null, stringency, logger);
+                return null;
+            }
+        }
+    }
+}
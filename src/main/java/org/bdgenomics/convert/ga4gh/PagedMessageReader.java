@@ -0,0 +1,330 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+/**
+ * Paged reader over a file of length-delimited protobuf messages, such as
+ * written by <code>ConversionPipeline</code>.
+ *
+ * <p>
+ * Page tokens encode the file offset of the next message to read, so that each
+ * page is served by seeking directly to that offset rather than re-scanning the
+ * file from the start.  An empty page token requests the first page, and an empty
+ * next page token indicates there are no more pages.
+ * </p>
+ *
+ * <p>
+ * If created with a locator, region reads are served from a sparse offset index built
+ * on first use and rebuilt when the file changes.  If the file is position-sorted, the
+ * first page of a region read seeks to the first message that may overlap the region,
+ * and reads stop at the end of the region rather than at the end of the file.
+ * Otherwise region reads scan forward from the page token offset.
+ * </p>
+ *
+ * @param <T> protobuf message type
+ */
+@ThreadSafe
+public final class PagedMessageReader<T extends Message> {
+    /** File of length-delimited protobuf messages. */
+    private final File file;
+
+    /** Message parser. */
+    private final Parser<T> parser;
+
+    /** Function returning the region covered by a message, if any. */
+    private final Function<? super T, Region> locator;
+
+    /** Message offset index, built on first use. */
+    private MessageOffsetIndex index;
+
+
+    /**
+     * Create a new paged reader over the specified file of length-delimited protobuf messages.
+     *
+     * @param file file of length-delimited protobuf messages, must not be null
+     * @param parser message parser, must not be null
+     */
+    public PagedMessageReader(final File file, final Parser<T> parser) {
+        this(file, parser, null);
+    }
+
+    /**
+     * Create a new paged reader over the specified file of length-delimited protobuf messages,
+     * indexing region reads with the specified locator.
+     *
+     * @param file file of length-delimited protobuf messages, must not be null
+     * @param parser message parser, must not be null
+     * @param locator function returning the region covered by a message, or null if the
+     *    message is unplaced, if any
+     */
+    public PagedMessageReader(final File file, final Parser<T> parser, final Function<? super T, Region> locator) {
+        checkNotNull(file);
+        checkNotNull(parser);
+        this.file = file;
+        this.parser = parser;
+        this.locator = locator;
+    }
+
+
+    /**
+     * Return the file of length-delimited protobuf messages for this paged reader.
+     *
+     * @return the file of length-delimited protobuf messages for this paged reader
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Read a page of at most the specified number of messages accepted by the specified filter,
+     * starting at the specified page token.
+     *
+     * @param pageToken page token, must not be null; empty for the first page
+     * @param pageSize maximum number of messages per page, must be at least one
+     * @param filter filter, must not be null
+     * @return a page of at most the specified number of messages accepted by the specified filter
+     * @throws IOException if an I/O error occurs or the file is malformed
+     * @throws IllegalArgumentException if the specified page token is not valid for this file
+     */
+    public Page<T> read(final String pageToken, final int pageSize, final Predicate<? super T> filter) throws IOException {
+        return read(pageToken, null, pageSize, filter);
+    }
+
+    /**
+     * Read a page of at most the specified number of messages in the specified region accepted
+     * by the specified filter, starting at the specified page token.
+     *
+     * @param pageToken page token, must not be null; empty for the first page
+     * @param region region, if any; the filter must reject messages outside the region
+     * @param pageSize maximum number of messages per page, must be at least one
+     * @param filter filter, must not be null
+     * @return a page of at most the specified number of messages accepted by the specified filter
+     * @throws IOException if an I/O error occurs or the file is malformed
+     * @throws IllegalArgumentException if the specified page token is not valid for this file
+     */
+    public Page<T> read(final String pageToken,
+                        final Region region,
+                        final int pageSize,
+                        final Predicate<? super T> filter) throws IOException {
+
+        final List<T> messages = new ArrayList<T>(Math.min(pageSize, 1024));
+        String nextPageToken = read(pageToken, region, pageSize, filter, new Consumer<T>() {
+                @Override
+                public void accept(final T message) {
+                    messages.add(message);
+                }
+            });
+        return new Page<T>(messages, nextPageToken);
+    }
+
+    /**
+     * Read a page of at most the specified number of messages in the specified region accepted
+     * by the specified filter, starting at the specified page token, passing each message to
+     * the specified consumer as it is read.
+     *
+     * @param pageToken page token, must not be null; empty for the first page
+     * @param region region, if any; the filter must reject messages outside the region
+     * @param pageSize maximum number of messages per page, must be at least one
+     * @param filter filter, must not be null
+     * @param consumer consumer, must not be null
+     * @return the next page token, empty if there are no more pages
+     * @throws IOException if an I/O error occurs or the file is malformed
+     * @throws IllegalArgumentException if the specified page token is not valid for this file,
+     *    thrown before any message is passed to the consumer
+     */
+    public String read(final String pageToken,
+                       final Region region,
+                       final int pageSize,
+                       final Predicate<? super T> filter,
+                       final Consumer<? super T> consumer) throws IOException {
+        checkNotNull(pageToken);
+        checkNotNull(filter);
+        checkNotNull(consumer);
+        checkArgument(pageSize > 0, "pageSize must be at least one");
+
+        long offset = decodePageToken(pageToken);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (offset > channel.size()) {
+                throw new IllegalArgumentException("page token " + pageToken + " past end of file");
+            }
+            long end = Long.MAX_VALUE;
+            MessageOffsetIndex sorted = region == null ? null : sortedIndex();
+            if (sorted != null) {
+                long first = sorted.seek(region);
+                if (first < 0L || offset >= sorted.end(region.getReferenceName())) {
+                    return "";
+                }
+                // messages before the first candidate can not overlap the region
+                offset = Math.max(offset, first);
+                end = sorted.end(region.getReferenceName());
+            }
+            channel.position(offset);
+            CodedInputStream input = CodedInputStream.newInstance(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+
+            int count = 0;
+            while (count < pageSize) {
+                if (offset >= end || input.isAtEnd()) {
+                    return "";
+                }
+                // reset per message, so the size limit applies to each message rather than the whole page
+                input.resetSizeCounter();
+                int size = input.readRawVarint32();
+                int limit = input.pushLimit(size);
+                T message = parser.parseFrom(input);
+                input.popLimit(limit);
+                offset += input.getTotalBytesRead();
+
+                // in a sorted run, no message after one starting past the region overlaps it
+                if (sorted != null && locator.apply(message).getStart() >= region.getEnd()) {
+                    return "";
+                }
+                if (filter.test(message)) {
+                    consumer.accept(message);
+                    count++;
+                }
+            }
+            return (offset >= end || input.isAtEnd()) ? "" : encodePageToken(offset);
+        }
+    }
+
+    /**
+     * Return the message offset index for this paged reader if it has a locator and the file
+     * is position-sorted, building or rebuilding the index if necessary.
+     *
+     * @return the message offset index for this paged reader, or null if it has no locator or
+     *    the file is not position-sorted
+     * @throws IOException if an I/O error occurs or the file is malformed
+     */
+    private synchronized MessageOffsetIndex sortedIndex() throws IOException {
+        if (locator == null) {
+            return null;
+        }
+        if (index == null || !index.isCurrent(file)) {
+            index = MessageOffsetIndex.build(file, parser, locator, MessageOffsetIndex.DEFAULT_INTERVAL);
+        }
+        return index.isSorted() ? index : null;
+    }
+
+    /**
+     * Encode the specified file offset as a page token.
+     *
+     * @param offset file offset, must be at least zero
+     * @return the specified file offset encoded as a page token
+     */
+    static String encodePageToken(final long offset) {
+        checkArgument(offset >= 0L, "offset must be at least zero");
+        return Long.toString(offset, 36);
+    }
+
+    /**
+     * Decode the specified page token to a file offset.
+     *
+     * @param pageToken page token, must not be null
+     * @return the specified page token decoded to a file offset
+     * @throws IllegalArgumentException if the specified page token is not valid
+     */
+    static long decodePageToken(final String pageToken) {
+        if (pageToken.isEmpty()) {
+            return 0L;
+        }
+        long offset;
+        try {
+            offset = Long.parseLong(pageToken, 36);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid page token " + pageToken, e);
+        }
+        if (offset < 0L) {
+            throw new IllegalArgumentException("invalid page token " + pageToken);
+        }
+        return offset;
+    }
+
+
+    /**
+     * Page of messages.
+     *
+     * @param <T> protobuf message type
+     */
+    @Immutable
+    public static final class Page<T extends Message> {
+        /** Messages. */
+        private final List<T> messages;
+
+        /** Next page token. */
+        private final String nextPageToken;
+
+
+        /**
+         * Create a new page of messages.
+         *
+         * @param messages messages
+         * @param nextPageToken next page token, empty if there are no more pages
+         */
+        private Page(final List<T> messages, final String nextPageToken) {
+            this.messages = Collections.unmodifiableList(messages);
+            this.nextPageToken = nextPageToken;
+        }
+
+
+        /**
+         * Return the messages in this page.
+         *
+         * @return the messages in this page
+         */
+        public List<T> getMessages() {
+            return messages;
+        }
+
+        /**
+         * Return the next page token, empty if there are no more pages.
+         *
+         * @return the next page token, empty if there are no more pages
+         */
+        public String getNextPageToken() {
+            return nextPageToken;
+        }
+    }
+}
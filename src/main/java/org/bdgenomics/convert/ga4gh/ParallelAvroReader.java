@@ -0,0 +1,291 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+
+import org.apache.avro.specific.SpecificDatumReader;
+
+/**
+ * Avro container file reader that decompresses and decodes blocks in parallel.
+ *
+ * <p>
+ * Blocks are read and their sync markers verified on the calling thread, then handed
+ * to a pool of worker threads to decompress and decode.  Records are returned in file
+ * order, or when unordered, block by block in the order decoding completes.  At most
+ * twice as many blocks as worker threads are in flight at any time.
+ * </p>
+ *
+ * @param <T> record type
+ */
+@NotThreadSafe
+public final class ParallelAvroReader<T> implements Iterator<T>, Closeable {
+    /** Block reader. */
+    private final AvroBlockReader blockReader;
+
+    /** Per-thread datum readers. */
+    private final ThreadLocal<DatumReader<T>> datumReaders;
+
+    /** True if records are returned in file order. */
+    private final boolean ordered;
+
+    /** Maximum number of blocks in flight. */
+    private final int window;
+
+    /** Executor service. */
+    private final ExecutorService executorService;
+
+    /** Completion service, for unordered reads. */
+    private final CompletionService<List<T>> completionService;
+
+    /** Blocks in flight, for ordered reads. */
+    private final Deque<Future<List<T>>> inFlight = new ArrayDeque<Future<List<T>>>();
+
+    /** Number of blocks in flight, for unordered reads. */
+    private int pending = 0;
+
+    /** True if the end of the container file has been reached. */
+    private boolean endOfFile = false;
+
+    /** Current block of decoded records. */
+    private List<T> records = Collections.emptyList();
+
+    /** Index of the next record in the current block. */
+    private int index = 0;
+
+
+    /**
+     * Create a new parallel Avro reader for specific records of the specified class.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @param recordClass specific record class, must not be null
+     * @param threads number of worker threads, must be at least one
+     * @param ordered true to return records in file order
+     * @throws IOException if an I/O error occurs or the container header is not valid
+     */
+    public ParallelAvroReader(final InputStream inputStream,
+                              final Class<T> recordClass,
+                              final int threads,
+                              final boolean ordered) throws IOException {
+        this(inputStream, specificDatumReaders(recordClass), threads, ordered);
+    }
+
+    /**
+     * Create a new parallel Avro reader.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @param datumReaderFactory factory for datum readers, called once per worker thread, must not be null
+     * @param threads number of worker threads, must be at least one
+     * @param ordered true to return records in file order
+     * @throws IOException if an I/O error occurs or the container header is not valid
+     */
+    public ParallelAvroReader(final InputStream inputStream,
+                              final Supplier<DatumReader<T>> datumReaderFactory,
+                              final int threads,
+                              final boolean ordered) throws IOException {
+        checkNotNull(inputStream);
+        checkNotNull(datumReaderFactory);
+        checkArgument(threads > 0, "threads must be at least one");
+
+        blockReader = new AvroBlockReader(inputStream);
+        final Schema writerSchema = blockReader.getSchema();
+        datumReaders = new ThreadLocal<DatumReader<T>>() {
+            @Override
+            protected DatumReader<T> initialValue() {
+                DatumReader<T> datumReader = datumReaderFactory.get();
+                datumReader.setSchema(writerSchema);
+                return datumReader;
+            }
+        };
+        this.ordered = ordered;
+        this.window = threads * 2;
+        // daemon threads, so that a reader left unclosed does not keep the JVM alive
+        final AtomicInteger count = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(runnable, "avro-decode-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        completionService = ordered ? null : new ExecutorCompletionService<List<T>>(executorService);
+    }
+
+
+    /**
+     * Return a factory for specific datum readers of the specified class.
+     *
+     * @param <T> record type
+     * @param recordClass specific record class, must not be null
+     * @return a factory for specific datum readers of the specified class
+     */
+    private static <T> Supplier<DatumReader<T>> specificDatumReaders(final Class<T> recordClass) {
+        checkNotNull(recordClass);
+        return new Supplier<DatumReader<T>>() {
+            @Override
+            public DatumReader<T> get() {
+                return new SpecificDatumReader<T>(recordClass);
+            }
+        };
+    }
+
+    /**
+     * Return the writer schema from the container header.
+     *
+     * @return the writer schema from the container header
+     */
+    public Schema getSchema() {
+        return blockReader.getSchema();
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (index >= records.size()) {
+                fill();
+                if (ordered) {
+                    if (inFlight.isEmpty()) {
+                        return false;
+                    }
+                    records = Futures.await(inFlight.removeFirst(), "decoded block");
+                }
+                else {
+                    if (pending == 0) {
+                        return false;
+                    }
+                    records = Futures.await(take(), "decoded block");
+                    pending--;
+                }
+                index = 0;
+            }
+            return true;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return records.get(index++);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executorService.shutdownNow();
+        blockReader.close();
+    }
+
+    /**
+     * Read blocks and submit them for decoding until the window is full or the end
+     * of the container file has been reached.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void fill() throws IOException {
+        while (!endOfFile && (ordered ? inFlight.size() : pending) < window) {
+            AvroBlock block = blockReader.readBlock();
+            if (block == null) {
+                endOfFile = true;
+            }
+            else if (ordered) {
+                inFlight.addLast(executorService.submit(new DecodeTask(block)));
+            }
+            else {
+                completionService.submit(new DecodeTask(block));
+                pending++;
+            }
+        }
+    }
+
+    /**
+     * Wait for the next completed block.
+     *
+     * @return the next completed block
+     * @throws IOException if interrupted
+     */
+    private Future<List<T>> take() throws IOException {
+        try {
+            return completionService.take();
+        }
+        catch (InterruptedException e) {
+            throw Futures.interrupted("interrupted waiting for decoded block");
+        }
+    }
+
+    /**
+     * Decode task.
+     */
+    private final class DecodeTask implements Callable<List<T>> {
+        private final AvroBlock block;
+
+        DecodeTask(final AvroBlock block) {
+            this.block = block;
+        }
+
+        @Override
+        public List<T> call() throws IOException {
+            byte[] data = block.decompress();
+            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+            DatumReader<T> datumReader = datumReaders.get();
+            List<T> decoded = new ArrayList<T>((int) block.getCount());
+            for (long i = 0L; i < block.getCount(); i++) {
+                decoded.add(datumReader.read(null, decoder));
+            }
+            return decoded;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static org.apache.parquet.filter2.predicate.FilterApi.and;
+import static org.apache.parquet.filter2.predicate.FilterApi.binaryColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.eq;
+import static org.apache.parquet.filter2.predicate.FilterApi.gt;
+import static org.apache.parquet.filter2.predicate.FilterApi.gtEq;
+import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.lt;
+import static org.apache.parquet.filter2.predicate.FilterApi.or;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.protobuf.FieldMask;
+
+import org.apache.avro.Schema;
+
+import org.apache.hadoop.conf.Configuration;
+
+import org.apache.hadoop.fs.Path;
+
+import org.apache.parquet.avro.AvroDataSupplier;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroReadSupport;
+import org.apache.parquet.avro.SpecificDataSupplier;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+
+import org.apache.parquet.hadoop.ParquetReader;
+
+import org.apache.parquet.io.api.Binary;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+import org.bdgenomics.formats.avro.Feature;
+
+/**
+ * Parquet reader for Avro specific records, such as ADAM AlignmentRecord and
+ * Feature Parquet files.
+ *
+ * <p>
+ * Only the columns in the requested projection are read.  When a region is specified,
+ * row groups whose column statistics fall outside of the region are skipped, and the
+ * remaining records are filtered to those overlapping the region.
+ * </p>
+ *
+ * @param <T> record type
+ */
+@NotThreadSafe
+public final class ParquetAvroReader<T> implements Iterator<T>, Closeable {
+    /** Parquet reader. */
+    private final ParquetReader<T> reader;
+
+    /** Next record, if any. */
+    private T next;
+
+
+    /**
+     * Create a new Parquet Avro reader.
+     *
+     * @param path path to read from, must not be null
+     * @param conf Hadoop configuration, must not be null
+     * @param schema full record schema, must not be null
+     * @param projection projection, must not be null
+     * @param filter filter predicate, if any
+     * @throws IOException if an I/O error occurs
+     */
+    public ParquetAvroReader(final Path path,
+                             final Configuration conf,
+                             final Schema schema,
+                             final Schema projection,
+                             final FilterPredicate filter) throws IOException {
+        checkNotNull(path);
+        checkNotNull(conf);
+        checkNotNull(schema);
+        checkNotNull(projection);
+
+        Configuration readConf = new Configuration(conf);
+        AvroReadSupport.setRequestedProjection(readConf, projection);
+        AvroReadSupport.setAvroReadSchema(readConf, schema);
+        readConf.setClass(AvroReadSupport.AVRO_DATA_SUPPLIER, SpecificDataSupplier.class, AvroDataSupplier.class);
+
+        ParquetReader.Builder<T> builder = AvroParquetReader.<T>builder(path).withConf(readConf);
+        if (filter != null) {
+            builder.withFilter(FilterCompat.get(filter));
+        }
+        reader = builder.build();
+        next = reader.read();
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        T current = next;
+        try {
+            next = reader.read();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Return a filter predicate over contigName, start, and end columns for records
+     * overlapping the specified region.
+     *
+     * @param region region, must not be null
+     * @return a filter predicate for records overlapping the specified region
+     */
+    static FilterPredicate regionFilter(final Region region) {
+        checkNotNull(region);
+        return and(eq(binaryColumn("contigName"), Binary.fromString(region.getReferenceName())),
+                   and(lt(longColumn("start"), Long.valueOf(region.getEnd())),
+                       gt(longColumn("end"), Long.valueOf(region.getStart()))));
+    }
+
+    /**
+     * Return a filter predicate over contigName and start columns for records starting
+     * in the specified region.  Unlike an overlap filter, each placed record matches
+     * exactly one of a set of disjoint regions covering its start.
+     *
+     * @param region region, must not be null
+     * @return a filter predicate for records starting in the specified region
+     */
+    static FilterPredicate startFilter(final Region region) {
+        checkNotNull(region);
+        return and(eq(binaryColumn("contigName"), Binary.fromString(region.getReferenceName())),
+                   and(gtEq(longColumn("start"), Long.valueOf(region.getStart())),
+                       lt(longColumn("start"), Long.valueOf(region.getEnd()))));
+    }
+
+    /**
+     * Return a filter predicate over contigName and start columns for records starting
+     * in any of the specified regions.
+     *
+     * @param regions list of regions, must not be null or empty
+     * @return a filter predicate for records starting in any of the specified regions
+     */
+    static FilterPredicate startFilter(final List<Region> regions) {
+        checkNotNull(regions);
+        checkArgument(!regions.isEmpty(), "regions must not be empty");
+        FilterPredicate filter = startFilter(regions.get(0));
+        for (int i = 1, size = regions.size(); i < size; i++) {
+            filter = or(filter, startFilter(regions.get(i)));
+        }
+        return filter;
+    }
+
+    /**
+     * Return a filter predicate over contigName and start columns for unplaced records,
+     * those without a contig name or start.
+     *
+     * @return a filter predicate for unplaced records
+     */
+    static FilterPredicate unplacedFilter() {
+        return or(eq(binaryColumn("contigName"), (Binary) null), eq(longColumn("start"), (Long) null));
+    }
+
+    /**
+     * Create a new Parquet Avro reader for the AlignmentRecord columns read by
+     * AlignmentRecordToReadAlignment.
+     *
+     * @param path path to read from, must not be null
+     * @param conf Hadoop configuration, must not be null
+     * @param fieldMask field mask over ReadAlignment field names, if any
+     * @param region region, if any
+     * @return a new Parquet Avro reader for AlignmentRecords
+     * @throws IOException if an I/O error occurs
+     */
+    public static ParquetAvroReader<AlignmentRecord> alignmentRecords(final Path path,
+                                                                      final Configuration conf,
+                                                                      final FieldMask fieldMask,
+                                                                      final Region region) throws IOException {
+        return new ParquetAvroReader<AlignmentRecord>(path, conf, AlignmentRecord.getClassSchema(),
+                                                      Projections.alignmentRecordProjection(fieldMask, region),
+                                                      region == null ? null : regionFilter(region));
+    }
+
+    /**
+     * Create a new Parquet Avro reader for the Feature columns read by
+     * BdgenomicsFeatureToGa4ghFeature.
+     *
+     * @param path path to read from, must not be null
+     * @param conf Hadoop configuration, must not be null
+     * @param region region, if any
+     * @return a new Parquet Avro reader for Features
+     * @throws IOException if an I/O error occurs
+     */
+    public static ParquetAvroReader<Feature> features(final Path path,
+                                                      final Configuration conf,
+                                                      final Region region) throws IOException {
+        return new ParquetAvroReader<Feature>(path, conf, Feature.getClassSchema(),
+                                              Projections.featureProjection(),
+                                              region == null ? null : regionFilter(region));
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.protobuf.FieldMask;
+
+import org.apache.avro.Schema;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+import org.bdgenomics.formats.avro.Feature;
+
+/**
+ * Avro projections limited to the source fields read by the converters in this package.
+ *
+ * <p>
+ * Fields outside a projection take their schema default values when read.  The
+ * AlignmentRecord projection can be narrowed further by a field mask over ReadAlignment
+ * field names; ReadAlignment fields not in the mask are then left unset or at their
+ * default values in the converted messages.  Read name and sequence are read only if
+ * the mask includes <code>fragment_name</code> and <code>aligned_sequence</code>
+ * respectively.
+ * </p>
+ */
+public final class Projections {
+    /** AlignmentRecord fields read unconditionally by AlignmentRecordToReadAlignment. */
+    private static final List<String> ALIGNMENT_RECORD_REQUIRED = Arrays.asList("recordGroupName",
+        "readInFragment", "readPaired", "properPair", "duplicateRead", "failedVendorQualityChecks",
+        "secondaryAlignment", "supplementaryAlignment");
+
+    /** AlignmentRecord fields read by AlignmentRecordToReadAlignment, keyed by ReadAlignment field name. */
+    private static final Map<String, List<String>> ALIGNMENT_RECORD_OPTIONAL = new HashMap<String, List<String>>();
+
+    static {
+        ALIGNMENT_RECORD_OPTIONAL.put("fragment_name", Arrays.asList("readName"));
+        ALIGNMENT_RECORD_OPTIONAL.put("aligned_sequence", Arrays.asList("sequence"));
+        ALIGNMENT_RECORD_OPTIONAL.put("fragment_length", Arrays.asList("inferredInsertSize"));
+        ALIGNMENT_RECORD_OPTIONAL.put("aligned_quality", Arrays.asList("qual"));
+        ALIGNMENT_RECORD_OPTIONAL.put("next_mate_position", Arrays.asList("mateContigName", "mateAlignmentStart", "mateNegativeStrand"));
+        ALIGNMENT_RECORD_OPTIONAL.put("alignment", Arrays.asList("readMapped", "contigName", "start", "readNegativeStrand", "cigar", "mapq"));
+    }
+
+    /** AlignmentRecord fields read by a region filter. */
+    private static final List<String> ALIGNMENT_RECORD_REGION = Arrays.asList("contigName", "start", "end");
+
+    /** Feature fields read by BdgenomicsFeatureToGa4ghFeature. */
+    private static final List<String> FEATURE = Arrays.asList("contigName", "start", "end", "strand", "featureType");
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Projections() {
+        // empty
+    }
+
+
+    /**
+     * Return the AlignmentRecord projection read by AlignmentRecordToReadAlignment.
+     *
+     * @return the AlignmentRecord projection read by AlignmentRecordToReadAlignment
+     */
+    public static Schema alignmentRecordProjection() {
+        return alignmentRecordProjection(null, null);
+    }
+
+    /**
+     * Return the AlignmentRecord projection read by AlignmentRecordToReadAlignment,
+     * narrowed by the specified field mask and including the fields read by a filter
+     * over the specified region.
+     *
+     * @param fieldMask field mask over ReadAlignment field names, if any
+     * @param region region, if any
+     * @return the AlignmentRecord projection read by AlignmentRecordToReadAlignment
+     */
+    public static Schema alignmentRecordProjection(final FieldMask fieldMask, final Region region) {
+        Set<String> fields = new LinkedHashSet<String>(ALIGNMENT_RECORD_REQUIRED);
+        Set<String> paths = fieldMask == null ? ALIGNMENT_RECORD_OPTIONAL.keySet() : topLevel(fieldMask);
+        for (String path : paths) {
+            List<String> optional = ALIGNMENT_RECORD_OPTIONAL.get(path);
+            if (optional != null) {
+                fields.addAll(optional);
+            }
+        }
+        if (region != null) {
+            fields.addAll(ALIGNMENT_RECORD_REGION);
+        }
+        return project(AlignmentRecord.getClassSchema(), fields);
+    }
+
+    /**
+     * Return the Feature projection read by BdgenomicsFeatureToGa4ghFeature.  All of the
+     * fields read are also read by a region filter.
+     *
+     * @return the Feature projection read by BdgenomicsFeatureToGa4ghFeature
+     */
+    public static Schema featureProjection() {
+        return project(Feature.getClassSchema(), FEATURE);
+    }
+
+    /**
+     * Return the top level field names from the paths in the specified field mask.
+     *
+     * @param fieldMask field mask, must not be null
+     * @return the top level field names from the paths in the specified field mask
+     */
+    static Set<String> topLevel(final FieldMask fieldMask) {
+        Set<String> topLevel = new LinkedHashSet<String>();
+        for (String path : fieldMask.getPathsList()) {
+            int dot = path.indexOf('.');
+            topLevel.add(dot < 0 ? path : path.substring(0, dot));
+        }
+        return topLevel;
+    }
+
+    /**
+     * Project the specified schema to the specified fields, preserving schema field order.
+     *
+     * @param schema record schema to project, must not be null
+     * @param fields field names to project to, must not be null
+     * @return the specified schema projected to the specified fields
+     */
+    static Schema project(final Schema schema, final Iterable<String> fields) {
+        checkNotNull(schema);
+        checkNotNull(fields);
+        Set<String> names = new LinkedHashSet<String>();
+        for (String field : fields) {
+            if (schema.getField(field) == null) {
+                throw new IllegalArgumentException("field " + field + " not found in schema " + schema.getFullName());
+            }
+            names.add(field);
+        }
+        List<Schema.Field> projected = new ArrayList<Schema.Field>(names.size());
+        for (Schema.Field field : schema.getFields()) {
+            if (names.contains(field.name())) {
+                projected.add(new Schema.Field(field.name(), field.schema(), field.doc(), field.defaultVal()));
+            }
+        }
+        Schema projection = Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), false);
+        projection.setFields(projected);
+        return projection;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Lossy binning of Phred base quality scores through a lookup table.
+ *
+ * <p>
+ * Each bin is defined by an inclusive lower bound and the quality value all
+ * scores in the bin are replaced with.  Scores outside of <code>[0, 93]</code>,
+ * the range of printable Phred+33 characters, are returned unchanged.
+ * </p>
+ */
+@Immutable
+public final class QualityScoreBinning {
+    /** Maximum Phred+33 quality score. */
+    static final int MAX_QUALITY = 93;
+
+    /** Illumina 8-level binning scheme. */
+    private static final QualityScoreBinning ILLUMINA_8 = new QualityScoreBinning("illumina8",
+                                                                                  new int[] { 0, 3, 10, 20, 25, 30, 35, 40 },
+                                                                                  new int[] { 2, 6, 15, 22, 27, 33, 37, 40 });
+
+    /** Illumina 4-level binning scheme. */
+    private static final QualityScoreBinning ILLUMINA_4 = new QualityScoreBinning("illumina4",
+                                                                                  new int[] { 0, 3, 15, 31 },
+                                                                                  new int[] { 2, 12, 23, 37 });
+
+    /** Name of this binning scheme. */
+    private final String name;
+
+    /** Lookup table, indexed by quality score. */
+    private final int[] table;
+
+
+    /**
+     * Create a new quality score binning scheme.
+     *
+     * @param name name of this binning scheme, must not be null
+     * @param lowerBounds inclusive lower bounds for each bin, must not be null, must start at zero and be strictly increasing
+     * @param values binned quality values for each bin, must not be null and must be the same length as lowerBounds
+     */
+    private QualityScoreBinning(final String name, final int[] lowerBounds, final int[] values) {
+        checkNotNull(name);
+        checkNotNull(lowerBounds);
+        checkNotNull(values);
+        checkArgument(lowerBounds.length > 0, "lowerBounds must not be empty");
+        checkArgument(lowerBounds.length == values.length, "lowerBounds and values must be the same length");
+        checkArgument(lowerBounds[0] == 0, "lowerBounds must start at zero");
+
+        table = new int[MAX_QUALITY + 1];
+        for (int i = 0; i < lowerBounds.length; i++) {
+            checkArgument(i == 0 || lowerBounds[i] > lowerBounds[i - 1], "lowerBounds must be strictly increasing");
+            checkArgument(lowerBounds[i] <= MAX_QUALITY, "lowerBounds must be at most " + MAX_QUALITY);
+            checkArgument(values[i] >= 0 && values[i] <= MAX_QUALITY, "values must be in range [0, " + MAX_QUALITY + "]");
+            int end = (i + 1 < lowerBounds.length) ? lowerBounds[i + 1] : MAX_QUALITY + 1;
+            for (int q = lowerBounds[i]; q < end; q++) {
+                table[q] = values[i];
+            }
+        }
+        this.name = name;
+    }
+
+
+    /**
+     * Return the binned value for the specified quality score.
+     *
+     * @param quality Phred quality score
+     * @return the binned value for the specified quality score
+     */
+    public int bin(final int quality) {
+        return (quality < 0 || quality > MAX_QUALITY) ? quality : table[quality];
+    }
+
+    /**
+     * Return the name of this binning scheme.
+     *
+     * @return the name of this binning scheme
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return a fingerprint of this binning scheme, for the converter configuration fingerprint
+     * of an incremental conversion.  Binning schemes with the same fingerprint bin every quality
+     * score to the same value.
+     *
+     * @return a fingerprint of this binning scheme
+     * @see IncrementalConversion
+     */
+    public String getFingerprint() {
+        return name + Arrays.toString(table);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+
+    /**
+     * Return the Illumina 8-level binning scheme.
+     *
+     * @return the Illumina 8-level binning scheme
+     */
+    public static QualityScoreBinning illumina8() {
+        return ILLUMINA_8;
+    }
+
+    /**
+     * Return the Illumina 4-level binning scheme.
+     *
+     * @return the Illumina 4-level binning scheme
+     */
+    public static QualityScoreBinning illumina4() {
+        return ILLUMINA_4;
+    }
+
+    /**
+     * Create and return a new custom binning scheme.
+     *
+     * @param lowerBounds inclusive lower bounds for each bin, must not be null, must start at zero and be strictly increasing
+     * @param values binned quality values for each bin, must not be null and must be the same length as lowerBounds
+     * @return a new custom binning scheme
+     */
+    public static QualityScoreBinning of(final int[] lowerBounds, final int[] values) {
+        return new QualityScoreBinning("custom", lowerBounds, values);
+    }
+
+    /**
+     * Return the binning scheme with the specified name, or null if name is <code>none</code>.
+     *
+     * @param name binning scheme name, one of <code>none</code>, <code>illumina4</code>, or <code>illumina8</code>, must not be null
+     * @return the binning scheme with the specified name, or null if name is <code>none</code>
+     * @throws IllegalArgumentException if name is not recognized
+     */
+    public static QualityScoreBinning valueOf(final String name) {
+        checkNotNull(name);
+        switch (name) {
+            case "none":
+                return null;
+            case "illumina4":
+                return ILLUMINA_4;
+            case "illumina8":
+                return ILLUMINA_8;
+            default:
+                throw new IllegalArgumentException("unrecognized quality score binning scheme " + name);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.Immutable;
+
+import ga4gh.Reads.ReadGroup;
+import ga4gh.Reads.ReadGroupSet;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.RecordGroup;
+
+import org.slf4j.Logger;
+
+/**
+ * Converted GA4GH read group metadata for a dataset.
+ *
+ * <p>
+ * Record groups are converted once, when the dictionary is created, into GA4GH ReadGroups
+ * and a ReadGroupSet for the dataset.  Alignment converters created with a read group
+ * dictionary set the read group id of each ReadAlignment to the id instance held by the
+ * converted ReadGroup, so all ReadAlignments in a read group share a single id by reference,
+ * and read group ids are resolved once per batch rather than once per record where possible.
+ * </p>
+ */
+@Immutable
+public final class ReadGroupDictionary {
+    /** Default read group id, for alignments without a record group name. */
+    static final String DEFAULT_READ_GROUP_ID = "1";
+
+    /** Dataset id. */
+    private final String datasetId;
+
+    /** Read group set. */
+    private final ReadGroupSet readGroupSet;
+
+    /** Read groups by id. */
+    private final Map<String, ReadGroup> readGroups;
+
+
+    /**
+     * Create a new read group dictionary for the specified dataset.  Record groups with
+     * a name already seen are ignored.
+     *
+     * @param datasetId dataset id, must not be null
+     * @param recordGroups record groups to convert, must not be null
+     * @param converter record group converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @throws ConversionException if a record group could not be converted and stringency is strict
+     */
+    public ReadGroupDictionary(final String datasetId,
+                               final List<RecordGroup> recordGroups,
+                               final Converter<RecordGroup, ReadGroup> converter,
+                               final ConversionStringency stringency,
+                               final Logger logger) throws ConversionException {
+        checkNotNull(datasetId);
+        checkNotNull(recordGroups);
+        checkNotNull(converter);
+        checkNotNull(stringency);
+        checkNotNull(logger);
+        this.datasetId = datasetId;
+
+        Map<String, ReadGroup> readGroups = new LinkedHashMap<String, ReadGroup>();
+        for (RecordGroup recordGroup : recordGroups) {
+            ReadGroup readGroup = converter.convert(recordGroup, stringency, logger);
+            if (readGroup != null && !readGroups.containsKey(readGroup.getId())) {
+                readGroups.put(readGroup.getId(), readGroup.toBuilder().setDatasetId(datasetId).build());
+            }
+        }
+        this.readGroups = Collections.unmodifiableMap(readGroups);
+
+        readGroupSet = ReadGroupSet.newBuilder()
+            .setId(datasetId)
+            .setDatasetId(datasetId)
+            .setName(datasetId)
+            .addAllReadGroups(readGroups.values())
+            .build();
+    }
+
+
+    /**
+     * Return the dataset id for this read group dictionary.
+     *
+     * @return the dataset id for this read group dictionary
+     */
+    public String getDatasetId() {
+        return datasetId;
+    }
+
+    /**
+     * Return the read group set for this read group dictionary.
+     *
+     * @return the read group set for this read group dictionary
+     */
+    public ReadGroupSet getReadGroupSet() {
+        return readGroupSet;
+    }
+
+    /**
+     * Return the read groups in this read group dictionary, in record group order.
+     *
+     * @return the read groups in this read group dictionary, in record group order
+     */
+    public List<ReadGroup> getReadGroups() {
+        return readGroupSet.getReadGroupsList();
+    }
+
+    /**
+     * Return the read group with the specified id, if any.
+     *
+     * @param id read group id
+     * @return the read group with the specified id, or null if none
+     */
+    public ReadGroup getReadGroup(final String id) {
+        return readGroups.get(id);
+    }
+
+    /**
+     * Return the number of read groups in this read group dictionary.
+     *
+     * @return the number of read groups in this read group dictionary
+     */
+    public int size() {
+        return readGroups.size();
+    }
+
+    /**
+     * Return a fingerprint of this read group dictionary, for the converter configuration
+     * fingerprint of an incremental conversion.  Read group dictionaries with the same
+     * fingerprint have the same dataset id and read group ids.
+     *
+     * @return a fingerprint of this read group dictionary
+     * @see IncrementalConversion
+     */
+    public String getFingerprint() {
+        return datasetId + readGroups.keySet();
+    }
+
+    /**
+     * Return the read group id for the specified record group name, shared by reference
+     * with the converted ReadGroup if the record group is in this dictionary.
+     *
+     * @param recordGroupName record group name, if any
+     * @return the read group id for the specified record group name
+     */
+    String readGroupId(final String recordGroupName) {
+        if (!isNotEmpty(recordGroupName)) {
+            return DEFAULT_READ_GROUP_ID;
+        }
+        ReadGroup readGroup = readGroups.get(recordGroupName);
+        return readGroup == null ? recordGroupName : readGroup.getId();
+    }
+
+    @Override
+    public String toString() {
+        return "ReadGroupDictionary(" + datasetId + ", " + readGroups.keySet() + ")";
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+import java.time.Instant;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.base.Preconditions;
+
+import ga4gh.Common.Experiment;
+import ga4gh.Common.Program;
+
+import ga4gh.Reads.ReadGroup;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.bdgenomics.formats.avro.ProcessingStep;
+import org.bdgenomics.formats.avro.RecordGroup;
+
+import org.slf4j.Logger;
+
+/**
+ * Convert bdg-formats RecordGroup to GA4GH ReadGroup.
+ *
+ * <p>
+ * The read group id and name are the record group name, matching the read group id of
+ * ReadAlignments converted from AlignmentRecords in that record group.  Platform, platform
+ * unit, library, sequencing center, and run date are converted to the read group experiment
+ * as in the GA4GH reference server, and processing steps to read group programs.  The dataset
+ * id is not set; see {@link ReadGroupDictionary}.
+ * </p>
+ */
+@Immutable
+final class RecordGroupToReadGroup extends AbstractConverter<RecordGroup, ReadGroup> {
+
+    /**
+     * Convert bdg-formats RecordGroup to GA4GH ReadGroup.
+     */
+    RecordGroupToReadGroup() {
+        super(RecordGroup.class, ReadGroup.class);
+    }
+
+
+    @Override
+    public ReadGroup convert(final RecordGroup recordGroup,
+                             final ConversionStringency stringency,
+                             final Logger logger) throws ConversionException {
+
+        if (recordGroup == null) {
+            warnOrThrow(recordGroup, "must not be null", null, stringency, logger);
+            return null;
+        }
+        if (!isNotEmpty(recordGroup.getName())) {
+            warnOrThrow(recordGroup, "name must not be empty", null, stringency, logger);
+            return null;
+        }
+
+        ReadGroup.Builder builder = ReadGroup.newBuilder()
+            .setId(recordGroup.getName())
+            .setName(recordGroup.getName());
+
+        if (recordGroup.getDescription() != null) {
+            builder.setDescription(recordGroup.getDescription());
+        }
+        if (recordGroup.getSample() != null) {
+            builder.setSampleName(recordGroup.getSample());
+        }
+        if (recordGroup.getPredictedMedianInsertSize() != null) {
+            builder.setPredictedInsertSize(recordGroup.getPredictedMedianInsertSize());
+        }
+        if (hasExperiment(recordGroup)) {
+            builder.setExperiment(convertExperiment(recordGroup));
+        }
+        if (recordGroup.getProcessingSteps() != null) {
+            for (ProcessingStep processingStep : recordGroup.getProcessingSteps()) {
+                builder.addPrograms(convertProgram(processingStep));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return true if the specified record group has any experiment fields.
+     *
+     * @param recordGroup record group, must not be null
+     * @return true if the specified record group has any experiment fields
+     */
+    static boolean hasExperiment(final RecordGroup recordGroup) {
+        return recordGroup.getPlatform() != null
+            || recordGroup.getPlatformUnit() != null
+            || recordGroup.getLibrary() != null
+            || recordGroup.getSequencingCenter() != null
+            || recordGroup.getRunDateEpoch() != null;
+    }
+
+    /**
+     * Convert the experiment fields of the specified record group.
+     *
+     * @param recordGroup record group, must not be null
+     * @return the experiment fields of the specified record group
+     */
+    static Experiment convertExperiment(final RecordGroup recordGroup) {
+        Experiment.Builder builder = Experiment.newBuilder();
+        if (recordGroup.getPlatform() != null) {
+            builder.setInstrumentModel(recordGroup.getPlatform());
+        }
+        if (recordGroup.getPlatformUnit() != null) {
+            builder.setPlatformUnit(recordGroup.getPlatformUnit());
+        }
+        if (recordGroup.getLibrary() != null) {
+            builder.setLibrary(recordGroup.getLibrary());
+        }
+        if (recordGroup.getSequencingCenter() != null) {
+            builder.setSequencingCenter(recordGroup.getSequencingCenter());
+        }
+        if (recordGroup.getRunDateEpoch() != null) {
+            builder.setRunTime(Instant.ofEpochMilli(recordGroup.getRunDateEpoch()).toString());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Convert the specified processing step to a program.
+     *
+     * @param processingStep processing step, must not be null
+     * @return the specified processing step converted to a program
+     */
+    static Program convertProgram(final ProcessingStep processingStep) {
+        Preconditions.checkNotNull(processingStep);
+        Program.Builder builder = Program.newBuilder();
+        if (processingStep.getId() != null) {
+            builder.setId(processingStep.getId());
+        }
+        if (processingStep.getProgramName() != null) {
+            builder.setName(processingStep.getProgramName());
+        }
+        if (processingStep.getCommandLine() != null) {
+            builder.setCommandLine(processingStep.getCommandLine());
+        }
+        if (processingStep.getPreviousId() != null) {
+            builder.setPrevProgramId(processingStep.getPreviousId());
+        }
+        if (processingStep.getVersion() != null) {
+            builder.setVersion(processingStep.getVersion());
+        }
+        return builder.build();
+    }
+}
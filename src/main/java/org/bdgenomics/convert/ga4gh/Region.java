@@ -0,0 +1,120 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Genomic region, zero-based, closed-open.
+ */
+@Immutable
+public final class Region {
+    /** Reference name. */
+    private final String referenceName;
+
+    /** Start, zero-based, inclusive. */
+    private final long start;
+
+    /** End, zero-based, exclusive. */
+    private final long end;
+
+
+    /**
+     * Create a new region.
+     *
+     * @param referenceName reference name, must not be null
+     * @param start start, zero-based, inclusive, must be at least zero
+     * @param end end, zero-based, exclusive, must be greater than or equal to start
+     */
+    public Region(final String referenceName, final long start, final long end) {
+        checkNotNull(referenceName);
+        checkArgument(start >= 0L, "start must be at least zero");
+        checkArgument(end >= start, "end must be greater than or equal to start");
+        this.referenceName = referenceName;
+        this.start = start;
+        this.end = end;
+    }
+
+
+    /**
+     * Return the reference name for this region.
+     *
+     * @return the reference name for this region
+     */
+    public String getReferenceName() {
+        return referenceName;
+    }
+
+    /**
+     * Return the start for this region, zero-based, inclusive.
+     *
+     * @return the start for this region, zero-based, inclusive
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Return the end for this region, zero-based, exclusive.
+     *
+     * @return the end for this region, zero-based, exclusive
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Return true if this region overlaps the specified interval.
+     *
+     * @param referenceName reference name
+     * @param start start, zero-based, inclusive
+     * @param end end, zero-based, exclusive
+     * @return true if this region overlaps the specified interval
+     */
+    public boolean overlaps(final String referenceName, final long start, final long end) {
+        return this.referenceName.equals(referenceName) && start < this.end && end > this.start;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Region)) {
+            return false;
+        }
+        Region region = (Region) o;
+        return referenceName.equals(region.referenceName) && start == region.start && end == region.end;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = referenceName.hashCode();
+        result = 31 * result + (int) (start ^ (start >>> 32));
+        result = 31 * result + (int) (end ^ (end >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return referenceName + ":" + start + "-" + end;
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import java.nio.channels.FileChannel;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.protobuf.Message;
+
+import org.apache.hadoop.conf.Configuration;
+
+import org.apache.hadoop.fs.Path;
+
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+
+/**
+ * Region-parallel conversion of a coordinate-sorted AlignmentRecord Parquet file to
+ * length-delimited protobuf messages.
+ *
+ * <p>
+ * A coarse coordinate index is first built from the row group statistics in the Parquet footer,
+ * reading the contigName and start columns only for row groups spanning more than one contig, and
+ * used to partition the genome into chunks of roughly equal record counts.  Chunks are
+ * converted on a work-stealing pool, each opening a single reader filtered to the union of its
+ * regions, so that only row groups whose column statistics overlap them are read, and the
+ * per-chunk outputs are concatenated in genome order, followed by unplaced records, those
+ * without a contig name or start.  Each record is assigned to the chunk containing its start, so records spanning a chunk boundary are converted exactly once.
+ * For coordinate-sorted input with unplaced records last, the output is identical to a
+ * sequential conversion.
+ * </p>
+ *
+ * @param <T> target protobuf message type
+ */
+@Immutable
+public final class RegionParallelConversion<T extends Message> {
+    /** Logger. */
+    private final Logger logger;
+
+    /** Conversion pipeline, run on the calling worker thread for each chunk. */
+    private final ConversionPipeline<AlignmentRecord, T> pipeline;
+
+    /** Number of worker threads. */
+    private final int parallelism;
+
+    /** Number of chunks to partition placed records into. */
+    private final int chunks;
+
+
+    /**
+     * Create a new region-parallel conversion.
+     *
+     * @param converter converter, must not be null
+     * @param stringency conversion stringency, must not be null
+     * @param logger logger, must not be null
+     * @param parallelism number of worker threads, must be at least one
+     * @param chunks number of chunks to partition placed records into, must be at least one;
+     *    a few times parallelism balances well
+     * @param batchSize number of records per batch, must be at least one
+     */
+    public RegionParallelConversion(final Converter<AlignmentRecord, T> converter,
+                                    final ConversionStringency stringency,
+                                    final Logger logger,
+                                    final int parallelism,
+                                    final int chunks,
+                                    final int batchSize) {
+        checkArgument(parallelism > 0, "parallelism must be at least one");
+        checkArgument(chunks > 0, "chunks must be at least one");
+        this.pipeline = new ConversionPipeline<AlignmentRecord, T>(converter, stringency, logger, 1, batchSize);
+        this.logger = logger;
+        this.parallelism = parallelism;
+        this.chunks = chunks;
+    }
+
+
+    /**
+     * Convert the specified coordinate-sorted AlignmentRecord Parquet file to the specified output file.
+     *
+     * @param input coordinate-sorted AlignmentRecord Parquet file to convert, must not be null
+     * @param conf Hadoop configuration, must not be null
+     * @param output output file, must not be null
+     * @return record counts, summed per-stage timings over all chunks, and elapsed time for this run;
+     *    reading the coordinate index is counted as decode time
+     * @throws IOException if an I/O error occurs
+     * @throws ConversionException if a conversion error occurs and stringency is strict
+     * @throws IllegalArgumentException if the input is not coordinate-sorted
+     */
+    public ConversionStatistics run(final Path input, final Configuration conf, final File output) throws IOException, ConversionException {
+        checkNotNull(input);
+        checkNotNull(conf);
+        checkNotNull(output);
+
+        long start = System.nanoTime();
+        CoordinateIndex index = CoordinateIndex.read(input, conf, CoordinateIndex.DEFAULT_BIN_SIZE);
+        long indexNanos = System.nanoTime() - start;
+
+        List<Chunk> chunkList = new ArrayList<Chunk>();
+        for (List<Region> regions : index.partition(chunks)) {
+            chunkList.add(new Chunk(regions));
+        }
+        if (index.getUnplaced() > 0L) {
+            chunkList.add(new Chunk(null));
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("converting {} records on {} contigs in {} chunks on {} threads",
+                        index.getRecords(), index.getReferenceNames().size(), chunkList.size(), parallelism);
+        }
+
+        File directory = output.getAbsoluteFile().getParentFile();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            if (!chunkList.isEmpty()) {
+                pool.invoke(new ConvertChunks(chunkList, 0, chunkList.size(), input, conf, directory, output.getName()));
+            }
+            return concatenate(chunkList, index, output, indexNanos, start);
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        finally {
+            pool.shutdownNow();
+            for (Chunk chunk : chunkList) {
+                if (chunk.file != null) {
+                    chunk.file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Convert the specified chunk to a temporary file in the specified directory.
+     *
+     * @param chunk chunk to convert
+     * @param input input path
+     * @param conf Hadoop configuration
+     * @param directory directory for temporary files
+     * @param prefix prefix for temporary file names
+     * @throws IOException if an I/O error occurs
+     */
+    private void convert(final Chunk chunk,
+                         final Path input,
+                         final Configuration conf,
+                         final File directory,
+                         final String prefix) throws IOException {
+
+        chunk.file = File.createTempFile(prefix + ".", ".chunk", directory);
+        try (ChunkReader reader = new ChunkReader(input, conf, chunk.regions);
+             OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(chunk.file), 1024 * 1024)) {
+            chunk.statistics = pipeline.run(reader, outputStream);
+        }
+    }
+
+    /**
+     * Concatenate the outputs of the specified converted chunks, in order, to the specified output file.
+     *
+     * @param chunkList converted chunks
+     * @param index coordinate index
+     * @param output output file
+     * @param indexNanos time reading the coordinate index
+     * @param start start time
+     * @return record counts, summed per-stage timings over all chunks, and elapsed time for this run
+     * @throws IOException if an I/O error occurs, or if the chunks did not read every record exactly once
+     */
+    private static ConversionStatistics concatenate(final List<Chunk> chunkList,
+                                                    final CoordinateIndex index,
+                                                    final File output,
+                                                    final long indexNanos,
+                                                    final long start) throws IOException {
+        long records = 0L;
+        long skipped = 0L;
+        long outputBytes = 0L;
+        long decodeNanos = indexNanos;
+        long convertNanos = 0L;
+        long serializeNanos = 0L;
+        long writeNanos = 0L;
+        long estimatedHeapBytes = 0L;
+        long approximateHeapBytes = 0L;
+        try (FileChannel outputChannel = new FileOutputStream(output).getChannel()) {
+            for (Chunk chunk : chunkList) {
+                ConversionStatistics statistics = chunk.statistics;
+                records += statistics.getRecords();
+                skipped += statistics.getSkipped();
+                decodeNanos += statistics.getDecodeNanos();
+                convertNanos += statistics.getConvertNanos();
+                serializeNanos += statistics.getSerializeNanos();
+                writeNanos += statistics.getWriteNanos();
+                estimatedHeapBytes = Math.max(estimatedHeapBytes, statistics.getEstimatedHeapBytes());
+                approximateHeapBytes = Math.max(approximateHeapBytes, statistics.getApproximateHeapBytes());
+
+                long writeStart = System.nanoTime();
+                try (FileChannel chunkChannel = new FileInputStream(chunk.file).getChannel()) {
+                    long size = chunkChannel.size();
+                    long position = 0L;
+                    while (position < size) {
+                        position += chunkChannel.transferTo(position, size - position, outputChannel);
+                    }
+                    outputBytes += size;
+                }
+                writeNanos += System.nanoTime() - writeStart;
+            }
+        }
+        if (records + skipped != index.getRecords()) {
+            throw new IOException("converted and skipped " + (records + skipped) + " records, expected " + index.getRecords()
+                                  + "; input may have changed during conversion");
+        }
+        return new ConversionStatistics(records, skipped, outputBytes, decodeNanos, convertNanos, serializeNanos,
+                                        writeNanos, System.nanoTime() - start, estimatedHeapBytes, approximateHeapBytes);
+    }
+
+
+    /**
+     * Chunk of placed records starting in a list of regions, or of unplaced records.
+     */
+    private static final class Chunk {
+        /** Regions, or null for unplaced records. */
+        private final List<Region> regions;
+
+        /** Temporary output file, once converted. */
+        private File file;
+
+        /** Conversion statistics, once converted. */
+        private ConversionStatistics statistics;
+
+        Chunk(final List<Region> regions) {
+            this.regions = regions;
+        }
+    }
+
+    /**
+     * Fork/join task converting a range of chunks, splitting in half until a single chunk remains.
+     */
+    private final class ConvertChunks extends RecursiveAction {
+        private final List<Chunk> chunkList;
+        private final int from;
+        private final int to;
+        private final Path input;
+        private final Configuration conf;
+        private final File directory;
+        private final String prefix;
+
+        ConvertChunks(final List<Chunk> chunkList,
+                      final int from,
+                      final int to,
+                      final Path input,
+                      final Configuration conf,
+                      final File directory,
+                      final String prefix) {
+            this.chunkList = chunkList;
+            this.from = from;
+            this.to = to;
+            this.input = input;
+            this.conf = conf;
+            this.directory = directory;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    convert(chunkList.get(from), input, conf, directory, prefix);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ConvertChunks(chunkList, from, mid, input, conf, directory, prefix),
+                          new ConvertChunks(chunkList, mid, to, input, conf, directory, prefix));
+            }
+        }
+    }
+
+    /**
+     * Reader over the records starting in any of a list of regions, or over unplaced records,
+     * with a single Parquet reader filtered on the union of the regions.
+     */
+    private static final class ChunkReader implements Iterator<AlignmentRecord>, Closeable {
+        private final ParquetAvroReader<AlignmentRecord> reader;
+
+        ChunkReader(final Path input, final Configuration conf, final List<Region> regions) throws IOException {
+            FilterPredicate filter = regions == null ? ParquetAvroReader.unplacedFilter() : ParquetAvroReader.startFilter(regions);
+            reader = new ParquetAvroReader<AlignmentRecord>(input, conf, AlignmentRecord.getClassSchema(),
+                                                            Projections.alignmentRecordProjection(), filter);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reader.hasNext();
+        }
+
+        @Override
+        public AlignmentRecord next() {
+            return reader.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
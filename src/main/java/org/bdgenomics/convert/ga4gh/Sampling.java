@@ -0,0 +1,286 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.google.common.collect.AbstractIterator;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+/**
+ * Seedable, reproducible downsampling of AlignmentRecords ahead of conversion.
+ *
+ * <p>
+ * Fraction sampling is streaming and keeps or drops each record by a seeded hash of
+ * its read name, so that mates are kept or dropped together and the same seed always
+ * selects the same reads regardless of input order.  Reservoir sampling selects a
+ * fixed number of records in a single pass, either overall or per region, and returns
+ * them in input order; for a given seed and input order, the selection is reproducible.
+ * </p>
+ */
+public final class Sampling {
+    /** Region key for unmapped reads. */
+    static final String UNMAPPED = "*";
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Sampling() {
+        // empty
+    }
+
+
+    /**
+     * Return a view of the specified input that keeps approximately the specified fraction of
+     * records, by a seeded hash of read name.
+     *
+     * @param input input, must not be null
+     * @param fraction fraction of records to keep, must be in range <code>[0.0, 1.0]</code>
+     * @param seed seed
+     * @return a view of the specified input that keeps approximately the specified fraction of records
+     */
+    public static Iterator<AlignmentRecord> fraction(final Iterator<AlignmentRecord> input, final double fraction, final long seed) {
+        checkNotNull(input);
+        checkArgument(fraction >= 0.0d && fraction <= 1.0d, "fraction must be in range [0.0, 1.0]");
+        return new AbstractIterator<AlignmentRecord>() {
+            @Override
+            protected AlignmentRecord computeNext() {
+                while (input.hasNext()) {
+                    AlignmentRecord alignmentRecord = input.next();
+                    if (keep(alignmentRecord, fraction, seed)) {
+                        return alignmentRecord;
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    /**
+     * Select a uniform random sample of at most the specified number of records from the specified input.
+     *
+     * @param input input, must not be null
+     * @param size maximum number of records to select, must be at least zero
+     * @param seed seed
+     * @return a uniform random sample of at most the specified number of records, in input order
+     */
+    public static List<AlignmentRecord> reservoir(final Iterator<AlignmentRecord> input, final int size, final long seed) {
+        checkNotNull(input);
+        checkArgument(size >= 0, "size must be at least zero");
+        Reservoir reservoir = new Reservoir(size, new SplittableRandom(seed));
+        long index = 0L;
+        while (input.hasNext()) {
+            reservoir.offer(input.next(), index++);
+        }
+        List<Reservoir> reservoirs = new ArrayList<Reservoir>(1);
+        reservoirs.add(reservoir);
+        return merge(reservoirs);
+    }
+
+    /**
+     * Select a uniform random sample of at most the specified number of records per region from the
+     * specified input.  Mapped reads are grouped into regions by contig name and fixed-size start position
+     * bin; unmapped reads are sampled together as a single region.
+     *
+     * @param input input, must not be null
+     * @param sizePerRegion maximum number of records to select per region, must be at least zero
+     * @param binSize region bin size, must be at least one
+     * @param seed seed
+     * @return a uniform random sample of at most the specified number of records per region, in input order
+     */
+    public static List<AlignmentRecord> reservoirByRegion(final Iterator<AlignmentRecord> input,
+                                                          final int sizePerRegion,
+                                                          final long binSize,
+                                                          final long seed) {
+        checkNotNull(input);
+        checkArgument(sizePerRegion >= 0, "sizePerRegion must be at least zero");
+        checkArgument(binSize > 0L, "binSize must be at least one");
+
+        Map<String, Reservoir> reservoirs = new HashMap<String, Reservoir>();
+        long index = 0L;
+        while (input.hasNext()) {
+            AlignmentRecord alignmentRecord = input.next();
+            String region = region(alignmentRecord, binSize);
+            Reservoir reservoir = reservoirs.get(region);
+            if (reservoir == null) {
+                // each region has its own random stream, independent of the order in which regions are first seen
+                reservoir = new Reservoir(sizePerRegion, new SplittableRandom(hash(seed, region)));
+                reservoirs.put(region, reservoir);
+            }
+            reservoir.offer(alignmentRecord, index++);
+        }
+        return merge(reservoirs.values());
+    }
+
+    /**
+     * Return true if the specified record should be kept at the specified fraction and seed.
+     *
+     * @param alignmentRecord alignment record
+     * @param fraction fraction of records to keep
+     * @param seed seed
+     * @return true if the specified record should be kept at the specified fraction and seed
+     */
+    static boolean keep(final AlignmentRecord alignmentRecord, final double fraction, final long seed) {
+        String readName = alignmentRecord.getReadName();
+        long hash = hash(seed, readName == null ? "" : readName);
+        return ((hash >>> 11) * 0x1.0p-53) < fraction;
+    }
+
+    /**
+     * Return the region key for the specified record.
+     *
+     * @param alignmentRecord alignment record
+     * @param binSize region bin size
+     * @return the region key for the specified record
+     */
+    static String region(final AlignmentRecord alignmentRecord, final long binSize) {
+        if (!Boolean.TRUE.equals(alignmentRecord.getReadMapped()) || alignmentRecord.getContigName() == null || alignmentRecord.getStart() == null) {
+            return UNMAPPED;
+        }
+        return alignmentRecord.getContigName() + ":" + (alignmentRecord.getStart() / binSize);
+    }
+
+    /**
+     * Return a seeded 64-bit hash of the specified value, FNV-1a followed by a
+     * MurmurHash3 finalizer to spread short, similar values.
+     *
+     * @param seed seed
+     * @param value value
+     * @return a seeded 64-bit hash of the specified value
+     */
+    static long hash(final long seed, final String value) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Merge the specified reservoirs into a single list in input order.
+     *
+     * @param reservoirs reservoirs to merge
+     * @return the specified reservoirs merged into a single list in input order
+     */
+    private static List<AlignmentRecord> merge(final Iterable<Reservoir> reservoirs) {
+        int size = 0;
+        for (Reservoir reservoir : reservoirs) {
+            size += reservoir.count;
+        }
+        long[] keys = new long[size];
+        Map<Long, AlignmentRecord> byIndex = new HashMap<Long, AlignmentRecord>(size * 2);
+        int n = 0;
+        for (Reservoir reservoir : reservoirs) {
+            for (int i = 0; i < reservoir.count; i++) {
+                keys[n++] = reservoir.indices[i];
+                byIndex.put(reservoir.indices[i], reservoir.records[i]);
+            }
+        }
+        Arrays.sort(keys);
+        List<AlignmentRecord> merged = new ArrayList<AlignmentRecord>(size);
+        for (long key : keys) {
+            merged.add(byIndex.get(key));
+        }
+        return merged;
+    }
+
+
+    /**
+     * Fixed-size reservoir (Algorithm R) of records and their input indices.
+     * Arrays grow as records are offered, up to the reservoir size, so that
+     * reservoirs for regions with few records stay small.
+     */
+    private static final class Reservoir {
+        /** Initial capacity of the record and index arrays. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** Reservoir size. */
+        private final int size;
+
+        /** Source of randomness for replacing records. */
+        private final SplittableRandom random;
+
+        /** Records in this reservoir, the first <code>count</code> of which are valid. */
+        private AlignmentRecord[] records;
+
+        /** Input indices of the records in this reservoir. */
+        private long[] indices;
+
+        /** Number of records in this reservoir. */
+        private int count = 0;
+
+        /** Number of records offered to this reservoir. */
+        private long seen = 0L;
+
+        /**
+         * Create a new reservoir with the specified size.
+         *
+         * @param size reservoir size, must be at least zero
+         * @param random source of randomness for replacing records
+         */
+        Reservoir(final int size, final SplittableRandom random) {
+            this.size = size;
+            this.random = random;
+            this.records = new AlignmentRecord[Math.min(size, INITIAL_CAPACITY)];
+            this.indices = new long[records.length];
+        }
+
+        /**
+         * Offer the specified record at the specified input index to this reservoir.
+         *
+         * @param alignmentRecord record to offer
+         * @param index input index of the record
+         */
+        void offer(final AlignmentRecord alignmentRecord, final long index) {
+            seen++;
+            if (count < size) {
+                if (count == records.length) {
+                    int capacity = (int) Math.min((long) size, records.length * 2L);
+                    records = Arrays.copyOf(records, capacity);
+                    indices = Arrays.copyOf(indices, capacity);
+                }
+                records[count] = alignmentRecord;
+                indices[count] = index;
+                count++;
+            }
+            else if (size > 0) {
+                long j = random.nextLong(seen);
+                if (j < size) {
+                    records[(int) j] = alignmentRecord;
+                    indices[(int) j] = index;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,523 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.ToIntFunction;
+
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.common.io.CountingOutputStream;
+
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Writer that routes ReadAlignments to one of N length-delimited protobuf shard files
+ * by a stable shard hash function.
+ *
+ * <p>
+ * Records are collected into per-shard batches on the calling thread and handed off to
+ * a dedicated writer thread per shard, each with its own output buffer.  Every shard file is
+ * opened before any writer thread starts, so a shard that cannot be opened fails construction
+ * without leaving threads behind.  On close, a
+ * JSON manifest listing each shard file with its record count, size in bytes, and CRC32
+ * checksum is written alongside the shard files.
+ * </p>
+ *
+ * @see Sharding
+ */
+@NotThreadSafe
+public final class ShardedReadAlignmentWriter implements Closeable {
+    /** Default number of records per batch. */
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** Output buffer size per shard. */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /** Number of batches queued per shard. */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /** End of input marker. */
+    private static final List<ReadAlignment> END = new ArrayList<ReadAlignment>(0);
+
+    /** Output directory. */
+    private final File directory;
+
+    /** Shard file name prefix. */
+    private final String prefix;
+
+    /** Shard hash function. */
+    private final ToIntFunction<ReadAlignment> sharding;
+
+    /** Number of records per batch. */
+    private final int batchSize;
+
+    /** Shard writers. */
+    private final ShardWriter[] shardWriters;
+
+    /** Pending batches, one per shard. */
+    private final List<List<ReadAlignment>> pending;
+
+    /** Shards, available after close. */
+    private List<Shard> shards;
+
+
+    /**
+     * Create a new sharded ReadAlignment writer.
+     *
+     * @param directory output directory, must not be null and must exist
+     * @param prefix shard file name prefix, must not be null
+     * @param shardCount number of shards, must be at least one
+     * @param sharding shard hash function, must not be null
+     * @throws IOException if a shard file could not be opened
+     */
+    public ShardedReadAlignmentWriter(final File directory,
+                                      final String prefix,
+                                      final int shardCount,
+                                      final ToIntFunction<ReadAlignment> sharding) throws IOException {
+        this(directory, prefix, shardCount, sharding, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new sharded ReadAlignment writer.
+     *
+     * @param directory output directory, must not be null and must exist
+     * @param prefix shard file name prefix, must not be null
+     * @param shardCount number of shards, must be at least one
+     * @param sharding shard hash function, must not be null
+     * @param batchSize number of records per batch handed off to a shard writer thread, must be at least one
+     * @throws IOException if a shard file could not be opened
+     */
+    public ShardedReadAlignmentWriter(final File directory,
+                                      final String prefix,
+                                      final int shardCount,
+                                      final ToIntFunction<ReadAlignment> sharding,
+                                      final int batchSize) throws IOException {
+        checkNotNull(directory);
+        checkNotNull(prefix);
+        checkNotNull(sharding);
+        checkArgument(directory.isDirectory(), "directory must exist");
+        checkArgument(shardCount > 0, "shardCount must be at least one");
+        checkArgument(batchSize > 0, "batchSize must be at least one");
+        this.directory = directory;
+        this.prefix = prefix;
+        this.sharding = sharding;
+        this.batchSize = batchSize;
+
+        shardWriters = new ShardWriter[shardCount];
+        pending = new ArrayList<List<ReadAlignment>>(shardCount);
+        int started = 0;
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shardWriters[i] = new ShardWriter(new File(directory, String.format(Locale.ROOT, "%s-%05d.pb", prefix, i)));
+                pending.add(new ArrayList<ReadAlignment>(batchSize));
+            }
+            for (; started < shardCount; started++) {
+                shardWriters[started].start();
+            }
+        }
+        catch (IOException | RuntimeException | Error e) {
+            for (int i = 0; i < shardCount; i++) {
+                if (i < started) {
+                    shardWriters[i].end();
+                }
+                else if (shardWriters[i] != null) {
+                    shardWriters[i].discard();
+                }
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Write the specified ReadAlignment to its shard.
+     *
+     * @param readAlignment ReadAlignment to write, must not be null
+     * @throws IOException if an I/O error occurs, including an I/O error on a shard writer thread
+     */
+    public void write(final ReadAlignment readAlignment) throws IOException {
+        checkNotNull(readAlignment);
+        checkState(shards == null, "writer is closed");
+
+        int shard = Math.floorMod(sharding.applyAsInt(readAlignment), shardWriters.length);
+        List<ReadAlignment> batch = pending.get(shard);
+        batch.add(readAlignment);
+        if (batch.size() >= batchSize) {
+            shardWriters[shard].submit(batch);
+            pending.set(shard, new ArrayList<ReadAlignment>(batchSize));
+        }
+    }
+
+    /**
+     * Return the shards written by this writer.  Only available after this writer has been closed.
+     *
+     * @return the shards written by this writer
+     */
+    public List<Shard> getShards() {
+        checkState(shards != null, "writer is not closed");
+        return shards;
+    }
+
+    /**
+     * Return the manifest file for this writer.
+     *
+     * @return the manifest file for this writer
+     */
+    public File getManifest() {
+        return new File(directory, prefix + ".manifest.json");
+    }
+
+    /**
+     * Flush pending batches, wait for all shard writer threads to finish, and write the manifest.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (shards != null) {
+            return;
+        }
+        IOException failure = null;
+        for (int i = 0; i < shardWriters.length; i++) {
+            try {
+                if (!pending.get(i).isEmpty()) {
+                    shardWriters[i].submit(pending.get(i));
+                }
+            }
+            catch (IOException e) {
+                failure = suppress(failure, e);
+            }
+            finally {
+                shardWriters[i].end();
+            }
+        }
+        List<Shard> finished = new ArrayList<Shard>(shardWriters.length);
+        for (ShardWriter shardWriter : shardWriters) {
+            try {
+                finished.add(shardWriter.finish());
+            }
+            catch (IOException e) {
+                failure = suppress(failure, e);
+            }
+        }
+        shards = Collections.unmodifiableList(finished);
+        if (failure != null) {
+            throw failure;
+        }
+        writeManifest();
+    }
+
+    /**
+     * Write the manifest.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeManifest() throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"shards\": [");
+        for (int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"path\": \"").append(shard.getFile().getName().replace("\\", "\\\\").replace("\"", "\\\"")).append("\", ");
+            json.append("\"records\": ").append(shard.getRecords()).append(", ");
+            json.append("\"bytes\": ").append(shard.getBytes()).append(", ");
+            json.append("\"crc32\": \"").append(String.format(Locale.ROOT, "%08x", shard.getChecksum())).append("\"}");
+        }
+        json.append(shards.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(getManifest()), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    /**
+     * Add the specified exception as suppressed to the specified failure, if any.
+     *
+     * @param failure failure, if any
+     * @param e exception
+     * @return the failure, or the specified exception if failure is null
+     */
+    private static IOException suppress(final IOException failure, final IOException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+
+    /**
+     * Shard file with record count, size in bytes, and CRC32 checksum.
+     */
+    @Immutable
+    public static final class Shard {
+        /** Shard file. */
+        private final File file;
+
+        /** Number of records. */
+        private final long records;
+
+        /** Size in bytes. */
+        private final long bytes;
+
+        /** CRC32 checksum. */
+        private final long checksum;
+
+
+        /**
+         * Create a new shard.
+         *
+         * @param file shard file
+         * @param records number of records
+         * @param bytes size in bytes
+         * @param checksum CRC32 checksum
+         */
+        Shard(final File file, final long records, final long bytes, final long checksum) {
+            this.file = file;
+            this.records = records;
+            this.bytes = bytes;
+            this.checksum = checksum;
+        }
+
+
+        /**
+         * Return the file for this shard.
+         *
+         * @return the file for this shard
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Return the number of records in this shard.
+         *
+         * @return the number of records in this shard
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Return the size in bytes of this shard.
+         *
+         * @return the size in bytes of this shard
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Return the CRC32 checksum of this shard.
+         *
+         * @return the CRC32 checksum of this shard
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+    }
+
+    /**
+     * Shard writer thread.
+     */
+    private static final class ShardWriter implements Runnable {
+        private final File file;
+        private final BlockingQueue<List<ReadAlignment>> queue = new ArrayBlockingQueue<List<ReadAlignment>>(QUEUE_CAPACITY);
+        private final CRC32 crc32 = new CRC32();
+        private final CountingOutputStream outputStream;
+        private final Thread thread;
+        private volatile Throwable failure;
+        private long records;
+        private long bytes;
+        private long checksum;
+
+        /**
+         * Create a new shard writer, opening the specified shard file.  The shard writer
+         * thread is not started until {@link #start()} is called.
+         *
+         * @param file shard file
+         * @throws IOException if the shard file could not be opened
+         */
+        ShardWriter(final File file) throws IOException {
+            this.file = file;
+            outputStream = new CountingOutputStream(new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE), crc32));
+            thread = new Thread(this, "shard-writer-" + file.getName());
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Start this shard writer thread.
+         */
+        void start() {
+            thread.start();
+        }
+
+        /**
+         * Close and delete the shard file of this shard writer, whose thread was never started.
+         */
+        void discard() {
+            try {
+                outputStream.close();
+            }
+            catch (IOException e) {
+                // ignore, construction is already failing
+            }
+            file.delete();
+        }
+
+        /**
+         * Submit the specified batch to this shard writer thread.
+         *
+         * @param batch batch to submit
+         * @throws IOException if an I/O error occurred on this shard writer thread
+         */
+        void submit(final List<ReadAlignment> batch) throws IOException {
+            checkFailure();
+            try {
+                while (!queue.offer(batch, 100L, TimeUnit.MILLISECONDS)) {
+                    if (!thread.isAlive()) {
+                        checkFailure();
+                        throw new IOException("shard writer thread for " + file + " ended unexpectedly");
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                throw Futures.interrupted("interrupted submitting batch to " + file);
+            }
+        }
+
+        /**
+         * Signal the end of input to this shard writer thread.
+         */
+        void end() {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    if (queue.offer(END, 100L, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Wait for this shard writer thread to finish and return its shard.
+         *
+         * @return the shard written by this shard writer thread
+         * @throws IOException if an I/O error occurred on this shard writer thread
+         */
+        Shard finish() throws IOException {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                throw Futures.interrupted("interrupted waiting for " + file);
+            }
+            checkFailure();
+            return new Shard(file, records, bytes, checksum);
+        }
+
+        private void checkFailure() throws IOException {
+            Throwable t = failure;
+            if (t instanceof IOException) {
+                throw new IOException("could not write " + file, t);
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    List<ReadAlignment> batch = queue.take();
+                    if (batch == END) {
+                        break;
+                    }
+                    // after a failure, keep draining so the calling thread never blocks
+                    if (failure == null) {
+                        try {
+                            for (ReadAlignment readAlignment : batch) {
+                                readAlignment.writeDelimitedTo(outputStream);
+                                records++;
+                            }
+                        }
+                        catch (IOException | RuntimeException e) {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                failure = new InterruptedIOException("interrupted writing " + file);
+            }
+            finally {
+                try {
+                    outputStream.close();
+                }
+                catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                bytes = outputStream.getCount();
+                checksum = crc32.getValue();
+            }
+        }
+    }
+}
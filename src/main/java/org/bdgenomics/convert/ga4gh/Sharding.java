@@ -0,0 +1,126 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.function.ToIntFunction;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.ReadAlignment;
+
+/**
+ * Stable shard hash functions for ReadAlignments.
+ *
+ * <p>
+ * Hashes are 32-bit FNV-1a over string characters and are stable across JVMs and
+ * runs, so the same input always routes to the same shard.
+ * </p>
+ */
+public final class Sharding {
+    /** FNV-1a 32-bit offset basis. */
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+
+    /** FNV-1a 32-bit prime. */
+    private static final int FNV_PRIME = 0x01000193;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Sharding() {
+        // empty
+    }
+
+
+    /**
+     * Return a shard hash function on fragment name, so that all reads in a fragment
+     * (e.g. mates) hash to the same shard.
+     *
+     * @return a shard hash function on fragment name
+     */
+    public static ToIntFunction<ReadAlignment> fragmentName() {
+        return new ToIntFunction<ReadAlignment>() {
+            @Override
+            public int applyAsInt(final ReadAlignment readAlignment) {
+                return hash(FNV_OFFSET_BASIS, readAlignment.getFragmentName());
+            }
+        };
+    }
+
+    /**
+     * Return a shard hash function on reference name and fixed-size position bin, so that
+     * reads aligned near one another hash to the same shard.  Unaligned reads with an aligned
+     * mate hash by mate position; other unaligned reads hash by fragment name.
+     *
+     * @param binSize bin size, must be at least one
+     * @return a shard hash function on reference name and fixed-size position bin
+     */
+    public static ToIntFunction<ReadAlignment> region(final long binSize) {
+        checkArgument(binSize > 0L, "binSize must be at least one");
+        return new ToIntFunction<ReadAlignment>() {
+            @Override
+            public int applyAsInt(final ReadAlignment readAlignment) {
+                Position position = null;
+                if (readAlignment.hasAlignment() && readAlignment.getAlignment().hasPosition()) {
+                    position = readAlignment.getAlignment().getPosition();
+                }
+                else if (readAlignment.hasNextMatePosition()) {
+                    position = readAlignment.getNextMatePosition();
+                }
+                if (position == null) {
+                    return hash(FNV_OFFSET_BASIS, readAlignment.getFragmentName());
+                }
+                return hash(hash(FNV_OFFSET_BASIS, position.getReferenceName()), position.getPosition() / binSize);
+            }
+        };
+    }
+
+    /**
+     * Continue the specified FNV-1a hash with the characters of the specified value.
+     *
+     * @param hash hash
+     * @param value value
+     * @return the specified FNV-1a hash continued with the characters of the specified value
+     */
+    static int hash(final int hash, final String value) {
+        int h = hash;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            h = (h ^ (c & 0xff)) * FNV_PRIME;
+            h = (h ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Continue the specified FNV-1a hash with the bytes of the specified value.
+     *
+     * @param hash hash
+     * @param value value
+     * @return the specified FNV-1a hash continued with the bytes of the specified value
+     */
+    static int hash(final int hash, final long value) {
+        int h = hash;
+        for (int i = 0; i < 64; i += 8) {
+            h = (h ^ (int) ((value >>> i) & 0xffL)) * FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Threshold for slow record JDK Flight Recorder events.
+ *
+ * <p>
+ * On Java 11 and later, records that take at least this long to convert are committed
+ * as <code>org.bdgenomics.convert.ga4gh.SlowRecord</code> events, when a recording has that
+ * event enabled.  The threshold defaults to one millisecond, or to the number of milliseconds
+ * in the <code>org.bdgenomics.convert.ga4gh.slowRecordThresholdMillis</code> system property,
+ * and may be changed at any time while conversions are running.  A threshold in the recording
+ * settings, if any, applies as well.  On Java 8 no events are recorded and the threshold
+ * has no effect.
+ * </p>
+ */
+@ThreadSafe
+public final class SlowRecordThreshold {
+    /** System property for the initial threshold in milliseconds. */
+    public static final String PROPERTY = "org.bdgenomics.convert.ga4gh.slowRecordThresholdMillis";
+
+    /** Default threshold in milliseconds, <code>1</code>. */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 1L;
+
+    /** Threshold in nanoseconds. */
+    private static volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, Long.getLong(PROPERTY, DEFAULT_THRESHOLD_MILLIS)));
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private SlowRecordThreshold() {
+        // empty
+    }
+
+
+    /**
+     * Return the threshold in the specified time unit.
+     *
+     * @param unit time unit, must not be null
+     * @return the threshold in the specified time unit
+     */
+    public static long get(final TimeUnit unit) {
+        checkNotNull(unit);
+        return unit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Set the threshold.  Records that take at least this long to convert are recorded
+     * as slow record events; a threshold of zero records every record.
+     *
+     * @param threshold threshold, must be at least zero
+     * @param unit time unit, must not be null
+     */
+    public static void set(final long threshold, final TimeUnit unit) {
+        checkArgument(threshold >= 0L, "threshold must be at least zero");
+        checkNotNull(unit);
+        thresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * Return the threshold in nanoseconds.
+     *
+     * @return the threshold in nanoseconds
+     */
+    static long nanos() {
+        return thresholdNanos;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for many small, mostly I/O bound tasks.
+ *
+ * <p>
+ * This is the Java 8 implementation, a bounded pool of platform daemon threads.  On
+ * Java 21 and later, the multi-release JAR provides an implementation that runs each
+ * task on its own virtual thread.
+ * </p>
+ */
+final class TaskExecutors {
+
+    /**
+     * Private no-arg constructor.
+     */
+    private TaskExecutors() {
+        // empty
+    }
+
+
+    /**
+     * Return true if tasks run on virtual threads.
+     *
+     * @return true if tasks run on virtual threads
+     */
+    static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * Create a new executor service for running many small tasks, at most the specified number at a time.
+     *
+     * @param concurrency maximum number of concurrent tasks, must be at least one
+     * @return a new executor service for running many small tasks
+     */
+    static ExecutorService newTaskExecutor(final int concurrency) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(runnable, "convert-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    }
+}
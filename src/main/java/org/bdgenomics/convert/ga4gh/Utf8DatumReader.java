@@ -0,0 +1,62 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+
+import org.apache.avro.io.Decoder;
+
+import org.apache.avro.util.Utf8;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+/**
+ * Avro datum reader that decodes bdg-formats records as generic records with
+ * all string fields left as Utf8 bytes, ignoring the <code>avro.java.string</code>
+ * schema property.  Utf8 instances are reused when an old record is passed to
+ * <code>read</code>.
+ */
+public final class Utf8DatumReader extends GenericDatumReader<GenericRecord> {
+
+    /**
+     * Create a new Utf8 datum reader for bdg-formats AlignmentRecord.
+     */
+    public Utf8DatumReader() {
+        this(AlignmentRecord.getClassSchema());
+    }
+
+    /**
+     * Create a new Utf8 datum reader for the specified schema.
+     *
+     * @param schema schema, must not be null
+     */
+    public Utf8DatumReader(final Schema schema) {
+        super(schema);
+    }
+
+
+    @Override
+    protected Object readString(final Object old, final Schema expected, final Decoder in) throws IOException {
+        return in.readString(old instanceof Utf8 ? (Utf8) old : null);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Conversion batch JDK Flight Recorder event.
+ */
+@Name("org.bdgenomics.convert.ga4gh.ConversionBatch")
+@Label("Conversion Batch")
+@Category({ "bdg-convert", "GA4GH" })
+@Description("A batch of records converted and serialized, or written, by a conversion pipeline stage")
+@StackTrace(false)
+final class ConversionBatchEvent extends Event {
+    /** Pipeline stage. */
+    @Label("Stage")
+    String stage;
+
+    /** Number of records. */
+    @Label("Records")
+    long records;
+
+    /** Number of records skipped. */
+    @Label("Skipped")
+    long skipped;
+
+    /** Number of bytes. */
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
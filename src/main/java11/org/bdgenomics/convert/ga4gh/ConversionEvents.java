@@ -0,0 +1,187 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import jdk.jfr.EventType;
+
+import org.bdgenomics.convert.ConversionStringency;
+
+/**
+ * Conversion events.
+ *
+ * <p>
+ * This is the Java 11 implementation, which emits JDK Flight Recorder events for
+ * conversion batches, slow records, and stringency warnings.  When no recording is
+ * running, or an event type is disabled, each method costs a single field read and
+ * allocates nothing.  While slow record events are enabled, each record costs two calls
+ * to <code>System.nanoTime()</code>, and only slow records allocate an event.  Recordings can be read with the standard <code>jfr</code> tool, e.g.
+ * <code>jfr print --events org.bdgenomics.convert.ga4gh.SlowRecord recording.jfr</code>.
+ * </p>
+ */
+final class ConversionEvents {
+    /** Start time returned by <code>beginRecord()</code> if slow record events are not enabled. */
+    static final long UNTIMED = Long.MIN_VALUE;
+
+    /** Conversion batch event type. */
+    private static final EventType BATCH = EventType.getEventType(ConversionBatchEvent.class);
+
+    /** Slow record event type. */
+    private static final EventType SLOW_RECORD = EventType.getEventType(SlowRecordEvent.class);
+
+    /** Stringency warning event type. */
+    private static final EventType WARNING = EventType.getEventType(StringencyWarningEvent.class);
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private ConversionEvents() {
+        // empty
+    }
+
+
+    /**
+     * Return true if stringency warning events are currently enabled.  Callers may
+     * check this before formatting a warning message that would otherwise not be logged.
+     *
+     * @return true if stringency warning events are currently enabled
+     */
+    static boolean isWarningEnabled() {
+        return WARNING.isEnabled();
+    }
+
+    /**
+     * Begin a conversion batch event.
+     *
+     * @return an opaque conversion batch event, or null if conversion batch events are not enabled
+     */
+    static Object beginBatch() {
+        if (!BATCH.isEnabled()) {
+            return null;
+        }
+        ConversionBatchEvent event = new ConversionBatchEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End and commit the specified conversion batch event, if any.
+     *
+     * @param event conversion batch event returned by <code>beginBatch()</code>, if any
+     * @param stage pipeline stage, e.g. <code>convert</code> or <code>write</code>
+     * @param records number of records in the batch
+     * @param skipped number of records skipped in the batch
+     * @param bytes number of bytes serialized or written for the batch
+     */
+    static void endBatch(final Object event, final String stage, final long records, final long skipped, final long bytes) {
+        if (event == null) {
+            return;
+        }
+        ConversionBatchEvent batchEvent = (ConversionBatchEvent) event;
+        batchEvent.end();
+        if (batchEvent.shouldCommit()) {
+            batchEvent.stage = stage;
+            batchEvent.records = records;
+            batchEvent.skipped = skipped;
+            batchEvent.bytes = bytes;
+            batchEvent.commit();
+        }
+    }
+
+    /**
+     * Begin timing a record for a slow record event.  Records are timed with a primitive
+     * start time, and an event is only allocated for a record that is slow.
+     *
+     * @return the start time in nanoseconds, or <code>UNTIMED</code> if slow record events are not enabled
+     */
+    static long beginRecord() {
+        return SLOW_RECORD.isEnabled() ? System.nanoTime() : UNTIMED;
+    }
+
+    /**
+     * End timing a record, and commit a slow record event if the record took at least
+     * <code>SlowRecordThreshold</code> to convert.
+     *
+     * @param start start time returned by <code>beginRecord()</code>
+     * @param converter converter class
+     * @param readName read name, if any
+     * @param cigar cigar string, if any
+     */
+    static void endRecord(final long start, final Class<?> converter, final Object readName, final Object cigar) {
+        if (start == UNTIMED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        long threshold = SlowRecordThreshold.nanos();
+        if (elapsed < threshold) {
+            return;
+        }
+        SlowRecordEvent event = new SlowRecordEvent();
+        if (event.shouldCommit()) {
+            event.elapsed = elapsed;
+            event.threshold = threshold;
+            event.converter = converter.getSimpleName();
+            event.readName = readName == null ? null : readName.toString();
+            event.cigarLength = cigarLength(cigar);
+            event.commit();
+        }
+    }
+
+    /**
+     * Commit a stringency warning event, if stringency warning events are enabled and
+     * the specified stringency is not strict.
+     *
+     * @param converter converter class
+     * @param message warning message
+     * @param stringency conversion stringency
+     */
+    static void warning(final Class<?> converter, final String message, final ConversionStringency stringency) {
+        if (stringency == ConversionStringency.STRICT || !WARNING.isEnabled()) {
+            return;
+        }
+        StringencyWarningEvent event = new StringencyWarningEvent();
+        if (event.shouldCommit()) {
+            event.converter = converter.getSimpleName();
+            event.message = message;
+            event.stringency = stringency.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * Return the number of operations in the specified cigar string, that is the number
+     * of non-digit characters, or zero if the cigar string is null or <code>*</code>.
+     *
+     * @param cigar cigar string, if any
+     * @return the number of operations in the specified cigar string
+     */
+    static int cigarLength(final Object cigar) {
+        if (cigar == null) {
+            return 0;
+        }
+        CharSequence text = cigar instanceof CharSequence ? (CharSequence) cigar : cigar.toString();
+        int length = 0;
+        for (int i = 0, size = text.length(); i < size; i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != '*') {
+                length++;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Slow record JDK Flight Recorder event, committed only for records that take at least
+ * <code>SlowRecordThreshold</code> to convert.  The threshold may be changed at runtime.
+ * The event is created once the record is converted, so the time to convert the record
+ * is in <code>elapsed</code> rather than the event duration.
+ */
+@Name("org.bdgenomics.convert.ga4gh.SlowRecord")
+@Label("Slow Record")
+@Category({ "bdg-convert", "GA4GH" })
+@Description("A record that took longer than the threshold to convert")
+@StackTrace(false)
+final class SlowRecordEvent extends Event {
+    /** Converter. */
+    @Label("Converter")
+    String converter;
+
+    /** Read name. */
+    @Label("Read Name")
+    String readName;
+
+    /** Number of cigar operations. */
+    @Label("CIGAR Length")
+    int cigarLength;
+
+    /** Time in nanoseconds to convert this record. */
+    @Label("Elapsed")
+    @Timespan
+    long elapsed;
+
+    /** Threshold in nanoseconds when this record was converted. */
+    @Label("Threshold")
+    @Timespan
+    long threshold;
+}
@@ -0,0 +1,45 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Stringency warning JDK Flight Recorder event.
+ */
+@Name("org.bdgenomics.convert.ga4gh.StringencyWarning")
+@Label("Stringency Warning")
+@Category({ "bdg-convert", "GA4GH" })
+@Description("A record that could not be fully converted at lenient or silent stringency")
+final class StringencyWarningEvent extends Event {
+    /** Converter. */
+    @Label("Converter")
+    String converter;
+
+    /** Warning message. */
+    @Label("Message")
+    String message;
+
+    /** Conversion stringency. */
+    @Label("Stringency")
+    String stringency;
+}
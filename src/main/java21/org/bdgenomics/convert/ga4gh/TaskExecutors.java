@@ -0,0 +1,59 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for many small, mostly I/O bound tasks.
+ *
+ * <p>
+ * This is the Java 21 implementation, selected from the multi-release JAR, which runs
+ * each task on its own virtual thread.  Callers bound concurrency themselves.
+ * </p>
+ */
+final class TaskExecutors {
+
+    /**
+     * Private no-arg constructor.
+     */
+    private TaskExecutors() {
+        // empty
+    }
+
+
+    /**
+     * Return true if tasks run on virtual threads.
+     *
+     * @return true if tasks run on virtual threads
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * Create a new executor service for running many small tasks, each on its own virtual thread.
+     *
+     * @param concurrency maximum number of concurrent tasks, must be at least one; not enforced here
+     * @return a new executor service for running many small tasks
+     */
+    static ExecutorService newTaskExecutor(final int concurrency) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("convert-", 0L).factory());
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.util.Iterator;
+
+import org.apache.avro.Schema;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Test;
+
+/**
+ * Unit test for AlignmentBatchDecoder.
+ */
+public final class AlignmentBatchDecoderTest {
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new AlignmentBatchDecoder(AlignmentRecord.getClassSchema()));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSchema() {
+        new AlignmentBatchDecoder(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNotRecord() {
+        new AlignmentBatchDecoder(Schema.create(Schema.Type.STRING));
+    }
+
+    @Test
+    public void testTarget() {
+        assertEquals(AlignmentBatchDecoder.SKIP, AlignmentBatchDecoder.target("attributes"));
+        assertEquals(AlignmentBatchDecoder.CIGAR, AlignmentBatchDecoder.target("cigar"));
+        assertEquals(AlignmentBatchDecoder.FLAG | AlignmentBatch.READ_MAPPED, AlignmentBatchDecoder.target("readMapped"));
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        SpecificDatumWriter<AlignmentRecord> writer = new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class);
+        AlignmentBatch expected = new AlignmentBatch();
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(1000);
+        while (records.hasNext()) {
+            AlignmentRecord record = records.next();
+            expected.add(record);
+            writer.write(record, encoder);
+        }
+        encoder.flush();
+
+        AlignmentBatch actual = new AlignmentBatch(16, true);
+        AlignmentBatchDecoder decoder = new AlignmentBatchDecoder(AlignmentRecord.getClassSchema());
+        BinaryDecoder binaryDecoder = DecoderFactory.get().binaryDecoder(outputStream.toByteArray(), null);
+        for (int i = 0; i < 1000; i++) {
+            decoder.decode(binaryDecoder, actual);
+        }
+        assertBatchEquals(expected, actual);
+    }
+
+    @Test
+    public void testDecodeBlocks() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AlignmentBatch expected = new AlignmentBatch();
+        try (DataFileWriter<AlignmentRecord> writer = new DataFileWriter<AlignmentRecord>(new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class))) {
+            writer.setCodec(CodecFactory.deflateCodec(6));
+            writer.setSyncInterval(16 * 1024);
+            writer.create(AlignmentRecord.getClassSchema(), outputStream);
+            Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(2000);
+            while (records.hasNext()) {
+                AlignmentRecord record = records.next();
+                expected.add(record);
+                writer.append(record);
+            }
+        }
+
+        AlignmentBatch actual = new AlignmentBatch();
+        long count = 0L;
+        try (AvroBlockReader reader = new AvroBlockReader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            AlignmentBatchDecoder decoder = new AlignmentBatchDecoder(reader.getSchema());
+            AvroBlock block = null;
+            while ((block = reader.readBlock()) != null) {
+                count += decoder.decode(block, actual);
+            }
+        }
+        assertEquals(2000L, count);
+        assertBatchEquals(expected, actual);
+    }
+
+    @Test
+    public void testDecodeProjection() throws Exception {
+        Schema projection = Projections.alignmentRecordProjection();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        AlignmentRecord record = new AlignmentRecordGenerator(42L).iterator(1).next();
+        GenericRecord projected = new GenericData.Record(projection);
+        for (Schema.Field field : projection.getFields()) {
+            projected.put(field.name(), record.get(AlignmentRecord.getClassSchema().getField(field.name()).pos()));
+        }
+        new GenericDatumWriter<GenericRecord>(projection).write(projected, encoder);
+        encoder.flush();
+
+        AlignmentBatch expected = new AlignmentBatch();
+        expected.add(record);
+        AlignmentBatch actual = new AlignmentBatch();
+        new AlignmentBatchDecoder(projection).decode(DecoderFactory.get().binaryDecoder(outputStream.toByteArray(), null), actual);
+        assertEquals(1, actual.size());
+        assertEquals(expected.getReadName(0), actual.getReadName(0));
+        assertEquals(expected.getStart(0), actual.getStart(0));
+        assertEquals(expected.getReferenceName(0), actual.getReferenceName(0));
+    }
+
+    @Test
+    public void testDecodeMalformedCigar() throws Exception {
+        AlignmentRecord record = AlignmentRecord.newBuilder()
+            .setReadName("read0")
+            .setReadMapped(true)
+            .setCigar("10Q")
+            .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class).write(record, encoder);
+        encoder.flush();
+
+        AlignmentBatch actual = new AlignmentBatch();
+        new AlignmentBatchDecoder(AlignmentRecord.getClassSchema()).decode(DecoderFactory.get().binaryDecoder(outputStream.toByteArray(), null), actual);
+        assertEquals(CigarParser.INVALID_OPERATOR, actual.getCigarError(0));
+        assertEquals("10Q", actual.malformedCigars.get(0));
+        assertNull(actual.getReferenceName(0));
+    }
+
+    private static void assertBatchEquals(final AlignmentBatch expected, final AlignmentBatch actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getFlags(i), actual.getFlags(i));
+            assertEquals(expected.getReferenceName(i), actual.getReferenceName(i));
+            assertEquals(expected.getStart(i), actual.getStart(i));
+            assertEquals(expected.getMappingQuality(i), actual.getMappingQuality(i));
+            assertEquals(expected.getReadInFragment(i), actual.getReadInFragment(i));
+            assertEquals(expected.getInferredInsertSize(i), actual.getInferredInsertSize(i));
+            assertEquals(expected.getMateReferenceName(i), actual.getMateReferenceName(i));
+            assertEquals(expected.getMateStart(i), actual.getMateStart(i));
+            assertEquals(expected.getReadGroupName(i), actual.getReadGroupName(i));
+            assertEquals(expected.getReadName(i), actual.getReadName(i));
+            assertEquals(expected.getSequence(i), actual.getSequence(i));
+            assertArrayEquals(expected.getQuality(i), actual.getQuality(i));
+            assertEquals(expected.getCigarError(i), actual.getCigarError(i));
+            assertEquals(expected.getCigarLength(i), actual.getCigarLength(i));
+            for (int c = 0; c < expected.getCigarLength(i); c++) {
+                assertEquals(expected.getCigarOperator(i, c), actual.getCigarOperator(i, c));
+                assertEquals(expected.getCigarOperationLength(i, c), actual.getCigarOperationLength(i, c));
+            }
+        }
+    }
+}
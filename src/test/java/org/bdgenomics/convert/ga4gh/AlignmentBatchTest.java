@@ -0,0 +1,174 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for AlignmentBatch.
+ */
+public final class AlignmentBatchTest {
+    private AlignmentBatch batch;
+    private AlignmentRecord.Builder alignmentBuilder;
+
+    @Before
+    public void setUp() {
+        batch = new AlignmentBatch();
+        alignmentBuilder = AlignmentRecord.newBuilder()
+            .setReadName("read0")
+            .setStart(10L)
+            .setReadMapped(true)
+            .setCigar("2S8M")
+            .setSequence("ACGTACGTAC")
+            .setQual("*********5")
+            .setReadNegativeStrand(true)
+            .setMapq(60)
+            .setRecordGroupName("rg1")
+            .setContigName("myCtg")
+            .setProperPair(true)
+            .setDuplicateRead(false)
+            .setReadInFragment(1)
+            .setMateContigName("myCtg")
+            .setMateNegativeStrand(false)
+            .setMateAlignmentStart(100L)
+            .setReadPaired(true)
+            .setInferredInsertSize(-200L);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(batch);
+        assertTrue(batch.isEmpty());
+        assertFalse(batch.isDirect());
+        assertTrue(new AlignmentBatch(16, true).isDirect());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroCapacity() {
+        new AlignmentBatch(0, false);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testAddNull() {
+        batch.add(null);
+    }
+
+    @Test
+    public void testAdd() {
+        batch.add(alignmentBuilder.build());
+        assertEquals(1, batch.size());
+        assertTrue(batch.hasFlag(0, AlignmentBatch.READ_PAIRED));
+        assertTrue(batch.hasFlag(0, AlignmentBatch.PROPER_PAIR));
+        assertTrue(batch.hasFlag(0, AlignmentBatch.READ_MAPPED));
+        assertTrue(batch.hasFlag(0, AlignmentBatch.READ_NEGATIVE_STRAND));
+        assertTrue(batch.hasFlag(0, AlignmentBatch.HAS_INFERRED_INSERT_SIZE));
+        assertFalse(batch.hasFlag(0, AlignmentBatch.MATE_NEGATIVE_STRAND));
+        assertFalse(batch.hasFlag(0, AlignmentBatch.DUPLICATE_READ));
+        assertEquals("myCtg", batch.getReferenceName(0));
+        assertEquals(10L, batch.getStart(0));
+        assertEquals(60, batch.getMappingQuality(0));
+        assertEquals(1, batch.getReadInFragment(0));
+        assertEquals(-200L, batch.getInferredInsertSize(0));
+        assertEquals("myCtg", batch.getMateReferenceName(0));
+        assertEquals(100L, batch.getMateStart(0));
+        assertEquals("rg1", batch.getReadGroupName(0));
+        assertEquals("read0", batch.getReadName(0));
+        assertEquals("ACGTACGTAC", batch.getSequence(0));
+        assertArrayEquals(new byte[] { 9, 9, 9, 9, 9, 9, 9, 9, 9, 20 }, batch.getQuality(0));
+        assertEquals(2, batch.getCigarLength(0));
+        assertEquals(CigarOperator.S, batch.getCigarOperator(0, 0));
+        assertEquals(2, batch.getCigarOperationLength(0, 0));
+        assertEquals(CigarOperator.M, batch.getCigarOperator(0, 1));
+        assertEquals(8, batch.getCigarOperationLength(0, 1));
+        assertEquals(CigarParser.VALID, batch.getCigarError(0));
+    }
+
+    @Test
+    public void testAddNullFields() {
+        batch.add(AlignmentRecord.newBuilder().build());
+        assertEquals(1, batch.size());
+        assertEquals(0, batch.getFlags(0));
+        assertNull(batch.getReferenceName(0));
+        assertNull(batch.getMateReferenceName(0));
+        assertNull(batch.getReadGroupName(0));
+        assertEquals("", batch.getReadName(0));
+        assertEquals("", batch.getSequence(0));
+        assertEquals(0, batch.getQuality(0).length);
+        assertEquals(0, batch.getCigarLength(0));
+        assertEquals(CigarParser.NULL_CIGAR, batch.getCigarError(0));
+    }
+
+    @Test
+    public void testAddMalformedCigar() {
+        batch.add(alignmentBuilder.setCigar("10M5").build());
+        assertEquals(0, batch.getCigarLength(0));
+        assertEquals(CigarParser.MISSING_OPERATOR, batch.getCigarError(0));
+        assertEquals("10M5", batch.malformedCigars.get(0));
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        batch.add(alignmentBuilder.build());
+        batch.getStart(1);
+    }
+
+    @Test
+    public void testClear() {
+        batch.add(alignmentBuilder.build());
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        batch.add(alignmentBuilder.setReadName("read1").build());
+        assertEquals(1, batch.size());
+        assertEquals("read1", batch.getReadName(0));
+        assertEquals("myCtg", batch.getReferenceName(0));
+    }
+
+    @Test
+    public void testGrow() {
+        for (boolean direct : new boolean[] { false, true }) {
+            AlignmentBatch small = new AlignmentBatch(1, direct);
+            Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(500);
+            AlignmentRecord[] expected = new AlignmentRecord[500];
+            for (int i = 0; i < 500; i++) {
+                expected[i] = records.next();
+                small.add(expected[i]);
+            }
+            assertEquals(500, small.size());
+            for (int i = 0; i < 500; i++) {
+                assertEquals(expected[i].getReadName(), small.getReadName(i));
+                assertEquals(expected[i].getSequence(), small.getSequence(i));
+                assertEquals(expected[i].getContigName(), small.getReferenceName(i));
+                assertEquals(expected[i].getQual().length(), small.getQuality(i).length);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit.Operation;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for AlignmentBatchToReadAlignments.
+ */
+public final class AlignmentBatchToReadAlignmentsTest {
+    private final Logger logger = LoggerFactory.getLogger(AlignmentBatchToReadAlignmentsTest.class);
+    private Converter<CigarOperator, Operation> operatorConverter;
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private Converter<AlignmentBatch, List<ReadAlignment>> batchConverter;
+
+    @Before
+    public void setUp() {
+        operatorConverter = new CigarOperatorToOperation();
+        alignmentConverter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(operatorConverter));
+        batchConverter = new AlignmentBatchToReadAlignments(operatorConverter);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(batchConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOperatorConverter() {
+        new AlignmentBatchToReadAlignments(null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        batchConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(batchConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(batchConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testConvertEmpty() {
+        assertTrue(batchConverter.convert(new AlignmentBatch(), ConversionStringency.STRICT, logger).isEmpty());
+    }
+
+    @Test
+    public void testConvert() {
+        List<ReadAlignment> expected = new ArrayList<ReadAlignment>();
+        AlignmentBatch batch = new AlignmentBatch();
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(1000);
+        while (records.hasNext()) {
+            AlignmentRecord record = records.next();
+            expected.add(alignmentConverter.convert(record, ConversionStringency.STRICT, logger));
+            batch.add(record);
+        }
+        assertEquals(expected, batchConverter.convert(batch, ConversionStringency.STRICT, logger));
+    }
+
+    @Test
+    public void testConvertBinned() {
+        QualityScoreBinning binning = QualityScoreBinning.illumina8();
+        Converter<AlignmentRecord, ReadAlignment> binnedAlignmentConverter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(operatorConverter), binning);
+        List<ReadAlignment> expected = new ArrayList<ReadAlignment>();
+        AlignmentBatch batch = new AlignmentBatch();
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(100);
+        while (records.hasNext()) {
+            AlignmentRecord record = records.next();
+            expected.add(binnedAlignmentConverter.convert(record, ConversionStringency.STRICT, logger));
+            batch.add(record);
+        }
+        assertEquals(expected, new AlignmentBatchToReadAlignments(operatorConverter, binning).convert(batch, ConversionStringency.STRICT, logger));
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertMalformedCigarStrict() {
+        AlignmentBatch batch = new AlignmentBatch();
+        batch.add(malformedCigar());
+        batchConverter.convert(batch, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertMalformedCigarLenient() {
+        AlignmentBatch batch = new AlignmentBatch();
+        batch.add(malformedCigar());
+        List<ReadAlignment> readAlignments = batchConverter.convert(batch, ConversionStringency.LENIENT, logger);
+        assertEquals(alignmentConverter.convert(malformedCigar(), ConversionStringency.SILENT, logger), readAlignments.get(0));
+        assertEquals(0, readAlignments.get(0).getAlignment().getCigarCount());
+    }
+
+    private static AlignmentRecord malformedCigar() {
+        return AlignmentRecord.newBuilder()
+            .setReadName("read0")
+            .setStart(10L)
+            .setReadMapped(true)
+            .setCigar("10M5")
+            .setSequence("AAAAAAAAAA")
+            .setQual("**********")
+            .setReadNegativeStrand(false)
+            .setMapq(60)
+            .setContigName("myCtg")
+            .setProperPair(false)
+            .setDuplicateRead(false)
+            .setFailedVendorQualityChecks(false)
+            .setSecondaryAlignment(false)
+            .setSupplementaryAlignment(false)
+            .setReadPaired(false)
+            .setReadInFragment(0)
+            .build();
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.ReadAlignment;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for AlignmentBatchWriter.
+ */
+public final class AlignmentBatchWriterTest {
+    private final Logger logger = LoggerFactory.getLogger(AlignmentBatchWriterTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+
+    @Before
+    public void setUp() {
+        alignmentConverter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+    }
+
+    private static List<ReadAlignment> read(final byte[] bytes) throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        InputStream inputStream = new ByteArrayInputStream(bytes);
+        ReadAlignment readAlignment = null;
+        while ((readAlignment = ReadAlignment.parseDelimitedFrom(inputStream)) != null) {
+            readAlignments.add(readAlignment);
+        }
+        return readAlignments;
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOutputStream() {
+        new AlignmentBatchWriter(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullStringency() {
+        new AlignmentBatchWriter(new ByteArrayOutputStream(), null, logger);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNull() throws Exception {
+        try (AlignmentBatchWriter writer = new AlignmentBatchWriter(new ByteArrayOutputStream(), ConversionStringency.STRICT, logger)) {
+            writer.write(null);
+        }
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        for (boolean direct : new boolean[] { false, true }) {
+            List<ReadAlignment> expected = new ArrayList<ReadAlignment>();
+            ByteArrayOutputStream delimited = new ByteArrayOutputStream();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            AlignmentBatch batch = new AlignmentBatch(64, direct);
+            try (AlignmentBatchWriter writer = new AlignmentBatchWriter(outputStream, ConversionStringency.STRICT, logger)) {
+                Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(1000);
+                while (records.hasNext()) {
+                    AlignmentRecord record = records.next();
+                    ReadAlignment readAlignment = alignmentConverter.convert(record, ConversionStringency.STRICT, logger);
+                    readAlignment.writeDelimitedTo(delimited);
+                    expected.add(readAlignment);
+                    batch.add(record);
+                    if (batch.size() == 64) {
+                        writer.write(batch);
+                        batch.clear();
+                    }
+                }
+                writer.write(batch);
+            }
+            assertEquals(expected, read(outputStream.toByteArray()));
+            assertArrayEquals(delimited.toByteArray(), outputStream.toByteArray());
+        }
+    }
+
+    @Test
+    public void testWriteBinned() throws Exception {
+        QualityScoreBinning binning = QualityScoreBinning.illumina4();
+        Converter<AlignmentRecord, ReadAlignment> binnedAlignmentConverter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()), binning);
+        List<ReadAlignment> expected = new ArrayList<ReadAlignment>();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AlignmentBatch batch = new AlignmentBatch();
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L).iterator(100);
+        while (records.hasNext()) {
+            AlignmentRecord record = records.next();
+            expected.add(binnedAlignmentConverter.convert(record, ConversionStringency.STRICT, logger));
+            batch.add(record);
+        }
+        try (AlignmentBatchWriter writer = new AlignmentBatchWriter(outputStream, ConversionStringency.STRICT, logger, binning)) {
+            writer.write(batch);
+        }
+        assertEquals(expected, read(outputStream.toByteArray()));
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testWriteMalformedCigarStrict() throws Exception {
+        AlignmentBatch batch = new AlignmentBatch();
+        batch.add(AlignmentRecord.newBuilder().setReadName("read0").setReadMapped(true).setCigar("M10").build());
+        try (AlignmentBatchWriter writer = new AlignmentBatchWriter(new ByteArrayOutputStream(), ConversionStringency.STRICT, logger)) {
+            writer.write(batch);
+        }
+    }
+
+    @Test
+    public void testWriteMalformedCigarSilent() throws Exception {
+        AlignmentBatch batch = new AlignmentBatch();
+        batch.add(AlignmentRecord.newBuilder().setReadName("read0").setReadMapped(true).setCigar("M10").build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (AlignmentBatchWriter writer = new AlignmentBatchWriter(outputStream, ConversionStringency.SILENT, logger)) {
+            writer.write(batch);
+        }
+        List<ReadAlignment> readAlignments = read(outputStream.toByteArray());
+        assertEquals(1, readAlignments.size());
+        assertEquals("read0", readAlignments.get(0).getFragmentName());
+        assertEquals(0, readAlignments.get(0).getAlignment().getCigarCount());
+    }
+}
@@ -0,0 +1,545 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import htsjdk.samtools.TextCigarCodec;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+/**
+ * Deterministic, seedable generator of synthetic bdg-formats AlignmentRecords.
+ *
+ * <p>
+ * Generated records follow configurable distributions of read length, cigar
+ * complexity, mapping quality, pairing, duplicate rate, contig count, and base
+ * quality.  Two generators created with the same seed and parameters produce
+ * identical record streams.  Paired reads share a read name; mates follow
+ * immediately, or in coordinate order when generating sorted records.
+ * </p>
+ */
+final class AlignmentRecordGenerator {
+    private final SplittableRandom random;
+    private final long seed;
+    private int contigCount = 24;
+    private long contigLength = 100000000L;
+    private int minReadLength = 150;
+    private int maxReadLength = 150;
+    private double meanIndels = 0.1d;
+    private double softClipRate = 0.05d;
+    private double unmappedRate = 0.02d;
+    private double mapqZeroRate = 0.05d;
+    private int maxMapq = 60;
+    private double pairedRate = 1.0d;
+    private double duplicateRate = 0.05d;
+    private double qcFailRate = 0.01d;
+    private double secondaryRate = 0.01d;
+    private int meanInsertSize = 400;
+    private int insertSizeStdDev = 50;
+    private int startQuality = 38;
+    private int endQuality = 25;
+    private int qualityNoise = 5;
+    private int recordGroups = 1;
+    private boolean sorted = false;
+    private int meanGap = 100;
+
+    /** Generator state. */
+    private long index = 0L;
+    private int contig = 0;
+    private long position = 0L;
+    private Pending lookahead;
+    private final PriorityQueue<Pending> pending = new PriorityQueue<Pending>();
+
+    private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+
+    /**
+     * Create a new synthetic AlignmentRecord generator with the specified seed.
+     *
+     * @param seed seed
+     */
+    AlignmentRecordGenerator(final long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+
+    /**
+     * Set the number and length of contigs.  Defaults to 24 contigs of 100 Mbp.
+     *
+     * @param contigCount number of contigs
+     * @param contigLength length of each contig
+     * @return this generator
+     */
+    AlignmentRecordGenerator withContigs(final int contigCount, final long contigLength) {
+        this.contigCount = contigCount;
+        this.contigLength = contigLength;
+        return this;
+    }
+
+    /**
+     * Set read length, uniformly distributed in <code>[minReadLength, maxReadLength]</code>.
+     * Defaults to 150 bp reads.
+     *
+     * @param minReadLength minimum read length
+     * @param maxReadLength maximum read length
+     * @return this generator
+     */
+    AlignmentRecordGenerator withReadLength(final int minReadLength, final int maxReadLength) {
+        this.minReadLength = minReadLength;
+        this.maxReadLength = maxReadLength;
+        return this;
+    }
+
+    /**
+     * Set cigar complexity, as the mean number of indels per read (Poisson distributed)
+     * and the rate of reads with soft clipped ends.
+     *
+     * @param meanIndels mean number of indels per read
+     * @param softClipRate rate of reads with soft clipped ends
+     * @return this generator
+     */
+    AlignmentRecordGenerator withCigarComplexity(final double meanIndels, final double softClipRate) {
+        this.meanIndels = meanIndels;
+        this.softClipRate = softClipRate;
+        return this;
+    }
+
+    /**
+     * Set mapping quality distribution, as the rate of reads with mapping quality zero; all
+     * other mapped reads have mapping quality <code>maxMapq</code> 90% of the time and
+     * uniformly distributed in <code>[1, maxMapq)</code> otherwise.
+     *
+     * @param mapqZeroRate rate of reads with mapping quality zero
+     * @param maxMapq maximum mapping quality
+     * @return this generator
+     */
+    AlignmentRecordGenerator withMapq(final double mapqZeroRate, final int maxMapq) {
+        this.mapqZeroRate = mapqZeroRate;
+        this.maxMapq = maxMapq;
+        return this;
+    }
+
+    /**
+     * Set the rate of unmapped reads and mates.
+     *
+     * @param unmappedRate rate of unmapped reads and mates
+     * @return this generator
+     */
+    AlignmentRecordGenerator withUnmappedRate(final double unmappedRate) {
+        this.unmappedRate = unmappedRate;
+        return this;
+    }
+
+    /**
+     * Set pairing, as the rate of paired reads and a normal distribution of insert sizes.
+     *
+     * @param pairedRate rate of paired reads
+     * @param meanInsertSize mean insert size
+     * @param insertSizeStdDev insert size standard deviation
+     * @return this generator
+     */
+    AlignmentRecordGenerator withPairing(final double pairedRate, final int meanInsertSize, final int insertSizeStdDev) {
+        this.pairedRate = pairedRate;
+        this.meanInsertSize = meanInsertSize;
+        this.insertSizeStdDev = insertSizeStdDev;
+        return this;
+    }
+
+    /**
+     * Set the rate of reads flagged as duplicates.
+     *
+     * @param duplicateRate rate of reads flagged as duplicates
+     * @return this generator
+     */
+    AlignmentRecordGenerator withDuplicateRate(final double duplicateRate) {
+        this.duplicateRate = duplicateRate;
+        return this;
+    }
+
+    /**
+     * Set the rates of reads flagged as failing vendor quality checks and of mapped reads
+     * flagged as secondary alignments.
+     *
+     * @param qcFailRate rate of reads flagged as failing vendor quality checks
+     * @param secondaryRate rate of mapped reads flagged as secondary alignments
+     * @return this generator
+     */
+    AlignmentRecordGenerator withFlagRates(final double qcFailRate, final double secondaryRate) {
+        this.qcFailRate = qcFailRate;
+        this.secondaryRate = secondaryRate;
+        return this;
+    }
+
+    /**
+     * Set base quality distribution, as a linear decay from <code>startQuality</code> at
+     * the start of the read to <code>endQuality</code> at the end, plus uniform noise.
+     *
+     * @param startQuality base quality at the start of the read
+     * @param endQuality base quality at the end of the read
+     * @param qualityNoise maximum uniform noise added to or subtracted from each base quality
+     * @return this generator
+     */
+    AlignmentRecordGenerator withQuality(final int startQuality, final int endQuality, final int qualityNoise) {
+        this.startQuality = startQuality;
+        this.endQuality = endQuality;
+        this.qualityNoise = qualityNoise;
+        return this;
+    }
+
+    /**
+     * Set the number of record groups, assigned uniformly at random to fragments.
+     *
+     * @param recordGroups number of record groups
+     * @return this generator
+     */
+    AlignmentRecordGenerator withRecordGroups(final int recordGroups) {
+        this.recordGroups = recordGroups;
+        return this;
+    }
+
+    /**
+     * Generate records in coordinate sorted order, with start positions separated by
+     * exponentially distributed gaps of the specified mean.
+     *
+     * @param sorted true to generate records in coordinate sorted order
+     * @param meanGap mean gap between start positions, in base pairs
+     * @return this generator
+     */
+    AlignmentRecordGenerator withSorted(final boolean sorted, final int meanGap) {
+        this.sorted = sorted;
+        this.meanGap = meanGap;
+        return this;
+    }
+
+    /**
+     * Return the seed for this generator.
+     *
+     * @return the seed for this generator
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Return the name of the contig at the specified index.
+     *
+     * @param i contig index
+     * @return the name of the contig at the specified index
+     */
+    static String contigName(final int i) {
+        return "chr" + (i + 1);
+    }
+
+    /**
+     * Generate the next AlignmentRecord.
+     *
+     * @return the next AlignmentRecord
+     */
+    AlignmentRecord next() {
+        if (sorted) {
+            if (lookahead == null) {
+                lookahead = generate();
+            }
+            if (!pending.isEmpty() && pending.peek().compareTo(lookahead) <= 0) {
+                return pending.poll().record;
+            }
+            AlignmentRecord next = lookahead.record;
+            lookahead = null;
+            return next;
+        }
+        if (!pending.isEmpty()) {
+            return pending.poll().record;
+        }
+        return generate().record;
+    }
+
+    private Pending generate() {
+        long i = index++;
+        String readName = "read" + seed + "." + i;
+        String recordGroupName = "rg" + (recordGroups > 1 ? random.nextInt(recordGroups) : 0);
+        boolean paired = random.nextDouble() < pairedRate;
+        boolean duplicate = random.nextDouble() < duplicateRate;
+        boolean qcFail = random.nextDouble() < qcFailRate;
+        int length = readLength();
+        boolean mapped = random.nextDouble() >= unmappedRate;
+        boolean mateMapped = paired && random.nextDouble() >= unmappedRate;
+
+        int c = nextContig();
+        long start = nextStart(c, length);
+        if (sorted) {
+            // nextStart may have moved on to the next contig
+            c = contig;
+        }
+        int insertSize = Math.max(length, (int) Math.round(meanInsertSize + gaussian() * insertSizeStdDev));
+        long mateStart = Math.max(start, Math.min(contigLength - length, start + insertSize - length));
+        boolean negativeStrand = random.nextBoolean();
+
+        AlignmentRecord read = createRecord(readName, recordGroupName, c, start, length, mapped, negativeStrand, duplicate, qcFail,
+                                            paired, 0, mateMapped, mateStart, !negativeStrand, insertSize);
+        if (paired) {
+            AlignmentRecord mate = createRecord(readName, recordGroupName, c, mateStart, length, mateMapped, !negativeStrand, duplicate, qcFail,
+                                                true, 1, mapped, start, negativeStrand, -insertSize);
+            pending.add(new Pending(key(c, mateStart), index++, mate));
+        }
+        return new Pending(key(c, start), i, read);
+    }
+
+    /**
+     * Return an iterator over the specified number of generated AlignmentRecords.
+     *
+     * @param count number of records
+     * @return an iterator over the specified number of generated AlignmentRecords
+     */
+    Iterator<AlignmentRecord> iterator(final long count) {
+        return new Iterator<AlignmentRecord>() {
+            private long remaining = count;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0L;
+            }
+
+            @Override
+            public AlignmentRecord next() {
+                if (remaining <= 0L) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return AlignmentRecordGenerator.this.next();
+            }
+        };
+    }
+
+    /**
+     * Write the specified number of generated AlignmentRecords to the specified file
+     * in Avro container format.
+     *
+     * @param file file to write to, must not be null
+     * @param count number of records
+     * @param codec Avro codec, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    void write(final File file, final long count, final CodecFactory codec) throws IOException {
+        try (DataFileWriter<AlignmentRecord> writer = new DataFileWriter<AlignmentRecord>(new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class))) {
+            writer.setCodec(codec);
+            writer.setSyncInterval(1024 * 1024);
+            writer.create(AlignmentRecord.getClassSchema(), file);
+            for (long i = 0; i < count; i++) {
+                writer.append(next());
+            }
+        }
+    }
+
+    private static long key(final int c, final long start) {
+        return ((long) c << 40) | start;
+    }
+
+    private double gaussian() {
+        // Box-Muller, SplittableRandom does not provide nextGaussian
+        double u = 1.0d - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2.0d * Math.log(u)) * Math.cos(2.0d * Math.PI * v);
+    }
+
+    private int readLength() {
+        return minReadLength >= maxReadLength ? minReadLength : minReadLength + random.nextInt(maxReadLength - minReadLength + 1);
+    }
+
+    private int nextContig() {
+        if (sorted) {
+            return contig;
+        }
+        return random.nextInt(contigCount);
+    }
+
+    private long nextStart(final int c, final int length) {
+        if (sorted) {
+            position += (long) (-Math.log(1.0d - random.nextDouble()) * meanGap);
+            if (position + length > contigLength && contig < contigCount - 1) {
+                contig++;
+                position = 0L;
+                return nextStart(contig, length);
+            }
+            return position;
+        }
+        return random.nextLong(Math.max(1L, contigLength - length));
+    }
+
+    private int mapq() {
+        if (random.nextDouble() < mapqZeroRate) {
+            return 0;
+        }
+        return random.nextDouble() < 0.9d ? maxMapq : 1 + random.nextInt(Math.max(1, maxMapq - 1));
+    }
+
+    private int poisson(final double mean) {
+        double limit = Math.exp(-mean);
+        double p = random.nextDouble();
+        int k = 0;
+        while (p > limit) {
+            k++;
+            p *= random.nextDouble();
+        }
+        return k;
+    }
+
+    private String cigar(final int length) {
+        StringBuilder sb = new StringBuilder();
+        int remaining = length;
+        if (random.nextDouble() < softClipRate && remaining > 10) {
+            int clip = 1 + random.nextInt(Math.min(20, remaining / 4));
+            sb.append(clip).append('S');
+            remaining -= clip;
+        }
+        int indels = Math.min(poisson(meanIndels), remaining / 20);
+        for (int j = 0; j < indels; j++) {
+            int match = 5 + random.nextInt(Math.max(1, remaining / (indels - j + 1) - 5));
+            sb.append(match).append('M');
+            remaining -= match;
+            int indelLength = 1 + random.nextInt(5);
+            if (random.nextBoolean() && remaining > indelLength + 5) {
+                sb.append(indelLength).append('I');
+                remaining -= indelLength;
+            }
+            else {
+                sb.append(indelLength).append('D');
+            }
+        }
+        sb.append(remaining).append('M');
+        return sb.toString();
+    }
+
+    private String sequence(final int length) {
+        char[] sequence = new char[length];
+        for (int j = 0; j < length; j++) {
+            sequence[j] = BASES[random.nextInt(4)];
+        }
+        return new String(sequence);
+    }
+
+    private String qual(final int length) {
+        char[] qual = new char[length];
+        for (int j = 0; j < length; j++) {
+            int q = startQuality + (int) ((long) (endQuality - startQuality) * j / Math.max(1, length - 1));
+            if (qualityNoise > 0) {
+                q += random.nextInt(2 * qualityNoise + 1) - qualityNoise;
+            }
+            qual[j] = (char) (33 + Math.max(2, Math.min(41, q)));
+        }
+        return new String(qual);
+    }
+
+    private AlignmentRecord createRecord(final String readName,
+                                         final String recordGroupName,
+                                         final int c,
+                                         final long start,
+                                         final int length,
+                                         final boolean mapped,
+                                         final boolean negativeStrand,
+                                         final boolean duplicate,
+                                         final boolean qcFail,
+                                         final boolean paired,
+                                         final int readInFragment,
+                                         final boolean mateMapped,
+                                         final long mateStart,
+                                         final boolean mateNegativeStrand,
+                                         final int insertSize) {
+
+        AlignmentRecord.Builder builder = AlignmentRecord.newBuilder()
+            .setReadName(readName)
+            .setRecordGroupName(recordGroupName)
+            .setSequence(sequence(length))
+            .setQual(qual(length))
+            .setReadMapped(mapped)
+            .setReadNegativeStrand(negativeStrand)
+            .setDuplicateRead(duplicate)
+            .setFailedVendorQualityChecks(qcFail)
+            .setSecondaryAlignment(mapped && random.nextDouble() < secondaryRate)
+            .setSupplementaryAlignment(false)
+            .setPrimaryAlignment(true)
+            .setReadPaired(paired)
+            .setReadInFragment(readInFragment)
+            .setProperPair(paired && mapped && mateMapped);
+
+        if (mapped) {
+            String cigar = cigar(length);
+            builder
+                .setContigName(contigName(c))
+                .setStart(start)
+                .setEnd(start + TextCigarCodec.decode(cigar).getReferenceLength())
+                .setMapq(mapq())
+                .setCigar(cigar);
+        }
+        else {
+            builder.setMapq(0);
+        }
+        if (paired) {
+            builder
+                .setMateMapped(mateMapped)
+                .setMateNegativeStrand(mateNegativeStrand);
+            if (mateMapped) {
+                builder
+                    .setMateContigName(contigName(c))
+                    .setMateAlignmentStart(mateStart);
+            }
+            if (mapped && mateMapped) {
+                builder.setInferredInsertSize((long) insertSize);
+            }
+        }
+        else {
+            builder
+                .setMateMapped(false)
+                .setMateNegativeStrand(false);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generated record with sort key.
+     */
+    private static final class Pending implements Comparable<Pending> {
+        final long key;
+        final long order;
+        final AlignmentRecord record;
+
+        Pending(final long key, final long order, final AlignmentRecord record) {
+            this.key = key;
+            this.order = order;
+            this.record = record;
+        }
+
+        @Override
+        public int compareTo(final Pending other) {
+            int result = Long.compare(key, other.key);
+            return result != 0 ? result : Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import java.util.Iterator;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.TextCigarCodec;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileReader;
+
+import org.apache.avro.specific.SpecificDatumReader;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+import org.bdgenomics.formats.avro.Feature;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for AlignmentRecordGenerator and FeatureGenerator.
+ */
+public final class AlignmentRecordGeneratorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testDeterministic() {
+        Iterator<AlignmentRecord> first = new AlignmentRecordGenerator(42L).iterator(1000);
+        Iterator<AlignmentRecord> second = new AlignmentRecordGenerator(42L).iterator(1000);
+        while (first.hasNext()) {
+            assertEquals(first.next(), second.next());
+        }
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void testSeed() {
+        assertNotEquals(new AlignmentRecordGenerator(42L).next(), new AlignmentRecordGenerator(43L).next());
+    }
+
+    @Test
+    public void testFeatureDeterministic() {
+        Iterator<Feature> first = new FeatureGenerator(42L).iterator(1000);
+        Iterator<Feature> second = new FeatureGenerator(42L).iterator(1000);
+        while (first.hasNext()) {
+            assertEquals(first.next(), second.next());
+        }
+    }
+
+    @Test
+    public void testCigarMatchesReadLength() {
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L)
+            .withReadLength(50, 20000)
+            .withCigarComplexity(5.0d, 0.5d)
+            .iterator(1000);
+
+        while (records.hasNext()) {
+            AlignmentRecord record = records.next();
+            assertEquals(record.getSequence().length(), record.getQual().length());
+            if (record.getReadMapped()) {
+                Cigar cigar = TextCigarCodec.decode(record.getCigar());
+                assertEquals(record.getSequence().length(), cigar.getReadLength());
+                assertEquals(record.getStart() + cigar.getReferenceLength(), (long) record.getEnd());
+            }
+        }
+    }
+
+    @Test
+    public void testPairedMatesShareReadName() {
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L)
+            .withPairing(1.0d, 400, 50)
+            .iterator(1000);
+
+        while (records.hasNext()) {
+            AlignmentRecord first = records.next();
+            AlignmentRecord second = records.next();
+            assertEquals(first.getReadName(), second.getReadName());
+            assertEquals(0, (int) first.getReadInFragment());
+            assertEquals(1, (int) second.getReadInFragment());
+        }
+    }
+
+    @Test
+    public void testSorted() {
+        Iterator<AlignmentRecord> records = new AlignmentRecordGenerator(42L)
+            .withContigs(3, 100000L)
+            .withUnmappedRate(0.0d)
+            .withSorted(true, 50)
+            .iterator(5000);
+
+        String contigName = null;
+        long start = -1L;
+        while (records.hasNext()) {
+            AlignmentRecord record = records.next();
+            if (record.getContigName().equals(contigName)) {
+                assertTrue(record.getStart() >= start);
+            }
+            else if (contigName != null) {
+                assertTrue(record.getContigName().compareTo(contigName) > 0);
+            }
+            contigName = record.getContigName();
+            start = record.getStart();
+        }
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        File file = temporaryFolder.newFile("generated.avro");
+        new AlignmentRecordGenerator(42L).write(file, 1000, CodecFactory.snappyCodec());
+
+        Iterator<AlignmentRecord> expected = new AlignmentRecordGenerator(42L).iterator(1000);
+        int count = 0;
+        try (DataFileReader<AlignmentRecord> reader = new DataFileReader<AlignmentRecord>(file, new SpecificDatumReader<AlignmentRecord>(AlignmentRecord.class))) {
+            for (AlignmentRecord record : reader) {
+                assertEquals(expected.next(), record);
+                count++;
+            }
+        }
+        assertEquals(1000, count);
+    }
+
+    @Test
+    public void testWriteFeatures() throws Exception {
+        File file = temporaryFolder.newFile("generated.avro");
+        new FeatureGenerator(42L).write(file, 1000, CodecFactory.nullCodec());
+
+        int count = 0;
+        try (DataFileReader<Feature> reader = new DataFileReader<Feature>(file, new SpecificDatumReader<Feature>(Feature.class))) {
+            for (Feature feature : reader) {
+                count++;
+            }
+        }
+        assertEquals(1000, count);
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.CigarUnit.Operation;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for AlignmentRecordToLazyReadAlignment.
+ */
+public final class AlignmentRecordToLazyReadAlignmentTest {
+    private final Logger logger = LoggerFactory.getLogger(AlignmentRecordToLazyReadAlignmentTest.class);
+    private Converter<CigarOperator, Operation> operatorConverter;
+    private Converter<Cigar, List<CigarUnit>> cigarConverter;
+    private AlignmentRecordToReadAlignment alignmentConverter;
+    private Converter<AlignmentRecord, LazyReadAlignment> lazyConverter;
+
+    private AlignmentRecord.Builder alignmentBuilder;
+
+    @Before
+    public void setUp() {
+        operatorConverter = new CigarOperatorToOperation();
+        cigarConverter = new CigarToCigarUnits(operatorConverter);
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        lazyConverter = new AlignmentRecordToLazyReadAlignment(alignmentConverter);
+
+        alignmentBuilder = AlignmentRecord.newBuilder()
+            .setReadName("read0")
+            .setStart(10L)
+            .setReadMapped(true)
+            .setCigar("10M")
+            .setSequence("AAAAAAAAAA")
+            .setQual("**********")
+            .setReadNegativeStrand(false)
+            .setMapq(60)
+            .setRecordGroupName("rg1")
+            .setContigName("myCtg")
+            .setProperPair(true)
+            .setDuplicateRead(false)
+            .setFailedVendorQualityChecks(false)
+            .setSecondaryAlignment(false)
+            .setSupplementaryAlignment(false)
+            .setMateContigName("myCtg")
+            .setMateNegativeStrand(false)
+            .setMateAlignmentStart(100L)
+            .setMateMapped(true)
+            .setReadPaired(true)
+            .setInferredInsertSize(200L);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(lazyConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullAlignmentConverter() {
+        new AlignmentRecordToLazyReadAlignment(null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        lazyConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(lazyConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(lazyConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testAccessors() {
+        AlignmentRecord alignment = alignmentBuilder.build();
+        ReadAlignment expected = alignmentConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        LazyReadAlignment lazy = lazyConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        assertSame(alignment, lazy.getAlignmentRecord());
+        assertEquals(expected.getReadGroupId(), lazy.getReadGroupId());
+        assertEquals(expected.getFragmentName(), lazy.getFragmentName());
+        assertEquals(expected.getImproperPlacement(), lazy.getImproperPlacement());
+        assertEquals(expected.getDuplicateFragment(), lazy.getDuplicateFragment());
+        assertEquals(expected.getNumberReads(), lazy.getNumberReads());
+        assertEquals(expected.getFragmentLength(), lazy.getFragmentLength());
+        assertEquals(expected.getFailedVendorQualityChecks(), lazy.getFailedVendorQualityChecks());
+        assertEquals(expected.getSecondaryAlignment(), lazy.getSecondaryAlignment());
+        assertEquals(expected.getSupplementaryAlignment(), lazy.getSupplementaryAlignment());
+        assertEquals(expected.getAlignedSequence(), lazy.getAlignedSequence());
+        assertEquals(expected.getAlignedQualityList(), lazy.getAlignedQualityList());
+        assertEquals(expected.getAlignedQualityCount(), lazy.getAlignedQualityCount());
+        assertEquals(expected.getAlignedQuality(0), lazy.getAlignedQuality(0));
+        assertEquals(expected.hasAlignment(), lazy.hasAlignment());
+        assertEquals(expected.getAlignment(), lazy.getAlignment());
+        assertEquals(expected.getAlignment().getPosition(), lazy.getPosition());
+        assertEquals(expected.getAlignment().getCigarList(), lazy.getCigarList());
+        assertEquals(expected.hasNextMatePosition(), lazy.hasNextMatePosition());
+        assertEquals(expected.getNextMatePosition(), lazy.getNextMatePosition());
+    }
+
+    @Test
+    public void testMemoized() {
+        LazyReadAlignment lazy = lazyConverter.convert(alignmentBuilder.build(), ConversionStringency.STRICT, logger);
+        assertSame(lazy.getPosition(), lazy.getPosition());
+        assertSame(lazy.getCigarList(), lazy.getCigarList());
+        assertSame(lazy.getAlignment(), lazy.getAlignment());
+        assertSame(lazy.getAlignedQualityList(), lazy.getAlignedQualityList());
+        assertSame(lazy.getNextMatePosition(), lazy.getNextMatePosition());
+        assertSame(lazy.toReadAlignment(), lazy.toReadAlignment());
+        assertSame(lazy.getAlignment().getPosition(), lazy.getPosition());
+    }
+
+    @Test
+    public void testToReadAlignment() {
+        AlignmentRecord alignment = alignmentBuilder.build();
+        ReadAlignment expected = alignmentConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        assertEquals(expected, lazyConverter.convert(alignment, ConversionStringency.STRICT, logger).toReadAlignment());
+    }
+
+    @Test
+    public void testToReadAlignmentNullReadNameAndSequence() {
+        AlignmentRecord projected = alignmentBuilder.clearReadName().clearSequence().build();
+        ReadAlignment expected = alignmentConverter.convert(projected, ConversionStringency.STRICT, logger);
+        assertEquals(expected, lazyConverter.convert(projected, ConversionStringency.STRICT, logger).toReadAlignment());
+    }
+
+    @Test
+    public void testToReadAlignmentNullReadInFragment() {
+        AlignmentRecord alignment = alignmentBuilder.setReadInFragment(null).build();
+        LazyReadAlignment lazy = lazyConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        assertEquals(0, lazy.getReadNumber());
+        assertEquals(lazy.getReadNumber(), lazy.toReadAlignment().getReadNumber());
+    }
+
+    @Test
+    public void testToReadAlignmentUnalignedRead() {
+        AlignmentRecord unalignedRead = alignmentBuilder
+            .setReadMapped(false)
+            .clearContigName()
+            .clearStart()
+            .clearCigar()
+            .clearQual()
+            .build();
+        ReadAlignment expected = alignmentConverter.convert(unalignedRead, ConversionStringency.STRICT, logger);
+        LazyReadAlignment lazy = lazyConverter.convert(unalignedRead, ConversionStringency.STRICT, logger);
+        assertFalse(lazy.hasAlignment());
+        assertTrue(lazy.getCigarList().isEmpty());
+        assertTrue(lazy.getAlignedQualityList().isEmpty());
+        assertEquals(expected, lazy.toReadAlignment());
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        AlignmentRecord alignment = alignmentBuilder.build();
+        ReadAlignment expected = alignmentConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        LazyReadAlignment lazy = lazyConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        lazy.writeTo(outputStream);
+        assertArrayEquals(expected.toByteArray(), outputStream.toByteArray());
+        assertArrayEquals(expected.toByteArray(), lazy.toByteArray());
+        assertEquals(expected.getSerializedSize(), lazy.getSerializedSize());
+    }
+
+    @Test
+    public void testIllegalCigarDeferred() {
+        AlignmentRecord illegalCigar = alignmentBuilder.setCigar("10").build();
+        LazyReadAlignment lazy = lazyConverter.convert(illegalCigar, ConversionStringency.STRICT, logger);
+        assertEquals("read0", lazy.getFragmentName());
+        assertEquals(Arrays.asList(9, 9, 9, 9, 9, 9, 9, 9, 9, 9), lazy.getAlignedQualityList());
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testIllegalCigarStrict() {
+        AlignmentRecord illegalCigar = alignmentBuilder.setCigar("10").build();
+        lazyConverter.convert(illegalCigar, ConversionStringency.STRICT, logger).getCigarList();
+    }
+
+    @Test
+    public void testIllegalCigarSilent() {
+        AlignmentRecord illegalCigar = alignmentBuilder.setCigar("10").build();
+        LazyReadAlignment lazy = lazyConverter.convert(illegalCigar, ConversionStringency.SILENT, logger);
+        assertTrue(lazy.getCigarList().isEmpty());
+        assertEquals(0, lazy.toReadAlignment().getAlignment().getCigarCount());
+    }
+}
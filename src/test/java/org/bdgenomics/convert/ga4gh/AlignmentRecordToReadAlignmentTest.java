@@ -184,6 +184,14 @@ public final class AlignmentRecordToReadAlignmentTest {
         assertEquals("1", readAlignment.getReadGroupId());
     }
 
+    @Test
+    public void testConvertNullReadNameAndSequence() {
+        AlignmentRecord projected = alignmentBuilder.clearReadName().clearSequence().build();
+        ReadAlignment readAlignment = alignmentConverter.convert(projected, ConversionStringency.STRICT, logger);
+        assertEquals("", readAlignment.getFragmentName());
+        assertEquals("", readAlignment.getAlignedSequence());
+    }
+
     @Test
     public void testConvertNullInferredInsertSize() {
         AlignmentRecord nullInferredInsertSize = alignmentBuilder.clearInferredInsertSize().build();
@@ -206,6 +214,22 @@ public final class AlignmentRecordToReadAlignmentTest {
         assertTrue(readAlignment.getAlignedQualityList().isEmpty());
     }
 
+    @Test
+    public void testConvertQualityScoreBinning() {
+        AlignmentRecord alignment = alignmentBuilder.setQual("#+5:?ADHIJ").build();
+        Converter<AlignmentRecord, ReadAlignment> binningConverter = new AlignmentRecordToReadAlignment(cigarConverter, QualityScoreBinning.illumina8());
+        ReadAlignment readAlignment = binningConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        assertEquals(Arrays.asList(2, 15, 22, 27, 33, 33, 37, 37, 40, 40), readAlignment.getAlignedQualityList());
+    }
+
+    @Test
+    public void testConvertNullQualityScoreBinning() {
+        AlignmentRecord alignment = alignmentBuilder.setQual("#+5:?ADHIJ").build();
+        Converter<AlignmentRecord, ReadAlignment> losslessConverter = new AlignmentRecordToReadAlignment(cigarConverter, null);
+        ReadAlignment readAlignment = losslessConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        assertEquals(Arrays.asList(2, 10, 20, 25, 30, 32, 35, 39, 40, 41), readAlignment.getAlignedQualityList());
+    }
+
     @Test
     public void testConvertMappedNegativeStrand() {
         AlignmentRecord mappedNegativeStrand = alignmentBuilder.setReadNegativeStrand(true).build();
@@ -249,4 +273,26 @@ public final class AlignmentRecordToReadAlignmentTest {
         String json = JsonFormat.printer().print(response).replaceAll("\\s+","");
         assertEquals("{\"alignments\":[{\"readGroupId\":\"rg1\",\"fragmentName\":\"read0\",\"numberReads\":2,\"fragmentLength\":200,\"alignment\":{\"position\":{\"referenceName\":\"myCtg\",\"position\":\"10\",\"strand\":\"POS_STRAND\"},\"mappingQuality\":60,\"cigar\":[{\"operation\":\"ALIGNMENT_MATCH\",\"operationLength\":\"10\"}]},\"alignedSequence\":\"AAAAAAAAAA\",\"alignedQuality\":[9,9,9,9,9,9,9,9,9,9],\"nextMatePosition\":{\"referenceName\":\"myCtg\",\"position\":\"100\",\"strand\":\"POS_STRAND\"}}]}", json);
     }
+
+    @Test
+    public void testConvertGenerated() {
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L)
+            .withReadLength(50, 250)
+            .withCigarComplexity(1.0d, 0.1d)
+            .withUnmappedRate(0.1d);
+
+        for (int i = 0; i < 1000; i++) {
+            AlignmentRecord alignment = generator.next();
+            ReadAlignment readAlignment = alignmentConverter.convert(alignment, ConversionStringency.STRICT, logger);
+            assertEquals(alignment.getReadName(), readAlignment.getFragmentName());
+            assertEquals(alignment.getSequence(), readAlignment.getAlignedSequence());
+            assertEquals(alignment.getQual().length(), readAlignment.getAlignedQualityCount());
+            assertEquals(alignment.getReadMapped(), readAlignment.hasAlignment());
+            if (alignment.getReadMapped()) {
+                assertEquals(alignment.getContigName(), readAlignment.getAlignment().getPosition().getReferenceName());
+                assertEquals((long) alignment.getStart(), readAlignment.getAlignment().getPosition().getPosition());
+                assertTrue(readAlignment.getAlignment().getCigarCount() > 0);
+            }
+        }
+    }
 }
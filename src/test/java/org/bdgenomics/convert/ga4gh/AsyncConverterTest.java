@@ -0,0 +1,139 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ga4gh.Reads.CigarUnit.Operation;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for AsyncConverter.
+ */
+public final class AsyncConverterTest {
+    private final Logger logger = LoggerFactory.getLogger(AsyncConverterTest.class);
+    private Converter<CigarOperator, Operation> converter;
+    private ExecutorService executorService;
+    private AsyncConverter<CigarOperator, Operation> asyncConverter;
+
+    @Before
+    public void setUp() {
+        converter = new CigarOperatorToOperation();
+        executorService = Executors.newFixedThreadPool(4);
+        asyncConverter = new AsyncConverter<CigarOperator, Operation>(converter, ConversionStringency.LENIENT, logger, executorService, 10);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(asyncConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new AsyncConverter<CigarOperator, Operation>(null, ConversionStringency.LENIENT, logger, executorService, 10);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullExecutor() {
+        new AsyncConverter<CigarOperator, Operation>(converter, ConversionStringency.LENIENT, logger, null, 10);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidBatchSize() {
+        new AsyncConverter<CigarOperator, Operation>(converter, ConversionStringency.LENIENT, logger, executorService, 0);
+    }
+
+    @Test
+    public void testConvert() {
+        assertEquals(Operation.ALIGNMENT_MATCH, asyncConverter.convert(CigarOperator.M).join());
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(asyncConverter.convert((CigarOperator) null).join());
+    }
+
+    @Test
+    public void testConvertNullStrict() {
+        AsyncConverter<CigarOperator, Operation> strict = new AsyncConverter<CigarOperator, Operation>(converter, ConversionStringency.STRICT, logger, executorService, 10);
+        try {
+            strict.convert((CigarOperator) null).join();
+            fail("expected CompletionException");
+        }
+        catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ConversionException);
+        }
+    }
+
+    @Test
+    public void testConvertList() {
+        List<CigarOperator> sources = new ArrayList<CigarOperator>();
+        for (int i = 0; i < 95; i++) {
+            sources.add(CigarOperator.values()[i % CigarOperator.values().length]);
+        }
+        sources.set(42, null);
+        List<Operation> targets = asyncConverter.convert(sources).join();
+        assertEquals(95, targets.size());
+        for (int i = 0; i < 95; i++) {
+            if (i == 42) {
+                assertNull(targets.get(i));
+            }
+            else {
+                assertEquals(converter.convert(sources.get(i), ConversionStringency.STRICT, logger), targets.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testConvertEmptyList() {
+        assertTrue(asyncConverter.convert(new ArrayList<CigarOperator>()).join().isEmpty());
+    }
+
+    @Test
+    public void testProcessor() {
+        assertNotNull(asyncConverter.processor());
+    }
+}
@@ -97,4 +97,17 @@ public final class BdgenomicsFeatureToGa4ghFeatureTest {
 
         assertEquals(expected, featureConverter.convert(feature, ConversionStringency.STRICT, logger));
     }
+
+    @Test
+    public void testConvertGenerated() {
+        FeatureGenerator generator = new FeatureGenerator(42L);
+        for (int i = 0; i < 1000; i++) {
+            org.bdgenomics.formats.avro.Feature feature = generator.next();
+            ga4gh.SequenceAnnotations.Feature converted = featureConverter.convert(feature, ConversionStringency.STRICT, logger);
+            assertEquals(feature.getContigName(), converted.getReferenceName());
+            assertEquals((long) feature.getStart(), converted.getStart());
+            assertEquals((long) feature.getEnd(), converted.getEnd());
+            assertEquals(feature.getFeatureType(), converted.getFeatureType().getTermId());
+        }
+    }
 }
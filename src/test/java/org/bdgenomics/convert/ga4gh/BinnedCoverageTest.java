@@ -0,0 +1,90 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.Stream;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.CigarUnit.Operation;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.junit.Test;
+
+/**
+ * Unit test for BinnedCoverage.
+ */
+public final class BinnedCoverageTest {
+
+    private static CigarUnit cigarUnit(final Operation operation, final long length) {
+        return CigarUnit.newBuilder().setOperation(operation).setOperationLength(length).build();
+    }
+
+    private static ReadAlignment aligned(final String referenceName, final long position, final CigarUnit... cigar) {
+        LinearAlignment.Builder alignment = LinearAlignment.newBuilder()
+            .setPosition(Position.newBuilder().setReferenceName(referenceName).setPosition(position));
+        for (CigarUnit cigarUnit : cigar) {
+            alignment.addCigar(cigarUnit);
+        }
+        return ReadAlignment.newBuilder().setAlignment(alignment).build();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCollectorInvalidBinSize() {
+        BinnedCoverage.collector(0);
+    }
+
+    @Test
+    public void testEmpty() {
+        BinnedCoverage coverage = Stream.<ReadAlignment>empty().collect(BinnedCoverage.collector(10));
+        assertEquals(10, coverage.getBinSize());
+        assertTrue(coverage.getReferenceNames().isEmpty());
+        assertEquals(0, coverage.getAlignedBases("chr1").length);
+        assertEquals(0.0d, coverage.getMeanDepth("chr1", 0), 0.0d);
+    }
+
+    @Test
+    public void testCollect() {
+        // 5M in bin 0, 2I, 3D, 10S, then 5= spanning bins 0 and 1, 4N, 2X in bin 1
+        ReadAlignment read0 = aligned("chr1", 0L,
+                                      cigarUnit(Operation.ALIGNMENT_MATCH, 5L),
+                                      cigarUnit(Operation.INSERT, 2L),
+                                      cigarUnit(Operation.DELETE, 3L),
+                                      cigarUnit(Operation.CLIP_SOFT, 10L),
+                                      cigarUnit(Operation.SEQUENCE_MATCH, 5L),
+                                      cigarUnit(Operation.SKIP, 4L),
+                                      cigarUnit(Operation.SEQUENCE_MISMATCH, 2L));
+        ReadAlignment read1 = aligned("chr2", 25L, cigarUnit(Operation.ALIGNMENT_MATCH, 10L));
+
+        BinnedCoverage coverage = Stream.of(read0, read1, ReadAlignment.getDefaultInstance())
+            .parallel()
+            .collect(BinnedCoverage.collector(10));
+
+        assertEquals(2, coverage.getReferenceNames().size());
+        assertArrayEquals(new long[] { 7L, 5L }, coverage.getAlignedBases("chr1"));
+        assertArrayEquals(new long[] { 0L, 0L, 5L, 5L }, coverage.getAlignedBases("chr2"));
+        assertEquals(0.7d, coverage.getMeanDepth("chr1", 0), 0.0001d);
+        assertEquals(0.0d, coverage.getMeanDepth("chr1", 5), 0.0d);
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for CheckpointedConversion.
+ */
+public final class CheckpointedConversionTest {
+    private final Logger logger = LoggerFactory.getLogger(CheckpointedConversionTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private File input;
+    private File output;
+    private File checkpointFile;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+
+        List<AlignmentRecord> alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).withUnmappedRate(0.0d).iterator(2000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+        // invalid cigar fails conversion when stringency is strict
+        alignmentRecords.set(1500, AlignmentRecord.newBuilder(alignmentRecords.get(1500)).setCigar("invalid").build());
+
+        input = temporaryFolder.newFile("input.avro");
+        try (DataFileWriter<AlignmentRecord> writer = new DataFileWriter<AlignmentRecord>(new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class))) {
+            writer.setCodec(CodecFactory.snappyCodec());
+            writer.setSyncInterval(16 * 1024);
+            writer.create(AlignmentRecord.getClassSchema(), input);
+            for (AlignmentRecord alignmentRecord : alignmentRecords) {
+                writer.append(alignmentRecord);
+            }
+        }
+        output = new File(temporaryFolder.getRoot(), "output.pb");
+        checkpointFile = new File(temporaryFolder.getRoot(), "output.checkpoint");
+    }
+
+    private CheckpointedConversion<AlignmentRecord, ReadAlignment> conversion(final ConversionStringency stringency) {
+        return new CheckpointedConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, stringency, logger, 2, 100, 250L);
+    }
+
+    private byte[] expected() throws Exception {
+        File expected = temporaryFolder.newFile("expected.pb");
+        conversion(ConversionStringency.SILENT).run(input, expected, new File(temporaryFolder.getRoot(), "expected.checkpoint"));
+        return Files.readAllBytes(expected.toPath());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullRecordClass() {
+        new CheckpointedConversion<AlignmentRecord, ReadAlignment>(null, alignmentConverter, ConversionStringency.STRICT, logger, 2, 100, 250L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidCheckpointRecords() {
+        new CheckpointedConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.STRICT, logger, 2, 100, 0L);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, checkpointFile);
+        assertEquals(2000L, statistics.getRecords());
+        assertEquals(output.length(), statistics.getOutputBytes());
+        assertFalse(checkpointFile.exists());
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        try {
+            conversion(ConversionStringency.STRICT).run(input, output, checkpointFile);
+        }
+        catch (ConversionException e) {
+            // expected
+        }
+        assertTrue(checkpointFile.exists());
+        CheckpointedConversion.Checkpoint checkpoint = CheckpointedConversion.Checkpoint.read(checkpointFile);
+        assertTrue(checkpoint.getRecords() > 0L);
+        assertTrue(checkpoint.getRecords() <= 1500L);
+        assertTrue(checkpoint.getInputOffset() > 0L);
+        assertTrue(output.length() >= checkpoint.getOutputOffset());
+
+        // simulate a partial write past the checkpoint
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.setLength(checkpoint.getOutputOffset() + 7L);
+        }
+
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, checkpointFile);
+        assertEquals(2000L - checkpoint.getRecords(), statistics.getRecords());
+        assertFalse(checkpointFile.exists());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test(expected=IOException.class)
+    public void testResumeCorruptOutput() throws Exception {
+        try {
+            conversion(ConversionStringency.STRICT).run(input, output, checkpointFile);
+        }
+        catch (ConversionException e) {
+            // expected
+        }
+        CheckpointedConversion.Checkpoint checkpoint = CheckpointedConversion.Checkpoint.read(checkpointFile);
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.seek(checkpoint.getOutputOffset() - 1L);
+            int b = file.read();
+            file.seek(checkpoint.getOutputOffset() - 1L);
+            file.write(b ^ 0xff);
+        }
+        conversion(ConversionStringency.SILENT).run(input, output, checkpointFile);
+    }
+
+    @Test(expected=IOException.class)
+    public void testResumeTruncatedOutput() throws Exception {
+        try {
+            conversion(ConversionStringency.STRICT).run(input, output, checkpointFile);
+        }
+        catch (ConversionException e) {
+            // expected
+        }
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.setLength(0L);
+        }
+        conversion(ConversionStringency.SILENT).run(input, output, checkpointFile);
+    }
+}
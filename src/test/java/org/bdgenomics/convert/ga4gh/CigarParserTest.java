@@ -0,0 +1,102 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.TextCigarCodec;
+
+import org.junit.Test;
+
+/**
+ * Unit test for CigarParser.
+ */
+public final class CigarParserTest {
+
+    @Test
+    public void testParse() {
+        for (String text : new String[] { "10M", "10S120M2I18M", "5H3S2M1D4N2P1=1X", "*", "" }) {
+            assertEquals(TextCigarCodec.decode(text), CigarParser.parse(text));
+            assertEquals(CigarParser.VALID, CigarParser.validate(text));
+        }
+    }
+
+    @Test
+    public void testParseEmpty() {
+        Cigar cigar = CigarParser.parse("*");
+        assertNotNull(cigar);
+        assertTrue(cigar.isEmpty());
+    }
+
+    @Test
+    public void testParseNull() {
+        assertNull(CigarParser.parse(null));
+        assertEquals(CigarParser.NULL_CIGAR, CigarParser.validate(null));
+    }
+
+    @Test
+    public void testParseMalformed() {
+        assertNull(CigarParser.parse("10"));
+        assertEquals(CigarParser.MISSING_OPERATOR, CigarParser.validate("10"));
+        assertEquals(CigarParser.MISSING_OPERATOR, CigarParser.validate("10M5"));
+        assertEquals(CigarParser.MISSING_LENGTH, CigarParser.validate("M10"));
+        assertEquals(CigarParser.MISSING_LENGTH, CigarParser.validate("10M*"));
+        assertEquals(CigarParser.INVALID_OPERATOR, CigarParser.validate("10Q"));
+        assertEquals(CigarParser.INVALID_OPERATOR, CigarParser.validate("10\u00e9"));
+        assertEquals(CigarParser.LENGTH_OVERFLOW, CigarParser.validate("99999999999M"));
+    }
+
+    @Test
+    public void testPack() {
+        for (String text : new String[] { "10M", "10S120M2I18M", "5H3S2M1D4N2P1=1X", "*", "" }) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            int[] packed = new int[bytes.length + 2];
+            int n = CigarParser.pack(bytes, bytes.length, packed, 2);
+            Cigar cigar = TextCigarCodec.decode(text);
+            assertEquals(cigar.numCigarElements(), n);
+            for (int i = 0; i < n; i++) {
+                CigarElement cigarElement = cigar.getCigarElement(i);
+                assertEquals(cigarElement.getLength(), packed[i + 2] >>> 4);
+                assertEquals(cigarElement.getOperator().ordinal(), packed[i + 2] & 0xf);
+            }
+        }
+    }
+
+    @Test
+    public void testPackMalformed() {
+        int[] packed = new int[16];
+        assertEquals(-CigarParser.MISSING_OPERATOR, CigarParser.pack("10".getBytes(StandardCharsets.US_ASCII), 2, packed, 0));
+        assertEquals(-CigarParser.MISSING_LENGTH, CigarParser.pack("M10".getBytes(StandardCharsets.US_ASCII), 3, packed, 0));
+        assertEquals(-CigarParser.INVALID_OPERATOR, CigarParser.pack("10Q".getBytes(StandardCharsets.US_ASCII), 3, packed, 0));
+        assertEquals(-CigarParser.LENGTH_OVERFLOW, CigarParser.pack("268435456M".getBytes(StandardCharsets.US_ASCII), 10, packed, 0));
+        assertEquals(1, CigarParser.pack("268435455M".getBytes(StandardCharsets.US_ASCII), 10, packed, 0));
+    }
+
+    @Test
+    public void testDescribe() {
+        assertEquals("malformed cigar 10, missing operator", CigarParser.describe(CigarParser.MISSING_OPERATOR, "10"));
+        assertEquals("cigar must not be null", CigarParser.describe(CigarParser.NULL_CIGAR, null));
+    }
+}
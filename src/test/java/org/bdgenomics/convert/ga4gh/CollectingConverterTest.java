@@ -0,0 +1,162 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import java.util.stream.Collector;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for CollectingConverter.
+ */
+public final class CollectingConverterTest {
+    private final Logger logger = LoggerFactory.getLogger(CollectingConverterTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private Collector<ReadAlignment, long[], FlagStatistics> flagStatistics;
+    private Collector<ReadAlignment, long[], MappingQualityHistogram> mappingQualityHistogram;
+    private Collector<ReadAlignment, Map<String, long[]>, BinnedCoverage> binnedCoverage;
+    private CollectingConverter collectingConverter;
+    private List<AlignmentRecord> alignmentRecords;
+
+    @Before
+    public void setUp() {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        flagStatistics = FlagStatistics.collector();
+        mappingQualityHistogram = MappingQualityHistogram.collector();
+        binnedCoverage = BinnedCoverage.collector(100000);
+        collectingConverter = new CollectingConverter(alignmentConverter, Arrays.asList(flagStatistics, mappingQualityHistogram, binnedCoverage));
+
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L)
+            .withContigs(2, 1000000L)
+            .withCigarComplexity(1.0d, 0.1d)
+            .withUnmappedRate(0.1d);
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        for (int i = 0; i < 5000; i++) {
+            alignmentRecords.add(generator.next());
+        }
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(collectingConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullAlignmentConverter() {
+        new CollectingConverter(null, Collections.<Collector<ReadAlignment, ?, ?>>emptyList());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullCollectors() {
+        new CollectingConverter(alignmentConverter, null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        collectingConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(collectingConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(collectingConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetResultUnknownCollector() {
+        collectingConverter.getResult(FlagStatistics.collector());
+    }
+
+    @Test
+    public void testGetResultEmpty() {
+        assertEquals(0L, collectingConverter.getResult(flagStatistics).getTotal());
+        assertEquals(0L, collectingConverter.getResult(mappingQualityHistogram).getTotal());
+        assertEquals(0, collectingConverter.getResult(binnedCoverage).getReferenceNames().size());
+    }
+
+    @Test
+    public void testConvert() {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        for (AlignmentRecord alignmentRecord : alignmentRecords) {
+            assertEquals(alignmentConverter.convert(alignmentRecord, ConversionStringency.STRICT, logger),
+                         collectingConverter.convert(alignmentRecord, ConversionStringency.STRICT, logger));
+            readAlignments.add(alignmentConverter.convert(alignmentRecord, ConversionStringency.STRICT, logger));
+        }
+        FlagStatistics expected = readAlignments.stream().collect(FlagStatistics.collector());
+        assertEquals(expected.toString(), collectingConverter.getResult(flagStatistics).toString());
+        assertEquals(5000L, collectingConverter.getResult(flagStatistics).getTotal());
+
+        // results may be requested more than once
+        assertEquals(expected.toString(), collectingConverter.getResult(flagStatistics).toString());
+    }
+
+    @Test
+    public void testConvertPipeline() throws Exception {
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(collectingConverter, ConversionStringency.STRICT, logger, 4, 64);
+        pipeline.run(alignmentRecords.iterator(), new ByteArrayOutputStream());
+
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        for (AlignmentRecord alignmentRecord : alignmentRecords) {
+            readAlignments.add(alignmentConverter.convert(alignmentRecord, ConversionStringency.STRICT, logger));
+        }
+        assertEquals(readAlignments.stream().collect(FlagStatistics.collector()).toString(),
+                     collectingConverter.getResult(flagStatistics).toString());
+        assertArrayEquals(readAlignments.stream().collect(MappingQualityHistogram.collector()).getCounts(),
+                          collectingConverter.getResult(mappingQualityHistogram).getCounts());
+
+        BinnedCoverage expected = readAlignments.stream().collect(BinnedCoverage.collector(100000));
+        BinnedCoverage actual = collectingConverter.getResult(binnedCoverage);
+        assertEquals(expected.getReferenceNames(), actual.getReferenceNames());
+        for (String referenceName : expected.getReferenceNames()) {
+            assertArrayEquals(expected.getAlignedBases(referenceName), actual.getAlignedBases(referenceName));
+        }
+    }
+}
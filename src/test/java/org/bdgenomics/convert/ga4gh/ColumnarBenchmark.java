@@ -0,0 +1,150 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.CodedOutputStream;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for Avro binary decoding and conversion to length-delimited ReadAlignment
+ * messages, record-at-a-time through AlignmentRecord and ReadAlignment objects versus
+ * columnar through AlignmentBatch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarBenchmark {
+    private final Logger logger = LoggerFactory.getLogger(ColumnarBenchmark.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private SpecificDatumReader<AlignmentRecord> datumReader;
+    private AlignmentBatchDecoder batchDecoder;
+    private AlignmentBatchToReadAlignments batchConverter;
+    private AlignmentBatch batch;
+    private BinaryDecoder decoder;
+    private AlignmentRecord reuse;
+    private ByteArrayOutputStream outputStream;
+    private byte[] avro;
+
+    @Param({"1024"})
+    public int records;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        datumReader = new SpecificDatumReader<AlignmentRecord>(AlignmentRecord.class);
+        batchDecoder = new AlignmentBatchDecoder(AlignmentRecord.getClassSchema());
+        batchConverter = new AlignmentBatchToReadAlignments(new CigarOperatorToOperation());
+        batch = new AlignmentBatch(records, direct);
+        outputStream = new ByteArrayOutputStream(records * 512);
+
+        ByteArrayOutputStream avroOutputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(avroOutputStream, null);
+        SpecificDatumWriter<AlignmentRecord> writer = new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class);
+        Iterator<AlignmentRecord> alignmentRecords = new AlignmentRecordGenerator(42L).iterator(records);
+        while (alignmentRecords.hasNext()) {
+            writer.write(alignmentRecords.next(), encoder);
+        }
+        encoder.flush();
+        avro = avroOutputStream.toByteArray();
+    }
+
+    @Benchmark
+    public void recordAtATime(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        decoder = DecoderFactory.get().binaryDecoder(avro, decoder);
+        for (int i = 0; i < records; i++) {
+            reuse = datumReader.read(reuse, decoder);
+            alignmentConverter.convert(reuse, ConversionStringency.SILENT, logger).writeDelimitedTo(outputStream);
+        }
+        blackhole.consume(outputStream.size());
+    }
+
+    @Benchmark
+    public void columnar(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        decoder = DecoderFactory.get().binaryDecoder(avro, decoder);
+        batch.clear();
+        for (int i = 0; i < records; i++) {
+            batchDecoder.decode(decoder, batch);
+        }
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream, 64 * 1024);
+        batchConverter.writeDelimitedTo(batch, output, ConversionStringency.SILENT, logger);
+        output.flush();
+        blackhole.consume(outputStream.size());
+    }
+
+    @Benchmark
+    public void columnarMessages(final Blackhole blackhole) throws IOException {
+        decoder = DecoderFactory.get().binaryDecoder(avro, decoder);
+        batch.clear();
+        for (int i = 0; i < records; i++) {
+            batchDecoder.decode(decoder, batch);
+        }
+        blackhole.consume(batchConverter.convert(batch, ConversionStringency.SILENT, logger));
+    }
+}
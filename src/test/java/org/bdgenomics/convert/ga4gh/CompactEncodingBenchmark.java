@@ -0,0 +1,138 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for length-delimited and compact encoding of position-sorted ReadAlignments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactEncodingBenchmark {
+    private final Logger logger = LoggerFactory.getLogger(CompactEncodingBenchmark.class);
+    private ReadAlignment[] readAlignments;
+    private byte[] delimited;
+    private byte[] compact;
+    private ByteArrayOutputStream outputStream;
+
+    @Param({"150"})
+    public int readLength;
+
+    @Param({"4096"})
+    public int records;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        Converter<AlignmentRecord, ReadAlignment> alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L).withReadLength(readLength, readLength).withSorted(true, 100);
+
+        readAlignments = new ReadAlignment[records];
+        for (int i = 0; i < records; i++) {
+            readAlignments[i] = alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger);
+        }
+        outputStream = new ByteArrayOutputStream(records * readLength * 4);
+        writeDelimited(null);
+        delimited = outputStream.toByteArray();
+        writeCompact(null);
+        compact = outputStream.toByteArray();
+        logger.info("delimited {} bytes, compact {} bytes", delimited.length, compact.length);
+    }
+
+    @Benchmark
+    public void writeDelimited(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        for (int i = 0; i < records; i++) {
+            readAlignments[i].writeDelimitedTo(outputStream);
+        }
+        if (blackhole != null) {
+            blackhole.consume(outputStream.size());
+        }
+    }
+
+    @Benchmark
+    public void writeCompact(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        CompactReadAlignmentWriter writer = new CompactReadAlignmentWriter(outputStream);
+        for (int i = 0; i < records; i++) {
+            writer.write(readAlignments[i]);
+        }
+        writer.flush();
+        if (blackhole != null) {
+            blackhole.consume(outputStream.size());
+        }
+    }
+
+    @Benchmark
+    public void readDelimited(final Blackhole blackhole) throws IOException {
+        InputStream inputStream = new ByteArrayInputStream(delimited);
+        ReadAlignment readAlignment;
+        while ((readAlignment = ReadAlignment.parseDelimitedFrom(inputStream)) != null) {
+            blackhole.consume(readAlignment);
+        }
+    }
+
+    @Benchmark
+    public void readCompact(final Blackhole blackhole) throws IOException {
+        try (CompactReadAlignmentReader reader = new CompactReadAlignmentReader(new ByteArrayInputStream(compact))) {
+            while (reader.hasNext()) {
+                blackhole.consume(reader.next());
+            }
+        }
+    }
+}
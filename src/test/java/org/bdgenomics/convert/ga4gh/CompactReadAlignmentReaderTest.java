@@ -0,0 +1,75 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Unit test for CompactReadAlignmentReader.
+ */
+public final class CompactReadAlignmentReaderTest {
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullInputStream() throws Exception {
+        new CompactReadAlignmentReader(null);
+    }
+
+    @Test(expected=IOException.class)
+    public void testConstructorInvalidMagic() throws Exception {
+        new CompactReadAlignmentReader(new ByteArrayInputStream(new byte[] { 'G', 'A', 'C', 1 }));
+    }
+
+    @Test(expected=IOException.class)
+    public void testConstructorTruncated() throws Exception {
+        new CompactReadAlignmentReader(new ByteArrayInputStream(new byte[] { 'G', 'A' }));
+    }
+
+    @Test(expected=IOException.class)
+    public void testConstructorInvalidCigarDictionarySize() throws Exception {
+        new CompactReadAlignmentReader(new ByteArrayInputStream(new byte[] { 'G', 'A', 'C', 2, 0 }));
+    }
+
+    @Test(expected=NoSuchElementException.class)
+    public void testEmpty() throws Exception {
+        CompactReadAlignmentReader reader = new CompactReadAlignmentReader(new ByteArrayInputStream(new byte[] { 'G', 'A', 'C', 2, 1 }));
+        assertFalse(reader.hasNext());
+        reader.next();
+    }
+
+    @Test(expected=UncheckedIOException.class)
+    public void testInvalidDictionaryCode() throws Exception {
+        // CIGAR dictionary size 1, flags 0, read group ID dictionary code 5 with an empty dictionary
+        byte[] bytes = new byte[] { 'G', 'A', 'C', 2, 1, 0, 5 };
+        new CompactReadAlignmentReader(new ByteArrayInputStream(bytes)).next();
+    }
+
+    @Test(expected=UncheckedIOException.class)
+    public void testInvalidCigarDictionaryCode() throws Exception {
+        // CIGAR dictionary size 1, flags CIGAR, read group ID "", CIGAR dictionary code 2 with an empty dictionary
+        byte[] bytes = new byte[] { 'G', 'A', 'C', 2, 1, 2, 0, 0, 2 };
+        new CompactReadAlignmentReader(new ByteArrayInputStream(bytes)).next();
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ga4gh.Common.Position;
+import ga4gh.Common.Strand;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for CompactReadAlignmentWriter.
+ */
+public final class CompactReadAlignmentWriterTest {
+    private final Logger logger = LoggerFactory.getLogger(CompactReadAlignmentWriterTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+
+    @Before
+    public void setUp() {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+    }
+
+    private static byte[] write(final List<ReadAlignment> readAlignments) throws Exception {
+        return write(readAlignments, CompactReadAlignmentWriter.DEFAULT_CIGAR_DICTIONARY_SIZE);
+    }
+
+    private static byte[] write(final List<ReadAlignment> readAlignments, final int cigarDictionarySize) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (CompactReadAlignmentWriter writer = new CompactReadAlignmentWriter(outputStream, cigarDictionarySize)) {
+            for (ReadAlignment readAlignment : readAlignments) {
+                writer.write(readAlignment);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static List<ReadAlignment> read(final byte[] bytes) throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        try (CompactReadAlignmentReader reader = new CompactReadAlignmentReader(new ByteArrayInputStream(bytes))) {
+            while (reader.hasNext()) {
+                readAlignments.add(reader.next());
+            }
+        }
+        return readAlignments;
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOutputStream() throws Exception {
+        new CompactReadAlignmentWriter(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidCigarDictionarySize() throws Exception {
+        new CompactReadAlignmentWriter(new ByteArrayOutputStream(), 0);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNull() throws Exception {
+        new CompactReadAlignmentWriter(new ByteArrayOutputStream()).write(null);
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(ReadAlignment.getDefaultInstance());
+        readAlignments.add(ReadAlignment.newBuilder().setAlignment(LinearAlignment.newBuilder().setMappingQuality(60)).build());
+        readAlignments.add(ReadAlignment.newBuilder().setNextMatePosition(Position.getDefaultInstance()).build());
+        assertEquals(readAlignments, read(write(readAlignments)));
+    }
+
+    @Test
+    public void testWriteEdgeCases() throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(ReadAlignment.newBuilder()
+                           .setReadGroupId("rg1")
+                           .setFragmentName("read0")
+                           .setAlignment(LinearAlignment.newBuilder()
+                                         .setPosition(Position.newBuilder().setReferenceName("chr1").setPosition(Long.MAX_VALUE).setStrandValue(42))
+                                         .addCigar(CigarUnit.newBuilder().setOperationValue(42).setOperationLength(-1L).setReferenceSequence("ACGT")))
+                           .setNextMatePosition(Position.newBuilder().setReferenceName("chr2").setPosition(Long.MIN_VALUE).setStrand(Strand.NEG_STRAND))
+                           .build());
+        readAlignments.add(ReadAlignment.newBuilder()
+                           .setReadGroupId("rg\u00e9")
+                           .setAlignment(LinearAlignment.newBuilder()
+                                         .setPosition(Position.newBuilder().setReferenceName("chr1").setPosition(Long.MIN_VALUE)))
+                           .build());
+        assertEquals(readAlignments, read(write(readAlignments)));
+    }
+
+    @Test
+    public void testWriteGenerated() throws Exception {
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L)
+            .withReadLength(50, 250)
+            .withCigarComplexity(1.0d, 0.1d)
+            .withUnmappedRate(0.1d);
+
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        for (int i = 0; i < 1000; i++) {
+            readAlignments.add(alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger));
+        }
+        assertEquals(readAlignments, read(write(readAlignments)));
+    }
+
+    private static ReadAlignment withCigar(final long matchLength) {
+        return ReadAlignment.newBuilder()
+            .setAlignment(LinearAlignment.newBuilder()
+                          .addCigar(CigarUnit.newBuilder().setOperation(CigarUnit.Operation.ALIGNMENT_MATCH).setOperationLength(matchLength)))
+            .build();
+    }
+
+    @Test
+    public void testWriteManyDistinctCigars() throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        for (int i = 0; i < 10000; i++) {
+            readAlignments.add(withCigar(i));
+            // repeat an earlier CIGAR, which may or may not have been reset out of the dictionary
+            readAlignments.add(withCigar(i / 3));
+        }
+        assertEquals(readAlignments, read(write(readAlignments, 16)));
+        assertEquals(readAlignments, read(write(readAlignments, 1)));
+        assertEquals(readAlignments, read(write(readAlignments)));
+    }
+
+    @Test
+    public void testWriteRepeatedCigarsDictionaryCoded() throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        for (int i = 0; i < 1000; i++) {
+            readAlignments.add(withCigar(i % 16));
+        }
+        // sixteen CIGARs fit in a dictionary of sixteen entries, but not one of fifteen
+        byte[] fits = write(readAlignments, 16);
+        byte[] resets = write(readAlignments, 15);
+        assertTrue(fits.length < resets.length);
+        assertEquals(readAlignments, read(fits));
+        assertEquals(readAlignments, read(resets));
+    }
+
+    @Test
+    public void testWriteSortedSmallerThanDelimited() throws Exception {
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L)
+            .withReadLength(50, 50)
+            .withSorted(true, 100);
+
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        ByteArrayOutputStream delimited = new ByteArrayOutputStream();
+        for (int i = 0; i < 1000; i++) {
+            ReadAlignment readAlignment = alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger);
+            readAlignment.writeDelimitedTo(delimited);
+            readAlignments.add(readAlignment);
+        }
+        byte[] compact = write(readAlignments);
+        assertTrue(compact.length < delimited.size());
+        assertEquals(readAlignments, read(compact));
+    }
+}
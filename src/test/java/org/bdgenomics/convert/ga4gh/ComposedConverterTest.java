@@ -0,0 +1,94 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import ga4gh.Reads.CigarUnit.Operation;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ComposedConverter.
+ */
+public final class ComposedConverterTest {
+    private final Logger logger = LoggerFactory.getLogger(ComposedConverterTest.class);
+    private Converter<Operation, CigarOperator> first;
+    private Converter<CigarOperator, Operation> second;
+    private Converter<Operation, Operation> converter;
+
+    @Before
+    public void setUp() {
+        first = new OperationToCigarOperator();
+        second = new CigarOperatorToOperation();
+        converter = new ComposedConverter<Operation, CigarOperator, Operation>(Operation.class, Operation.class, first, second);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(converter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullFirst() {
+        new ComposedConverter<Operation, CigarOperator, Operation>(Operation.class, Operation.class, null, second);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSecond() {
+        new ComposedConverter<Operation, CigarOperator, Operation>(Operation.class, Operation.class, first, null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        converter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(converter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(converter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testConvert() {
+        assertEquals(Operation.ALIGNMENT_MATCH, converter.convert(Operation.ALIGNMENT_MATCH, ConversionStringency.STRICT, logger));
+        assertEquals(Operation.CLIP_SOFT, converter.convert(Operation.CLIP_SOFT, ConversionStringency.STRICT, logger));
+    }
+
+    @Test
+    public void testConvertNullIntermediateSilent() {
+        assertNull(converter.convert(Operation.UNRECOGNIZED, ConversionStringency.SILENT, logger));
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.io.CountingOutputStream;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import com.google.protobuf.Message;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+
+import org.apache.avro.specific.SpecificDatumReader;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * End-to-end conversion throughput benchmark.
+ *
+ * <p>
+ * Drives the full decode, convert, serialize, and write path over a supplied or
+ * generated Avro container file and writes records/sec, MB/sec, per-stage time
+ * split, GC time, and peak heap as JSON.
+ * </p>
+ *
+ * <p>
+ * With <code>--compress true</code> the output is BGZF block compressed and the
+ * compressed size is reported.  With a quality score binning scheme, a second
+ * lossless pass is made to report the compression gain from binning.
+ * </p>
+ *
+ * <pre>
+ * usage: ConversionBenchmark [--input alignments.avro | --generate records]
+ *                            [--type alignments|features] [--threads n]
+ *                            [--batch-size n] [--output out.pb] [--json results.json]
+ *                            [--seed n] [--read-length n] [--codec null|deflate|snappy]
+ *                            [--decode-threads n] [--unordered true|false]
+ *                            [--compress true|false] [--quality-binning none|illumina4|illumina8]
+ * </pre>
+ */
+public final class ConversionBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ConversionBenchmark.class);
+
+
+    /**
+     * Output stream that discards bytes.
+     */
+    static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) {
+            // empty
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            // empty
+        }
+    }
+
+    private static Map<String, String> parseArgs(final String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("invalid argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static String option(final Map<String, String> options, final String name, final String defaultValue) {
+        return options.containsKey(name) ? options.get(name) : defaultValue;
+    }
+
+    private static long gcCount() {
+        long count = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0L, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0L, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static String format(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static <S, T extends Message> ConversionStatistics run(final File input,
+                                                                   final Class<S> sourceClass,
+                                                                   final Converter<S, T> converter,
+                                                                   final int threads,
+                                                                   final int batchSize,
+                                                                   final int decodeThreads,
+                                                                   final boolean unordered,
+                                                                   final OutputStream outputStream) throws IOException {
+
+        ConversionPipeline<S, T> pipeline = new ConversionPipeline<S, T>(converter, ConversionStringency.LENIENT, logger, threads, batchSize);
+        if (decodeThreads > 0) {
+            try (ParallelAvroReader<S> reader = new ParallelAvroReader<S>(new BufferedInputStream(new FileInputStream(input), 1024 * 1024), sourceClass, decodeThreads, !unordered)) {
+                return pipeline.run(reader, outputStream);
+            }
+        }
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(input), 1024 * 1024);
+             DataFileStream<S> dataFileStream = new DataFileStream<S>(inputStream, new SpecificDatumReader<S>(sourceClass))) {
+            return pipeline.run(dataFileStream, outputStream);
+        }
+    }
+
+    /**
+     * Main.
+     *
+     * @param args command line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String type = option(options, "type", "alignments");
+        int threads = Integer.parseInt(option(options, "threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int batchSize = Integer.parseInt(option(options, "batch-size", "1000"));
+        long seed = Long.parseLong(option(options, "seed", "42"));
+        int readLength = Integer.parseInt(option(options, "read-length", "150"));
+        CodecFactory codec = CodecFactory.fromString(option(options, "codec", "snappy"));
+        int decodeThreads = Integer.parseInt(option(options, "decode-threads", "0"));
+        boolean unordered = Boolean.parseBoolean(option(options, "unordered", "false"));
+        boolean compress = Boolean.parseBoolean(option(options, "compress", "false"));
+        QualityScoreBinning qualityScoreBinning = QualityScoreBinning.valueOf(option(options, "quality-binning", "none"));
+
+        File input;
+        if (options.containsKey("input")) {
+            input = new File(options.get("input"));
+        }
+        else {
+            long records = Long.parseLong(option(options, "generate", "1000000"));
+            input = File.createTempFile("conversionBenchmark", ".avro");
+            input.deleteOnExit();
+            long generateStart = System.nanoTime();
+            if ("features".equals(type)) {
+                new FeatureGenerator(seed).write(input, records, codec);
+            }
+            else {
+                new AlignmentRecordGenerator(seed).withReadLength(readLength, readLength).write(input, records, codec);
+            }
+            logger.info("generated {} {} in {} ms", records, type, (System.nanoTime() - generateStart) / 1000000L);
+        }
+
+        Injector injector = Guice.createInjector(new Ga4ghModule());
+        CountingOutputStream countingOutputStream = new CountingOutputStream(options.containsKey("output") ?
+            new BufferedOutputStream(new FileOutputStream(options.get("output")), 1024 * 1024) : new NullOutputStream());
+        OutputStream outputStream = compress ? new BlockCompressedOutputStream(countingOutputStream, null) : countingOutputStream;
+        Converter<Cigar, List<CigarUnit>> cigarConverter = injector.getInstance(Key.get(new TypeLiteral<Converter<Cigar, List<CigarUnit>>>() {}));
+
+        System.gc();
+        resetPeakHeap();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+
+        ConversionStatistics statistics;
+        try {
+            if ("features".equals(type)) {
+                Converter<org.bdgenomics.formats.avro.Feature, ga4gh.SequenceAnnotations.Feature> featureConverter = injector.getInstance(Key.get(new TypeLiteral<Converter<org.bdgenomics.formats.avro.Feature, ga4gh.SequenceAnnotations.Feature>>() {}));
+                statistics = run(input, org.bdgenomics.formats.avro.Feature.class, featureConverter, threads, batchSize, decodeThreads, unordered, outputStream);
+            }
+            else {
+                Converter<AlignmentRecord, ReadAlignment> alignmentConverter = qualityScoreBinning == null ?
+                    injector.getInstance(Key.get(new TypeLiteral<Converter<AlignmentRecord, ReadAlignment>>() {})) :
+                    new AlignmentRecordToReadAlignment(cigarConverter, qualityScoreBinning);
+                statistics = run(input, AlignmentRecord.class, alignmentConverter, threads, batchSize, decodeThreads, unordered, outputStream);
+            }
+        }
+        finally {
+            outputStream.close();
+        }
+
+        long peakHeap = peakHeap();
+        gcCount = gcCount() - gcCount;
+        gcMillis = gcMillis() - gcMillis;
+        long compressedOutputBytes = countingOutputStream.getCount();
+
+        long losslessCompressedOutputBytes = compressedOutputBytes;
+        if (compress && qualityScoreBinning != null && !"features".equals(type)) {
+            CountingOutputStream losslessOutputStream = new CountingOutputStream(new NullOutputStream());
+            try (OutputStream compressedOutputStream = new BlockCompressedOutputStream(losslessOutputStream, null)) {
+                run(input, AlignmentRecord.class, new AlignmentRecordToReadAlignment(cigarConverter), threads, batchSize, decodeThreads, unordered, compressedOutputStream);
+            }
+            losslessCompressedOutputBytes = losslessOutputStream.getCount();
+        }
+        double elapsedSeconds = statistics.getElapsedNanos() / 1.0e9d;
+        double inputMegabytes = input.length() / (1024.0d * 1024.0d);
+        double outputMegabytes = statistics.getOutputBytes() / (1024.0d * 1024.0d);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"type\": ").append(quote(type)).append(",\n");
+        json.append("  \"input\": ").append(quote(input.getPath())).append(",\n");
+        json.append("  \"inputBytes\": ").append(input.length()).append(",\n");
+        json.append("  \"threads\": ").append(threads).append(",\n");
+        json.append("  \"batchSize\": ").append(batchSize).append(",\n");
+        json.append("  \"decodeThreads\": ").append(decodeThreads).append(",\n");
+        json.append("  \"unordered\": ").append(unordered).append(",\n");
+        json.append("  \"compress\": ").append(compress).append(",\n");
+        json.append("  \"qualityBinning\": ").append(quote(qualityScoreBinning == null ? "none" : qualityScoreBinning.getName())).append(",\n");
+        json.append("  \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+        json.append("  \"javaVersion\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+        json.append("  \"records\": ").append(statistics.getRecords()).append(",\n");
+        json.append("  \"skipped\": ").append(statistics.getSkipped()).append(",\n");
+        json.append("  \"outputBytes\": ").append(statistics.getOutputBytes()).append(",\n");
+        if (compress) {
+            json.append("  \"compressedOutputBytes\": ").append(compressedOutputBytes).append(",\n");
+            json.append("  \"compressionRatio\": ").append(format(statistics.getOutputBytes() / (double) Math.max(1L, compressedOutputBytes))).append(",\n");
+            json.append("  \"losslessCompressedOutputBytes\": ").append(losslessCompressedOutputBytes).append(",\n");
+            json.append("  \"qualityBinningGain\": ").append(format(losslessCompressedOutputBytes / (double) Math.max(1L, compressedOutputBytes))).append(",\n");
+        }
+        json.append("  \"elapsedSeconds\": ").append(format(elapsedSeconds)).append(",\n");
+        json.append("  \"recordsPerSecond\": ").append(format(statistics.getRecordsPerSecond())).append(",\n");
+        json.append("  \"inputMegabytesPerSecond\": ").append(format(inputMegabytes / elapsedSeconds)).append(",\n");
+        json.append("  \"outputMegabytesPerSecond\": ").append(format(outputMegabytes / elapsedSeconds)).append(",\n");
+        json.append("  \"stages\": {\n");
+        json.append("    \"decodeSeconds\": ").append(format(statistics.getDecodeNanos() / 1.0e9d)).append(",\n");
+        json.append("    \"convertSeconds\": ").append(format(statistics.getConvertNanos() / 1.0e9d)).append(",\n");
+        json.append("    \"serializeSeconds\": ").append(format(statistics.getSerializeNanos() / 1.0e9d)).append(",\n");
+        json.append("    \"writeSeconds\": ").append(format(statistics.getWriteNanos() / 1.0e9d)).append("\n");
+        json.append("  },\n");
+        json.append("  \"gcCount\": ").append(gcCount).append(",\n");
+        json.append("  \"gcSeconds\": ").append(format(gcMillis / 1000.0d)).append(",\n");
+        json.append("  \"peakHeapBytes\": ").append(peakHeap).append("\n");
+        json.append("}\n");
+
+        if (options.containsKey("json")) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(options.get("json")), StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        out.print(json);
+        out.flush();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.junit.Test;
+
+/**
+ * Unit test for ConversionEvents.
+ */
+public final class ConversionEventsTest {
+
+    @Test
+    public void testNotRecording() {
+        assertFalse(ConversionEvents.isWarningEnabled());
+        assertNull(ConversionEvents.beginBatch());
+        assertEquals(ConversionEvents.UNTIMED, ConversionEvents.beginRecord());
+    }
+
+    @Test
+    public void testEndBatchNullEvent() {
+        ConversionEvents.endBatch(null, "convert", 1L, 0L, 42L);
+    }
+
+    @Test
+    public void testEndRecordUntimed() {
+        ConversionEvents.endRecord(ConversionEvents.UNTIMED, AlignmentRecordToReadAlignment.class, "read", "10M");
+        ConversionEvents.endRecord(ConversionEvents.UNTIMED, AlignmentRecordToReadAlignment.class, null, null);
+    }
+
+    @Test
+    public void testWarning() {
+        for (ConversionStringency stringency : ConversionStringency.values()) {
+            ConversionEvents.warning(AlignmentRecordToReadAlignment.class, "could not decode cigar", stringency);
+        }
+    }
+}
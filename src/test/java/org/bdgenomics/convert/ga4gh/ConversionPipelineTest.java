@@ -0,0 +1,227 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ConversionPipeline.
+ */
+public final class ConversionPipelineTest {
+    private final Logger logger = LoggerFactory.getLogger(ConversionPipelineTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private List<AlignmentRecord> alignmentRecords;
+
+    @Before
+    public void setUp() {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).iterator(1000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+    }
+
+    static List<ReadAlignment> readDelimited(final byte[] bytes) throws Exception {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            ReadAlignment readAlignment = null;
+            while ((readAlignment = ReadAlignment.parseDelimitedFrom(inputStream)) != null) {
+                readAlignments.add(readAlignment);
+            }
+        }
+        return readAlignments;
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new ConversionPipeline<AlignmentRecord, ReadAlignment>(null, ConversionStringency.STRICT, logger, 1, 100);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroThreads() {
+        new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 0, 100);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroBatchSize() {
+        new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 0);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullFootprint() {
+        new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 100, 1024L * 1024L, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroBatchBytes() {
+        new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 100, 0L, HeapFootprint.alignmentRecord());
+    }
+
+    private void assertRun(final int threads, final int batchSize) throws Exception {
+        assertRun(new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, threads, batchSize));
+    }
+
+    private ConversionStatistics assertRun(final ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ConversionStatistics statistics = pipeline.run(alignmentRecords.iterator(), outputStream);
+
+        assertNotNull(statistics);
+        assertEquals(alignmentRecords.size(), statistics.getRecords());
+        assertEquals(0L, statistics.getSkipped());
+        assertEquals(outputStream.size(), statistics.getOutputBytes());
+        assertTrue(statistics.getElapsedNanos() > 0L);
+
+        List<ReadAlignment> readAlignments = readDelimited(outputStream.toByteArray());
+        assertEquals(alignmentRecords.size(), readAlignments.size());
+        for (int i = 0; i < alignmentRecords.size(); i++) {
+            assertEquals(alignmentConverter.convert(alignmentRecords.get(i), ConversionStringency.STRICT, logger), readAlignments.get(i));
+        }
+        return statistics;
+    }
+
+    @Test
+    public void testRunSingleThread() throws Exception {
+        assertRun(1, 100);
+    }
+
+    @Test
+    public void testRunMultipleThreads() throws Exception {
+        assertRun(4, 7);
+    }
+
+    @Test
+    public void testRunNoBatchBytes() throws Exception {
+        ConversionStatistics statistics = assertRun(new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 100));
+        assertEquals(0L, statistics.getEstimatedHeapBytes());
+    }
+
+    @Test
+    public void testRunBatchBytesSingleThread() throws Exception {
+        ConversionStatistics statistics = assertRun(new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 1000, 64L * 1024L, HeapFootprint.alignmentRecord()));
+        assertTrue(statistics.getEstimatedHeapBytes() > 0L);
+    }
+
+    @Test
+    public void testRunBatchBytesSingleThreadHoldsSerializedBuffer() throws Exception {
+        ConversionStatistics statistics = assertRun(new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 1000, 64L * 1024L, HeapFootprint.alignmentRecord()));
+        // with no batches in flight, only the serialized buffer of the batch being written is held
+        assertTrue(statistics.getEstimatedHeapBytes() > 0L);
+        assertTrue(statistics.getEstimatedHeapBytes() <= 64L * 1024L);
+        assertTrue(statistics.getEstimatedHeapBytes() < statistics.getOutputBytes());
+    }
+
+    @Test
+    public void testConvertSourceBytes() throws Exception {
+        HeapFootprint footprint = HeapFootprint.alignmentRecord();
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 1000, 64L * 1024L, footprint);
+        List<AlignmentRecord> records = alignmentRecords.subList(0, 10);
+        ConversionPipeline.Batch batch = pipeline.convert(records);
+
+        long sourceBytes = 0L;
+        for (AlignmentRecord record : records) {
+            sourceBytes += footprint.estimate(alignmentConverter.convert(record, ConversionStringency.STRICT, logger));
+        }
+        assertEquals(10L, batch.records);
+        assertEquals(sourceBytes, batch.sourceBytes);
+    }
+
+    @Test
+    public void testConvertNoSourceBytes() throws Exception {
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 100);
+        ConversionPipeline.Batch batch = pipeline.convert(alignmentRecords.subList(0, 10));
+        assertEquals(0L, batch.sourceBytes);
+        assertTrue(batch.buffer.size() > 0);
+    }
+
+    @Test
+    public void testRunBatchBytesMultipleThreads() throws Exception {
+        ConversionStatistics statistics = assertRun(new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 4, 1000, 64L * 1024L, HeapFootprint.alignmentRecord()));
+        assertTrue(statistics.getEstimatedHeapBytes() > 0L);
+    }
+
+    @Test
+    public void testNextBatchSize() {
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 100);
+        assertEquals(100, pipeline.nextBatchSize(0.0d));
+        assertEquals(100, pipeline.nextBatchSize(1024.0d));
+    }
+
+    @Test
+    public void testNextBatchSizeBatchBytes() {
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 1, 1000, 100000L, HeapFootprint.alignmentRecord());
+        assertEquals(ConversionPipeline.INITIAL_BATCH_SIZE, pipeline.nextBatchSize(0.0d));
+        assertEquals(100, pipeline.nextBatchSize(1000.0d));
+        assertEquals(1000, pipeline.nextBatchSize(10.0d));
+        assertEquals(1, pipeline.nextBatchSize(1.0e9d));
+    }
+
+    @Test
+    public void testRunEmpty() throws Exception {
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 4, 100);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ConversionStatistics statistics = pipeline.run(new ArrayList<AlignmentRecord>().iterator(), outputStream);
+        assertEquals(0L, statistics.getRecords());
+        assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    public void testRunSkipsNullLenient() throws Exception {
+        alignmentRecords.add(500, null);
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.LENIENT, logger, 4, 100);
+        ConversionStatistics statistics = pipeline.run(alignmentRecords.iterator(), new ByteArrayOutputStream());
+        assertEquals(1000L, statistics.getRecords());
+        assertEquals(1L, statistics.getSkipped());
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testRunNullStrict() throws Exception {
+        alignmentRecords.add(500, null);
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.STRICT, logger, 4, 100);
+        pipeline.run(alignmentRecords.iterator(), new ByteArrayOutputStream());
+    }
+}
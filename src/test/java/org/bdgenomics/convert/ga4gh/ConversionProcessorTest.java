@@ -0,0 +1,300 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import ga4gh.Reads.CigarUnit.Operation;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ConversionProcessor.
+ */
+public final class ConversionProcessorTest {
+    private final Logger logger = LoggerFactory.getLogger(ConversionProcessorTest.class);
+    private ExecutorService executorService;
+    private List<Operation> operations;
+
+    /**
+     * Publisher over an iterable, emitting on the requesting thread.
+     */
+    static final class IterablePublisher<T> implements Publisher<T> {
+        private final Iterable<T> iterable;
+        private final Throwable error;
+        private final boolean terminate;
+        volatile long requestedFromUpstream;
+
+        IterablePublisher(final Iterable<T> iterable) {
+            this(iterable, null, true);
+        }
+
+        /**
+         * Publisher over an iterable, signalling the specified error instead of completing if not null,
+         * or signalling nothing once the iterable is exhausted if terminate is false.
+         */
+        IterablePublisher(final Iterable<T> iterable, final Throwable error, final boolean terminate) {
+            this.iterable = iterable;
+            this.error = error;
+            this.terminate = terminate;
+        }
+
+        @Override
+        public void subscribe(final Subscriber<? super T> subscriber) {
+            final Iterator<T> iterator = iterable.iterator();
+            subscriber.onSubscribe(new Subscription() {
+                    private long demand;
+                    private boolean emitting;
+                    private boolean cancelled;
+
+                    @Override
+                    public synchronized void request(final long n) {
+                        requestedFromUpstream += n;
+                        demand += n;
+                        if (emitting) {
+                            return;
+                        }
+                        emitting = true;
+                        while (demand > 0L && iterator.hasNext() && !cancelled) {
+                            demand--;
+                            subscriber.onNext(iterator.next());
+                        }
+                        if (!iterator.hasNext() && !cancelled && terminate) {
+                            cancelled = true;
+                            if (error != null) {
+                                subscriber.onError(error);
+                            }
+                            else {
+                                subscriber.onComplete();
+                            }
+                        }
+                        emitting = false;
+                    }
+
+                    @Override
+                    public synchronized void cancel() {
+                        cancelled = true;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Subscriber that records signals.
+     */
+    static final class RecordingSubscriber<T> implements Subscriber<T> {
+        final List<T> values = new ArrayList<T>();
+        final CountDownLatch terminated = new CountDownLatch(1);
+        volatile Throwable error;
+        volatile boolean completed;
+        volatile Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public synchronized void onNext(final T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        synchronized int count() {
+            return values.size();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(4);
+        operations = new ArrayList<Operation>();
+        for (int i = 0; i < 1000; i++) {
+            operations.add(i % 100 == 0 ? Operation.UNRECOGNIZED : Operation.ALIGNMENT_MATCH);
+        }
+        operations.set(1, Operation.CLIP_SOFT);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private Processor<Operation, CigarOperator> processor(final ConversionStringency stringency) {
+        return new AsyncConverter<Operation, CigarOperator>(new OperationToCigarOperator(), stringency, logger, executorService, 16).processor();
+    }
+
+    @Test
+    public void testUnbounded() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.SILENT);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        new IterablePublisher<Operation>(operations).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.terminated.await(10L, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        // unrecognized operations are dropped at silent stringency
+        assertEquals(990, subscriber.count());
+        assertEquals(CigarOperator.S, subscriber.values.get(0));
+        assertEquals(CigarOperator.M, subscriber.values.get(1));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.SILENT);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        IterablePublisher<Operation> publisher = new IterablePublisher<Operation>(operations);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+
+        subscriber.subscription.request(5L);
+        Thread.sleep(200L);
+        assertEquals(5, subscriber.count());
+        // at most two batches are requested from upstream ahead of demand
+        assertTrue(publisher.requestedFromUpstream <= 32L);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.terminated.await(10L, TimeUnit.SECONDS));
+        assertEquals(990, subscriber.count());
+    }
+
+    @Test
+    public void testConversionErrorStrict() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.STRICT);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        new IterablePublisher<Operation>(operations).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.terminated.await(10L, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof ConversionException);
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.SILENT);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        new IterablePublisher<Operation>(operations).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(0L);
+
+        assertTrue(subscriber.terminated.await(10L, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testSecondSubscriber() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.SILENT);
+        processor.subscribe(new RecordingSubscriber<CigarOperator>());
+        RecordingSubscriber<CigarOperator> second = new RecordingSubscriber<CigarOperator>();
+        processor.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testStalledUpstreamPartialBatch() throws Exception {
+        Processor<Operation, CigarOperator> processor = new AsyncConverter<Operation, CigarOperator>(new OperationToCigarOperator(), ConversionStringency.SILENT, logger, executorService, 16)
+            .processor(10L, TimeUnit.MILLISECONDS);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        // three records, fewer than a batch, then upstream stops delivering without completing
+        new IterablePublisher<Operation>(operations.subList(1, 4), null, false).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (subscriber.count() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(3, subscriber.count());
+        assertEquals(1L, subscriber.terminated.getCount());
+    }
+
+    @Test
+    public void testUpstreamErrorAfterRecords() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.SILENT);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        IllegalStateException error = new IllegalStateException("upstream failed");
+        new IterablePublisher<Operation>(operations.subList(0, 20), error, true).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.terminated.await(10L, TimeUnit.SECONDS));
+        assertSame(error, subscriber.error);
+        // every record received before the error is delivered first, less the unrecognized operation at 0
+        assertEquals(19, subscriber.count());
+    }
+
+    @Test
+    public void testUpstreamErrorWaitsForDemand() throws Exception {
+        Processor<Operation, CigarOperator> processor = processor(ConversionStringency.SILENT);
+        RecordingSubscriber<CigarOperator> subscriber = new RecordingSubscriber<CigarOperator>();
+        IllegalStateException error = new IllegalStateException("upstream failed");
+        new IterablePublisher<Operation>(operations.subList(1, 11), error, true).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(4L);
+
+        Thread.sleep(200L);
+        assertEquals(4, subscriber.count());
+        assertEquals(1L, subscriber.terminated.getCount());
+
+        subscriber.subscription.request(6L);
+        assertTrue(subscriber.terminated.await(10L, TimeUnit.SECONDS));
+        assertSame(error, subscriber.error);
+        assertEquals(10, subscriber.count());
+    }
+}
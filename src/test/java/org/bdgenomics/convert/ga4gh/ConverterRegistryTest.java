@@ -0,0 +1,149 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ConverterRegistry.
+ */
+public final class ConverterRegistryTest {
+    private final Logger logger = LoggerFactory.getLogger(ConverterRegistryTest.class);
+    private Injector injector;
+    private ConverterRegistry registry;
+
+    @Before
+    public void setUp() {
+        injector = Guice.createInjector(new Ga4ghModule());
+        registry = ConverterRegistry.create(injector);
+    }
+
+    @Test
+    public void testCreate() {
+        assertNotNull(ConverterRegistry.create());
+        assertTrue(registry.size() > 0);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCreateNullInjector() {
+        ConverterRegistry.create(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testGetNullSourceClass() {
+        registry.get(null, ReadAlignment.class);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testGetNullTargetClass() {
+        registry.get(AlignmentRecord.class, null);
+    }
+
+    @Test
+    public void testGetDirect() {
+        assertSame(injector.getInstance(Key.get(new TypeLiteral<Converter<AlignmentRecord, ReadAlignment>>() {})),
+                   registry.get(AlignmentRecord.class, ReadAlignment.class));
+        assertSame(injector.getInstance(Key.get(new TypeLiteral<Converter<Cigar, List<CigarUnit>>>() {})),
+                   registry.get(Cigar.class, List.class));
+    }
+
+    @Test
+    public void testGetMissing() {
+        assertNull(registry.get(ReadAlignment.class, JsonReader.class));
+        assertFalse(registry.contains(ReadAlignment.class, JsonReader.class));
+    }
+
+    @Test
+    public void testGetNoIdentity() {
+        assertFalse(registry.contains(ga4gh.Common.Strand.class, ga4gh.Common.Strand.class));
+    }
+
+    @Test
+    public void testGetSupertype() {
+        assertSame(registry.get(GenericRecord.class, ReadAlignment.class), registry.get(GenericData.Record.class, ReadAlignment.class));
+        assertNotNull(registry.get(GenericData.Record.class, ReadAlignment.class));
+    }
+
+    @Test
+    public void testGetSupertypeMemoized() {
+        long searches = registry.searches();
+        Converter<GenericData.Record, ReadAlignment> first = registry.get(GenericData.Record.class, ReadAlignment.class);
+        assertEquals(searches + 1L, registry.searches());
+        assertSame(first, registry.get(GenericData.Record.class, ReadAlignment.class));
+        assertEquals(searches + 1L, registry.searches());
+    }
+
+    @Test
+    public void testGetMissingMemoized() {
+        long searches = registry.searches();
+        assertNull(registry.get(ReadAlignment.class, JsonReader.class));
+        assertNull(registry.get(ReadAlignment.class, JsonReader.class));
+        assertEquals(searches + 1L, registry.searches());
+    }
+
+    @Test
+    public void testGetComposed() {
+        Converter<JsonReader, ReadAlignment> converter = registry.get(JsonReader.class, ReadAlignment.class);
+        assertTrue(converter instanceof ComposedConverter);
+
+        String json = "{\"fragmentName\":\"read0\",\"readGroupId\":\"rg1\",\"alignedSequence\":\"ACGT\"}";
+        ReadAlignment readAlignment = converter.convert(new JsonReader(new StringReader(json)), ConversionStringency.STRICT, logger);
+        assertEquals("read0", readAlignment.getFragmentName());
+        assertEquals("ACGT", readAlignment.getAlignedSequence());
+    }
+
+    @Test
+    public void testGetComposedFeatureType() {
+        assertTrue(registry.contains(String.class, org.bdgenomics.formats.avro.OntologyTerm.class));
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+
+import org.apache.hadoop.fs.Path;
+
+import org.apache.parquet.avro.AvroParquetWriter;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for CoordinateIndex.
+ */
+public final class CoordinateIndexTest {
+    private final Configuration conf = new Configuration();
+    private CoordinateIndex index;
+    private List<AlignmentRecord> alignmentRecords;
+    private Path input;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        index = new CoordinateIndex(100L);
+
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).withContigs(3, 200000L).withSorted(true, 100).iterator(5000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+        input = new Path(new File(temporaryFolder.getRoot(), "input.parquet").toURI());
+    }
+
+    private void write(final List<AlignmentRecord> records, final int rowGroupSize) throws Exception {
+        try (ParquetWriter<AlignmentRecord> writer = AvroParquetWriter.<AlignmentRecord>builder(input)
+                 .withSchema(AlignmentRecord.getClassSchema())
+                 .withConf(conf)
+                 .withRowGroupSize(rowGroupSize)
+                 .withPageSize(8 * 1024)
+                 .build()) {
+            for (AlignmentRecord record : records) {
+                writer.write(record);
+            }
+        }
+    }
+
+    private CoordinateIndex scan(final long binSize) {
+        CoordinateIndex scanned = new CoordinateIndex(binSize);
+        for (AlignmentRecord record : alignmentRecords) {
+            scanned.add(record.getContigName(), record.getStart());
+        }
+        return scanned;
+    }
+
+    private int indexedRowGroups() throws Exception {
+        int indexed = 0;
+        for (BlockMetaData block : CoordinateIndex.readFooter(input, conf).getBlocks()) {
+            if (CoordinateIndex.isIndexed(block)) {
+                indexed++;
+            }
+        }
+        return indexed;
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidBinSize() {
+        new CoordinateIndex(0L);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0L, index.getRecords());
+        assertEquals(0L, index.getUnplaced());
+        assertTrue(index.getReferenceNames().isEmpty());
+        assertTrue(index.partition(4).isEmpty());
+    }
+
+    @Test
+    public void testAdd() {
+        index.add("chr2", 10L);
+        index.add("chr2", 10L);
+        index.add(null, null);
+        index.add("chr1", 5L);
+        index.add("chr1", null);
+        assertEquals(5L, index.getRecords());
+        assertEquals(2L, index.getUnplaced());
+        assertEquals(Arrays.asList("chr2", "chr1"), index.getReferenceNames());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddStartOutOfOrder() {
+        index.add("chr1", 10L);
+        index.add("chr1", 9L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddContigOutOfOrder() {
+        index.add("chr1", 10L);
+        index.add("chr2", 10L);
+        index.add("chr1", 20L);
+    }
+
+    @Test
+    public void testAddRange() {
+        index.add("chr1", 50L, 349L, 10L);
+        index.add("chr1", 350L, 350L, 2L);
+        index.add("chr2", 0L, 0L, 0L);
+        index.addUnplaced(3L);
+        assertEquals(15L, index.getRecords());
+        assertEquals(3L, index.getUnplaced());
+        assertEquals(Arrays.asList("chr1"), index.getReferenceNames());
+
+        // 10 records spread 3, 3, 2, 2 over bins 0 to 3, then 2 records in bin 3
+        List<List<Region>> partitions = index.partition(2);
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(new Region("chr1", 0L, 200L)), partitions.get(0));
+        assertEquals(Arrays.asList(new Region("chr1", 200L, 400L)), partitions.get(1));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddRangeOutOfOrder() {
+        index.add("chr1", 50L, 349L, 10L);
+        index.add("chr1", 300L, 400L, 10L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddRangeInvalidStarts() {
+        index.add("chr1", 50L, 49L, 10L);
+    }
+
+    @Test
+    public void testReadRowGroupStatistics() throws Exception {
+        write(alignmentRecords, 64 * 1024);
+        CoordinateIndex scanned = scan(CoordinateIndex.DEFAULT_BIN_SIZE);
+        CoordinateIndex read = CoordinateIndex.read(input, conf, CoordinateIndex.DEFAULT_BIN_SIZE);
+
+        // most row groups are on a single contig, and are indexed without reading any columns
+        assertTrue(indexedRowGroups() > 0);
+        assertEquals(scanned.getRecords(), read.getRecords());
+        assertEquals(scanned.getUnplaced(), read.getUnplaced());
+        assertEquals(scanned.getReferenceNames(), read.getReferenceNames());
+        assertFalse(read.partition(8).isEmpty());
+    }
+
+    @Test
+    public void testReadColumns() throws Exception {
+        // a single row group spanning every contig is read from its columns, and so is exact
+        write(alignmentRecords, 64 * 1024 * 1024);
+        assertEquals(0, indexedRowGroups());
+        CoordinateIndex scanned = scan(CoordinateIndex.DEFAULT_BIN_SIZE);
+        CoordinateIndex read = CoordinateIndex.read(input, conf, CoordinateIndex.DEFAULT_BIN_SIZE);
+        assertEquals(scanned.getRecords(), read.getRecords());
+        assertEquals(scanned.getUnplaced(), read.getUnplaced());
+        assertEquals(scanned.getReferenceNames(), read.getReferenceNames());
+        assertEquals(scanned.partition(8), read.partition(8));
+    }
+
+    @Test
+    public void testReadUnplaced() throws Exception {
+        List<AlignmentRecord> unplaced = new ArrayList<AlignmentRecord>();
+        for (int i = 0; i < 100; i++) {
+            unplaced.add(AlignmentRecord.newBuilder().setReadName("read" + i).setReadMapped(false).build());
+        }
+        alignmentRecords = unplaced;
+        write(alignmentRecords, 64 * 1024);
+        CoordinateIndex read = CoordinateIndex.read(input, conf, CoordinateIndex.DEFAULT_BIN_SIZE);
+        assertEquals(100L, read.getRecords());
+        assertEquals(100L, read.getUnplaced());
+        assertTrue(read.partition(4).isEmpty());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPartitionInvalidChunks() {
+        index.partition(0);
+    }
+
+    @Test
+    public void testPartition() {
+        for (long start = 0L; start < 1000L; start += 10L) {
+            index.add("chr1", start);
+        }
+        for (long start = 0L; start < 500L; start += 5L) {
+            index.add("chr2", start);
+        }
+        List<List<Region>> partitions = index.partition(4);
+        assertEquals(4, partitions.size());
+        assertEquals(Arrays.asList(new Region("chr1", 0L, 500L)), partitions.get(0));
+        assertEquals(Arrays.asList(new Region("chr1", 500L, 1000L)), partitions.get(1));
+        assertEquals(Arrays.asList(new Region("chr2", 0L, 300L)), partitions.get(2));
+        assertEquals(Arrays.asList(new Region("chr2", 300L, 500L)), partitions.get(3));
+    }
+
+    @Test
+    public void testPartitionSpansContigs() {
+        index.add("chr1", 0L);
+        index.add("chr2", 150L);
+        index.add("chr3", 0L);
+        index.add("chr3", 250L);
+        List<List<Region>> partitions = index.partition(2);
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(new Region("chr1", 0L, 100L), new Region("chr2", 0L, 200L)), partitions.get(0));
+        assertEquals(Arrays.asList(new Region("chr3", 0L, 300L)), partitions.get(1));
+    }
+
+    @Test
+    public void testPartitionSingleChunk() {
+        index.add("chr1", 0L);
+        index.add("chr1", 950L);
+        index.add(null, null);
+        List<List<Region>> partitions = index.partition(1);
+        assertEquals(1, partitions.size());
+        assertEquals(Arrays.asList(new Region("chr1", 0L, 1000L)), partitions.get(0));
+    }
+}
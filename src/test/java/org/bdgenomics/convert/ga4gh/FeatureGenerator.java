@@ -0,0 +1,184 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.formats.avro.Feature;
+import org.bdgenomics.formats.avro.Strand;
+
+/**
+ * Deterministic, seedable generator of synthetic bdg-formats Features.
+ */
+final class FeatureGenerator {
+    private final SplittableRandom random;
+    private final long seed;
+    private int contigCount = 24;
+    private long contigLength = 100000000L;
+    private int minFeatureLength = 50;
+    private int maxFeatureLength = 5000;
+    private String[] featureTypes = { "gene", "transcript", "exon", "CDS", "UTR" };
+    private double unstrandedRate = 0.1d;
+
+    /** Generator state. */
+    private long index = 0L;
+
+    private static final Strand[] STRANDS = { Strand.FORWARD, Strand.REVERSE };
+
+
+    /**
+     * Create a new synthetic Feature generator with the specified seed.
+     *
+     * @param seed seed
+     */
+    FeatureGenerator(final long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+
+    /**
+     * Set the number and length of contigs.
+     *
+     * @param contigCount number of contigs
+     * @param contigLength length of each contig
+     * @return this generator
+     */
+    FeatureGenerator withContigs(final int contigCount, final long contigLength) {
+        this.contigCount = contigCount;
+        this.contigLength = contigLength;
+        return this;
+    }
+
+    /**
+     * Set feature length, uniformly distributed in <code>[minFeatureLength, maxFeatureLength]</code>.
+     *
+     * @param minFeatureLength minimum feature length
+     * @param maxFeatureLength maximum feature length
+     * @return this generator
+     */
+    FeatureGenerator withFeatureLength(final int minFeatureLength, final int maxFeatureLength) {
+        this.minFeatureLength = minFeatureLength;
+        this.maxFeatureLength = maxFeatureLength;
+        return this;
+    }
+
+    /**
+     * Set the feature types, as Sequence Ontology term names or identifiers, chosen
+     * uniformly at random for each feature.
+     *
+     * @param featureTypes feature types
+     * @return this generator
+     */
+    FeatureGenerator withFeatureTypes(final String... featureTypes) {
+        this.featureTypes = featureTypes;
+        return this;
+    }
+
+    /**
+     * Set the rate of unstranded features; other features are on the forward or
+     * reverse strand with equal probability.
+     *
+     * @param unstrandedRate rate of unstranded features
+     * @return this generator
+     */
+    FeatureGenerator withUnstrandedRate(final double unstrandedRate) {
+        this.unstrandedRate = unstrandedRate;
+        return this;
+    }
+
+    /**
+     * Generate the next Feature.
+     *
+     * @return the next Feature
+     */
+    Feature next() {
+        long i = index++;
+        int length = minFeatureLength >= maxFeatureLength ? minFeatureLength : minFeatureLength + random.nextInt(maxFeatureLength - minFeatureLength + 1);
+        long start = random.nextLong(Math.max(1L, contigLength - length));
+        Strand strand = random.nextDouble() < unstrandedRate ? Strand.UNKNOWN : STRANDS[random.nextInt(2)];
+
+        return Feature.newBuilder()
+            .setFeatureId("feature" + seed + "." + i)
+            .setName("name" + i)
+            .setSource("synthetic")
+            .setFeatureType(featureTypes[random.nextInt(featureTypes.length)])
+            .setContigName(AlignmentRecordGenerator.contigName(random.nextInt(contigCount)))
+            .setStart(start)
+            .setEnd(start + length)
+            .setStrand(strand)
+            .setScore(random.nextDouble())
+            .build();
+    }
+
+    /**
+     * Return an iterator over the specified number of generated Features.
+     *
+     * @param count number of features
+     * @return an iterator over the specified number of generated Features
+     */
+    Iterator<Feature> iterator(final long count) {
+        return new Iterator<Feature>() {
+            private long remaining = count;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0L;
+            }
+
+            @Override
+            public Feature next() {
+                if (remaining <= 0L) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return FeatureGenerator.this.next();
+            }
+        };
+    }
+
+    /**
+     * Write the specified number of generated Features to the specified file
+     * in Avro container format.
+     *
+     * @param file file to write to, must not be null
+     * @param count number of features
+     * @param codec Avro codec, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    void write(final File file, final long count, final CodecFactory codec) throws IOException {
+        try (DataFileWriter<Feature> writer = new DataFileWriter<Feature>(new SpecificDatumWriter<Feature>(Feature.class))) {
+            writer.setCodec(codec);
+            writer.setSyncInterval(1024 * 1024);
+            writer.create(Feature.getClassSchema(), file);
+            for (long i = 0; i < count; i++) {
+                writer.append(next());
+            }
+        }
+    }
+}
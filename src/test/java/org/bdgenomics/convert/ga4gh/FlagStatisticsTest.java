@@ -0,0 +1,67 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.Stream;
+
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.junit.Test;
+
+/**
+ * Unit test for FlagStatistics.
+ */
+public final class FlagStatisticsTest {
+
+    @Test
+    public void testEmpty() {
+        FlagStatistics flagStatistics = Stream.<ReadAlignment>empty().collect(FlagStatistics.collector());
+        assertEquals(0L, flagStatistics.getTotal());
+        assertEquals(0L, flagStatistics.getMapped());
+    }
+
+    @Test
+    public void testCollect() {
+        ReadAlignment unpaired = ReadAlignment.newBuilder().setNumberReads(1).build();
+        ReadAlignment mapped = ReadAlignment.newBuilder()
+            .setNumberReads(2)
+            .setAlignment(LinearAlignment.getDefaultInstance())
+            .setDuplicateFragment(true)
+            .build();
+        ReadAlignment improper = ReadAlignment.newBuilder()
+            .setNumberReads(2)
+            .setImproperPlacement(true)
+            .setFailedVendorQualityChecks(true)
+            .setSecondaryAlignment(true)
+            .setSupplementaryAlignment(true)
+            .build();
+
+        FlagStatistics flagStatistics = Stream.of(unpaired, mapped, improper).parallel().collect(FlagStatistics.collector());
+        assertEquals(3L, flagStatistics.getTotal());
+        assertEquals(1L, flagStatistics.getMapped());
+        assertEquals(2L, flagStatistics.getPaired());
+        assertEquals(1L, flagStatistics.getProperlyPaired());
+        assertEquals(1L, flagStatistics.getDuplicate());
+        assertEquals(1L, flagStatistics.getFailedVendorQualityChecks());
+        assertEquals(1L, flagStatistics.getSecondary());
+        assertEquals(1L, flagStatistics.getSupplementary());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for Futures.
+ */
+public final class FuturesTest {
+
+    @After
+    public void tearDown() {
+        // clear interrupt status
+        Thread.interrupted();
+    }
+
+    private static <T> FutureTask<T> completed(final Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<T>(callable);
+        task.run();
+        return task;
+    }
+
+    @Test
+    public void testAwait() throws Exception {
+        assertEquals("value", Futures.await(completed(new Callable<String>() {
+                @Override
+                public String call() {
+                    return "value";
+                }
+            }), "value"));
+    }
+
+    @Test
+    public void testAwaitIOException() throws Exception {
+        final IOException expected = new IOException("expected");
+        try {
+            Futures.await(completed(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        throw expected;
+                    }
+                }), "value");
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertSame(expected, e);
+        }
+    }
+
+    @Test
+    public void testAwaitRuntimeException() throws Exception {
+        final IllegalStateException expected = new IllegalStateException("expected");
+        try {
+            Futures.await(completed(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        throw expected;
+                    }
+                }), "value");
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            assertSame(expected, e);
+        }
+    }
+
+    @Test
+    public void testAwaitCheckedException() throws Exception {
+        final Exception expected = new Exception("expected");
+        try {
+            Futures.await(completed(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        throw expected;
+                    }
+                }), "value");
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertSame(expected, e.getCause());
+        }
+    }
+
+    @Test
+    public void testAwaitInterrupted() throws Exception {
+        FutureTask<String> pending = new FutureTask<String>(new Callable<String>() {
+                @Override
+                public String call() {
+                    return "value";
+                }
+            });
+        Thread.currentThread().interrupt();
+        try {
+            Futures.await(pending, "value");
+            fail("expected InterruptedIOException");
+        }
+        catch (InterruptedIOException e) {
+            assertEquals("interrupted waiting for value", e.getMessage());
+            assertTrue(Thread.currentThread().isInterrupted());
+        }
+    }
+
+    @Test(expected=Error.class)
+    public void testPropagateError() {
+        Futures.propagate(new Error("expected"));
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for Ga4ghJsonReader.
+ */
+public final class Ga4ghJsonReaderTest {
+    private final Logger logger = LoggerFactory.getLogger(Ga4ghJsonReaderTest.class);
+    private Converter<JsonReader, AlignmentRecord> converter;
+
+    @Before
+    public void setUp() {
+        converter = new JsonReaderToAlignmentRecord(new OperationToCigarOperator());
+    }
+
+    private List<String> readNames(final String json, final String arrayField) throws Exception {
+        List<String> readNames = new ArrayList<String>();
+        try (Ga4ghJsonReader<AlignmentRecord> reader = new Ga4ghJsonReader<AlignmentRecord>(new StringReader(json), converter, arrayField, ConversionStringency.STRICT, logger)) {
+            while (reader.hasNext()) {
+                readNames.add(reader.next().getReadName());
+            }
+        }
+        return readNames;
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullReader() {
+        new Ga4ghJsonReader<AlignmentRecord>(null, converter, null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new Ga4ghJsonReader<AlignmentRecord>(new StringReader(""), null, null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertEquals(0, readNames("", null).size());
+        assertEquals(0, readNames("[]", null).size());
+        assertEquals(0, readNames("{\"nextPageToken\": \"x\"}", "alignments").size());
+    }
+
+    @Test
+    public void testArray() throws Exception {
+        List<String> readNames = readNames("[{\"fragmentName\": \"read0\"}, {\"fragmentName\": \"read1\"}]", null);
+        assertEquals(2, readNames.size());
+        assertEquals("read0", readNames.get(0));
+        assertEquals("read1", readNames.get(1));
+    }
+
+    @Test
+    public void testSequence() throws Exception {
+        List<String> readNames = readNames("{\"fragmentName\": \"read0\"}\n{\"fragmentName\": \"read1\"}{\"fragmentName\": \"read2\"}", null);
+        assertEquals(3, readNames.size());
+        assertEquals("read2", readNames.get(2));
+    }
+
+    @Test
+    public void testSearchResponses() throws Exception {
+        String json = "{\"alignments\": [{\"fragmentName\": \"read0\"}, {\"fragmentName\": \"read1\"}], \"nextPageToken\": \"x\"}\n"
+            + "{\"nextPageToken\": \"y\", \"alignments\": [{\"fragmentName\": \"read2\"}]}";
+        List<String> readNames = readNames(json, "alignments");
+        assertEquals(3, readNames.size());
+        assertEquals("read0", readNames.get(0));
+        assertEquals("read2", readNames.get(2));
+    }
+
+    @Test
+    public void testSkipsNullConversions() throws Exception {
+        try (Ga4ghJsonReader<AlignmentRecord> reader = new Ga4ghJsonReader<AlignmentRecord>(new StringReader("[1, 2]"), converter, null, ConversionStringency.SILENT, logger)) {
+            assertFalse(reader.hasNext());
+        }
+    }
+}
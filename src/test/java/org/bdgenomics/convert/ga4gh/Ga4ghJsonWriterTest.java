@@ -0,0 +1,205 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.List;
+
+import com.google.protobuf.util.JsonFormat;
+
+import ga4gh.Common.OntologyTerm;
+import ga4gh.Common.Position;
+import ga4gh.Common.Strand;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for Ga4ghJsonWriter.
+ */
+public final class Ga4ghJsonWriterTest {
+    private final Logger logger = LoggerFactory.getLogger(Ga4ghJsonWriterTest.class);
+    private final JsonFormat.Printer printer = JsonFormat.printer();
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private Converter<org.bdgenomics.formats.avro.Feature, Feature> featureConverter;
+
+    @Before
+    public void setUp() {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        featureConverter = new BdgenomicsFeatureToGa4ghFeature(new StringToOntologyTerm(), new BdgenomicsStrandToGa4ghStrand());
+    }
+
+    private static String toJson(final ReadAlignment readAlignment) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (Ga4ghJsonWriter jsonWriter = new Ga4ghJsonWriter(writer)) {
+            jsonWriter.write(readAlignment);
+        }
+        return writer.toString();
+    }
+
+    private static String toJson(final Feature feature) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (Ga4ghJsonWriter jsonWriter = new Ga4ghJsonWriter(writer)) {
+            jsonWriter.write(feature);
+        }
+        return writer.toString();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullWriter() {
+        new Ga4ghJsonWriter((StringWriter) null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNullReadAlignment() throws Exception {
+        new Ga4ghJsonWriter(new StringWriter()).write((ReadAlignment) null);
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        assertEquals(printer.print(ReadAlignment.getDefaultInstance()), toJson(ReadAlignment.getDefaultInstance()));
+        assertEquals(printer.print(Feature.getDefaultInstance()), toJson(Feature.getDefaultInstance()));
+    }
+
+    @Test
+    public void testWriteReadAlignment() throws Exception {
+        ReadAlignment readAlignment = ReadAlignment.newBuilder()
+            .setId("id")
+            .setReadGroupId("rg1")
+            .setFragmentName("read0")
+            .setImproperPlacement(true)
+            .setDuplicateFragment(true)
+            .setNumberReads(2)
+            .setFragmentLength(-200)
+            .setReadNumber(1)
+            .setFailedVendorQualityChecks(true)
+            .setAlignment(LinearAlignment.newBuilder()
+                          .setPosition(Position.newBuilder().setReferenceName("chr1").setPosition(Long.MAX_VALUE).setStrand(Strand.NEG_STRAND))
+                          .setMappingQuality(60)
+                          .addCigar(CigarUnit.newBuilder().setOperation(CigarUnit.Operation.ALIGNMENT_MATCH).setOperationLength(10L))
+                          .addCigar(CigarUnit.newBuilder().setOperation(CigarUnit.Operation.INSERT).setOperationLength(1L).setReferenceSequence("A"))
+                          .addCigar(CigarUnit.newBuilder()))
+            .setSecondaryAlignment(true)
+            .setSupplementaryAlignment(true)
+            .setAlignedSequence("ACGTN")
+            .addAlignedQuality(0)
+            .addAlignedQuality(9)
+            .addAlignedQuality(10)
+            .addAlignedQuality(41)
+            .addAlignedQuality(-1)
+            .setNextMatePosition(Position.newBuilder().setReferenceName("chr2").setPosition(Long.MIN_VALUE))
+            .build();
+        assertEquals(printer.print(readAlignment), toJson(readAlignment));
+    }
+
+    @Test
+    public void testWriteEscapes() throws Exception {
+        ReadAlignment readAlignment = ReadAlignment.newBuilder()
+            .setFragmentName("a\"b\\c/d\te\nf\u0001g<h>i&j=k'l\u00e9m\u2028n\u2029o\ud83d\ude00")
+            .build();
+        assertEquals(printer.print(readAlignment), toJson(readAlignment));
+    }
+
+    @Test
+    public void testWriteUnrecognizedEnum() throws Exception {
+        ReadAlignment readAlignment = ReadAlignment.newBuilder()
+            .setAlignment(LinearAlignment.newBuilder()
+                          .setPosition(Position.newBuilder().setStrandValue(42))
+                          .addCigar(CigarUnit.newBuilder().setOperationValue(42)))
+            .build();
+        assertEquals(printer.print(readAlignment), toJson(readAlignment));
+    }
+
+    @Test
+    public void testWriteFeature() throws Exception {
+        Feature feature = Feature.newBuilder()
+            .setReferenceName("chr1")
+            .setStart(100L)
+            .setEnd(200L)
+            .setStrand(Strand.POS_STRAND)
+            .setFeatureType(OntologyTerm.newBuilder().setTermId("SO:0000704").setTerm("gene"))
+            .build();
+        assertEquals(printer.print(feature), toJson(feature));
+    }
+
+    @Test
+    public void testWriteFeatureUnhandledField() throws Exception {
+        Feature feature = Feature.newBuilder()
+            .setId("feature1")
+            .setReferenceName("chr1")
+            .setStart(100L)
+            .build();
+        assertEquals(printer.print(feature), toJson(feature));
+    }
+
+    @Test
+    public void testWriteGenerated() throws Exception {
+        AlignmentRecordGenerator alignmentRecordGenerator = new AlignmentRecordGenerator(42L)
+            .withReadLength(50, 250)
+            .withCigarComplexity(1.0d, 0.1d)
+            .withUnmappedRate(0.1d);
+
+        for (int i = 0; i < 1000; i++) {
+            ReadAlignment readAlignment = alignmentConverter.convert(alignmentRecordGenerator.next(), ConversionStringency.STRICT, logger);
+            assertEquals(printer.print(readAlignment), toJson(readAlignment));
+        }
+
+        FeatureGenerator featureGenerator = new FeatureGenerator(42L);
+        for (int i = 0; i < 1000; i++) {
+            Feature feature = featureConverter.convert(featureGenerator.next(), ConversionStringency.STRICT, logger);
+            assertEquals(printer.print(feature), toJson(feature));
+        }
+    }
+
+    @Test
+    public void testWriteOutputStream() throws Exception {
+        ReadAlignment readAlignment = ReadAlignment.newBuilder().setFragmentName("r\u00e9ad").setNumberReads(1).build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Ga4ghJsonWriter jsonWriter = new Ga4ghJsonWriter(outputStream)) {
+            jsonWriter.write(readAlignment);
+            jsonWriter.newLine();
+            jsonWriter.write(readAlignment);
+        }
+        String json = printer.print(readAlignment);
+        assertArrayEquals((json + "\n" + json).getBytes(StandardCharsets.UTF_8), outputStream.toByteArray());
+    }
+}
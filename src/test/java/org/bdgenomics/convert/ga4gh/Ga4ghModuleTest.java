@@ -21,6 +21,8 @@ import static org.junit.Assert.assertNotNull;
 
 import java.util.List;
 
+import com.google.gson.stream.JsonReader;
+
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
@@ -29,10 +31,13 @@ import com.google.inject.Guice;
 import ga4gh.Reads.CigarUnit;
 import ga4gh.Reads.CigarUnit.Operation;
 import ga4gh.Reads.ReadAlignment;
+import ga4gh.Reads.ReadGroup;
 
 import htsjdk.samtools.Cigar;
 import htsjdk.samtools.CigarOperator;
 
+import org.apache.avro.generic.GenericRecord;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -42,6 +47,7 @@ import org.bdgenomics.convert.ConversionStringency;
 import org.bdgenomics.convert.bdgenomics.BdgenomicsModule;
 
 import org.bdgenomics.formats.avro.AlignmentRecord;
+import org.bdgenomics.formats.avro.RecordGroup;
 
 /**
  * Unit test for Ga4ghModule.
@@ -72,6 +78,13 @@ public final class Ga4ghModuleTest {
         assertNotNull(target.getCigarOperatorToOperation());
         assertNotNull(target.getCigarToCigarUnits());
         assertNotNull(target.getAlignmentRecordToReadAlignment());
+        assertNotNull(target.getGenericRecordToReadAlignment());
+        assertNotNull(target.getAlignmentBatchToReadAlignments());
+        assertNotNull(target.getRecordGroupToReadGroup());
+        assertNotNull(target.getAlignmentRecordToLazyReadAlignment());
+        assertNotNull(target.getOperationToCigarOperator());
+        assertNotNull(target.getJsonReaderToAlignmentRecord());
+        assertNotNull(target.getJsonReaderToFeature());
     }
 
     /**
@@ -87,6 +100,13 @@ public final class Ga4ghModuleTest {
         Converter<CigarOperator, Operation> cigarOperatorToOperation;
         Converter<Cigar, List<CigarUnit>> cigarToCigarUnits;
         Converter<AlignmentRecord, ReadAlignment> alignmentRecordToReadAlignment;
+        Converter<GenericRecord, ReadAlignment> genericRecordToReadAlignment;
+        Converter<AlignmentBatch, List<ReadAlignment>> alignmentBatchToReadAlignments;
+        Converter<RecordGroup, ReadGroup> recordGroupToReadGroup;
+        Converter<AlignmentRecord, LazyReadAlignment> alignmentRecordToLazyReadAlignment;
+        Converter<Operation, CigarOperator> operationToCigarOperator;
+        Converter<JsonReader, AlignmentRecord> jsonReaderToAlignmentRecord;
+        Converter<JsonReader, org.bdgenomics.formats.avro.Feature> jsonReaderToFeature;
 
         @Inject
         Target(final Converter<org.bdgenomics.formats.avro.Feature, ga4gh.SequenceAnnotations.Feature> bdgenomicsFeatureToGa4ghFeature,
@@ -97,7 +117,14 @@ public final class Ga4ghModuleTest {
                final Converter<ga4gh.Common.Strand, org.bdgenomics.formats.avro.Strand> ga4ghStrandToBdgenomicsStrand,
                final Converter<CigarOperator, Operation> cigarOperatorToOperation,
                final Converter<Cigar, List<CigarUnit>> cigarToCigarUnits,
-               final Converter<AlignmentRecord, ReadAlignment> alignmentRecordToReadAlignment) {
+               final Converter<AlignmentRecord, ReadAlignment> alignmentRecordToReadAlignment,
+               final Converter<GenericRecord, ReadAlignment> genericRecordToReadAlignment,
+               final Converter<AlignmentBatch, List<ReadAlignment>> alignmentBatchToReadAlignments,
+               final Converter<RecordGroup, ReadGroup> recordGroupToReadGroup,
+               final Converter<AlignmentRecord, LazyReadAlignment> alignmentRecordToLazyReadAlignment,
+               final Converter<Operation, CigarOperator> operationToCigarOperator,
+               final Converter<JsonReader, AlignmentRecord> jsonReaderToAlignmentRecord,
+               final Converter<JsonReader, org.bdgenomics.formats.avro.Feature> jsonReaderToFeature) {
 
             this.bdgenomicsFeatureToGa4ghFeature = bdgenomicsFeatureToGa4ghFeature;
             this.bdgenomicsOntologyTermToGa4ghOntologyTerm = bdgenomicsOntologyTermToGa4ghOntologyTerm;
@@ -108,6 +135,13 @@ public final class Ga4ghModuleTest {
             this.cigarOperatorToOperation = cigarOperatorToOperation;
             this.cigarToCigarUnits = cigarToCigarUnits;
             this.alignmentRecordToReadAlignment = alignmentRecordToReadAlignment;
+            this.genericRecordToReadAlignment = genericRecordToReadAlignment;
+            this.alignmentBatchToReadAlignments = alignmentBatchToReadAlignments;
+            this.recordGroupToReadGroup = recordGroupToReadGroup;
+            this.alignmentRecordToLazyReadAlignment = alignmentRecordToLazyReadAlignment;
+            this.operationToCigarOperator = operationToCigarOperator;
+            this.jsonReaderToAlignmentRecord = jsonReaderToAlignmentRecord;
+            this.jsonReaderToFeature = jsonReaderToFeature;
         }
 
         Converter<org.bdgenomics.formats.avro.Feature, ga4gh.SequenceAnnotations.Feature> getBdgenomicsFeatureToGa4ghFeature() {
@@ -146,6 +180,34 @@ public final class Ga4ghModuleTest {
             return alignmentRecordToReadAlignment;
         }
 
+        Converter<GenericRecord, ReadAlignment> getGenericRecordToReadAlignment() {
+            return genericRecordToReadAlignment;
+        }
+
+        Converter<AlignmentBatch, List<ReadAlignment>> getAlignmentBatchToReadAlignments() {
+            return alignmentBatchToReadAlignments;
+        }
+
+        Converter<RecordGroup, ReadGroup> getRecordGroupToReadGroup() {
+            return recordGroupToReadGroup;
+        }
+
+        Converter<AlignmentRecord, LazyReadAlignment> getAlignmentRecordToLazyReadAlignment() {
+            return alignmentRecordToLazyReadAlignment;
+        }
+
+        Converter<Operation, CigarOperator> getOperationToCigarOperator() {
+            return operationToCigarOperator;
+        }
+
+        Converter<JsonReader, AlignmentRecord> getJsonReaderToAlignmentRecord() {
+            return jsonReaderToAlignmentRecord;
+        }
+
+        Converter<JsonReader, org.bdgenomics.formats.avro.Feature> getJsonReaderToFeature() {
+            return jsonReaderToFeature;
+        }
+
     }
 
     /**
@@ -0,0 +1,244 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ga4gh.Reads.ReadAlignment;
+
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test client for <code>reads/search</code>.
+ *
+ * <p>
+ * Issues random region queries from concurrent clients against a running GA4GH
+ * search server, or against an embedded <code>Ga4ghSearchServer</code> over generated
+ * data, and writes throughput and latency percentiles as JSON.
+ * </p>
+ *
+ * <pre>
+ * usage: Ga4ghSearchLoadTest [--url http://host:port | --generate records]
+ *                            [--concurrency n] [--requests n] [--page-size n]
+ *                            [--contigs n] [--contig-length n] [--region-size n]
+ *                            [--seed n] [--json results.json]
+ * </pre>
+ */
+public final class Ga4ghSearchLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(Ga4ghSearchLoadTest.class);
+
+
+    private static Map<String, String> parseArgs(final String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("invalid argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static String option(final Map<String, String> options, final String name, final String defaultValue) {
+        return options.containsKey(name) ? options.get(name) : defaultValue;
+    }
+
+    private static String format(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static double percentileMillis(final long[] sortedNanos, final double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0d;
+        }
+        int index = (int) Math.ceil(percentile / 100.0d * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, index))] / 1.0e6d;
+    }
+
+    private static void generate(final File file, final long records, final int contigs, final long contigLength, final long seed) throws IOException {
+        AlignmentRecordToReadAlignment converter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(converter, ConversionStringency.LENIENT, logger, Runtime.getRuntime().availableProcessors(), 1000);
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), 1024 * 1024)) {
+            pipeline.run(new AlignmentRecordGenerator(seed).withContigs(contigs, contigLength).iterator(records), outputStream);
+        }
+    }
+
+    /**
+     * Main.
+     *
+     * @param args command line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int concurrency = Integer.parseInt(option(options, "concurrency", "8"));
+        final int requests = Integer.parseInt(option(options, "requests", "10000"));
+        final int pageSize = Integer.parseInt(option(options, "page-size", "100"));
+        final int contigs = Integer.parseInt(option(options, "contigs", "2"));
+        final long contigLength = Long.parseLong(option(options, "contig-length", "10000000"));
+        final long regionSize = Long.parseLong(option(options, "region-size", "10000"));
+        final long seed = Long.parseLong(option(options, "seed", "42"));
+
+        Ga4ghSearchServer server = null;
+        String baseUrl = options.get("url");
+        if (baseUrl == null) {
+            long records = Long.parseLong(option(options, "generate", "100000"));
+            File reads = File.createTempFile("ga4ghSearchLoadTest", ".pb");
+            reads.deleteOnExit();
+            long generateStart = System.nanoTime();
+            generate(reads, records, contigs, contigLength, seed);
+            logger.info("generated {} alignments in {} ms", records, (System.nanoTime() - generateStart) / 1000000L);
+
+            server = new Ga4ghSearchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), reads, null, concurrency);
+            server.start();
+            baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+        }
+        final URL url = URI.create(baseUrl + "/reads/search").toURL();
+
+        final long[] latencies = new long[requests];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicLong responseBytes = new AtomicLong();
+        ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            Future<?>[] clients = new Future<?>[concurrency];
+            for (int c = 0; c < concurrency; c++) {
+                final SplittableRandom random = new SplittableRandom(seed + c);
+                clients[c] = executorService.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            byte[] buffer = new byte[64 * 1024];
+                            int i;
+                            while ((i = next.getAndIncrement()) < requests) {
+                                String referenceName = AlignmentRecordGenerator.contigName(random.nextInt(contigs));
+                                long regionStart = random.nextLong(Math.max(1L, contigLength - regionSize));
+                                String body = "{\"referenceId\":" + quote(referenceName)
+                                    + ",\"start\":\"" + regionStart + "\",\"end\":\"" + (regionStart + regionSize)
+                                    + "\",\"pageSize\":" + pageSize + "}";
+
+                                long requestStart = System.nanoTime();
+                                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                                connection.setRequestMethod("POST");
+                                connection.setDoOutput(true);
+                                connection.setRequestProperty("Content-Type", "application/json");
+                                try (OutputStream outputStream = connection.getOutputStream()) {
+                                    outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+                                }
+                                if (connection.getResponseCode() != 200) {
+                                    errors.incrementAndGet();
+                                }
+                                InputStream inputStream = connection.getResponseCode() == 200 ? connection.getInputStream() : connection.getErrorStream();
+                                long bytes = 0L;
+                                if (inputStream != null) {
+                                    try (InputStream in = inputStream) {
+                                        int n;
+                                        while ((n = in.read(buffer)) != -1) {
+                                            bytes += n;
+                                        }
+                                    }
+                                }
+                                latencies[i] = System.nanoTime() - requestStart;
+                                responseBytes.addAndGet(bytes);
+                            }
+                            return null;
+                        }
+                    });
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        }
+        finally {
+            executorService.shutdown();
+            if (server != null) {
+                server.close();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1.0e9d;
+        Arrays.sort(latencies);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"url\": ").append(quote(url.toString())).append(",\n");
+        json.append("  \"concurrency\": ").append(concurrency).append(",\n");
+        json.append("  \"requests\": ").append(requests).append(",\n");
+        json.append("  \"errors\": ").append(errors.get()).append(",\n");
+        json.append("  \"pageSize\": ").append(pageSize).append(",\n");
+        json.append("  \"regionSize\": ").append(regionSize).append(",\n");
+        json.append("  \"responseBytes\": ").append(responseBytes.get()).append(",\n");
+        json.append("  \"elapsedSeconds\": ").append(format(elapsedSeconds)).append(",\n");
+        json.append("  \"requestsPerSecond\": ").append(format(requests / elapsedSeconds)).append(",\n");
+        json.append("  \"latencyMillis\": {\n");
+        json.append("    \"p50\": ").append(format(percentileMillis(latencies, 50.0d))).append(",\n");
+        json.append("    \"p90\": ").append(format(percentileMillis(latencies, 90.0d))).append(",\n");
+        json.append("    \"p99\": ").append(format(percentileMillis(latencies, 99.0d))).append(",\n");
+        json.append("    \"p999\": ").append(format(percentileMillis(latencies, 99.9d))).append(",\n");
+        json.append("    \"max\": ").append(format(percentileMillis(latencies, 100.0d))).append("\n");
+        json.append("  }\n");
+        json.append("}\n");
+
+        if (options.containsKey("json")) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(options.get("json")), StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        out.print(json);
+        out.flush();
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.protobuf.Message;
+
+import com.google.protobuf.util.JsonFormat;
+
+import ga4gh.Common.OntologyTerm;
+import ga4gh.Common.Position;
+
+import ga4gh.ReadServiceOuterClass.SearchReadsRequest;
+import ga4gh.ReadServiceOuterClass.SearchReadsResponse;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import ga4gh.SequenceAnnotationServiceOuterClass.SearchFeaturesRequest;
+import ga4gh.SequenceAnnotationServiceOuterClass.SearchFeaturesResponse;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for Ga4ghSearchServer.
+ */
+public final class Ga4ghSearchServerTest {
+    private Ga4ghSearchServer server;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static ReadAlignment aligned(final String fragmentName, final String referenceName, final long position, final long length) {
+        return ReadAlignment.newBuilder()
+            .setFragmentName(fragmentName)
+            .setReadGroupId("rg1")
+            .setAlignment(LinearAlignment.newBuilder()
+                          .setPosition(Position.newBuilder().setReferenceName(referenceName).setPosition(position))
+                          .addCigar(CigarUnit.newBuilder().setOperation(CigarUnit.Operation.ALIGNMENT_MATCH).setOperationLength(length)))
+            .build();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        File reads = temporaryFolder.newFile("reads.pb");
+        try (OutputStream outputStream = new FileOutputStream(reads)) {
+            for (int i = 0; i < 100; i++) {
+                aligned("read" + i, i < 50 ? "chr1" : "chr2", (i % 50) * 100L, 50L).writeDelimitedTo(outputStream);
+            }
+            ReadAlignment.newBuilder().setFragmentName("unmapped").setReadGroupId("rg1").build().writeDelimitedTo(outputStream);
+        }
+        File features = temporaryFolder.newFile("features.pb");
+        try (OutputStream outputStream = new FileOutputStream(features)) {
+            for (int i = 0; i < 10; i++) {
+                Feature.newBuilder()
+                    .setId("feature" + i)
+                    .setReferenceName("chr1")
+                    .setStart(i * 1000L)
+                    .setEnd(i * 1000L + 500L)
+                    .setFeatureType(OntologyTerm.newBuilder().setTermId(i % 2 == 0 ? "SO:0000704" : "SO:0000147"))
+                    .build()
+                    .writeDelimitedTo(outputStream);
+            }
+        }
+        server = new Ga4ghSearchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), reads, features, 2);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private URL url(final String path) throws IOException {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path).toURL();
+    }
+
+    private HttpURLConnection post(final String path, final String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url(path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private void post(final String path, final Message request, final Message.Builder response) throws IOException {
+        HttpURLConnection connection = post(path, JsonFormat.printer().print(request));
+        assertEquals(200, connection.getResponseCode());
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            JsonFormat.parser().merge(reader, response);
+        }
+    }
+
+    @Test
+    public void testSearchReadsRegion() throws IOException {
+        SearchReadsResponse.Builder response = SearchReadsResponse.newBuilder();
+        post("/reads/search", SearchReadsRequest.newBuilder().setReferenceId("chr2").setStart(1020L).setEnd(1300L).build(), response);
+        // reads at 1000, 1100, 1200 overlap [1020, 1300)
+        assertEquals(3, response.getAlignmentsCount());
+        assertEquals("read60", response.getAlignments(0).getFragmentName());
+        assertEquals("", response.getNextPageToken());
+    }
+
+    @Test
+    public void testSearchReadsUnmapped() throws IOException {
+        SearchReadsResponse.Builder response = SearchReadsResponse.newBuilder();
+        post("/reads/search", SearchReadsRequest.newBuilder().build(), response);
+        assertEquals(1, response.getAlignmentsCount());
+        assertEquals("unmapped", response.getAlignments(0).getFragmentName());
+    }
+
+    @Test
+    public void testSearchReadsPaged() throws IOException {
+        int count = 0;
+        int pages = 0;
+        String pageToken = "";
+        do {
+            SearchReadsResponse.Builder response = SearchReadsResponse.newBuilder();
+            post("/reads/search", SearchReadsRequest.newBuilder().setReferenceId("chr1").setPageSize(20).setPageToken(pageToken).build(), response);
+            count += response.getAlignmentsCount();
+            pageToken = response.getNextPageToken();
+            pages++;
+        }
+        while (!pageToken.isEmpty());
+
+        assertEquals(50, count);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void testSearchReadsReadGroupIds() throws IOException {
+        SearchReadsResponse.Builder response = SearchReadsResponse.newBuilder();
+        post("/reads/search", SearchReadsRequest.newBuilder().setReferenceId("chr1").addReadGroupIds("rg2").build(), response);
+        assertEquals(0, response.getAlignmentsCount());
+    }
+
+    @Test
+    public void testSearchFeatures() throws IOException {
+        SearchFeaturesResponse.Builder response = SearchFeaturesResponse.newBuilder();
+        post("/features/search", SearchFeaturesRequest.newBuilder()
+             .setReferenceName("chr1")
+             .setStart(0L)
+             .setEnd(5000L)
+             .addFeatureTypes("SO:0000704")
+             .build(), response);
+        assertEquals(3, response.getFeaturesCount());
+        assertEquals("feature0", response.getFeatures(0).getId());
+        assertEquals("feature4", response.getFeatures(2).getId());
+    }
+
+    @Test
+    public void testSearchReadsUnknownReference() throws IOException {
+        SearchReadsResponse.Builder response = SearchReadsResponse.newBuilder();
+        post("/reads/search", SearchReadsRequest.newBuilder().setReferenceId("chr3").build(), response);
+        assertEquals(0, response.getAlignmentsCount());
+        assertEquals("", response.getNextPageToken());
+    }
+
+    @Test
+    public void testSearchReadsInvalidRegion() throws IOException {
+        assertEquals(400, post("/reads/search", "{\"referenceId\":\"chr1\",\"start\":\"200\",\"end\":\"100\"}").getResponseCode());
+    }
+
+    @Test
+    public void testReadError() throws IOException {
+        assertTrue(new File(temporaryFolder.getRoot(), "reads.pb").delete());
+        assertEquals(500, post("/reads/search", "{}").getResponseCode());
+    }
+
+    @Test
+    public void testMalformedRequest() throws IOException {
+        assertEquals(400, post("/reads/search", "{not json").getResponseCode());
+    }
+
+    @Test
+    public void testInvalidPageToken() throws IOException {
+        assertEquals(400, post("/reads/search", "{\"pageToken\":\"not a token!\"}").getResponseCode());
+    }
+
+    @Test
+    public void testMethodNotAllowed() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url("/reads/search").openConnection();
+        assertEquals(405, connection.getResponseCode());
+    }
+
+    @Test
+    public void testPageSize() {
+        assertEquals(Ga4ghSearchServer.DEFAULT_PAGE_SIZE, Ga4ghSearchServer.pageSize(0));
+        assertEquals(10, Ga4ghSearchServer.pageSize(10));
+        assertEquals(Ga4ghSearchServer.MAX_PAGE_SIZE, Ga4ghSearchServer.pageSize(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testReferenceEnd() {
+        assertEquals(150L, Ga4ghSearchServer.referenceEnd(aligned("read", "chr1", 100L, 50L)));
+        assertTrue(Ga4ghSearchServer.filter(SearchReadsRequest.newBuilder().setReferenceId("chr1").setStart(149L).build()).test(aligned("read", "chr1", 100L, 50L)));
+        assertFalse(Ga4ghSearchServer.filter(SearchReadsRequest.newBuilder().setReferenceId("chr1").setStart(150L).build()).test(aligned("read", "chr1", 100L, 50L)));
+    }
+}
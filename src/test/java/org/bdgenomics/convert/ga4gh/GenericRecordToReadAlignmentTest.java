@@ -0,0 +1,195 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.CigarUnit.Operation;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarOperator;
+
+import org.apache.avro.generic.GenericRecord;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.apache.avro.util.Utf8;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for GenericRecordToReadAlignment.
+ */
+public final class GenericRecordToReadAlignmentTest {
+    private final Logger logger = LoggerFactory.getLogger(GenericRecordToReadAlignmentTest.class);
+    private Converter<CigarOperator, Operation> operatorConverter;
+    private Converter<Cigar, List<CigarUnit>> cigarConverter;
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private Converter<GenericRecord, ReadAlignment> genericConverter;
+
+    private AlignmentRecord.Builder alignmentBuilder;
+
+    @Before
+    public void setUp() {
+        operatorConverter = new CigarOperatorToOperation();
+        cigarConverter = new CigarToCigarUnits(operatorConverter);
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        genericConverter = new GenericRecordToReadAlignment(cigarConverter);
+
+        alignmentBuilder = AlignmentRecord.newBuilder()
+            .setReadName("read0")
+            .setStart(10L)
+            .setReadMapped(true)
+            .setCigar("10M")
+            .setSequence("AAAAAAAAAA")
+            .setQual("**********")
+            .setReadNegativeStrand(false)
+            .setMapq(60)
+            .setRecordGroupName("rg1")
+            .setContigName("myCtg")
+            .setProperPair(true)
+            .setDuplicateRead(false)
+            .setFailedVendorQualityChecks(false)
+            .setSecondaryAlignment(false)
+            .setSupplementaryAlignment(false)
+            .setMateContigName("myCtg")
+            .setMateNegativeStrand(false)
+            .setMateAlignmentStart(100L)
+            .setMateMapped(true)
+            .setReadPaired(true)
+            .setInferredInsertSize(200L);
+    }
+
+    private static GenericRecord roundTrip(final AlignmentRecord alignmentRecord) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class).write(alignmentRecord, encoder);
+        encoder.flush();
+        return new Utf8DatumReader().read(null, DecoderFactory.get().binaryDecoder(outputStream.toByteArray(), null));
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(genericConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullCigarConverter() {
+        new GenericRecordToReadAlignment(null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        genericConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(genericConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(genericConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testUtf8DatumReader() throws Exception {
+        GenericRecord record = roundTrip(alignmentBuilder.build());
+        assertTrue(record.get("sequence") instanceof Utf8);
+        assertTrue(record.get("readName") instanceof Utf8);
+        assertTrue(record.get("contigName") instanceof Utf8);
+    }
+
+    @Test
+    public void testConvert() throws Exception {
+        AlignmentRecord alignment = alignmentBuilder.build();
+        ReadAlignment expected = alignmentConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        ReadAlignment readAlignment = genericConverter.convert(roundTrip(alignment), ConversionStringency.STRICT, logger);
+        assertEquals(expected, readAlignment);
+        assertEquals("AAAAAAAAAA", readAlignment.getAlignedSequence());
+        assertEquals("read0", readAlignment.getFragmentName());
+        assertEquals("myCtg", readAlignment.getAlignment().getPosition().getReferenceName());
+    }
+
+    @Test
+    public void testConvertSerializedBytes() throws Exception {
+        AlignmentRecord alignment = alignmentBuilder.build();
+        ReadAlignment expected = alignmentConverter.convert(alignment, ConversionStringency.STRICT, logger);
+        ReadAlignment readAlignment = genericConverter.convert(roundTrip(alignment), ConversionStringency.STRICT, logger);
+        assertEquals(expected.toByteString(), readAlignment.toByteString());
+    }
+
+    @Test
+    public void testConvertMissingRecordGroup() throws Exception {
+        AlignmentRecord missingRecordGroup = alignmentBuilder.clearRecordGroupName().build();
+        ReadAlignment readAlignment = genericConverter.convert(roundTrip(missingRecordGroup), ConversionStringency.STRICT, logger);
+        assertEquals("1", readAlignment.getReadGroupId());
+    }
+
+    @Test
+    public void testConvertUnalignedRead() throws Exception {
+        AlignmentRecord unalignedRead = alignmentBuilder
+            .setReadMapped(false)
+            .clearContigName()
+            .clearStart()
+            .clearCigar()
+            .build();
+        ReadAlignment expected = alignmentConverter.convert(unalignedRead, ConversionStringency.STRICT, logger);
+        ReadAlignment readAlignment = genericConverter.convert(roundTrip(unalignedRead), ConversionStringency.STRICT, logger);
+        assertEquals(expected, readAlignment);
+        assertEquals(0, readAlignment.getAlignment().getCigarCount());
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertIllegalCigarStrict() throws Exception {
+        AlignmentRecord illegalCigar = alignmentBuilder.setCigar("10").build();
+        genericConverter.convert(roundTrip(illegalCigar), ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertIllegalCigarSilent() throws Exception {
+        AlignmentRecord illegalCigar = alignmentBuilder.setCigar("10").build();
+        ReadAlignment readAlignment = genericConverter.convert(roundTrip(illegalCigar), ConversionStringency.SILENT, logger);
+        assertEquals(0, readAlignment.getAlignment().getCigarCount());
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import ga4gh.Reads.ReadAlignment;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calibrate the ReadAlignment, AlignmentRecord, and Feature heap footprint estimators for the running JVM.
+ *
+ * <p>
+ * Generates and retains batches of short and long reads, then converts and retains
+ * them, measures the growth in used heap per retained source record and per retained
+ * message after garbage collection, and fits the per-record overhead and heap bytes per
+ * serialized ReadAlignment byte through the two points for each.  Features are measured
+ * the same way, with short and long feature types.  Run with a fixed heap
+ * (e.g. <code>-Xms2g -Xmx2g</code>) for stable measurements.
+ * </p>
+ *
+ * <pre>
+ * usage: HeapFootprintCalibration [--records n] [--short-read-length n] [--long-read-length n]
+ *                                 [--long-feature-type-length n] [--seed n] [--json results.json]
+ * </pre>
+ */
+public final class HeapFootprintCalibration {
+    private static final Logger logger = LoggerFactory.getLogger(HeapFootprintCalibration.class);
+
+
+    private static Map<String, String> parseArgs(final String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("invalid argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static String option(final Map<String, String> options, final String name, final String defaultValue) {
+        return options.containsKey(name) ? options.get(name) : defaultValue;
+    }
+
+    private static String format(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100L);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Return a copy of the specified string that does not share its characters, as a string read from a file would not.
+     */
+    private static String copy(final String value) {
+        return new String(value.toCharArray());
+    }
+
+    /**
+     * Measure the mean serialized size, mean heap footprint per message, and mean heap footprint
+     * per source record, in that order, of the specified number of converted reads of the specified length.
+     * Messages are measured once their source records are released, so that strings shared with
+     * the source records are counted in the message footprint.
+     */
+    private static double[] measure(final int records, final int readLength, final long seed) throws Exception {
+        AlignmentRecordToReadAlignment converter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+        List<AlignmentRecord> alignmentRecords = new ArrayList<AlignmentRecord>(records);
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(seed).withReadLength(readLength, readLength).iterator(records);
+
+        long start = usedHeapAfterGc();
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>(records);
+
+        long before = usedHeapAfterGc();
+        long serializedBytes = 0L;
+        // no iterator, which would keep the released source records reachable
+        for (int i = 0; i < records; i++) {
+            ReadAlignment readAlignment = converter.convert(alignmentRecords.get(i), ConversionStringency.LENIENT, logger);
+            serializedBytes += readAlignment.getSerializedSize();
+            readAlignments.add(readAlignment);
+        }
+        alignmentRecords = null;
+        long after = usedHeapAfterGc();
+
+        double[] result = new double[] { serializedBytes / (double) records, (after - start) / (double) readAlignments.size(),
+                                         (before - start) / (double) records };
+        logger.info("read length {}: {} serialized bytes, {} heap bytes per message, {} heap bytes per source record",
+                    readLength, format(result[0]), format(result[1]), format(result[2]));
+        return result;
+    }
+
+    /**
+     * Measure the mean serialized size and mean heap footprint per message, in that order, of the
+     * specified number of converted features with feature types of the specified length, or the
+     * default feature types if zero.  Each feature has its own copy of its strings, and messages
+     * are measured once their source features are released.
+     */
+    private static double[] measureFeatures(final int records, final int featureTypeLength, final long seed) throws Exception {
+        Converter<org.bdgenomics.formats.avro.Feature, Feature> converter = new BdgenomicsFeatureToGa4ghFeature(new StringToOntologyTerm(), new BdgenomicsStrandToGa4ghStrand());
+        StringBuilder featureType = new StringBuilder(featureTypeLength);
+        for (int i = 0; i < featureTypeLength; i++) {
+            featureType.append((char) ('a' + i % 26));
+        }
+        List<org.bdgenomics.formats.avro.Feature> bdgFeatures = new ArrayList<org.bdgenomics.formats.avro.Feature>(records);
+        Iterator<org.bdgenomics.formats.avro.Feature> iterator = new FeatureGenerator(seed).iterator(records);
+
+        long start = usedHeapAfterGc();
+        while (iterator.hasNext()) {
+            org.bdgenomics.formats.avro.Feature bdgFeature = iterator.next();
+            bdgFeature.setContigName(copy(bdgFeature.getContigName()));
+            bdgFeature.setFeatureType(featureTypeLength > 0 ? featureType.toString() : copy(bdgFeature.getFeatureType()));
+            bdgFeatures.add(bdgFeature);
+        }
+        List<Feature> features = new ArrayList<Feature>(records);
+
+        long serializedBytes = 0L;
+        for (int i = 0; i < records; i++) {
+            Feature feature = converter.convert(bdgFeatures.get(i), ConversionStringency.LENIENT, logger);
+            serializedBytes += feature.getSerializedSize();
+            features.add(feature);
+        }
+        bdgFeatures = null;
+        long after = usedHeapAfterGc();
+
+        double[] result = new double[] { serializedBytes / (double) records, (after - start) / (double) features.size() };
+        logger.info("feature type length {}: {} serialized bytes, {} heap bytes per message",
+                    featureTypeLength, format(result[0]), format(result[1]));
+        return result;
+    }
+
+    /**
+     * Main.
+     *
+     * @param args command line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int records = Integer.parseInt(option(options, "records", "20000"));
+        int shortReadLength = Integer.parseInt(option(options, "short-read-length", "150"));
+        int longReadLength = Integer.parseInt(option(options, "long-read-length", "10000"));
+        int longFeatureTypeLength = Integer.parseInt(option(options, "long-feature-type-length", "1000"));
+        long seed = Long.parseLong(option(options, "seed", "42"));
+
+        double[] shortReads = measure(records, shortReadLength, seed);
+        double[] longReads = measure(Math.max(1, records * shortReadLength / longReadLength), longReadLength, seed);
+
+        double bytesFactor = (longReads[1] - shortReads[1]) / (longReads[0] - shortReads[0]);
+        long messageOverhead = Math.max(0L, Math.round(shortReads[1] - bytesFactor * shortReads[0]));
+        HeapFootprint footprint = new HeapFootprint(messageOverhead, bytesFactor);
+        logger.info("calibrated ReadAlignment {}, default {}", footprint, HeapFootprint.readAlignment());
+
+        double sourceBytesFactor = (longReads[2] - shortReads[2]) / (longReads[0] - shortReads[0]);
+        long sourceOverhead = Math.max(0L, Math.round(shortReads[2] - sourceBytesFactor * shortReads[0]));
+        HeapFootprint sourceFootprint = new HeapFootprint(sourceOverhead, sourceBytesFactor);
+        logger.info("calibrated AlignmentRecord {}, default {}", sourceFootprint, HeapFootprint.alignmentRecord());
+
+        double[] shortFeatures = measureFeatures(records, 0, seed);
+        double[] longFeatures = measureFeatures(records, longFeatureTypeLength, seed);
+        double featureBytesFactor = (longFeatures[1] - shortFeatures[1]) / (longFeatures[0] - shortFeatures[0]);
+        long featureOverhead = Math.max(0L, Math.round(shortFeatures[1] - featureBytesFactor * shortFeatures[0]));
+        HeapFootprint featureFootprint = new HeapFootprint(featureOverhead, featureBytesFactor);
+        logger.info("calibrated Feature {}, default {}", featureFootprint, HeapFootprint.feature());
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"records\": ").append(records).append(",\n");
+        json.append("  \"shortReadLength\": ").append(shortReadLength).append(",\n");
+        json.append("  \"longReadLength\": ").append(longReadLength).append(",\n");
+        json.append("  \"shortSerializedBytes\": ").append(format(shortReads[0])).append(",\n");
+        json.append("  \"shortHeapBytes\": ").append(format(shortReads[1])).append(",\n");
+        json.append("  \"shortSourceHeapBytes\": ").append(format(shortReads[2])).append(",\n");
+        json.append("  \"longSerializedBytes\": ").append(format(longReads[0])).append(",\n");
+        json.append("  \"longHeapBytes\": ").append(format(longReads[1])).append(",\n");
+        json.append("  \"longSourceHeapBytes\": ").append(format(longReads[2])).append(",\n");
+        json.append("  \"messageOverhead\": ").append(messageOverhead).append(",\n");
+        json.append("  \"bytesFactor\": ").append(format(bytesFactor)).append(",\n");
+        json.append("  \"sourceOverhead\": ").append(sourceOverhead).append(",\n");
+        json.append("  \"sourceBytesFactor\": ").append(format(sourceBytesFactor)).append(",\n");
+        json.append("  \"longFeatureTypeLength\": ").append(longFeatureTypeLength).append(",\n");
+        json.append("  \"shortFeatureSerializedBytes\": ").append(format(shortFeatures[0])).append(",\n");
+        json.append("  \"shortFeatureHeapBytes\": ").append(format(shortFeatures[1])).append(",\n");
+        json.append("  \"longFeatureSerializedBytes\": ").append(format(longFeatures[0])).append(",\n");
+        json.append("  \"longFeatureHeapBytes\": ").append(format(longFeatures[1])).append(",\n");
+        json.append("  \"featureOverhead\": ").append(featureOverhead).append(",\n");
+        json.append("  \"featureBytesFactor\": ").append(format(featureBytesFactor)).append("\n");
+        json.append("}\n");
+
+        if (options.containsKey("json")) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(options.get("json")), StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        out.print(json);
+        out.flush();
+    }
+}
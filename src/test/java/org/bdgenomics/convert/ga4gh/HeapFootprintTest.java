@@ -0,0 +1,204 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.ReadAlignment;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+import org.bdgenomics.convert.ConversionStringency;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for HeapFootprint.
+ */
+public final class HeapFootprintTest {
+    private final Logger logger = LoggerFactory.getLogger(HeapFootprintTest.class);
+    private AlignmentRecordToReadAlignment converter;
+
+    @Before
+    public void setUp() {
+        converter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+    }
+
+    /**
+     * Return a lower bound on the heap footprint of the specified serialized read alignment: an object
+     * header per message, a byte per character of its strings, and four bytes per quality score.
+     */
+    private static long lowerBound(final ReadAlignment readAlignment) {
+        long objects = 3L + readAlignment.getAlignment().getCigarCount();
+        return 16L * objects + readAlignment.getFragmentName().length() + readAlignment.getAlignedSequence().length()
+            + 4L * readAlignment.getAlignedQualityCount();
+    }
+
+    /**
+     * Return a lower bound on the heap footprint of the specified alignment record: an object header
+     * for the record and each of its strings, and the specified bytes per character of its strings.
+     */
+    private static long lowerBound(final AlignmentRecord alignmentRecord, final int bytesPerChar) {
+        long chars = alignmentRecord.getReadName().length() + alignmentRecord.getSequence().length() + alignmentRecord.getQual().length();
+        return 16L * 4L + bytesPerChar * chars;
+    }
+
+    /**
+     * Return a lower bound on the heap footprint of the specified serialized feature: an object header
+     * per message and a byte per character of its strings.
+     */
+    private static long lowerBound(final Feature feature) {
+        return 16L * 2L + feature.getReferenceName().length() + feature.getFeatureType().getTermId().length();
+    }
+
+    private List<ReadAlignment> convert(final int records, final int readLength) {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>(records);
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).withReadLength(readLength, readLength).iterator(records);
+        while (iterator.hasNext()) {
+            readAlignments.add(converter.convert(iterator.next(), ConversionStringency.STRICT, logger));
+        }
+        return readAlignments;
+    }
+
+    @Test
+    public void testConstructor() {
+        HeapFootprint footprint = new HeapFootprint(100L, 2.5d);
+        assertEquals(100L, footprint.getMessageOverhead());
+        assertEquals(2.5d, footprint.getBytesFactor(), 0.0d);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNegativeMessageOverhead() {
+        new HeapFootprint(-1L, 2.5d);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNegativeBytesFactor() {
+        new HeapFootprint(100L, -1.0d);
+    }
+
+    @Test
+    public void testDefaults() {
+        assertNotNull(HeapFootprint.readAlignment());
+        assertNotNull(HeapFootprint.alignmentRecord());
+        assertNotNull(HeapFootprint.feature());
+    }
+
+    @Test
+    public void testCompactStrings() {
+        if (System.getProperty("java.specification.version").startsWith("1.")) {
+            assertFalse(HeapFootprint.compactStrings());
+        }
+        assertSame(HeapFootprint.alignmentRecord(HeapFootprint.compactStrings()), HeapFootprint.alignmentRecord());
+    }
+
+    @Test
+    public void testEstimateSerializedSize() {
+        HeapFootprint footprint = new HeapFootprint(100L, 2.5d);
+        assertEquals(100L, footprint.estimate(0));
+        assertEquals(350L, footprint.estimate(100));
+        assertEquals(103L, footprint.estimate(1));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testEstimateNegativeSerializedSize() {
+        new HeapFootprint(100L, 2.5d).estimate(-1);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testEstimateNullMessage() {
+        HeapFootprint.readAlignment().estimate((ReadAlignment) null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testEstimateNullMessages() {
+        HeapFootprint.readAlignment().estimate((Iterable<ReadAlignment>) null);
+    }
+
+    @Test
+    public void testEstimateMessage() {
+        HeapFootprint footprint = HeapFootprint.readAlignment();
+        ReadAlignment readAlignment = convert(1, 150).get(0);
+        assertEquals(footprint.estimate(readAlignment.getSerializedSize()), footprint.estimate(readAlignment));
+    }
+
+    @Test
+    public void testEstimateMessages() {
+        HeapFootprint footprint = HeapFootprint.readAlignment();
+        List<ReadAlignment> readAlignments = convert(10, 150);
+        long bytes = 0L;
+        for (ReadAlignment readAlignment : readAlignments) {
+            bytes += footprint.estimate(readAlignment);
+        }
+        assertEquals(bytes, footprint.estimate(readAlignments));
+    }
+
+    @Test
+    public void testEstimateScalesWithReadLength() {
+        HeapFootprint footprint = HeapFootprint.readAlignment();
+        long shortReads = footprint.estimate(convert(100, 150));
+        long longReads = footprint.estimate(convert(100, 15000));
+        assertTrue(longReads > 10L * shortReads);
+    }
+
+    @Test
+    public void testReadAlignmentEstimateLowerBound() {
+        for (int readLength : new int[] { 150, 15000 }) {
+            for (ReadAlignment readAlignment : convert(10, readLength)) {
+                assertTrue(HeapFootprint.readAlignment().estimate(readAlignment) >= lowerBound(readAlignment));
+            }
+        }
+    }
+
+    @Test
+    public void testAlignmentRecordEstimateLowerBound() {
+        for (int readLength : new int[] { 150, 15000 }) {
+            Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).withReadLength(readLength, readLength).iterator(10);
+            while (iterator.hasNext()) {
+                AlignmentRecord alignmentRecord = iterator.next();
+                ReadAlignment readAlignment = converter.convert(alignmentRecord, ConversionStringency.STRICT, logger);
+                assertTrue(HeapFootprint.alignmentRecord(false).estimate(readAlignment) >= lowerBound(alignmentRecord, 2));
+                assertTrue(HeapFootprint.alignmentRecord(true).estimate(readAlignment) >= lowerBound(alignmentRecord, 1));
+            }
+        }
+    }
+
+    @Test
+    public void testFeatureEstimateLowerBound() {
+        BdgenomicsFeatureToGa4ghFeature featureConverter = new BdgenomicsFeatureToGa4ghFeature(new StringToOntologyTerm(), new BdgenomicsStrandToGa4ghStrand());
+        Iterator<org.bdgenomics.formats.avro.Feature> iterator = new FeatureGenerator(42L).withFeatureTypes("gene", "SO:0000704").iterator(10);
+        while (iterator.hasNext()) {
+            Feature feature = featureConverter.convert(iterator.next(), ConversionStringency.STRICT, logger);
+            assertTrue(HeapFootprint.feature().estimate(feature) >= lowerBound(feature));
+        }
+    }
+}
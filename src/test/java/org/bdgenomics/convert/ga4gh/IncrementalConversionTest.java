@@ -0,0 +1,270 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for IncrementalConversion.
+ */
+public final class IncrementalConversionTest {
+    private final Logger logger = LoggerFactory.getLogger(IncrementalConversionTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private List<AlignmentRecord> alignmentRecords;
+    private File input;
+    private File output;
+    private File manifestFile;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).iterator(3000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+        input = new File(temporaryFolder.getRoot(), "input.avro");
+        output = new File(temporaryFolder.getRoot(), "output.pb");
+        manifestFile = new File(temporaryFolder.getRoot(), "output.manifest");
+    }
+
+    private void write(final List<AlignmentRecord> records) throws IOException {
+        try (DataFileWriter<AlignmentRecord> writer = new DataFileWriter<AlignmentRecord>(new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class))) {
+            writer.setCodec(CodecFactory.deflateCodec(6));
+            writer.setSyncInterval(16 * 1024);
+            writer.create(AlignmentRecord.getClassSchema(), input);
+            for (AlignmentRecord record : records) {
+                writer.append(record);
+            }
+        }
+    }
+
+    private IncrementalConversion<AlignmentRecord, ReadAlignment> conversion(final ConversionStringency stringency) {
+        return new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, stringency, logger, 2, "none");
+    }
+
+    private byte[] expected() throws Exception {
+        File expected = new File(temporaryFolder.getRoot(), "expected.pb");
+        new CheckpointedConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 1, 100, 1000000L)
+            .run(input, expected, new File(temporaryFolder.getRoot(), "expected.checkpoint"));
+        return Files.readAllBytes(expected.toPath());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullRecordClass() {
+        new IncrementalConversion<AlignmentRecord, ReadAlignment>(null, alignmentConverter, ConversionStringency.SILENT, logger, 2, "none");
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, null, ConversionStringency.SILENT, logger, 2, "none");
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullFingerprint() {
+        new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 2, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 0, "none");
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        write(alignmentRecords);
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertEquals(3000L, statistics.getRecords());
+        assertEquals(output.length(), statistics.getOutputBytes());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+
+        IncrementalConversion.Manifest manifest = IncrementalConversion.Manifest.read(manifestFile);
+        assertTrue(manifest.getEntries().size() > 1);
+        long records = 0L;
+        long offset = 0L;
+        for (IncrementalConversion.Manifest.Entry entry : manifest.getEntries()) {
+            assertEquals(offset, entry.getOutputOffset());
+            records += entry.getRecords();
+            offset += entry.getOutputLength();
+        }
+        assertEquals(3000L, records);
+        assertEquals(output.length(), offset);
+        assertFalse(new File(output.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testRunSingleThread() throws Exception {
+        write(alignmentRecords);
+        new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 1, "none")
+            .run(input, output, manifestFile);
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunUnchanged() throws Exception {
+        write(alignmentRecords);
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        byte[] first = Files.readAllBytes(output.toPath());
+
+        // rewrite the same records, with a new sync marker
+        write(alignmentRecords);
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertEquals(0L, statistics.getConvertNanos());
+        assertEquals(3000L, statistics.getRecords());
+        assertArrayEquals(first, Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunAppended() throws Exception {
+        write(alignmentRecords.subList(0, 2000));
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        int previousEntries = IncrementalConversion.Manifest.read(manifestFile).getEntries().size();
+
+        write(alignmentRecords);
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertEquals(3000L, statistics.getRecords());
+        assertTrue(IncrementalConversion.Manifest.read(manifestFile).getEntries().size() > previousEntries);
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunRewritten() throws Exception {
+        write(alignmentRecords);
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+
+        List<AlignmentRecord> rewritten = new ArrayList<AlignmentRecord>(alignmentRecords);
+        rewritten.set(1500, AlignmentRecord.newBuilder(rewritten.get(1500)).setReadName("rewritten").build());
+        rewritten.subList(2500, 2600).clear();
+        write(rewritten);
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertEquals(2900L, statistics.getRecords());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunCorruptedOutput() throws Exception {
+        write(alignmentRecords);
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        byte[] first = Files.readAllBytes(output.toPath());
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.seek(10L);
+            file.write(~first[10]);
+        }
+        ConversionStatistics statistics = conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertNotEquals(0L, statistics.getConvertNanos());
+        assertArrayEquals(first, Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunChangedStringency() throws Exception {
+        write(alignmentRecords);
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        String key = IncrementalConversion.Manifest.read(manifestFile).getKey();
+
+        ConversionStatistics statistics = conversion(ConversionStringency.LENIENT).run(input, output, manifestFile);
+        assertNotEquals(0L, statistics.getConvertNanos());
+        assertNotEquals(key, IncrementalConversion.Manifest.read(manifestFile).getKey());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testKeyFingerprint() {
+        IncrementalConversion<AlignmentRecord, ReadAlignment> none = new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 2, "none");
+        IncrementalConversion<AlignmentRecord, ReadAlignment> illumina8 = new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 2, QualityScoreBinning.illumina8().getFingerprint());
+        assertEquals(none.key(AlignmentRecord.getClassSchema(), "deflate"), none.key(AlignmentRecord.getClassSchema(), "deflate"));
+        assertNotEquals(none.key(AlignmentRecord.getClassSchema(), "deflate"), illumina8.key(AlignmentRecord.getClassSchema(), "deflate"));
+    }
+
+    @Test
+    public void testRunChangedFingerprint() throws Exception {
+        write(alignmentRecords);
+        new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, alignmentConverter, ConversionStringency.SILENT, logger, 2, "none")
+            .run(input, output, manifestFile);
+        String key = IncrementalConversion.Manifest.read(manifestFile).getKey();
+
+        // same converter class and stringency, different quality score binning
+        Converter<AlignmentRecord, ReadAlignment> binningConverter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()), QualityScoreBinning.illumina8());
+        ConversionStatistics statistics = new IncrementalConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, binningConverter, ConversionStringency.SILENT, logger, 2, QualityScoreBinning.illumina8().getFingerprint())
+            .run(input, output, manifestFile);
+        assertNotEquals(0L, statistics.getConvertNanos());
+        assertNotEquals(key, IncrementalConversion.Manifest.read(manifestFile).getKey());
+
+        File expected = new File(temporaryFolder.getRoot(), "expected.pb");
+        new CheckpointedConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, binningConverter, ConversionStringency.SILENT, logger, 1, 100, 1000000L)
+            .run(input, expected, new File(temporaryFolder.getRoot(), "expected.checkpoint"));
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunMissingOutput() throws Exception {
+        write(alignmentRecords);
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertTrue(output.delete());
+        conversion(ConversionStringency.SILENT).run(input, output, manifestFile);
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test(expected=IOException.class)
+    public void testReadInvalidManifest() throws Exception {
+        Files.write(manifestFile.toPath(), "not a manifest\n".getBytes("UTF-8"));
+        IncrementalConversion.Manifest.read(manifestFile);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+
+import com.google.protobuf.util.JsonFormat;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.CigarUnit.Operation;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for JsonReaderToAlignmentRecord.
+ */
+public final class JsonReaderToAlignmentRecordTest {
+    private final Logger logger = LoggerFactory.getLogger(JsonReaderToAlignmentRecordTest.class);
+    private Converter<Operation, CigarOperator> operationConverter;
+    private Converter<JsonReader, AlignmentRecord> jsonConverter;
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+
+    @Before
+    public void setUp() {
+        operationConverter = new OperationToCigarOperator();
+        jsonConverter = new JsonReaderToAlignmentRecord(operationConverter);
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+    }
+
+    private static JsonReader reader(final String json) {
+        return new JsonReader(new StringReader(json));
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(jsonConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOperationConverter() {
+        new JsonReaderToAlignmentRecord(null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        jsonConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(jsonConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(jsonConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNotObjectStrict() {
+        jsonConverter.convert(reader("[]"), ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNotObjectLenient() {
+        assertNull(jsonConverter.convert(reader("[]"), ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvert() {
+        String json = "{\"readGroupId\": \"rg1\", \"fragment_name\": \"read0\", \"numberReads\": 2, \"readNumber\": 1,"
+            + " \"alignment\": {\"position\": {\"referenceName\": \"chr1\", \"position\": \"100\", \"strand\": \"NEG_STRAND\"},"
+            + " \"mappingQuality\": 60, \"cigar\": [{\"operation\": \"ALIGNMENT_MATCH\", \"operationLength\": \"4\"},"
+            + " {\"operation\": \"DELETE\", \"operationLength\": \"2\"}]},"
+            + " \"alignedSequence\": \"ACGT\", \"alignedQuality\": [0, 10, 20, 30], \"unknown\": {\"a\": [1, 2]}}";
+
+        AlignmentRecord alignmentRecord = jsonConverter.convert(reader(json), ConversionStringency.STRICT, logger);
+        assertEquals("rg1", alignmentRecord.getRecordGroupName());
+        assertEquals("read0", alignmentRecord.getReadName());
+        assertEquals(Boolean.TRUE, alignmentRecord.getReadPaired());
+        assertEquals(Integer.valueOf(1), alignmentRecord.getReadInFragment());
+        assertEquals(Boolean.TRUE, alignmentRecord.getReadMapped());
+        assertEquals("chr1", alignmentRecord.getContigName());
+        assertEquals(Long.valueOf(100L), alignmentRecord.getStart());
+        assertEquals(Long.valueOf(106L), alignmentRecord.getEnd());
+        assertEquals(Boolean.TRUE, alignmentRecord.getReadNegativeStrand());
+        assertEquals(Integer.valueOf(60), alignmentRecord.getMapq());
+        assertEquals("4M2D", alignmentRecord.getCigar());
+        assertEquals("ACGT", alignmentRecord.getSequence());
+        assertEquals("!+5?", alignmentRecord.getQual());
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertMalformedFieldStrict() {
+        jsonConverter.convert(reader("{\"fragmentName\": \"read0\", \"numberReads\": \"two\"}"), ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertMalformedFieldLenient() {
+        JsonReader reader = reader("{\"fragmentName\": \"read0\", \"numberReads\": \"two\", \"alignedQuality\": [1, \"x\", 3]} {\"fragmentName\": \"read1\"}");
+        reader.setLenient(true);
+        AlignmentRecord alignmentRecord = jsonConverter.convert(reader, ConversionStringency.LENIENT, logger);
+        assertEquals("read0", alignmentRecord.getReadName());
+        assertEquals("read1", jsonConverter.convert(reader, ConversionStringency.LENIENT, logger).getReadName());
+    }
+
+    @Test
+    public void testConvertRoundTrip() throws Exception {
+        JsonFormat.Printer printer = JsonFormat.printer();
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L)
+            .withReadLength(50, 250)
+            .withCigarComplexity(1.0d, 0.1d)
+            .withUnmappedRate(0.1d);
+
+        for (int i = 0; i < 1000; i++) {
+            ReadAlignment expected = alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger);
+            AlignmentRecord alignmentRecord = jsonConverter.convert(reader(printer.print(expected)), ConversionStringency.STRICT, logger);
+            assertEquals(expected, alignmentConverter.convert(alignmentRecord, ConversionStringency.STRICT, logger));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+
+import com.google.protobuf.util.JsonFormat;
+
+import ga4gh.SequenceAnnotations.Feature;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.Strand;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for JsonReaderToFeature.
+ */
+public final class JsonReaderToFeatureTest {
+    private final Logger logger = LoggerFactory.getLogger(JsonReaderToFeatureTest.class);
+    private Converter<ga4gh.Common.Strand, Strand> strandConverter;
+    private Converter<JsonReader, org.bdgenomics.formats.avro.Feature> jsonConverter;
+
+    @Before
+    public void setUp() {
+        strandConverter = new Ga4ghStrandToBdgenomicsStrand();
+        jsonConverter = new JsonReaderToFeature(strandConverter);
+    }
+
+    private static JsonReader reader(final String json) {
+        return new JsonReader(new StringReader(json));
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(jsonConverter);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullStrandConverter() {
+        new JsonReaderToFeature(null);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        jsonConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(jsonConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(jsonConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testConvert() {
+        String json = "{\"id\": \"feature1\", \"reference_name\": \"chr1\", \"start\": \"100\", \"end\": \"200\","
+            + " \"strand\": \"POS_STRAND\", \"featureType\": {\"termId\": \"SO:0000704\", \"term\": \"gene\"}, \"attributes\": {}}";
+
+        org.bdgenomics.formats.avro.Feature feature = jsonConverter.convert(reader(json), ConversionStringency.STRICT, logger);
+        assertEquals("feature1", feature.getFeatureId());
+        assertEquals("chr1", feature.getContigName());
+        assertEquals(Long.valueOf(100L), feature.getStart());
+        assertEquals(Long.valueOf(200L), feature.getEnd());
+        assertEquals(Strand.FORWARD, feature.getStrand());
+        assertEquals("SO:0000704", feature.getFeatureType());
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertMalformedStrandStrict() {
+        jsonConverter.convert(reader("{\"start\": \"100\", \"strand\": \"SIDEWAYS\"}"), ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertMalformedFieldLenient() {
+        org.bdgenomics.formats.avro.Feature feature = jsonConverter.convert(reader("{\"start\": \"one\", \"end\": \"200\"}"), ConversionStringency.LENIENT, logger);
+        assertNull(feature.getStart());
+        assertEquals(Long.valueOf(200L), feature.getEnd());
+    }
+
+    @Test
+    public void testConvertRoundTrip() throws Exception {
+        JsonFormat.Printer printer = JsonFormat.printer();
+        Converter<org.bdgenomics.formats.avro.Feature, Feature> featureConverter = new BdgenomicsFeatureToGa4ghFeature(new StringToOntologyTerm(), new BdgenomicsStrandToGa4ghStrand());
+        FeatureGenerator generator = new FeatureGenerator(42L);
+
+        for (int i = 0; i < 1000; i++) {
+            org.bdgenomics.formats.avro.Feature expected = generator.next();
+            Feature feature = featureConverter.convert(expected, ConversionStringency.STRICT, logger);
+            org.bdgenomics.formats.avro.Feature actual = jsonConverter.convert(reader(printer.print(feature)), ConversionStringency.STRICT, logger);
+            assertEquals(feature, featureConverter.convert(actual, ConversionStringency.STRICT, logger));
+        }
+    }
+}
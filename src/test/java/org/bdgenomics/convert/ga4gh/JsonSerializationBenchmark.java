@@ -0,0 +1,127 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.util.JsonFormat;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for binary, JsonFormat, and Ga4ghJsonWriter serialization of ReadAlignments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    private final Logger logger = LoggerFactory.getLogger(JsonSerializationBenchmark.class);
+    private final JsonFormat.Printer printer = JsonFormat.printer();
+    private ReadAlignment[] readAlignments;
+    private ByteArrayOutputStream outputStream;
+
+    @Param({"150", "20000"})
+    public int readLength;
+
+    @Param({"256"})
+    public int records;
+
+
+    @Setup
+    public void setUp() {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        Converter<AlignmentRecord, ReadAlignment> alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L).withReadLength(readLength, readLength);
+
+        readAlignments = new ReadAlignment[records];
+        for (int i = 0; i < records; i++) {
+            readAlignments[i] = alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger);
+        }
+        outputStream = new ByteArrayOutputStream(records * readLength * 8);
+    }
+
+    @Benchmark
+    public void binary(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        for (int i = 0; i < records; i++) {
+            readAlignments[i].writeDelimitedTo(outputStream);
+        }
+        blackhole.consume(outputStream.size());
+    }
+
+    @Benchmark
+    public void jsonFormat(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        for (int i = 0; i < records; i++) {
+            printer.appendTo(readAlignments[i], writer);
+            writer.write('\n');
+        }
+        writer.flush();
+        blackhole.consume(outputStream.size());
+    }
+
+    @Benchmark
+    public void ga4ghJsonWriter(final Blackhole blackhole) throws IOException {
+        outputStream.reset();
+        Ga4ghJsonWriter writer = new Ga4ghJsonWriter(outputStream);
+        for (int i = 0; i < records; i++) {
+            writer.write(readAlignments[i]);
+            writer.newLine();
+        }
+        writer.flush();
+        blackhole.consume(outputStream.size());
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.util.List;
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.TextCigarCodec;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for CIGAR decoding and AlignmentRecord conversion at silent stringency
+ * over inputs with a fraction of malformed CIGARs.  The <code>textCigarCodec</code>
+ * benchmark measures the previous exception-based decoding path as a baseline.  The
+ * <code>alignmentRecordToReadAlignment</code> benchmark has no baseline in this tree;
+ * compare it against the same benchmark run on a tree before exception-free decoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MalformedInputBenchmark {
+    private final Logger logger = LoggerFactory.getLogger(MalformedInputBenchmark.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private AlignmentRecord[] alignmentRecords;
+    private String[] cigars;
+
+    /** Malformed CIGARs, one of each error kind. */
+    private static final String[] MALFORMED = { "10", "M10", "10M5Q", "99999999999M", "10M*" };
+
+    @Param({"0.0", "0.1"})
+    public double malformedFraction;
+
+    @Param({"1024"})
+    public int records;
+
+
+    @Setup
+    public void setUp() {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+
+        Random random = new Random(42L);
+        cigars = new String[records];
+        alignmentRecords = new AlignmentRecord[records];
+        for (int i = 0; i < records; i++) {
+            cigars[i] = random.nextDouble() < malformedFraction ? MALFORMED[random.nextInt(MALFORMED.length)] : "10S120M2I18M";
+            alignmentRecords[i] = AlignmentRecord.newBuilder()
+                .setReadName("read" + i)
+                .setContigName("chr1")
+                .setStart(10000L + i * 100L)
+                .setReadMapped(true)
+                .setCigar(cigars[i])
+                .setSequence("ACGTACGTAC")
+                .setQual("ABCDEFGHIJ")
+                .setReadNegativeStrand(false)
+                .setMapq(60)
+                .setRecordGroupName("rg1")
+                .setProperPair(true)
+                .setDuplicateRead(false)
+                .setFailedVendorQualityChecks(false)
+                .setSecondaryAlignment(false)
+                .setSupplementaryAlignment(false)
+                .setReadPaired(false)
+                .build();
+        }
+    }
+
+    @Benchmark
+    public void textCigarCodec(final Blackhole blackhole) {
+        for (int i = 0; i < records; i++) {
+            Cigar cigar = null;
+            try {
+                cigar = TextCigarCodec.decode(cigars[i]);
+            }
+            catch (RuntimeException e) {
+                blackhole.consume("could not decode cigar, caught " + e.getMessage());
+            }
+            blackhole.consume(cigar);
+        }
+    }
+
+    @Benchmark
+    public void cigarParser(final Blackhole blackhole) {
+        for (int i = 0; i < records; i++) {
+            blackhole.consume(CigarParser.parse(cigars[i]));
+        }
+    }
+
+    @Benchmark
+    public void alignmentRecordToReadAlignment(final Blackhole blackhole) {
+        for (int i = 0; i < records; i++) {
+            blackhole.consume(alignmentConverter.convert(alignmentRecords[i], ConversionStringency.SILENT, logger));
+        }
+    }
+}
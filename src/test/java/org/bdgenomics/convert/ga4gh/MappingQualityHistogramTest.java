@@ -0,0 +1,55 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.Stream;
+
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.junit.Test;
+
+/**
+ * Unit test for MappingQualityHistogram.
+ */
+public final class MappingQualityHistogramTest {
+
+    private static ReadAlignment mapped(final int mappingQuality) {
+        return ReadAlignment.newBuilder().setAlignment(LinearAlignment.newBuilder().setMappingQuality(mappingQuality)).build();
+    }
+
+    @Test
+    public void testCollect() {
+        MappingQualityHistogram histogram = Stream.of(mapped(0), mapped(60), mapped(60), mapped(1000), mapped(-1), ReadAlignment.getDefaultInstance())
+            .parallel()
+            .collect(MappingQualityHistogram.collector());
+
+        assertEquals(5L, histogram.getTotal());
+        assertEquals(2L, histogram.getCount(0));
+        assertEquals(2L, histogram.getCount(60));
+        assertEquals(1L, histogram.getCount(MappingQualityHistogram.MAX_MAPPING_QUALITY));
+        assertEquals(MappingQualityHistogram.MAX_MAPPING_QUALITY + 1, histogram.getCounts().length);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetCountOutOfRange() {
+        Stream.<ReadAlignment>empty().collect(MappingQualityHistogram.collector()).getCount(256);
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.function.Function;
+
+import com.google.protobuf.CodedOutputStream;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for MessageOffsetIndex.
+ */
+public final class MessageOffsetIndexTest {
+    private final Function<ReadAlignment, Region> locator = new Function<ReadAlignment, Region>() {
+            @Override
+            public Region apply(final ReadAlignment readAlignment) {
+                return Ga4ghSearchServer.locate(readAlignment);
+            }
+        };
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static ReadAlignment aligned(final String fragmentName, final String referenceName, final long position, final long length) {
+        return ReadAlignment.newBuilder()
+            .setFragmentName(fragmentName)
+            .setAlignment(LinearAlignment.newBuilder()
+                          .setPosition(Position.newBuilder().setReferenceName(referenceName).setPosition(position))
+                          .addCigar(CigarUnit.newBuilder().setOperation(CigarUnit.Operation.ALIGNMENT_MATCH).setOperationLength(length)))
+            .build();
+    }
+
+    /**
+     * Write the specified ReadAlignments to a new file, returning the file offset of each.
+     */
+    private List<Long> write(final File file, final List<ReadAlignment> readAlignments) throws IOException {
+        List<Long> offsets = new ArrayList<Long>();
+        long offset = 0L;
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            for (ReadAlignment readAlignment : readAlignments) {
+                offsets.add(offset);
+                readAlignment.writeDelimitedTo(outputStream);
+                offset += CodedOutputStream.computeUInt32SizeNoTag(readAlignment.getSerializedSize()) + readAlignment.getSerializedSize();
+            }
+        }
+        return offsets;
+    }
+
+    private MessageOffsetIndex build(final File file, final int interval) throws IOException {
+        return MessageOffsetIndex.build(file, ReadAlignment.getDefaultInstance().getParserForType(), locator, interval);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testBuildNullFile() throws IOException {
+        MessageOffsetIndex.build(null, ReadAlignment.getDefaultInstance().getParserForType(), locator, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBuildInvalidInterval() throws IOException {
+        build(temporaryFolder.newFile("reads.pb"), 0);
+    }
+
+    @Test
+    public void testSeek() throws IOException {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        for (int i = 0; i < 100; i++) {
+            readAlignments.add(aligned("read" + i, "chr1", i * 10L, 50L));
+        }
+        readAlignments.add(aligned("read100", "chr2", 0L, 50L));
+        File file = temporaryFolder.newFile("reads.pb");
+        List<Long> offsets = write(file, readAlignments);
+
+        MessageOffsetIndex index = build(file, 4);
+        assertTrue(index.isSorted());
+        assertTrue(index.isCurrent(file));
+        assertEquals(0L, index.seek(new Region("chr1", 0L, 10L)));
+        // read46 at 460 is the first to overlap 500, the last checkpoint at or before 450 is read44
+        assertEquals((long) offsets.get(44), index.seek(new Region("chr1", 500L, 510L)));
+        assertEquals((long) offsets.get(100), index.end("chr1"));
+        assertEquals((long) offsets.get(100), index.seek(new Region("chr2", 1000L, 2000L)));
+        assertEquals(file.length(), index.end("chr2"));
+        assertEquals(-1L, index.seek(new Region("chr3", 0L, 10L)));
+        assertEquals(-1L, index.end("chr3"));
+    }
+
+    @Test
+    public void testUnplacedEndsRun() throws IOException {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(aligned("read0", "chr1", 0L, 50L));
+        readAlignments.add(ReadAlignment.newBuilder().setFragmentName("unmapped").build());
+        File file = temporaryFolder.newFile("reads.pb");
+        List<Long> offsets = write(file, readAlignments);
+
+        MessageOffsetIndex index = build(file, 1);
+        assertTrue(index.isSorted());
+        assertEquals((long) offsets.get(1), index.end("chr1"));
+    }
+
+    @Test
+    public void testUnsortedPositions() throws IOException {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(aligned("read0", "chr1", 100L, 50L));
+        readAlignments.add(aligned("read1", "chr1", 0L, 50L));
+        File file = temporaryFolder.newFile("reads.pb");
+        write(file, readAlignments);
+        assertFalse(build(file, 1).isSorted());
+    }
+
+    @Test
+    public void testNonContiguousReference() throws IOException {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(aligned("read0", "chr1", 0L, 50L));
+        readAlignments.add(aligned("read1", "chr2", 0L, 50L));
+        readAlignments.add(aligned("read2", "chr1", 100L, 50L));
+        File file = temporaryFolder.newFile("reads.pb");
+        write(file, readAlignments);
+        assertFalse(build(file, 1).isSorted());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSeekUnsorted() throws IOException {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(aligned("read0", "chr1", 100L, 50L));
+        readAlignments.add(aligned("read1", "chr1", 0L, 50L));
+        File file = temporaryFolder.newFile("reads.pb");
+        write(file, readAlignments);
+        build(file, 1).seek(new Region("chr1", 0L, 10L));
+    }
+
+    @Test
+    public void testIsCurrent() throws IOException {
+        List<ReadAlignment> readAlignments = new ArrayList<ReadAlignment>();
+        readAlignments.add(aligned("read0", "chr1", 0L, 50L));
+        File file = temporaryFolder.newFile("reads.pb");
+        write(file, readAlignments);
+        MessageOffsetIndex index = build(file, 1);
+        assertTrue(index.isCurrent(file));
+
+        readAlignments.add(aligned("read1", "chr1", 10L, 50L));
+        write(file, readAlignments);
+        assertFalse(index.isCurrent(file));
+    }
+}
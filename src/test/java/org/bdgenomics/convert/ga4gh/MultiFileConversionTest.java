@@ -0,0 +1,223 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ga4gh.Reads.ReadAlignment;
+
+import org.apache.avro.file.CodecFactory;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for MultiFileConversion.
+ */
+public final class MultiFileConversionTest {
+    private final Logger logger = LoggerFactory.getLogger(MultiFileConversionTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> converter;
+    private MultiFileConversion<AlignmentRecord, ReadAlignment> conversion;
+    private File outputDirectory;
+    private List<File> inputs;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        converter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+        conversion = new MultiFileConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, converter, ConversionStringency.STRICT, logger, 4, 4);
+        outputDirectory = temporaryFolder.newFolder("output");
+        File inputDirectory = temporaryFolder.newFolder("input");
+        inputs = new ArrayList<File>();
+        for (int i = 0; i < 20; i++) {
+            File input = new File(inputDirectory, "sample" + i + ".alignments.avro");
+            new AlignmentRecordGenerator(i).write(input, 10 + i, CodecFactory.nullCodec());
+            inputs.add(input);
+        }
+    }
+
+    private static int count(final File file) throws IOException {
+        int count = 0;
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            while (ReadAlignment.parseDelimitedFrom(inputStream) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(conversion);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSourceClass() {
+        new MultiFileConversion<AlignmentRecord, ReadAlignment>(null, converter, ConversionStringency.STRICT, logger, 4, 4);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new MultiFileConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, null, ConversionStringency.STRICT, logger, 4, 4);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidConcurrency() {
+        new MultiFileConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, converter, ConversionStringency.STRICT, logger, 0, 4);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidMaxOpenFiles() {
+        new MultiFileConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, converter, ConversionStringency.STRICT, logger, 4, 1);
+    }
+
+    @Test
+    public void testOutputName() {
+        assertEquals("sample0.alignments.pb", MultiFileConversion.outputName(new File("sample0.alignments.avro")));
+        assertEquals("sample0.pb", MultiFileConversion.outputName(new File("sample0")));
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        MultiFileConversion.Progress progress = conversion.run(inputs, outputDirectory);
+        assertEquals(20, progress.getFiles());
+        assertEquals(20, progress.getCompletedFiles());
+        assertEquals(0, progress.getFailedFiles());
+        assertEquals(20 * 10 + 190, progress.getRecords());
+        assertTrue(progress.getOutputBytes() > 0L);
+
+        long totalInputBytes = 0L;
+        for (File input : inputs) {
+            totalInputBytes += input.length();
+        }
+        assertEquals(totalInputBytes, progress.getTotalInputBytes());
+        assertEquals(totalInputBytes, progress.getInputBytes());
+        assertEquals(1.0d, progress.getInputFraction(), 0.0d);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(10 + i, count(new File(outputDirectory, "sample" + i + ".alignments.pb")));
+        }
+    }
+
+    @Test
+    public void testProgressWhileConverting() throws Exception {
+        final CountDownLatch converting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Converter<AlignmentRecord, ReadAlignment> blocking = new AbstractConverter<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, ReadAlignment.class) {
+            @Override
+            public ReadAlignment convert(final AlignmentRecord alignmentRecord, final ConversionStringency stringency, final Logger logger) {
+                converting.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return converter.convert(alignmentRecord, stringency, logger);
+            }
+        };
+        final MultiFileConversion<AlignmentRecord, ReadAlignment> blocked = new MultiFileConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, blocking, ConversionStringency.STRICT, logger, 1, 2);
+        final List<File> input = inputs.subList(0, 1);
+        Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        blocked.run(input, outputDirectory);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        thread.start();
+        try {
+            assertTrue(converting.await(10L, TimeUnit.SECONDS));
+            // input bytes are counted before the file completes
+            MultiFileConversion.Progress progress = blocked.getProgress();
+            assertEquals(0, progress.getCompletedFiles());
+            assertTrue(progress.getInputBytes() > 0L);
+            assertEquals(input.get(0).length(), progress.getTotalInputBytes());
+        }
+        finally {
+            release.countDown();
+            thread.join(10000L);
+        }
+        assertEquals(1, blocked.getProgress().getCompletedFiles());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRunDuplicateNames() throws IOException {
+        inputs.add(inputs.get(0));
+        conversion.run(inputs, outputDirectory);
+    }
+
+    @Test
+    public void testRunFailure() throws IOException {
+        File corrupt = new File(inputs.get(0).getParentFile(), "corrupt.avro");
+        try (OutputStream outputStream = new FileOutputStream(corrupt)) {
+            outputStream.write(new byte[] { 1, 2, 3, 4 });
+        }
+        inputs.add(5, corrupt);
+        try {
+            conversion.run(inputs, outputDirectory);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupt.avro"));
+        }
+        MultiFileConversion.Progress progress = conversion.getProgress();
+        assertEquals(21, progress.getFiles());
+        assertEquals(20, progress.getCompletedFiles());
+        assertEquals(1, progress.getFailedFiles());
+        assertFalse(new File(outputDirectory, "corrupt.pb").exists());
+        assertTrue(new File(outputDirectory, "sample19.alignments.pb").exists());
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import ga4gh.Reads.CigarUnit.Operation;
+
+import htsjdk.samtools.CigarOperator;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for OperationToCigarOperator.
+ */
+public final class OperationToCigarOperatorTest {
+    private final Logger logger = LoggerFactory.getLogger(OperationToCigarOperatorTest.class);
+    private Converter<Operation, CigarOperator> operatorConverter;
+
+    @Before
+    public void setUp() {
+        operatorConverter = new OperationToCigarOperator();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(operatorConverter);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        operatorConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(operatorConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(operatorConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testConvert() {
+        assertEquals(CigarOperator.M, operatorConverter.convert(Operation.ALIGNMENT_MATCH, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.I, operatorConverter.convert(Operation.INSERT, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.D, operatorConverter.convert(Operation.DELETE, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.N, operatorConverter.convert(Operation.SKIP, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.S, operatorConverter.convert(Operation.CLIP_SOFT, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.H, operatorConverter.convert(Operation.CLIP_HARD, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.P, operatorConverter.convert(Operation.PAD, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.EQ, operatorConverter.convert(Operation.SEQUENCE_MATCH, ConversionStringency.STRICT, logger));
+        assertEquals(CigarOperator.X, operatorConverter.convert(Operation.SEQUENCE_MISMATCH, ConversionStringency.STRICT, logger));
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertUnrecognizedStrict() {
+        operatorConverter.convert(Operation.UNRECOGNIZED, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertUnrecognizedLenient() {
+        assertNull(operatorConverter.convert(Operation.UNRECOGNIZED, ConversionStringency.LENIENT, logger));
+    }
+}
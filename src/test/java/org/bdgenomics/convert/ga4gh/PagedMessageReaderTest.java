@@ -0,0 +1,234 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import ga4gh.Common.Position;
+
+import ga4gh.ReadServiceOuterClass.SearchReadsRequest;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for PagedMessageReader.
+ */
+public final class PagedMessageReaderTest {
+    private File file;
+    private PagedMessageReader<ReadAlignment> reader;
+    private final Predicate<ReadAlignment> all = new Predicate<ReadAlignment>() {
+            @Override
+            public boolean test(final ReadAlignment readAlignment) {
+                return true;
+            }
+        };
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        file = temporaryFolder.newFile("reads.pb");
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            for (int i = 0; i < 100; i++) {
+                ReadAlignment.newBuilder().setFragmentName("read" + i).setReadGroupId(i % 2 == 0 ? "rg0" : "rg1").build().writeDelimitedTo(outputStream);
+            }
+        }
+        reader = new PagedMessageReader<ReadAlignment>(file, ReadAlignment.getDefaultInstance().getParserForType());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullFile() {
+        new PagedMessageReader<ReadAlignment>(null, ReadAlignment.getDefaultInstance().getParserForType());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullParser() {
+        new PagedMessageReader<ReadAlignment>(file, null);
+    }
+
+    @Test
+    public void testReadAllPages() throws IOException {
+        List<String> fragmentNames = new ArrayList<String>();
+        String pageToken = "";
+        int pages = 0;
+        do {
+            PagedMessageReader.Page<ReadAlignment> page = reader.read(pageToken, 30, all);
+            for (ReadAlignment readAlignment : page.getMessages()) {
+                fragmentNames.add(readAlignment.getFragmentName());
+            }
+            pageToken = page.getNextPageToken();
+            pages++;
+        }
+        while (!pageToken.isEmpty());
+
+        assertEquals(4, pages);
+        assertEquals(100, fragmentNames.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("read" + i, fragmentNames.get(i));
+        }
+    }
+
+    @Test
+    public void testReadLastPageExact() throws IOException {
+        PagedMessageReader.Page<ReadAlignment> page = reader.read("", 100, all);
+        assertEquals(100, page.getMessages().size());
+        assertEquals("", page.getNextPageToken());
+    }
+
+    @Test
+    public void testReadFiltered() throws IOException {
+        Predicate<ReadAlignment> rg1 = new Predicate<ReadAlignment>() {
+                @Override
+                public boolean test(final ReadAlignment readAlignment) {
+                    return "rg1".equals(readAlignment.getReadGroupId());
+                }
+            };
+        PagedMessageReader.Page<ReadAlignment> first = reader.read("", 10, rg1);
+        assertEquals(10, first.getMessages().size());
+        assertEquals("read19", first.getMessages().get(9).getFragmentName());
+
+        PagedMessageReader.Page<ReadAlignment> second = reader.read(first.getNextPageToken(), 10, rg1);
+        assertEquals("read21", second.getMessages().get(0).getFragmentName());
+    }
+
+    @Test
+    public void testPageTokenIsOffset() throws IOException {
+        PagedMessageReader.Page<ReadAlignment> page = reader.read("", 1, all);
+        long offset = PagedMessageReader.decodePageToken(page.getNextPageToken());
+        assertEquals(ReadAlignment.newBuilder().setFragmentName("read0").setReadGroupId("rg0").build().getSerializedSize() + 1, offset);
+        assertTrue(offset < file.length());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidPageToken() throws IOException {
+        reader.read("not a token!", 10, all);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPageTokenPastEnd() throws IOException {
+        reader.read(PagedMessageReader.encodePageToken(file.length() + 1L), 10, all);
+    }
+
+    @Test
+    public void testEncodeDecodePageToken() {
+        assertEquals(0L, PagedMessageReader.decodePageToken(""));
+        assertEquals(123456789L, PagedMessageReader.decodePageToken(PagedMessageReader.encodePageToken(123456789L)));
+    }
+
+    private static ReadAlignment aligned(final String fragmentName, final String referenceName, final long position) {
+        return ReadAlignment.newBuilder()
+            .setFragmentName(fragmentName)
+            .setAlignment(LinearAlignment.newBuilder()
+                          .setPosition(Position.newBuilder().setReferenceName(referenceName).setPosition(position))
+                          .addCigar(CigarUnit.newBuilder().setOperation(CigarUnit.Operation.ALIGNMENT_MATCH).setOperationLength(50L)))
+            .build();
+    }
+
+    private PagedMessageReader<ReadAlignment> regionReader(final boolean sorted) throws IOException {
+        File regionFile = temporaryFolder.newFile(sorted ? "sorted.pb" : "unsorted.pb");
+        try (OutputStream outputStream = new FileOutputStream(regionFile)) {
+            for (int i = 0; i < 1000; i++) {
+                // unsorted swaps the first two reads
+                int j = sorted ? i : (i == 0 ? 1 : (i == 1 ? 0 : i));
+                aligned("read" + j, j < 500 ? "chr1" : "chr2", (j % 500) * 10L).writeDelimitedTo(outputStream);
+            }
+        }
+        return new PagedMessageReader<ReadAlignment>(regionFile, ReadAlignment.getDefaultInstance().getParserForType(),
+            new Function<ReadAlignment, Region>() {
+                @Override
+                public Region apply(final ReadAlignment readAlignment) {
+                    return Ga4ghSearchServer.locate(readAlignment);
+                }
+            });
+    }
+
+    private static List<String> readRegion(final PagedMessageReader<ReadAlignment> regionReader, final Region region, final int pageSize) throws IOException {
+        Predicate<ReadAlignment> overlaps = Ga4ghSearchServer.filter(SearchReadsRequest.newBuilder()
+                                                                   .setReferenceId(region.getReferenceName())
+                                                                   .setStart(region.getStart())
+                                                                   .setEnd(region.getEnd())
+                                                                   .build());
+        List<String> fragmentNames = new ArrayList<String>();
+        String pageToken = "";
+        do {
+            PagedMessageReader.Page<ReadAlignment> page = regionReader.read(pageToken, region, pageSize, overlaps);
+            for (ReadAlignment readAlignment : page.getMessages()) {
+                fragmentNames.add(readAlignment.getFragmentName());
+            }
+            pageToken = page.getNextPageToken();
+        }
+        while (!pageToken.isEmpty());
+        return fragmentNames;
+    }
+
+    @Test
+    public void testReadRegionSorted() throws IOException {
+        PagedMessageReader<ReadAlignment> sorted = regionReader(true);
+        Region region = new Region("chr1", 2000L, 2100L);
+        // reads at 1960 through 2090 overlap [2000, 2100)
+        List<String> fragmentNames = readRegion(sorted, region, 5);
+        assertEquals(14, fragmentNames.size());
+        assertEquals("read196", fragmentNames.get(0));
+        assertEquals("read209", fragmentNames.get(13));
+        assertEquals(readRegion(regionReader(false), region, 5).size(), fragmentNames.size());
+    }
+
+    @Test
+    public void testReadRegionSortedStopsAtRegionEnd() throws IOException {
+        PagedMessageReader<ReadAlignment> sorted = regionReader(true);
+        PagedMessageReader.Page<ReadAlignment> page = sorted.read("", new Region("chr1", 0L, 100L), 100, all);
+        // the filter accepts everything, so the page holds every read from the run start until the first starting at 100
+        assertEquals(10, page.getMessages().size());
+        assertEquals("", page.getNextPageToken());
+    }
+
+    @Test
+    public void testReadRegionSortedUnknownReference() throws IOException {
+        PagedMessageReader.Page<ReadAlignment> page = regionReader(true).read("", new Region("chr3", 0L, 100L), 100, all);
+        assertTrue(page.getMessages().isEmpty());
+        assertEquals("", page.getNextPageToken());
+    }
+
+    @Test
+    public void testReadRegionUnsortedScans() throws IOException {
+        PagedMessageReader.Page<ReadAlignment> page = regionReader(false).read("", new Region("chr1", 0L, 100L), 100, all);
+        assertEquals(100, page.getMessages().size());
+        assertEquals("read1", page.getMessages().get(0).getFragmentName());
+    }
+}
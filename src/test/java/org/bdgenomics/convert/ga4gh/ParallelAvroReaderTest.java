@@ -0,0 +1,201 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for ParallelAvroReader and AvroBlockReader.
+ */
+public final class ParallelAvroReaderTest {
+    private List<AlignmentRecord> alignmentRecords;
+
+    @Before
+    public void setUp() {
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).iterator(2000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+    }
+
+    private byte[] write(final CodecFactory codec) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataFileWriter<AlignmentRecord> writer = new DataFileWriter<AlignmentRecord>(new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class))) {
+            writer.setCodec(codec);
+            writer.setSyncInterval(32 * 1024);
+            writer.create(AlignmentRecord.getClassSchema(), outputStream);
+            for (AlignmentRecord alignmentRecord : alignmentRecords) {
+                writer.append(alignmentRecord);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static InputStream open(final byte[] bytes) {
+        return new BufferedInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private List<AlignmentRecord> read(final byte[] bytes, final int threads, final boolean ordered) throws IOException {
+        List<AlignmentRecord> read = new ArrayList<AlignmentRecord>();
+        try (ParallelAvroReader<AlignmentRecord> reader = new ParallelAvroReader<AlignmentRecord>(open(bytes), AlignmentRecord.class, threads, ordered)) {
+            while (reader.hasNext()) {
+                read.add(reader.next());
+            }
+            assertFalse(reader.hasNext());
+        }
+        return read;
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullInputStream() throws Exception {
+        new ParallelAvroReader<AlignmentRecord>(null, AlignmentRecord.class, 1, true);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullRecordClass() throws Exception {
+        new ParallelAvroReader<AlignmentRecord>(open(write(CodecFactory.nullCodec())), (Class<AlignmentRecord>) null, 1, true);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroThreads() throws Exception {
+        new ParallelAvroReader<AlignmentRecord>(open(write(CodecFactory.nullCodec())), AlignmentRecord.class, 0, true);
+    }
+
+    @Test(expected=IOException.class)
+    public void testConstructorNotAvro() throws Exception {
+        new ParallelAvroReader<AlignmentRecord>(open(new byte[] { 1, 2, 3, 4, 5 }), AlignmentRecord.class, 1, true);
+    }
+
+    @Test
+    public void testReadBlocks() throws Exception {
+        byte[] bytes = write(CodecFactory.snappyCodec());
+        long count = 0L;
+        int blocks = 0;
+        try (AvroBlockReader blockReader = new AvroBlockReader(open(bytes))) {
+            assertEquals(AlignmentRecord.getClassSchema(), blockReader.getSchema());
+            assertEquals("snappy", blockReader.getCodec());
+
+            long offset = blockReader.getOffset();
+            AvroBlock block = null;
+            while ((block = blockReader.readBlock()) != null) {
+                assertEquals(offset, block.getOffset());
+                assertTrue(block.getEndOffset() > block.getOffset());
+                offset = block.getEndOffset();
+                count += block.getCount();
+                blocks++;
+            }
+            assertEquals(bytes.length, offset);
+        }
+        assertEquals(alignmentRecords.size(), count);
+        assertTrue(blocks > 1);
+    }
+
+    @Test
+    public void testSkipTo() throws Exception {
+        byte[] bytes = write(CodecFactory.snappyCodec());
+        AvroBlock second;
+        try (AvroBlockReader blockReader = new AvroBlockReader(open(bytes))) {
+            blockReader.readBlock();
+            second = blockReader.readBlock();
+        }
+        try (AvroBlockReader blockReader = new AvroBlockReader(open(bytes))) {
+            blockReader.skipTo(second.getOffset());
+            AvroBlock block = blockReader.readBlock();
+            assertEquals(second.getOffset(), block.getOffset());
+            assertEquals(second.getEndOffset(), block.getEndOffset());
+            assertEquals(second.getCount(), block.getCount());
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSkipToBackwards() throws Exception {
+        try (AvroBlockReader blockReader = new AvroBlockReader(open(write(CodecFactory.nullCodec())))) {
+            blockReader.skipTo(0L);
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testReadBlockInvalidSync() throws Exception {
+        byte[] bytes = write(CodecFactory.nullCodec());
+        bytes[bytes.length - 1] ^= 0xff;
+        try (AvroBlockReader blockReader = new AvroBlockReader(open(bytes))) {
+            while (blockReader.readBlock() != null) {
+                // empty
+            }
+        }
+    }
+
+    @Test
+    public void testReadOrderedNullCodec() throws Exception {
+        assertEquals(alignmentRecords, read(write(CodecFactory.nullCodec()), 4, true));
+    }
+
+    @Test
+    public void testReadOrderedDeflateCodec() throws Exception {
+        assertEquals(alignmentRecords, read(write(CodecFactory.deflateCodec(6)), 4, true));
+    }
+
+    @Test
+    public void testReadOrderedSnappyCodec() throws Exception {
+        assertEquals(alignmentRecords, read(write(CodecFactory.snappyCodec()), 4, true));
+    }
+
+    @Test
+    public void testReadOrderedSingleThread() throws Exception {
+        assertEquals(alignmentRecords, read(write(CodecFactory.snappyCodec()), 1, true));
+    }
+
+    @Test
+    public void testReadUnordered() throws Exception {
+        List<AlignmentRecord> read = read(write(CodecFactory.snappyCodec()), 4, false);
+        assertEquals(alignmentRecords.size(), read.size());
+        Set<AlignmentRecord> expected = new HashSet<AlignmentRecord>(alignmentRecords);
+        assertEquals(expected, new HashSet<AlignmentRecord>(read));
+    }
+
+    @Test
+    public void testReadEmpty() throws Exception {
+        alignmentRecords.clear();
+        assertTrue(read(write(CodecFactory.snappyCodec()), 4, true).isEmpty());
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.protobuf.FieldMask;
+
+import org.apache.avro.Schema;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.hadoop.conf.Configuration;
+
+import org.apache.hadoop.fs.Path;
+
+import org.apache.parquet.avro.AvroParquetWriter;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ParquetAvroReader.
+ */
+public final class ParquetAvroReaderTest {
+    private final Logger logger = LoggerFactory.getLogger(ParquetAvroReaderTest.class);
+    private final Configuration conf = new Configuration();
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private List<AlignmentRecord> alignmentRecords;
+    private Path path;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).withContigs(2, 1000000L).withSorted(true, 100).iterator(5000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+
+        File file = new File(temporaryFolder.getRoot(), "alignments.parquet");
+        path = new Path(file.toURI());
+        try (ParquetWriter<AlignmentRecord> writer = AvroParquetWriter.<AlignmentRecord>builder(path)
+                 .withSchema(AlignmentRecord.getClassSchema())
+                 .withConf(conf)
+                 .withRowGroupSize(64 * 1024)
+                 .withPageSize(8 * 1024)
+                 .build()) {
+            for (AlignmentRecord alignmentRecord : alignmentRecords) {
+                writer.write(alignmentRecord);
+            }
+        }
+    }
+
+    private static List<AlignmentRecord> read(final ParquetAvroReader<AlignmentRecord> reader) throws Exception {
+        List<AlignmentRecord> read = new ArrayList<AlignmentRecord>();
+        try {
+            while (reader.hasNext()) {
+                read.add(reader.next());
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return read;
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullPath() throws Exception {
+        new ParquetAvroReader<AlignmentRecord>(null, conf, AlignmentRecord.getClassSchema(), Projections.alignmentRecordProjection(), null);
+    }
+
+    @Test
+    public void testReadAlignmentRecords() throws Exception {
+        List<AlignmentRecord> read = read(ParquetAvroReader.alignmentRecords(path, conf, null, null));
+        assertEquals(alignmentRecords.size(), read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(alignmentConverter.convert(alignmentRecords.get(i), ConversionStringency.STRICT, logger),
+                         alignmentConverter.convert(read.get(i), ConversionStringency.STRICT, logger));
+        }
+    }
+
+    @Test
+    public void testReadAlignmentRecordsFieldMask() throws Exception {
+        FieldMask fieldMask = FieldMask.newBuilder().addPaths("fragment_name").addPaths("aligned_quality").build();
+        List<AlignmentRecord> read = read(ParquetAvroReader.alignmentRecords(path, conf, fieldMask, null));
+        assertEquals(alignmentRecords.size(), read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(alignmentRecords.get(i).getReadName(), read.get(i).getReadName());
+            assertEquals(alignmentRecords.get(i).getQual(), read.get(i).getQual());
+            assertNull(read.get(i).getCigar());
+            assertNull(read.get(i).getMateContigName());
+
+            ReadAlignment readAlignment = alignmentConverter.convert(read.get(i), ConversionStringency.STRICT, logger);
+            assertNotNull(readAlignment);
+            assertFalse(readAlignment.hasAlignment());
+            assertFalse(readAlignment.hasNextMatePosition());
+        }
+    }
+
+    @Test
+    public void testReadAlignmentRecordsRegion() throws Exception {
+        Region region = new Region(AlignmentRecordGenerator.contigName(0), 100000L, 110000L);
+        List<AlignmentRecord> expected = new ArrayList<AlignmentRecord>();
+        for (AlignmentRecord alignmentRecord : alignmentRecords) {
+            if (alignmentRecord.getContigName() != null && alignmentRecord.getStart() != null && alignmentRecord.getEnd() != null
+                && region.overlaps(alignmentRecord.getContigName(), alignmentRecord.getStart(), alignmentRecord.getEnd())) {
+                expected.add(alignmentRecord);
+            }
+        }
+        assertFalse(expected.isEmpty());
+
+        List<AlignmentRecord> read = read(ParquetAvroReader.alignmentRecords(path, conf, null, region));
+        assertEquals(expected.size(), read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(expected.get(i).getReadName(), read.get(i).getReadName());
+            assertTrue(region.overlaps(read.get(i).getContigName(), read.get(i).getStart(), read.get(i).getEnd()));
+        }
+    }
+
+    @Test
+    public void testReadAlignmentRecordsStartFilter() throws Exception {
+        String contigName = AlignmentRecordGenerator.contigName(0);
+        Region left = new Region(contigName, 100000L, 105000L);
+        Region right = new Region(contigName, 105000L, 110000L);
+        int expected = 0;
+        for (AlignmentRecord alignmentRecord : alignmentRecords) {
+            if (contigName.equals(alignmentRecord.getContigName()) && alignmentRecord.getStart() != null
+                && alignmentRecord.getStart() >= 100000L && alignmentRecord.getStart() < 110000L) {
+                expected++;
+            }
+        }
+        assertTrue(expected > 0);
+
+        Schema projection = Projections.alignmentRecordProjection();
+        List<AlignmentRecord> read = read(new ParquetAvroReader<AlignmentRecord>(path, conf, AlignmentRecord.getClassSchema(), projection, ParquetAvroReader.startFilter(left)));
+        read.addAll(read(new ParquetAvroReader<AlignmentRecord>(path, conf, AlignmentRecord.getClassSchema(), projection, ParquetAvroReader.startFilter(right))));
+        assertEquals(expected, read.size());
+        for (AlignmentRecord alignmentRecord : read) {
+            assertTrue(alignmentRecord.getStart() >= 100000L && alignmentRecord.getStart() < 110000L);
+        }
+    }
+
+    @Test
+    public void testReadAlignmentRecordsUnplacedFilter() throws Exception {
+        int expected = 0;
+        for (AlignmentRecord alignmentRecord : alignmentRecords) {
+            if (alignmentRecord.getContigName() == null || alignmentRecord.getStart() == null) {
+                expected++;
+            }
+        }
+        assertTrue(expected > 0);
+
+        List<AlignmentRecord> read = read(new ParquetAvroReader<AlignmentRecord>(path, conf, AlignmentRecord.getClassSchema(),
+                                                                                Projections.alignmentRecordProjection(), ParquetAvroReader.unplacedFilter()));
+        assertEquals(expected, read.size());
+        for (AlignmentRecord alignmentRecord : read) {
+            assertNull(alignmentRecord.getContigName());
+        }
+    }
+}
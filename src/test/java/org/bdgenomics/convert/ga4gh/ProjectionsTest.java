@@ -0,0 +1,94 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import com.google.protobuf.FieldMask;
+
+import org.apache.avro.Schema;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Test;
+
+/**
+ * Unit test for Projections.
+ */
+public final class ProjectionsTest {
+
+    @Test
+    public void testAlignmentRecordProjection() {
+        Schema projection = Projections.alignmentRecordProjection();
+        assertEquals(AlignmentRecord.getClassSchema().getFullName(), projection.getFullName());
+        assertTrue(projection.getFields().size() < AlignmentRecord.getClassSchema().getFields().size());
+        assertNotNull(projection.getField("readName"));
+        assertNotNull(projection.getField("cigar"));
+        assertNotNull(projection.getField("qual"));
+        assertNotNull(projection.getField("mateContigName"));
+        assertNull(projection.getField("end"));
+    }
+
+    @Test
+    public void testAlignmentRecordProjectionFieldMask() {
+        FieldMask fieldMask = FieldMask.newBuilder().addPaths("alignment.position").build();
+        Schema projection = Projections.alignmentRecordProjection(fieldMask, null);
+        assertNull(projection.getField("readName"));
+        assertNull(projection.getField("sequence"));
+        assertNotNull(projection.getField("cigar"));
+        assertNull(projection.getField("qual"));
+        assertNull(projection.getField("mateContigName"));
+        assertTrue(projection.getFields().size() < Projections.alignmentRecordProjection().getFields().size());
+    }
+
+    @Test
+    public void testAlignmentRecordProjectionFieldMaskNameAndSequence() {
+        FieldMask fieldMask = FieldMask.newBuilder().addPaths("fragment_name").addPaths("aligned_sequence").build();
+        Schema projection = Projections.alignmentRecordProjection(fieldMask, null);
+        assertNotNull(projection.getField("readName"));
+        assertNotNull(projection.getField("sequence"));
+        assertNull(projection.getField("cigar"));
+    }
+
+    @Test
+    public void testAlignmentRecordProjectionRegion() {
+        FieldMask fieldMask = FieldMask.newBuilder().addPaths("fragment_name").build();
+        Schema projection = Projections.alignmentRecordProjection(fieldMask, new Region("1", 0L, 100L));
+        assertNotNull(projection.getField("contigName"));
+        assertNotNull(projection.getField("start"));
+        assertNotNull(projection.getField("end"));
+        assertNull(projection.getField("cigar"));
+    }
+
+    @Test
+    public void testFeatureProjection() {
+        Schema projection = Projections.featureProjection();
+        assertEquals(5, projection.getFields().size());
+        assertNotNull(projection.getField("featureType"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testProjectMissingField() {
+        Projections.project(AlignmentRecord.getClassSchema(), Arrays.asList("missing"));
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for QualityScoreBinning.
+ */
+public final class QualityScoreBinningTest {
+    private final Logger logger = LoggerFactory.getLogger(QualityScoreBinningTest.class);
+
+    @Test
+    public void testIllumina8() {
+        QualityScoreBinning binning = QualityScoreBinning.illumina8();
+        assertEquals("illumina8", binning.getName());
+        assertEquals(2, binning.bin(0));
+        assertEquals(2, binning.bin(2));
+        assertEquals(6, binning.bin(3));
+        assertEquals(6, binning.bin(9));
+        assertEquals(15, binning.bin(10));
+        assertEquals(15, binning.bin(19));
+        assertEquals(22, binning.bin(20));
+        assertEquals(27, binning.bin(29));
+        assertEquals(33, binning.bin(30));
+        assertEquals(37, binning.bin(39));
+        assertEquals(40, binning.bin(40));
+        assertEquals(40, binning.bin(93));
+    }
+
+    @Test
+    public void testIllumina4() {
+        QualityScoreBinning binning = QualityScoreBinning.illumina4();
+        assertEquals(2, binning.bin(2));
+        assertEquals(12, binning.bin(14));
+        assertEquals(23, binning.bin(15));
+        assertEquals(37, binning.bin(41));
+    }
+
+    @Test
+    public void testOutOfRange() {
+        QualityScoreBinning binning = QualityScoreBinning.illumina8();
+        assertEquals(-1, binning.bin(-1));
+        assertEquals(94, binning.bin(94));
+    }
+
+    @Test
+    public void testCustom() {
+        QualityScoreBinning binning = QualityScoreBinning.of(new int[] { 0, 20 }, new int[] { 10, 30 });
+        assertEquals(10, binning.bin(19));
+        assertEquals(30, binning.bin(20));
+        assertEquals(30, binning.bin(93));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCustomNullLowerBounds() {
+        QualityScoreBinning.of(null, new int[] { 10 });
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCustomLengthMismatch() {
+        QualityScoreBinning.of(new int[] { 0, 20 }, new int[] { 10 });
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCustomMissingZero() {
+        QualityScoreBinning.of(new int[] { 10 }, new int[] { 10 });
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCustomNotIncreasing() {
+        QualityScoreBinning.of(new int[] { 0, 20, 20 }, new int[] { 10, 20, 30 });
+    }
+
+    @Test
+    public void testValueOf() {
+        assertNull(QualityScoreBinning.valueOf("none"));
+        assertSame(QualityScoreBinning.illumina4(), QualityScoreBinning.valueOf("illumina4"));
+        assertSame(QualityScoreBinning.illumina8(), QualityScoreBinning.valueOf("illumina8"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testValueOfUnrecognized() {
+        QualityScoreBinning.valueOf("illumina2");
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertEquals(QualityScoreBinning.illumina8().getFingerprint(), QualityScoreBinning.illumina8().getFingerprint());
+        assertNotEquals(QualityScoreBinning.illumina8().getFingerprint(), QualityScoreBinning.illumina4().getFingerprint());
+        assertEquals(QualityScoreBinning.of(new int[] { 0, 20 }, new int[] { 10, 30 }).getFingerprint(),
+                     QualityScoreBinning.of(new int[] { 0, 20 }, new int[] { 10, 30 }).getFingerprint());
+        assertNotEquals(QualityScoreBinning.of(new int[] { 0, 20 }, new int[] { 10, 30 }).getFingerprint(),
+                        QualityScoreBinning.of(new int[] { 0, 20 }, new int[] { 10, 31 }).getFingerprint());
+    }
+
+    private long compressedSize(final QualityScoreBinning binning) throws IOException {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        Converter<AlignmentRecord, ReadAlignment> alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter, binning);
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (BlockCompressedOutputStream compressedOutputStream = new BlockCompressedOutputStream(outputStream, null)) {
+            for (int i = 0; i < 1000; i++) {
+                alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger).writeDelimitedTo(compressedOutputStream);
+            }
+        }
+        return outputStream.size();
+    }
+
+    @Test
+    public void testCompressionGain() throws Exception {
+        assertTrue(compressedSize(QualityScoreBinning.illumina8()) < compressedSize(null));
+    }
+}
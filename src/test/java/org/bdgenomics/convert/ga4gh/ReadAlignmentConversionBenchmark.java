@@ -0,0 +1,166 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.List;
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.avro.generic.GenericRecord;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for decode, convert, and serialize of AlignmentRecords to ReadAlignments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadAlignmentConversionBenchmark {
+    private final Logger logger = LoggerFactory.getLogger(ReadAlignmentConversionBenchmark.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private Converter<GenericRecord, ReadAlignment> genericConverter;
+    private SpecificDatumReader<AlignmentRecord> specificReader;
+    private Utf8DatumReader utf8Reader;
+    private byte[][] encoded;
+    private AlignmentRecord alignmentRecord;
+    private GenericRecord genericRecord;
+    private BinaryDecoder decoder;
+
+    @Param({"150", "20000"})
+    public int readLength;
+
+    @Param({"256"})
+    public int records;
+
+    @Param({"none", "illumina8"})
+    public String qualityBinning;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter, QualityScoreBinning.valueOf(qualityBinning));
+        genericConverter = new GenericRecordToReadAlignment(cigarConverter);
+        specificReader = new SpecificDatumReader<AlignmentRecord>(AlignmentRecord.class);
+        utf8Reader = new Utf8DatumReader();
+
+        Random random = new Random(42L);
+        SpecificDatumWriter<AlignmentRecord> writer = new SpecificDatumWriter<AlignmentRecord>(AlignmentRecord.class);
+        encoded = new byte[records][];
+        for (int i = 0; i < records; i++) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+            writer.write(createAlignmentRecord(i, random), encoder);
+            encoder.flush();
+            encoded[i] = outputStream.toByteArray();
+        }
+    }
+
+    private AlignmentRecord createAlignmentRecord(final int i, final Random random) {
+        StringBuilder sequence = new StringBuilder(readLength);
+        StringBuilder qual = new StringBuilder(readLength);
+        for (int j = 0; j < readLength; j++) {
+            sequence.append("ACGT".charAt(random.nextInt(4)));
+            qual.append((char) (33 + random.nextInt(41)));
+        }
+        return AlignmentRecord.newBuilder()
+            .setReadName("read" + i)
+            .setContigName("chr1")
+            .setStart(10000L + i * 100L)
+            .setReadMapped(true)
+            .setCigar(readLength + "M")
+            .setSequence(sequence.toString())
+            .setQual(qual.toString())
+            .setReadNegativeStrand(random.nextBoolean())
+            .setMapq(60)
+            .setRecordGroupName("rg1")
+            .setProperPair(true)
+            .setDuplicateRead(false)
+            .setFailedVendorQualityChecks(false)
+            .setSecondaryAlignment(false)
+            .setSupplementaryAlignment(false)
+            .setMateContigName("chr1")
+            .setMateNegativeStrand(false)
+            .setMateAlignmentStart(10500L + i * 100L)
+            .setMateMapped(true)
+            .setReadPaired(true)
+            .setInferredInsertSize(500L)
+            .build();
+    }
+
+    @Benchmark
+    public void alignmentRecordToReadAlignment(final Blackhole blackhole) throws IOException {
+        for (int i = 0; i < records; i++) {
+            decoder = DecoderFactory.get().binaryDecoder(encoded[i], decoder);
+            alignmentRecord = specificReader.read(alignmentRecord, decoder);
+            ReadAlignment readAlignment = alignmentConverter.convert(alignmentRecord, ConversionStringency.STRICT, logger);
+            blackhole.consume(readAlignment.toByteArray());
+        }
+    }
+
+    @Benchmark
+    public void genericRecordToReadAlignment(final Blackhole blackhole) throws IOException {
+        for (int i = 0; i < records; i++) {
+            decoder = DecoderFactory.get().binaryDecoder(encoded[i], decoder);
+            genericRecord = utf8Reader.read(genericRecord, decoder);
+            ReadAlignment readAlignment = genericConverter.convert(genericRecord, ConversionStringency.STRICT, logger);
+            blackhole.consume(readAlignment.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import ga4gh.Reads.ReadAlignment;
+import ga4gh.Reads.ReadGroup;
+import ga4gh.Reads.ReadGroupSet;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+import org.bdgenomics.formats.avro.RecordGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ReadGroupDictionary.
+ */
+public final class ReadGroupDictionaryTest {
+    private final Logger logger = LoggerFactory.getLogger(ReadGroupDictionaryTest.class);
+    private Converter<RecordGroup, ReadGroup> readGroupConverter;
+    private List<RecordGroup> recordGroups;
+    private ReadGroupDictionary readGroups;
+
+    @Before
+    public void setUp() {
+        readGroupConverter = new RecordGroupToReadGroup();
+        recordGroups = Arrays.asList(RecordGroup.newBuilder().setName("rg1").setSample("sample1").build(),
+                                     RecordGroup.newBuilder().setName("rg2").setSample("sample2").build(),
+                                     RecordGroup.newBuilder().setName("rg1").setSample("duplicate").build());
+        readGroups = new ReadGroupDictionary("dataset1", recordGroups, readGroupConverter, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(readGroups);
+        assertEquals(0, new ReadGroupDictionary("dataset1", Collections.<RecordGroup>emptyList(), readGroupConverter, ConversionStringency.STRICT, logger).size());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullDatasetId() {
+        new ReadGroupDictionary(null, recordGroups, readGroupConverter, ConversionStringency.STRICT, logger);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullRecordGroups() {
+        new ReadGroupDictionary("dataset1", null, readGroupConverter, ConversionStringency.STRICT, logger);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new ReadGroupDictionary("dataset1", recordGroups, null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConstructorMissingNameStrict() {
+        new ReadGroupDictionary("dataset1", Arrays.asList(RecordGroup.newBuilder().build()), readGroupConverter, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConstructorMissingNameSilent() {
+        assertEquals(0, new ReadGroupDictionary("dataset1", Arrays.asList(RecordGroup.newBuilder().build()), readGroupConverter, ConversionStringency.SILENT, logger).size());
+    }
+
+    @Test
+    public void testReadGroups() {
+        assertEquals("dataset1", readGroups.getDatasetId());
+        assertEquals(2, readGroups.size());
+        assertEquals("rg1", readGroups.getReadGroups().get(0).getId());
+        assertEquals("rg2", readGroups.getReadGroups().get(1).getId());
+        assertEquals("sample1", readGroups.getReadGroup("rg1").getSampleName());
+        assertEquals("dataset1", readGroups.getReadGroup("rg1").getDatasetId());
+        assertNull(readGroups.getReadGroup("rg3"));
+    }
+
+    @Test
+    public void testReadGroupSet() {
+        ReadGroupSet readGroupSet = readGroups.getReadGroupSet();
+        assertEquals("dataset1", readGroupSet.getId());
+        assertEquals("dataset1", readGroupSet.getDatasetId());
+        assertEquals(2, readGroupSet.getReadGroupsCount());
+        assertSame(readGroups.getReadGroup("rg1"), readGroupSet.getReadGroups(0));
+        assertSame(readGroupSet, readGroups.getReadGroupSet());
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertEquals(readGroups.getFingerprint(), new ReadGroupDictionary("dataset1", recordGroups, readGroupConverter, ConversionStringency.STRICT, logger).getFingerprint());
+        assertNotEquals(readGroups.getFingerprint(), new ReadGroupDictionary("dataset2", recordGroups, readGroupConverter, ConversionStringency.STRICT, logger).getFingerprint());
+        assertNotEquals(readGroups.getFingerprint(), new ReadGroupDictionary("dataset1", recordGroups.subList(0, 1), readGroupConverter, ConversionStringency.STRICT, logger).getFingerprint());
+    }
+
+    @Test
+    public void testReadGroupId() {
+        assertSame(readGroups.getReadGroup("rg1").getId(), readGroups.readGroupId(new String("rg1")));
+        assertEquals("rg3", readGroups.readGroupId("rg3"));
+        assertEquals("1", readGroups.readGroupId(null));
+        assertEquals("1", readGroups.readGroupId(""));
+    }
+
+    @Test
+    public void testSharedReadGroupId() {
+        AlignmentRecordToReadAlignment alignmentConverter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()), null, readGroups);
+        AlignmentRecord.Builder alignmentBuilder = AlignmentRecord.newBuilder()
+            .setReadName("read0")
+            .setReadMapped(false)
+            .setSequence("ACGT")
+            .setQual("****")
+            .setReadPaired(false)
+            .setProperPair(false)
+            .setDuplicateRead(false)
+            .setFailedVendorQualityChecks(false)
+            .setSecondaryAlignment(false)
+            .setSupplementaryAlignment(false)
+            .setReadInFragment(0);
+
+        ReadAlignment first = alignmentConverter.convert(alignmentBuilder.setRecordGroupName(new String("rg1")).build(), ConversionStringency.STRICT, logger);
+        ReadAlignment second = alignmentConverter.convert(alignmentBuilder.setRecordGroupName(new String("rg1")).build(), ConversionStringency.STRICT, logger);
+        assertSame(readGroups.getReadGroup("rg1").getId(), first.getReadGroupId());
+        assertSame(first.getReadGroupId(), second.getReadGroupId());
+
+        AlignmentBatch batch = new AlignmentBatch();
+        batch.add(alignmentBuilder.setRecordGroupName("rg1").build());
+        batch.add(alignmentBuilder.setRecordGroupName("rg2").build());
+        batch.add(alignmentBuilder.clearRecordGroupName().build());
+        List<ReadAlignment> readAlignments = new AlignmentBatchToReadAlignments(new CigarOperatorToOperation(), null, readGroups)
+            .convert(batch, ConversionStringency.STRICT, logger);
+        assertSame(readGroups.getReadGroup("rg1").getId(), readAlignments.get(0).getReadGroupId());
+        assertSame(readGroups.getReadGroup("rg2").getId(), readAlignments.get(1).getReadGroupId());
+        assertEquals("1", readAlignments.get(2).getReadGroupId());
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import ga4gh.Reads.ReadGroup;
+
+import org.bdgenomics.convert.ConversionException;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.ProcessingStep;
+import org.bdgenomics.formats.avro.RecordGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for RecordGroupToReadGroup.
+ */
+public final class RecordGroupToReadGroupTest {
+    private final Logger logger = LoggerFactory.getLogger(RecordGroupToReadGroupTest.class);
+    private Converter<RecordGroup, ReadGroup> readGroupConverter;
+    private RecordGroup.Builder recordGroupBuilder;
+
+    @Before
+    public void setUp() {
+        readGroupConverter = new RecordGroupToReadGroup();
+        recordGroupBuilder = RecordGroup.newBuilder()
+            .setName("rg1")
+            .setSample("NA12878")
+            .setDescription("description")
+            .setLibrary("lib1")
+            .setPlatform("ILLUMINA")
+            .setPlatformUnit("HWI-ST1234.1")
+            .setSequencingCenter("BI")
+            .setRunDateEpoch(0L)
+            .setPredictedMedianInsertSize(300)
+            .setProcessingSteps(Arrays.asList(ProcessingStep.newBuilder()
+                                              .setId("bwa")
+                                              .setProgramName("bwa")
+                                              .setCommandLine("bwa mem ref.fa reads.fq")
+                                              .setVersion("0.7.15")
+                                              .build()));
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(readGroupConverter);
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertNullStrict() {
+        readGroupConverter.convert(null, ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertNullLenient() {
+        assertNull(readGroupConverter.convert(null, ConversionStringency.LENIENT, logger));
+    }
+
+    @Test
+    public void testConvertNullSilent() {
+        assertNull(readGroupConverter.convert(null, ConversionStringency.SILENT, logger));
+    }
+
+    @Test(expected=ConversionException.class)
+    public void testConvertMissingNameStrict() {
+        readGroupConverter.convert(recordGroupBuilder.clearName().build(), ConversionStringency.STRICT, logger);
+    }
+
+    @Test
+    public void testConvertMissingNameSilent() {
+        assertNull(readGroupConverter.convert(recordGroupBuilder.clearName().build(), ConversionStringency.SILENT, logger));
+    }
+
+    @Test
+    public void testConvert() {
+        ReadGroup readGroup = readGroupConverter.convert(recordGroupBuilder.build(), ConversionStringency.STRICT, logger);
+        assertEquals("rg1", readGroup.getId());
+        assertEquals("rg1", readGroup.getName());
+        assertEquals("", readGroup.getDatasetId());
+        assertEquals("NA12878", readGroup.getSampleName());
+        assertEquals("description", readGroup.getDescription());
+        assertEquals(300, readGroup.getPredictedInsertSize());
+        assertEquals("lib1", readGroup.getExperiment().getLibrary());
+        assertEquals("ILLUMINA", readGroup.getExperiment().getInstrumentModel());
+        assertEquals("HWI-ST1234.1", readGroup.getExperiment().getPlatformUnit());
+        assertEquals("BI", readGroup.getExperiment().getSequencingCenter());
+        assertEquals("1970-01-01T00:00:00Z", readGroup.getExperiment().getRunTime());
+        assertEquals(1, readGroup.getProgramsCount());
+        assertEquals("bwa", readGroup.getPrograms(0).getId());
+        assertEquals("bwa", readGroup.getPrograms(0).getName());
+        assertEquals("bwa mem ref.fa reads.fq", readGroup.getPrograms(0).getCommandLine());
+        assertEquals("0.7.15", readGroup.getPrograms(0).getVersion());
+        assertEquals("", readGroup.getPrograms(0).getPrevProgramId());
+    }
+
+    @Test
+    public void testConvertNameOnly() {
+        ReadGroup readGroup = readGroupConverter.convert(RecordGroup.newBuilder().setName("rg1").build(), ConversionStringency.STRICT, logger);
+        assertEquals("rg1", readGroup.getId());
+        assertFalse(readGroup.hasExperiment());
+        assertEquals(0, readGroup.getProgramsCount());
+        assertTrue(readGroup.getSampleName().isEmpty());
+    }
+}
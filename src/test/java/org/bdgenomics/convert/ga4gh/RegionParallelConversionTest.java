@@ -0,0 +1,219 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.apache.hadoop.conf.Configuration;
+
+import org.apache.hadoop.fs.Path;
+
+import org.apache.parquet.avro.AvroParquetWriter;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for RegionParallelConversion.
+ */
+public final class RegionParallelConversionTest {
+    private final Logger logger = LoggerFactory.getLogger(RegionParallelConversionTest.class);
+    private final Configuration conf = new Configuration();
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private List<AlignmentRecord> alignmentRecords;
+    private Path input;
+    private File output;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        Iterator<AlignmentRecord> iterator = new AlignmentRecordGenerator(42L).withContigs(3, 200000L).withSorted(true, 100).iterator(5000);
+        while (iterator.hasNext()) {
+            alignmentRecords.add(iterator.next());
+        }
+        input = new Path(new File(temporaryFolder.getRoot(), "input.parquet").toURI());
+        output = new File(temporaryFolder.getRoot(), "output.pb");
+    }
+
+    private void write(final List<AlignmentRecord> records) throws Exception {
+        try (ParquetWriter<AlignmentRecord> writer = AvroParquetWriter.<AlignmentRecord>builder(input)
+                 .withSchema(AlignmentRecord.getClassSchema())
+                 .withConf(conf)
+                 .withRowGroupSize(64 * 1024)
+                 .withPageSize(8 * 1024)
+                 .build()) {
+            for (AlignmentRecord record : records) {
+                writer.write(record);
+            }
+        }
+    }
+
+    private RegionParallelConversion<ReadAlignment> conversion(final int parallelism, final int chunks) {
+        return new RegionParallelConversion<ReadAlignment>(alignmentConverter, ConversionStringency.SILENT, logger, parallelism, chunks, 100);
+    }
+
+    private byte[] expected() throws Exception {
+        // placed records in input order, followed by unplaced records in input order
+        List<AlignmentRecord> placed = new ArrayList<AlignmentRecord>();
+        List<AlignmentRecord> unplaced = new ArrayList<AlignmentRecord>();
+        for (AlignmentRecord record : alignmentRecords) {
+            if (record.getContigName() == null || record.getStart() == null) {
+                unplaced.add(record);
+            }
+            else {
+                placed.add(record);
+            }
+        }
+        placed.addAll(unplaced);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new ConversionPipeline<AlignmentRecord, ReadAlignment>(alignmentConverter, ConversionStringency.SILENT, logger, 1, 100)
+            .run(placed.iterator(), expected);
+        return expected.toByteArray();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullConverter() {
+        new RegionParallelConversion<ReadAlignment>(null, ConversionStringency.SILENT, logger, 2, 8, 100);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidParallelism() {
+        new RegionParallelConversion<ReadAlignment>(alignmentConverter, ConversionStringency.SILENT, logger, 0, 8, 100);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidChunks() {
+        new RegionParallelConversion<ReadAlignment>(alignmentConverter, ConversionStringency.SILENT, logger, 2, 0, 100);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testRunNullInput() throws Exception {
+        conversion(2, 8).run(null, conf, output);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        write(alignmentRecords);
+        ConversionStatistics statistics = conversion(4, 16).run(input, conf, output);
+        assertEquals(5000L, statistics.getRecords() + statistics.getSkipped());
+        assertEquals(output.length(), statistics.getOutputBytes());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunSingleChunk() throws Exception {
+        write(alignmentRecords);
+        conversion(1, 1).run(input, conf, output);
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunManyChunks() throws Exception {
+        write(alignmentRecords);
+        ConversionStatistics statistics = conversion(3, 1000).run(input, conf, output);
+        assertEquals(5000L, statistics.getRecords() + statistics.getSkipped());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunSpanningChunkBoundary() throws Exception {
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sequence.append('A');
+        }
+        alignmentRecords = new ArrayList<AlignmentRecord>();
+        for (int i = 0; i < 100; i++) {
+            long start = CoordinateIndex.DEFAULT_BIN_SIZE * i + CoordinateIndex.DEFAULT_BIN_SIZE - 50L;
+            alignmentRecords.add(AlignmentRecord.newBuilder()
+                                 .setReadName("read" + i)
+                                 .setSequence(sequence.toString())
+                                 .setReadMapped(true)
+                                 .setContigName("1")
+                                 .setStart(start)
+                                 .setEnd(start + 100L)
+                                 .setCigar("100M")
+                                 .setMapq(60)
+                                 .build());
+        }
+        write(alignmentRecords);
+        ConversionStatistics statistics = conversion(4, 100).run(input, conf, output);
+        assertEquals(100L, statistics.getRecords());
+        assertArrayEquals(expected(), Files.readAllBytes(output.toPath()));
+    }
+
+    @Test
+    public void testRunEmpty() throws Exception {
+        write(Collections.<AlignmentRecord>emptyList());
+        ConversionStatistics statistics = conversion(2, 8).run(input, conf, output);
+        assertEquals(0L, statistics.getRecords());
+        assertEquals(0L, output.length());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRunNotSorted() throws Exception {
+        List<AlignmentRecord> reversed = new ArrayList<AlignmentRecord>(alignmentRecords);
+        Collections.reverse(reversed);
+        write(reversed);
+        conversion(2, 8).run(input, conf, output);
+    }
+
+    @Test
+    public void testRunRemovesChunkFiles() throws Exception {
+        write(alignmentRecords);
+        conversion(4, 16).run(input, conf, output);
+        for (File file : temporaryFolder.getRoot().listFiles()) {
+            assertTrue(file.getName(), !file.getName().endsWith(".chunk"));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for Sampling.
+ */
+public final class SamplingTest {
+    private List<AlignmentRecord> records;
+
+    @Before
+    public void setUp() {
+        records = new ArrayList<AlignmentRecord>();
+        for (int i = 0; i < 1000; i++) {
+            for (int mate = 0; mate < 2; mate++) {
+                records.add(AlignmentRecord.newBuilder()
+                            .setReadName("read" + i)
+                            .setReadMapped(i % 10 != 0)
+                            .setContigName(i % 2 == 0 ? "chr1" : "chr2")
+                            .setStart(i * 100L)
+                            .setEnd(i * 100L + 50L)
+                            .build());
+            }
+        }
+    }
+
+    private static List<AlignmentRecord> collect(final Iterator<AlignmentRecord> iterator) {
+        return ImmutableList.copyOf(iterator);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testFractionNullInput() {
+        Sampling.fraction(null, 0.5d, 42L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFractionOutOfRange() {
+        Sampling.fraction(records.iterator(), 1.5d, 42L);
+    }
+
+    @Test
+    public void testFractionBounds() {
+        assertTrue(collect(Sampling.fraction(records.iterator(), 0.0d, 42L)).isEmpty());
+        assertEquals(records.size(), collect(Sampling.fraction(records.iterator(), 1.0d, 42L)).size());
+    }
+
+    @Test
+    public void testFractionKeepsMatesTogether() {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (AlignmentRecord record : collect(Sampling.fraction(records.iterator(), 0.3d, 42L))) {
+            Integer count = counts.get(record.getReadName());
+            counts.put(record.getReadName(), count == null ? 1 : count + 1);
+        }
+        for (Integer count : counts.values()) {
+            assertEquals(2, count.intValue());
+        }
+        // 1000 fragments at 0.3, well within a few standard deviations
+        assertTrue(counts.size() > 230 && counts.size() < 370);
+    }
+
+    @Test
+    public void testFractionReproducible() {
+        List<AlignmentRecord> first = collect(Sampling.fraction(records.iterator(), 0.3d, 42L));
+        assertEquals(first, collect(Sampling.fraction(records.iterator(), 0.3d, 42L)));
+        assertFalse(first.equals(collect(Sampling.fraction(records.iterator(), 0.3d, 43L))));
+    }
+
+    @Test
+    public void testFractionNested() {
+        Set<AlignmentRecord> larger = new HashSet<AlignmentRecord>(collect(Sampling.fraction(records.iterator(), 0.5d, 42L)));
+        for (AlignmentRecord record : collect(Sampling.fraction(records.iterator(), 0.2d, 42L))) {
+            assertTrue(larger.contains(record));
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReservoirNegativeSize() {
+        Sampling.reservoir(records.iterator(), -1, 42L);
+    }
+
+    @Test
+    public void testReservoir() {
+        List<AlignmentRecord> sample = Sampling.reservoir(records.iterator(), 100, 42L);
+        assertEquals(100, sample.size());
+        assertEquals(sample, Sampling.reservoir(records.iterator(), 100, 42L));
+        assertFalse(sample.equals(Sampling.reservoir(records.iterator(), 100, 43L)));
+
+        // in input order
+        int last = -1;
+        for (AlignmentRecord record : sample) {
+            int index = records.indexOf(record);
+            assertTrue(index >= last);
+            last = index;
+        }
+    }
+
+    @Test
+    public void testReservoirSmallInput() {
+        assertEquals(records.subList(0, 10), Sampling.reservoir(records.subList(0, 10).iterator(), 100, 42L));
+        assertTrue(Sampling.reservoir(records.iterator(), 0, 42L).isEmpty());
+    }
+
+    @Test
+    public void testReservoirLargeSize() {
+        // reservoirs grow with the records offered, rather than being allocated at full size
+        assertEquals(records.subList(0, 10), Sampling.reservoir(records.subList(0, 10).iterator(), Integer.MAX_VALUE, 42L));
+        assertEquals(records, Sampling.reservoirByRegion(records.iterator(), Integer.MAX_VALUE, 1000L, 42L));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReservoirByRegionInvalidBinSize() {
+        Sampling.reservoirByRegion(records.iterator(), 10, 0L, 42L);
+    }
+
+    @Test
+    public void testReservoirByRegion() {
+        List<AlignmentRecord> sample = Sampling.reservoirByRegion(records.iterator(), 5, 10000L, 42L);
+        assertEquals(sample, Sampling.reservoirByRegion(records.iterator(), 5, 10000L, 42L));
+
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (AlignmentRecord record : sample) {
+            String region = Sampling.region(record, 10000L);
+            Integer count = counts.get(region);
+            counts.put(region, count == null ? 1 : count + 1);
+        }
+        // 100000 bp per contig in 10000 bp bins, plus unmapped
+        assertEquals(21, counts.size());
+        for (Integer count : counts.values()) {
+            assertEquals(5, count.intValue());
+        }
+    }
+
+    @Test
+    public void testRegion() {
+        assertEquals("chr2:1", Sampling.region(records.get(22), 1000L));
+        assertEquals(Sampling.UNMAPPED, Sampling.region(records.get(0), 1000L));
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.zip.CRC32;
+
+import ga4gh.Reads.CigarUnit;
+import ga4gh.Reads.ReadAlignment;
+
+import htsjdk.samtools.Cigar;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for ShardedReadAlignmentWriter.
+ */
+public final class ShardedReadAlignmentWriterTest {
+    private final Logger logger = LoggerFactory.getLogger(ShardedReadAlignmentWriterTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> alignmentConverter;
+    private File directory;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        Converter<Cigar, List<CigarUnit>> cigarConverter = new CigarToCigarUnits(new CigarOperatorToOperation());
+        alignmentConverter = new AlignmentRecordToReadAlignment(cigarConverter);
+        directory = temporaryFolder.newFolder();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullDirectory() throws Exception {
+        new ShardedReadAlignmentWriter(null, "shard", 4, Sharding.fragmentName());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSharding() throws Exception {
+        new ShardedReadAlignmentWriter(directory, "shard", 4, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidShardCount() throws Exception {
+        new ShardedReadAlignmentWriter(directory, "shard", 0, Sharding.fragmentName());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorMissingDirectory() throws Exception {
+        new ShardedReadAlignmentWriter(new File(directory, "missing"), "shard", 4, Sharding.fragmentName());
+    }
+
+    @Test
+    public void testConstructorShardNotOpened() throws Exception {
+        // shard-00002.pb cannot be opened for writing
+        assertTrue(new File(directory, "shard-00002.pb").mkdir());
+        try {
+            new ShardedReadAlignmentWriter(directory, "shard", 4, Sharding.fragmentName());
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            // expected
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName().startsWith("shard-writer-shard-"));
+        }
+        assertFalse(new File(directory, "shard-00000.pb").exists());
+        assertFalse(new File(directory, "shard-00001.pb").exists());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testGetShardsNotClosed() throws Exception {
+        try (ShardedReadAlignmentWriter writer = new ShardedReadAlignmentWriter(directory, "shard", 4, Sharding.fragmentName())) {
+            writer.getShards();
+        }
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        ShardedReadAlignmentWriter writer = new ShardedReadAlignmentWriter(directory, "shard", 2, Sharding.fragmentName());
+        writer.close();
+        assertEquals(2, writer.getShards().size());
+        for (ShardedReadAlignmentWriter.Shard shard : writer.getShards()) {
+            assertEquals(0L, shard.getRecords());
+            assertEquals(0L, shard.getBytes());
+            assertTrue(shard.getFile().exists());
+        }
+        assertTrue(writer.getManifest().exists());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        AlignmentRecordGenerator generator = new AlignmentRecordGenerator(42L).withReadLength(50, 50);
+        ShardedReadAlignmentWriter writer = new ShardedReadAlignmentWriter(directory, "shard", 4, Sharding.fragmentName(), 16);
+        for (int i = 0; i < 1000; i++) {
+            writer.write(alignmentConverter.convert(generator.next(), ConversionStringency.STRICT, logger));
+        }
+        writer.close();
+
+        List<ShardedReadAlignmentWriter.Shard> shards = writer.getShards();
+        assertEquals(4, shards.size());
+
+        long records = 0L;
+        Map<String, Integer> fragments = new HashMap<String, Integer>();
+        String manifest = new String(Files.readAllBytes(writer.getManifest().toPath()), StandardCharsets.UTF_8);
+        for (int i = 0; i < shards.size(); i++) {
+            ShardedReadAlignmentWriter.Shard shard = shards.get(i);
+            byte[] bytes = Files.readAllBytes(shard.getFile().toPath());
+            assertEquals(shard.getBytes(), bytes.length);
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(bytes);
+            assertEquals(shard.getChecksum(), crc32.getValue());
+            assertTrue(manifest.contains(String.format("\"crc32\": \"%08x\"", shard.getChecksum())));
+            assertTrue(manifest.contains("\"path\": \"" + shard.getFile().getName() + "\""));
+
+            long shardRecords = 0L;
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(shard.getFile()))) {
+                ReadAlignment readAlignment;
+                while ((readAlignment = ReadAlignment.parseDelimitedFrom(inputStream)) != null) {
+                    Integer previous = fragments.put(readAlignment.getFragmentName(), i);
+                    // mates land in the same shard
+                    assertTrue(previous == null || previous == i);
+                    shardRecords++;
+                }
+            }
+            assertEquals(shard.getRecords(), shardRecords);
+            assertTrue(shardRecords > 0L);
+            records += shardRecords;
+        }
+        assertEquals(1000L, records);
+    }
+}
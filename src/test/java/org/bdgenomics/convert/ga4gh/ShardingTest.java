@@ -0,0 +1,88 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.function.ToIntFunction;
+
+import ga4gh.Common.Position;
+
+import ga4gh.Reads.LinearAlignment;
+import ga4gh.Reads.ReadAlignment;
+
+import org.junit.Test;
+
+/**
+ * Unit test for Sharding.
+ */
+public final class ShardingTest {
+
+    private static ReadAlignment aligned(final String fragmentName, final String referenceName, final long position) {
+        return ReadAlignment.newBuilder()
+            .setFragmentName(fragmentName)
+            .setAlignment(LinearAlignment.newBuilder().setPosition(Position.newBuilder().setReferenceName(referenceName).setPosition(position)))
+            .build();
+    }
+
+    @Test
+    public void testHashStable() {
+        // FNV-1a 32-bit of the empty string is the offset basis
+        assertEquals(0x811c9dc5, Sharding.hash(0x811c9dc5, ""));
+        // characters are hashed as UTF-16LE bytes
+        assertEquals(0x2b24d044, Sharding.hash(0x811c9dc5, "a"));
+    }
+
+    @Test
+    public void testFragmentName() {
+        ToIntFunction<ReadAlignment> sharding = Sharding.fragmentName();
+        assertEquals(sharding.applyAsInt(aligned("read0", "chr1", 100L)), sharding.applyAsInt(aligned("read0", "chr2", 5000L)));
+        assertNotEquals(sharding.applyAsInt(aligned("read0", "chr1", 100L)), sharding.applyAsInt(aligned("read1", "chr1", 100L)));
+    }
+
+    @Test
+    public void testRegion() {
+        ToIntFunction<ReadAlignment> sharding = Sharding.region(1000L);
+        assertEquals(sharding.applyAsInt(aligned("read0", "chr1", 100L)), sharding.applyAsInt(aligned("read1", "chr1", 999L)));
+        assertNotEquals(sharding.applyAsInt(aligned("read0", "chr1", 100L)), sharding.applyAsInt(aligned("read0", "chr1", 1000L)));
+        assertNotEquals(sharding.applyAsInt(aligned("read0", "chr1", 100L)), sharding.applyAsInt(aligned("read0", "chr2", 100L)));
+    }
+
+    @Test
+    public void testRegionUnalignedWithMate() {
+        ToIntFunction<ReadAlignment> sharding = Sharding.region(1000L);
+        ReadAlignment unaligned = ReadAlignment.newBuilder()
+            .setFragmentName("read0")
+            .setNextMatePosition(Position.newBuilder().setReferenceName("chr1").setPosition(500L))
+            .build();
+        assertEquals(sharding.applyAsInt(aligned("read0", "chr1", 100L)), sharding.applyAsInt(unaligned));
+    }
+
+    @Test
+    public void testRegionUnaligned() {
+        ToIntFunction<ReadAlignment> sharding = Sharding.region(1000L);
+        ReadAlignment unaligned = ReadAlignment.newBuilder().setFragmentName("read0").build();
+        assertEquals(Sharding.fragmentName().applyAsInt(unaligned), sharding.applyAsInt(unaligned));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRegionInvalidBinSize() {
+        Sharding.region(0L);
+    }
+}
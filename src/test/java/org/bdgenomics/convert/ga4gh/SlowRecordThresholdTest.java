@@ -0,0 +1,66 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for SlowRecordThreshold.
+ */
+public final class SlowRecordThresholdTest {
+
+    @After
+    public void tearDown() {
+        SlowRecordThreshold.set(SlowRecordThreshold.DEFAULT_THRESHOLD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testDefault() {
+        assertEquals(SlowRecordThreshold.DEFAULT_THRESHOLD_MILLIS, SlowRecordThreshold.get(TimeUnit.MILLISECONDS));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(SlowRecordThreshold.DEFAULT_THRESHOLD_MILLIS), SlowRecordThreshold.nanos());
+    }
+
+    @Test
+    public void testSet() {
+        SlowRecordThreshold.set(250L, TimeUnit.MICROSECONDS);
+        assertEquals(250000L, SlowRecordThreshold.nanos());
+        assertEquals(250L, SlowRecordThreshold.get(TimeUnit.MICROSECONDS));
+        SlowRecordThreshold.set(0L, TimeUnit.NANOSECONDS);
+        assertEquals(0L, SlowRecordThreshold.nanos());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSetNegative() {
+        SlowRecordThreshold.set(-1L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testSetNullUnit() {
+        SlowRecordThreshold.set(1L, null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testGetNullUnit() {
+        SlowRecordThreshold.get(null);
+    }
+}
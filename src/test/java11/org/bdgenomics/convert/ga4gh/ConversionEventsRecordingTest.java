@@ -0,0 +1,222 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import ga4gh.Reads.ReadAlignment;
+
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for the Java 11 implementation of ConversionEvents, against a JDK Flight Recorder recording.
+ */
+public final class ConversionEventsRecordingTest {
+    private static final String BATCH = "org.bdgenomics.convert.ga4gh.ConversionBatch";
+    private static final String SLOW_RECORD = "org.bdgenomics.convert.ga4gh.SlowRecord";
+    private static final String WARNING = "org.bdgenomics.convert.ga4gh.StringencyWarning";
+    private final Logger logger = LoggerFactory.getLogger(ConversionEventsRecordingTest.class);
+    private Converter<AlignmentRecord, ReadAlignment> converter;
+    private List<AlignmentRecord> records;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        converter = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+        records = Arrays.asList(record("read0", "10M"), record("read1", "2S8M"), record("read2", "3M1I3M1D3M"));
+    }
+
+    @After
+    public void tearDown() {
+        SlowRecordThreshold.set(SlowRecordThreshold.DEFAULT_THRESHOLD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static AlignmentRecord record(final String readName, final String cigar) {
+        return AlignmentRecord.newBuilder()
+            .setReadName(readName)
+            .setStart(10L)
+            .setReadMapped(true)
+            .setCigar(cigar)
+            .setSequence("AAAAAAAAAA")
+            .setQual("**********")
+            .setReadNegativeStrand(false)
+            .setMapq(60)
+            .setRecordGroupName("rg1")
+            .setContigName("myCtg")
+            .setDuplicateRead(false)
+            .setFailedVendorQualityChecks(false)
+            .setSecondaryAlignment(false)
+            .setSupplementaryAlignment(false)
+            .setReadPaired(false)
+            .build();
+    }
+
+    private List<RecordedEvent> record(final ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline,
+                                       final ByteArrayOutputStream outputStream) throws IOException {
+        Path path = temporaryFolder.newFile().toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(BATCH);
+            recording.enable(SLOW_RECORD);
+            recording.enable(WARNING);
+            recording.start();
+            pipeline.run(records.iterator(), outputStream);
+            recording.stop();
+            recording.dump(path);
+        }
+        return RecordingFile.readAllEvents(path);
+    }
+
+    private static List<RecordedEvent> events(final List<RecordedEvent> events, final String name) {
+        List<RecordedEvent> matching = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (name.equals(event.getEventType().getName())) {
+                matching.add(event);
+            }
+        }
+        return matching;
+    }
+
+    @Test
+    public void testRecording() {
+        try (Recording recording = new Recording()) {
+            recording.enable(BATCH);
+            recording.enable(SLOW_RECORD);
+            recording.enable(WARNING);
+            recording.start();
+            assertTrue(ConversionEvents.isWarningEnabled());
+            assertNotNull(ConversionEvents.beginBatch());
+            assertNotEquals(ConversionEvents.UNTIMED, ConversionEvents.beginRecord());
+        }
+        assertFalse(ConversionEvents.isWarningEnabled());
+        assertNull(ConversionEvents.beginBatch());
+        assertEquals(ConversionEvents.UNTIMED, ConversionEvents.beginRecord());
+    }
+
+    @Test
+    public void testBatchEvents() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(converter, ConversionStringency.STRICT, logger, 1, 2);
+        List<RecordedEvent> batches = events(record(pipeline, outputStream), BATCH);
+
+        long convertRecords = 0L;
+        long convertBytes = 0L;
+        long writeRecords = 0L;
+        long writeBytes = 0L;
+        for (RecordedEvent batch : batches) {
+            assertEquals(0L, batch.getLong("skipped"));
+            if ("convert".equals(batch.getString("stage"))) {
+                convertRecords += batch.getLong("records");
+                convertBytes += batch.getLong("bytes");
+            }
+            else {
+                assertEquals("write", batch.getString("stage"));
+                writeRecords += batch.getLong("records");
+                writeBytes += batch.getLong("bytes");
+            }
+        }
+        // two full or partial batches per stage
+        assertEquals(4, batches.size());
+        assertEquals(3L, convertRecords);
+        assertEquals(3L, writeRecords);
+        assertEquals(outputStream.size(), convertBytes);
+        assertEquals(outputStream.size(), writeBytes);
+    }
+
+    @Test
+    public void testSlowRecordEvents() throws IOException {
+        SlowRecordThreshold.set(0L, TimeUnit.NANOSECONDS);
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(converter, ConversionStringency.STRICT, logger, 1, 2);
+        List<RecordedEvent> slowRecords = events(record(pipeline, new ByteArrayOutputStream()), SLOW_RECORD);
+
+        List<String> recorded = new ArrayList<String>();
+        for (RecordedEvent slowRecord : slowRecords) {
+            assertEquals("AlignmentRecordToReadAlignment", slowRecord.getString("converter"));
+            assertEquals(Duration.ZERO, slowRecord.getDuration("threshold"));
+            assertTrue(slowRecord.getDuration("elapsed").toNanos() >= 0L);
+            recorded.add(slowRecord.getString("readName") + " " + slowRecord.getInt("cigarLength"));
+        }
+        Collections.sort(recorded);
+        assertEquals(Arrays.asList("read0 1", "read1 2", "read2 5"), recorded);
+    }
+
+    @Test
+    public void testSlowRecordEventsAboveThreshold() throws IOException {
+        SlowRecordThreshold.set(1L, TimeUnit.HOURS);
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(converter, ConversionStringency.STRICT, logger, 1, 2);
+        assertTrue(events(record(pipeline, new ByteArrayOutputStream()), SLOW_RECORD).isEmpty());
+    }
+
+    @Test
+    public void testStringencyWarningEvents() throws IOException {
+        records = Arrays.asList(record("read0", "10M"), record("read1", "10Z"));
+        ConversionPipeline<AlignmentRecord, ReadAlignment> pipeline = new ConversionPipeline<AlignmentRecord, ReadAlignment>(converter, ConversionStringency.SILENT, logger, 1, 2);
+        List<RecordedEvent> warnings = events(record(pipeline, new ByteArrayOutputStream()), WARNING);
+
+        assertEquals(1, warnings.size());
+        assertEquals("AlignmentRecordToReadAlignment", warnings.get(0).getString("converter"));
+        assertEquals("SILENT", warnings.get(0).getString("stringency"));
+        assertTrue(warnings.get(0).getString("message").startsWith("could not decode cigar"));
+    }
+
+    @Test
+    public void testCigarLength() {
+        assertEquals(0, ConversionEvents.cigarLength(null));
+        assertEquals(0, ConversionEvents.cigarLength("*"));
+        assertEquals(1, ConversionEvents.cigarLength("10M"));
+        assertEquals(5, ConversionEvents.cigarLength("3M1I3M1D3M"));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to Big Data Genomics (BDG) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The BDG licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bdgenomics.convert.ga4gh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ga4gh.Reads.ReadAlignment;
+
+import org.apache.avro.file.CodecFactory;
+
+import org.bdgenomics.convert.AbstractConverter;
+import org.bdgenomics.convert.ConversionStringency;
+import org.bdgenomics.convert.Converter;
+
+import org.bdgenomics.formats.avro.AlignmentRecord;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test for the Java 21 implementation of TaskExecutors.
+ */
+public final class TaskExecutorsTest {
+    private final Logger logger = LoggerFactory.getLogger(TaskExecutorsTest.class);
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testIsVirtual() {
+        assertTrue(TaskExecutors.isVirtual());
+    }
+
+    @Test
+    public void testNewTaskExecutorRunsOnVirtualThreads() throws Exception {
+        ExecutorService executorService = TaskExecutors.newTaskExecutor(1);
+        try {
+            Future<Boolean> virtual = executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return Thread.currentThread().isVirtual();
+                    }
+                });
+            assertTrue(virtual.get(10L, TimeUnit.SECONDS));
+        }
+        finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testNewTaskExecutorManyBlockedTasks() throws Exception {
+        int tasks = 10000;
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = TaskExecutors.newTaskExecutor(1);
+        try {
+            for (int i = 0; i < tasks; i++) {
+                executorService.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws InterruptedException {
+                            started.countDown();
+                            release.await();
+                            return null;
+                        }
+                    });
+            }
+            // every task blocks at once, far more than a platform thread pool would hold
+            assertTrue(started.await(30L, TimeUnit.SECONDS));
+        }
+        finally {
+            release.countDown();
+            executorService.shutdown();
+        }
+        assertTrue(executorService.awaitTermination(30L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMultiFileConversionOnVirtualThreads() throws IOException {
+        AtomicBoolean platform = new AtomicBoolean();
+        Converter<AlignmentRecord, ReadAlignment> delegate = new AlignmentRecordToReadAlignment(new CigarToCigarUnits(new CigarOperatorToOperation()));
+        Converter<AlignmentRecord, ReadAlignment> converter = new AbstractConverter<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, ReadAlignment.class) {
+            @Override
+            public ReadAlignment convert(final AlignmentRecord alignmentRecord, final ConversionStringency stringency, final Logger logger) {
+                if (!Thread.currentThread().isVirtual()) {
+                    platform.set(true);
+                }
+                return delegate.convert(alignmentRecord, stringency, logger);
+            }
+        };
+
+        File inputDirectory = temporaryFolder.newFolder("input");
+        List<File> inputs = new ArrayList<File>();
+        for (int i = 0; i < 8; i++) {
+            File input = new File(inputDirectory, "sample" + i + ".alignments.avro");
+            new AlignmentRecordGenerator(i).write(input, 10, CodecFactory.nullCodec());
+            inputs.add(input);
+        }
+        MultiFileConversion<AlignmentRecord, ReadAlignment> conversion = new MultiFileConversion<AlignmentRecord, ReadAlignment>(AlignmentRecord.class, converter, ConversionStringency.STRICT, logger, 4, 4);
+        MultiFileConversion.Progress progress = conversion.run(inputs, temporaryFolder.newFolder("output"));
+
+        assertEquals(8, progress.getCompletedFiles());
+        assertEquals(80, progress.getRecords());
+        assertEquals(progress.getTotalInputBytes(), progress.getInputBytes());
+        assertFalse(platform.get());
+    }
+}